@@ -0,0 +1,21 @@
+package org.example.config;
+
+import io.lettuce.core.metrics.MicrometerOptions;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Lettuce records every Redis command ({@code lettuce.command.completion} and {@code lettuce.command.firstresponse},
+     * tagged with {@code command}); publish the same percentiles as the application timers plus histogram buckets.
+     */
+    @Bean
+    public MicrometerOptions micrometerOptions() {
+        return MicrometerOptions.builder()
+                .histogram(true)
+                .targetPercentiles(new double[]{0.5, 0.99, 0.999})
+                .build();
+    }
+}
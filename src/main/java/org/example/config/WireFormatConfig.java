@@ -0,0 +1,37 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.serializer.SensorDataHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary wire formats. Request bodies of readings go through {@link SensorDataHttpMessageConverter}; every other
+ * body and all responses are negotiated between JSON, CBOR ({@code Accept: application/cbor}) and Smile
+ * ({@code Accept: application/x-jackson-smile}) with the same Jackson settings as JSON.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public SensorDataHttpMessageConverter sensorDataHttpMessageConverter() {
+        return new SensorDataHttpMessageConverter();
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.factory(new SmileFactory()).build();
+        return new MappingJackson2SmileHttpMessageConverter(objectMapper);
+    }
+}
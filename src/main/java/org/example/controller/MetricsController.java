@@ -19,7 +19,22 @@ public class MetricsController {
     }
 
     @GetMapping("/throughput")
-    public ResponseEntity<Map<String, Long>> getThroughput() {
+    public ResponseEntity<Map<String, Number>> getThroughput() {
         return ResponseEntity.ok(metricsService.getThroughput());
     }
+
+    @GetMapping("/ingestion-buffer")
+    public ResponseEntity<Map<String, Object>> getIngestionBufferStats() {
+        return ResponseEntity.ok(metricsService.getIngestionBufferStats());
+    }
+
+    @GetMapping("/latest-cache")
+    public ResponseEntity<Map<String, Object>> getLatestReadingCacheStats() {
+        return ResponseEntity.ok(metricsService.getLatestReadingCacheStats());
+    }
+
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, Map<String, Number>>> getLatencyPercentiles() {
+        return ResponseEntity.ok(metricsService.getLatencyPercentiles());
+    }
 }
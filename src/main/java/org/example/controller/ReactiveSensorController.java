@@ -0,0 +1,74 @@
+package org.example.controller;
+
+import org.example.model.SensorData;
+import org.example.service.IngestionBuffer;
+import org.example.service.IngestionStreamQueue;
+import org.example.service.ReactiveSensorService;
+import org.example.service.SensorDataValidator;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The ingest and query endpoints of {@link SensorController} served by {@link ReactiveSensorService}. The request
+ * is suspended (async servlet) while Redis answers instead of holding a request thread.
+ */
+@RestController
+@RequestMapping("/api/v1/reactive/sensors")
+public class ReactiveSensorController {
+
+    private final ReactiveSensorService reactiveSensorService;
+    private final IngestionBuffer ingestionBuffer;
+    private final IngestionStreamQueue ingestionStreamQueue;
+    private final SensorDataValidator sensorDataValidator;
+
+    public ReactiveSensorController(ReactiveSensorService reactiveSensorService, IngestionBuffer ingestionBuffer,
+                                    IngestionStreamQueue ingestionStreamQueue, SensorDataValidator sensorDataValidator) {
+        this.reactiveSensorService = reactiveSensorService;
+        this.ingestionBuffer = ingestionBuffer;
+        this.ingestionStreamQueue = ingestionStreamQueue;
+        this.sensorDataValidator = sensorDataValidator;
+    }
+
+    @PostMapping("/data")
+    public Mono<ResponseEntity<Void>> ingestData(@RequestBody SensorData data) {
+        sensorDataValidator.check(data);
+        ingestionStreamQueue.checkCapacity(1);
+        if (ingestionBuffer.isEnabled()) {
+            ingestionBuffer.enqueue(data);
+            return Mono.just(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+        }
+        return reactiveSensorService.ingestData(data)
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).build());
+    }
+
+    @GetMapping("/{sensor_id}/data")
+    public Mono<ResponseEntity<SensorData>> getLatestReading(@PathVariable("sensor_id") String sensorId) {
+        if (sensorId == null || sensorId.trim().isEmpty()) {
+             throw new IllegalArgumentException("Sensor ID cannot be empty");
+        }
+        return reactiveSensorService.getLatestReading(sensorId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{sensor_id}/data/range")
+    public Mono<ResponseEntity<List<SensorData>>> getReadingsInRange(
+            @PathVariable("sensor_id") String sensorId,
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+
+        if (sensorId == null || sensorId.trim().isEmpty()) {
+             throw new IllegalArgumentException("Sensor ID cannot be empty");
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start time cannot be after End time");
+        }
+        return reactiveSensorService.getReadingsInRange(sensorId, start, end).map(ResponseEntity::ok);
+    }
+}
@@ -1,24 +1,151 @@
 package org.example.controller;
 
-import org.example.model.ScalingRecommendation;
+import jakarta.annotation.PreDestroy;
+import org.example.model.ScalingReplayReport;
+import org.example.model.ScalingReplayRequest;
+import org.example.model.ScalingWhatIfReport;
+import org.example.model.ScalingWhatIfRequest;
 import org.example.service.ScalingService;
+import org.example.service.ScalingService.RecommendationSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/v1/scaling")
 public class ScalingController {
 
     private final ScalingService scalingService;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(daemonThreads());
+    private final AtomicReference<RecommendationSnapshot> unpublished = new AtomicReference<>();
+
+    @Value("${scaling.recommendation.stream-timeout:30m}")
+    private Duration streamTimeout;
 
     public ScalingController(ScalingService scalingService) {
         this.scalingService = scalingService;
+        scalingService.addListener(this::publish);
+    }
+
+    /**
+     * Serves the precomputed recommendation; {@code 304} when {@code If-None-Match} matches its ETag.
+     */
+    @GetMapping(value = "/recommendation", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getScalingRecommendation(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        RecommendationSnapshot snapshot = scalingService.getRecommendationSnapshot();
+        if (matches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
+
+    /**
+     * Server-sent events: the current recommendation on subscribe, then every change, as {@code recommendation}
+     * events whose ID is the ETag.
+     */
+    @GetMapping(value = "/recommendation/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendations() {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        send(emitter, scalingService.getRecommendationSnapshot());
+        return emitter;
+    }
+
+    @PostMapping("/replay")
+    public ResponseEntity<ScalingReplayReport> replay(@RequestBody ScalingReplayRequest request) {
+        return ResponseEntity.ok(scalingService.replay(request));
+    }
+
+    @PostMapping("/what-if")
+    public ResponseEntity<ScalingWhatIfReport> whatIf(@RequestBody ScalingWhatIfRequest request) {
+        return ResponseEntity.ok(scalingService.whatIf(request));
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.shutdownNow();
+    }
+
+    /**
+     * Called on the scheduler thread that refreshed the recommendation, so it only hands the snapshot to the
+     * publisher thread; slow clients delay later events, never the scheduled jobs. Snapshots arriving while a
+     * fan-out is queued replace each other, so subscribers get the latest one rather than a backlog.
+     */
+    private void publish(RecommendationSnapshot snapshot) {
+        if (unpublished.getAndSet(snapshot) != null) {
+            return;
+        }
+        try {
+            publisher.execute(() -> {
+                RecommendationSnapshot latest = unpublished.getAndSet(null);
+                for (SseEmitter emitter : subscribers) {
+                    send(emitter, latest);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down.
+        }
+    }
+
+    private void send(SseEmitter emitter, RecommendationSnapshot snapshot) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("recommendation")
+                    .id(snapshot.etag())
+                    .data(new String(snapshot.json(), StandardCharsets.UTF_8), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; drop it.
+            subscribers.remove(emitter);
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("scaling-sse-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
     }
 
-    @GetMapping("/recommendation")
-    public ResponseEntity<ScalingRecommendation> getScalingRecommendation() {
-        return ResponseEntity.ok(scalingService.getScalingRecommendation());
+    /**
+     * Weak comparison, as If-None-Match requires.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,38 @@
+package org.example.controller;
+
+import org.example.model.SensorSchema;
+import org.example.service.SensorSchemaRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/schemas")
+public class SchemaController {
+
+    private final SensorSchemaRegistry schemaRegistry;
+
+    public SchemaController(SensorSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @PostMapping
+    public ResponseEntity<SensorSchema> registerSchema(@RequestBody SensorSchema schema) {
+        return ResponseEntity.ok(schemaRegistry.register(schema));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SensorSchema>> listSchemas() {
+        return ResponseEntity.ok(schemaRegistry.getSchemas());
+    }
+
+    @GetMapping("/{schema_id}")
+    public ResponseEntity<SensorSchema> getSchema(@PathVariable("schema_id") int schemaId) {
+        SensorSchema schema = schemaRegistry.getSchema(schemaId);
+        if (schema != null) {
+            return ResponseEntity.ok(schema);
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -1,33 +1,144 @@
 package org.example.controller;
 
-import jakarta.validation.Valid;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.AggregationResult;
+import org.example.model.BatchIngestResult;
+import org.example.model.BulkLatestRequest;
+import org.example.model.ReadingsPage;
 import org.example.model.SensorData;
+import org.example.model.SensorPage;
+import org.example.serializer.SensorDataHttpMessageConverter;
+import org.example.serializer.SensorDataReader;
+import org.example.service.AggregationService;
+import org.example.service.IngestionBuffer;
+import org.example.service.IngestionStreamQueue;
+import org.example.service.SensorDataValidator;
 import org.example.service.SensorService;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 @RestController
 @RequestMapping("/api/v1/sensors")
 public class SensorController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
     private final SensorService sensorService;
+    private final IngestionBuffer ingestionBuffer;
+    private final AggregationService aggregationService;
+    private final IngestionStreamQueue ingestionStreamQueue;
+    private final SensorDataValidator sensorDataValidator;
+    private final ObjectMapper objectMapper;
+    private final SensorDataReader sensorDataReader = new SensorDataReader();
 
-    public SensorController(SensorService sensorService) {
+    public SensorController(SensorService sensorService, IngestionBuffer ingestionBuffer, AggregationService aggregationService,
+                            IngestionStreamQueue ingestionStreamQueue, SensorDataValidator sensorDataValidator,
+                            ObjectMapper objectMapper) {
         this.sensorService = sensorService;
+        this.ingestionBuffer = ingestionBuffer;
+        this.aggregationService = aggregationService;
+        this.ingestionStreamQueue = ingestionStreamQueue;
+        this.sensorDataValidator = sensorDataValidator;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Accepts JSON, CBOR and Smile bodies, parsed by {@link SensorDataHttpMessageConverter}.
+     */
     @PostMapping("/data")
-    public ResponseEntity<Void> ingestData(@Valid @RequestBody SensorData data) {
+    public ResponseEntity<Void> ingestData(@RequestBody SensorData data) {
+        sensorDataValidator.check(data);
+        ingestionStreamQueue.checkCapacity(1);
+        if (ingestionBuffer.isEnabled()) {
+            ingestionBuffer.enqueue(data);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
         sensorService.ingestData(data);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    @PostMapping(value = "/data/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            APPLICATION_SMILE})
+    public ResponseEntity<BatchIngestResult> ingestBatch(@RequestBody List<SensorData> batch) {
+        return ingest(batch);
+    }
+
+    @PostMapping(value = "/data/batch", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<BatchIngestResult> ingestBatchNdjson(@RequestBody String body) {
+        List<SensorData> batch = new ArrayList<>();
+        for (String line : body.split("\\r?\\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+                batch.add(sensorDataReader.read(parser));
+            } catch (JsonProcessingException e) {
+                batch.add(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ingest(batch);
+    }
+
+    private ResponseEntity<BatchIngestResult> ingest(List<SensorData> batch) {
+        ingestionStreamQueue.checkCapacity(batch.size());
+        if (ingestionBuffer.isEnabled()) {
+            return toBatchResponse(ingestionBuffer.enqueueBatch(batch), HttpStatus.ACCEPTED);
+        }
+        return toBatchResponse(sensorService.ingestBatch(batch), HttpStatus.CREATED);
+    }
+
+    private ResponseEntity<BatchIngestResult> toBatchResponse(BatchIngestResult result, HttpStatus successStatus) {
+        if (result.getRejected() == 0) {
+            return ResponseEntity.status(successStatus).body(result);
+        }
+        if (result.getAccepted() == 0) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(result);
+    }
+
+    @PostMapping(value = "/latest", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> getLatestReadings(@RequestBody BulkLatestRequest request) {
+        boolean hasIds = request.getSensorIds() != null && !request.getSensorIds().isEmpty();
+        boolean hasPattern = request.getPattern() != null && !request.getPattern().isBlank();
+        if (hasIds == hasPattern) {
+            throw new IllegalArgumentException("Exactly one of sensor_ids or pattern is required");
+        }
+
+        StreamingResponseBody body = out -> {
+            Predicate<SensorData> writer = ndjsonWriter(out);
+            if (hasIds) {
+                sensorService.streamLatestReadings(request.getSensorIds().iterator(), writer);
+            } else {
+                sensorService.streamLatestReadings(request.getPattern(), writer);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
     @GetMapping("/{sensor_id}/data")
     public ResponseEntity<SensorData> getLatestReading(@PathVariable("sensor_id") String sensorId) {
         if (sensorId == null || sensorId.trim().isEmpty()) {
@@ -45,19 +156,86 @@ public class SensorController {
             @PathVariable("sensor_id") String sensorId,
             @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
             @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
-        
+
+        validateRange(sensorId, start, end);
+        return ResponseEntity.ok(sensorService.getReadingsInRange(sensorId, start, end));
+    }
+
+    @GetMapping("/{sensor_id}/data/range/page")
+    public ResponseEntity<ReadingsPage> getReadingsPage(
+            @PathVariable("sensor_id") String sensorId,
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+
+        validateRange(sensorId, start, end);
+        return ResponseEntity.ok(sensorService.getReadingsPage(sensorId, start, end, cursor, limit));
+    }
+
+    @GetMapping(value = "/{sensor_id}/data/range/stream", produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamReadingsInRange(
+            @PathVariable("sensor_id") String sensorId,
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end) {
+
+        validateRange(sensorId, start, end);
+        StreamingResponseBody body = out -> sensorService.streamReadingsInRange(sensorId, start, end, ndjsonWriter(out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/{sensor_id}/data/aggregate")
+    public ResponseEntity<AggregationResult> aggregateReadings(
+            @PathVariable("sensor_id") String sensorId,
+            @RequestParam("start") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam("end") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam("step") String step,
+            @RequestParam(value = "aggregations", defaultValue = "min,max,avg,count") List<String> aggregations,
+            @RequestParam(value = "readings", required = false) List<String> readings,
+            @RequestParam(value = "source", defaultValue = "auto") String source) {
+
+        validateRange(sensorId, start, end);
+        if (!List.of("auto", "raw", "rollup").contains(source)) {
+            throw new IllegalArgumentException("Source must be one of auto, raw, rollup");
+        }
+        Set<String> readingNames = readings == null ? Set.of() : new HashSet<>(readings);
+        return ResponseEntity.ok(aggregationService.aggregate(sensorId, start, end, DurationStyle.detectAndParse(step),
+                aggregations, readingNames, source));
+    }
+
+    private Predicate<SensorData> ndjsonWriter(OutputStream out) {
+        return data -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(data));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        };
+    }
+
+    private void validateRange(String sensorId, Instant start, Instant end) {
         if (sensorId == null || sensorId.trim().isEmpty()) {
              throw new IllegalArgumentException("Sensor ID cannot be empty");
         }
         if (start.isAfter(end)) {
             throw new IllegalArgumentException("Start time cannot be after End time");
         }
-
-        return ResponseEntity.ok(sensorService.getReadingsInRange(sensorId, start, end));
     }
 
     @GetMapping
-    public ResponseEntity<Set<Object>> listSensors() {
-        return ResponseEntity.ok(sensorService.getAllSensors());
+    public ResponseEntity<SensorPage> listSensors(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "count", defaultValue = "1000") int count,
+            @RequestParam(value = "prefix", required = false) String prefix) {
+        return ResponseEntity.ok(sensorService.getSensors(cursor, count, prefix));
+    }
+
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Long>> countSensors() {
+        return ResponseEntity.ok(Map.of("count", sensorService.countSensors()));
     }
 }
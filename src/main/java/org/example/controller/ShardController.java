@@ -0,0 +1,49 @@
+package org.example.controller;
+
+import org.example.model.ShardRebalanceReport;
+import org.example.sharding.ShardRebalancer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/shards")
+public class ShardController {
+
+    private final ShardRebalancer shardRebalancer;
+
+    public ShardController(ShardRebalancer shardRebalancer) {
+        this.shardRebalancer = shardRebalancer;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getShards() {
+        return ResponseEntity.ok(shardRebalancer.getShardStats());
+    }
+
+    /**
+     * Starts moving sensor data to its owning shard after the node list changed and returns {@code 202} with the
+     * initial status, which {@code GET /rebalance} then follows; {@code 409} while another run is active.
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceReport> rebalance() {
+        ShardRebalanceReport report = shardRebalancer.start();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/v1/shards/rebalance")).body(report);
+    }
+
+    /**
+     * Status of the latest rebalance; {@code 404} when none has run.
+     */
+    @GetMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceReport> getRebalanceStatus() {
+        ShardRebalanceReport report = shardRebalancer.getStatus();
+        return report == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(report);
+    }
+}
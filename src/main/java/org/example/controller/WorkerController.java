@@ -1,6 +1,9 @@
 package org.example.controller;
 
+import org.example.model.AckRequest;
+import org.example.model.WorkBatch;
 import org.example.model.Worker;
+import org.example.service.IngestionStreamQueue;
 import org.example.service.WorkerService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,9 +16,11 @@ import java.util.Map;
 public class WorkerController {
 
     private final WorkerService workerService;
+    private final IngestionStreamQueue ingestionStreamQueue;
 
-    public WorkerController(WorkerService workerService) {
+    public WorkerController(WorkerService workerService, IngestionStreamQueue ingestionStreamQueue) {
         this.workerService = workerService;
+        this.ingestionStreamQueue = ingestionStreamQueue;
     }
 
     @GetMapping
@@ -38,15 +43,53 @@ public class WorkerController {
     }
 
     @PutMapping("/{worker_id}/health")
-    public ResponseEntity<Worker> updateHealth(@PathVariable("worker_id") String workerId, @RequestBody Map<String, Long> payload) {
+    public ResponseEntity<Worker> updateHealth(
+            @PathVariable("worker_id") String workerId,
+            @RequestBody Map<String, Long> payload,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         if (workerId == null || workerId.trim().isEmpty()) {
              throw new IllegalArgumentException("Worker ID cannot be empty");
         }
         Long processedCount = payload.getOrDefault("processed_count", 0L);
+        if (prefer != null && prefer.contains("return=minimal")) {
+            // Heartbeats are the most frequent call; skip reading the worker back.
+            if (workerService.recordHeartbeat(workerId, processedCount)) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.notFound().build();
+        }
         Worker worker = workerService.updateHealth(workerId, processedCount);
         if (worker != null) {
             return ResponseEntity.ok(worker);
         }
         return ResponseEntity.notFound().build();
     }
+
+    @PostMapping("/{worker_id}/poll")
+    public ResponseEntity<WorkBatch> poll(
+            @PathVariable("worker_id") String workerId,
+            @RequestParam(value = "count", defaultValue = "100") int count,
+            @RequestParam(value = "block_ms", defaultValue = "0") long blockMillis) {
+        if (workerId == null || workerId.trim().isEmpty()) {
+             throw new IllegalArgumentException("Worker ID cannot be empty");
+        }
+        if (!ingestionStreamQueue.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ingestionStreamQueue.poll(workerId, count, blockMillis));
+    }
+
+    @PostMapping("/{worker_id}/ack")
+    public ResponseEntity<Map<String, Long>> acknowledge(@PathVariable("worker_id") String workerId, @RequestBody AckRequest request) {
+        if (workerId == null || workerId.trim().isEmpty()) {
+             throw new IllegalArgumentException("Worker ID cannot be empty");
+        }
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new IllegalArgumentException("ids cannot be empty");
+        }
+        if (!ingestionStreamQueue.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("acknowledged", ingestionStreamQueue.acknowledge(request.getIds())));
+    }
 }
@@ -0,0 +1,13 @@
+package org.example.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IngestionBackpressureException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public IngestionBackpressureException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
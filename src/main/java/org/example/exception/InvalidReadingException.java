@@ -0,0 +1,15 @@
+package org.example.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class InvalidReadingException extends RuntimeException {
+    private final List<String> violations;
+
+    public InvalidReadingException(List<String> violations) {
+        super("Validation Failed");
+        this.violations = violations;
+    }
+}
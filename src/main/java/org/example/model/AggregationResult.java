@@ -0,0 +1,34 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AggregationResult {
+    @JsonProperty("sensor_id")
+    private String sensorId;
+
+    @JsonProperty("step_ms")
+    private long stepMillis;
+
+    private String source;
+
+    private List<Bucket> buckets;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private Instant start;
+
+        private Map<String, Map<String, Number>> readings;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchIngestResult {
+    private int accepted;
+
+    private int rejected;
+
+    private List<ItemResult> results = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+        private int index;
+
+        @JsonProperty("sensor_id")
+        private String sensorId;
+
+        private String status;
+
+        private String error;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkLatestRequest {
+    @JsonProperty("sensor_ids")
+    private List<String> sensorIds;
+
+    /**
+     * Glob over sensor IDs (e.g. {@code building-7-*}); used when {@code sensor_ids} is not given.
+     */
+    private String pattern;
+}
@@ -0,0 +1,18 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadingsPage {
+    private List<SensorData> items;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -22,4 +22,21 @@ public class ScalingRecommendation {
     private int recommendedWorkers;
     
     private String reason;
+
+    @JsonProperty("queue_backlog")
+    private long queueBacklog;
+
+    private String policy;
+
+    /**
+     * Load in messages per second the policy sized the workers for (a forecast for the forecasting policies).
+     */
+    @JsonProperty("planned_load")
+    private long plannedLoad;
+
+    /**
+     * Messages per second one worker was taken to process, measured or configured.
+     */
+    @JsonProperty("worker_capacity")
+    private long workerCapacity;
 }
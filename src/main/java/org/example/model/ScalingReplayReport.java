@@ -0,0 +1,44 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScalingReplayReport {
+    private String policy;
+
+    private int samples;
+
+    @JsonProperty("scale_ups")
+    private int scaleUps;
+
+    @JsonProperty("scale_downs")
+    private int scaleDowns;
+
+    /**
+     * Target changes that reverse the direction of the previous change within the flap window.
+     */
+    private int flaps;
+
+    /**
+     * Samples whose throughput exceeded the capacity of the active workers.
+     */
+    @JsonProperty("under_provisioned_samples")
+    private int underProvisionedSamples;
+
+    @JsonProperty("under_provisioned_ratio")
+    private double underProvisionedRatio;
+
+    @JsonProperty("average_workers")
+    private double averageWorkers;
+
+    @JsonProperty("peak_workers")
+    private int peakWorkers;
+
+    @JsonProperty("average_utilization")
+    private double averageUtilization;
+}
@@ -0,0 +1,35 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScalingReplayRequest {
+    /**
+     * Recorded throughput in messages per second, one sample per {@code sampleIntervalMs}.
+     */
+    private List<Double> trace;
+
+    @JsonProperty("sample_interval_ms")
+    private Long sampleIntervalMs;
+
+    /**
+     * Policy to replay; the configured {@code scaling.policy} when absent.
+     */
+    private String policy;
+
+    @JsonProperty("initial_workers")
+    private Integer initialWorkers;
+
+    /**
+     * Samples between a recommendation and the new workers becoming active.
+     */
+    @JsonProperty("provisioning_delay_samples")
+    private int provisioningDelaySamples;
+}
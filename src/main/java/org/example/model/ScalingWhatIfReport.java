@@ -0,0 +1,29 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScalingWhatIfReport {
+    private String policy;
+
+    private int workers;
+
+    @JsonProperty("worker_capacity")
+    private double workerCapacity;
+
+    /**
+     * Recommended workers for each requested throughput, in request order.
+     */
+    @JsonProperty("recommended_workers")
+    private int[] recommendedWorkers;
+
+    /**
+     * {@code SCALE_UP}, {@code SCALE_DOWN} or {@code HOLD} for each requested throughput.
+     */
+    private String[] actions;
+}
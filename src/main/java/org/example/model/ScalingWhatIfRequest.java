@@ -0,0 +1,32 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScalingWhatIfRequest {
+    /**
+     * Hypothetical loads in messages per second, each evaluated on its own.
+     */
+    private double[] throughputs;
+
+    /**
+     * Workers to evaluate against; the active workers when absent.
+     */
+    private Integer workers;
+
+    /**
+     * Messages per second per worker; the capacity the live recommendation uses when absent.
+     */
+    @JsonProperty("worker_capacity")
+    private Double workerCapacity;
+
+    /**
+     * Policy to evaluate; the configured {@code scaling.policy} when absent.
+     */
+    private String policy;
+}
@@ -1,8 +1,8 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,11 +18,27 @@ public class SensorData implements Serializable {
     @NotBlank(message = "Sensor ID is required")
     @JsonProperty("sensor_id")
     private String sensorId;
-    
+
     private Instant timestamp;
-    
-    @NotNull(message = "Readings are required")
+
     private Map<String, Double> readings;
-    
+
     private Map<String, String> metadata;
+
+    /**
+     * Set instead of {@code readings} and {@code metadata} by sensors of a registered {@link SensorSchema}.
+     */
+    @JsonProperty("schema_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer schemaId;
+
+    /**
+     * The readings of a schema reading, in the order of its {@code reading_names}; {@code NaN} for a missing value.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private double[] values;
+
+    public SensorData(String sensorId, Instant timestamp, Map<String, Double> readings, Map<String, String> metadata) {
+        this(sensorId, timestamp, readings, metadata, null, null);
+    }
 }
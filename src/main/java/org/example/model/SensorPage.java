@@ -0,0 +1,19 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SensorPage {
+    @JsonProperty("sensor_ids")
+    private List<String> sensorIds;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -0,0 +1,33 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A registered sensor type. Readings of the type carry {@code schema_id} and their values in the order of
+ * {@code reading_names} instead of a readings object; the static {@code metadata} is stored once, here, rather
+ * than with every reading.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SensorSchema implements Serializable {
+    /**
+     * Assigned on registration.
+     */
+    @JsonProperty("schema_id")
+    private Integer schemaId;
+
+    private String name;
+
+    @JsonProperty("reading_names")
+    private List<String> readingNames;
+
+    private Map<String, String> metadata;
+}
@@ -0,0 +1,55 @@
+package org.example.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of the latest rebalance, updated after every batch while it runs.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShardRebalanceReport {
+
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+    /**
+     * Left {@code running} by a node that stopped before finishing; the next rebalance picks up where it ended.
+     */
+    public static final String INTERRUPTED = "interrupted";
+
+    private String state;
+
+    private int shards;
+
+    /**
+     * Sensors whose {@code sensors:all} entry moved to another shard.
+     */
+    @JsonProperty("sensors_moved")
+    private long sensorsMoved;
+
+    /**
+     * Keys moved to the shard that now owns their sensor.
+     */
+    @JsonProperty("keys_moved")
+    private long keysMoved;
+
+    /**
+     * Moved keys that had already been written on the new shard and were merged into it.
+     */
+    @JsonProperty("keys_merged")
+    private long keysMerged;
+
+    @JsonProperty("started_at")
+    private Instant startedAt;
+
+    @JsonProperty("duration_ms")
+    private long durationMs;
+
+    private String error;
+}
@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -25,4 +27,32 @@ public class Worker implements Serializable {
     
     @JsonProperty("processed_count")
     private long processedCount;
+
+    /**
+     * Messages per second between the last two heartbeats.
+     */
+    @JsonProperty("processing_rate")
+    private double processingRate;
+
+    /**
+     * Exponentially weighted moving average of the processing rate.
+     */
+    @JsonProperty("processing_rate_ewma")
+    private double processingRateEwma;
+
+    /**
+     * The most recent heartbeats, oldest first.
+     */
+    @JsonProperty("heartbeat_samples")
+    private List<HeartbeatSample> heartbeatSamples = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HeartbeatSample implements Serializable {
+        private long timestamp;
+
+        @JsonProperty("processed_count")
+        private long processedCount;
+    }
 }
@@ -0,0 +1,29 @@
+package org.example.scaling;
+
+/**
+ * Exponentially weighted moving average: a flat forecast that follows the level of the series and damps
+ * single-sample spikes. Higher {@code alpha} reacts faster.
+ */
+public class EwmaForecaster implements ThroughputForecaster {
+
+    private final double alpha;
+
+    public EwmaForecaster(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("EWMA alpha must be in (0, 1], got: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public double forecast(double[] history, int horizon) {
+        if (history.length == 0) {
+            return 0;
+        }
+        double level = history[0];
+        for (int i = 1; i < history.length; i++) {
+            level = alpha * history[i] + (1 - alpha) * level;
+        }
+        return level;
+    }
+}
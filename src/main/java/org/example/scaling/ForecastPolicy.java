@@ -0,0 +1,80 @@
+package org.example.scaling;
+
+/**
+ * Sizes the worker pool for a forecast of the load at {@code targetUtilization}. The load is the larger of the
+ * forecast ingestion rate and the rate the workers report processing (which is higher while they catch up),
+ * plus the backlog drain rate. A hysteresis band around the target keeps small fluctuations from moving the
+ * worker count: the policy only scales up above {@code targetUtilization + scaleUpBand} and only scales down
+ * below {@code targetUtilization - scaleDownBand}.
+ */
+public class ForecastPolicy implements ScalingPolicy {
+
+    private final String name;
+    private final ThroughputForecaster forecaster;
+    private final int horizon;
+    private final double targetUtilization;
+    private final double scaleUpBand;
+    private final double scaleDownBand;
+
+    public ForecastPolicy(String name, ThroughputForecaster forecaster, int horizon,
+                          double targetUtilization, double scaleUpBand, double scaleDownBand) {
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("Target utilization must be in (0, 1], got: " + targetUtilization);
+        }
+        if (scaleUpBand < 0 || scaleDownBand < 0 || scaleDownBand >= targetUtilization) {
+            throw new IllegalArgumentException("Hysteresis bands must be non-negative and the scale-down band below the target utilization");
+        }
+        this.name = name;
+        this.forecaster = forecaster;
+        this.horizon = horizon;
+        this.targetUtilization = targetUtilization;
+        this.scaleUpBand = scaleUpBand;
+        this.scaleDownBand = scaleDownBand;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Proposal propose(ScalingContext context) {
+        double forecast = forecaster.forecast(context.throughputHistory(), horizon);
+        double load = Math.max(forecast, context.processedRate()) + context.backlogDrainRate();
+        int workers = context.currentWorkers();
+        int target = targetWorkers(load, workers, context.workerCapacity());
+        if (workers == 0) {
+            return new Proposal(target, load, String.format("Forecast load %.0f msg/s with no active workers", load));
+        }
+        double utilization = load / (workers * context.workerCapacity());
+        if (target > workers) {
+            return new Proposal(target, load, String.format(
+                    "Forecast load %.0f msg/s puts utilization at %.0f%%, above the %.0f%% band",
+                    load, utilization * 100, (targetUtilization + scaleUpBand) * 100));
+        }
+        if (target < workers) {
+            return new Proposal(target, load, String.format(
+                    "Forecast load %.0f msg/s puts utilization at %.0f%%, below the %.0f%% band",
+                    load, utilization * 100, (targetUtilization - scaleDownBand) * 100));
+        }
+        return new Proposal(workers, load, String.format(
+                "Forecast utilization %.0f%% is within the %.0f%%-%.0f%% band",
+                utilization * 100, (targetUtilization - scaleDownBand) * 100, (targetUtilization + scaleUpBand) * 100));
+    }
+
+    @Override
+    public int targetWorkers(double load, int workers, double workerCapacity) {
+        int sized = (int) Math.ceil(load / (workerCapacity * targetUtilization));
+        if (workers == 0) {
+            return sized;
+        }
+        double utilization = load / (workers * workerCapacity);
+        if (utilization > targetUtilization + scaleUpBand) {
+            return Math.max(sized, workers + 1);
+        }
+        if (utilization < targetUtilization - scaleDownBand) {
+            return Math.min(sized, workers - 1);
+        }
+        return workers;
+    }
+}
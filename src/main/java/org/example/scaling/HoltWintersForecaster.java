@@ -0,0 +1,83 @@
+package org.example.scaling;
+
+/**
+ * Additive Holt-Winters (triple exponential smoothing): level, trend and a seasonal component of
+ * {@code seasonLength} samples, so a ramp or a recurring daily peak is anticipated instead of chased.
+ * Until the history holds two full seasons the seasonal component is left out (Holt's linear trend).
+ */
+public class HoltWintersForecaster implements ThroughputForecaster {
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final int seasonLength;
+
+    public HoltWintersForecaster(double alpha, double beta, double gamma, int seasonLength) {
+        requireSmoothing("alpha", alpha);
+        requireSmoothing("beta", beta);
+        requireSmoothing("gamma", gamma);
+        if (seasonLength < 2) {
+            throw new IllegalArgumentException("Holt-Winters season length must be at least 2, got: " + seasonLength);
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonLength = seasonLength;
+    }
+
+    @Override
+    public double forecast(double[] history, int horizon) {
+        int n = history.length;
+        if (n == 0) {
+            return 0;
+        }
+        if (n < 2) {
+            return history[0];
+        }
+        if (n < 2 * seasonLength) {
+            return Math.max(0, linearForecast(history, horizon));
+        }
+
+        double firstMean = mean(history, 0, seasonLength);
+        double secondMean = mean(history, seasonLength, 2 * seasonLength);
+        double level = firstMean;
+        double trend = (secondMean - firstMean) / seasonLength;
+        double[] seasonal = new double[seasonLength];
+        for (int i = 0; i < seasonLength; i++) {
+            seasonal[i] = history[i] - firstMean;
+        }
+        for (int i = 0; i < n; i++) {
+            int slot = i % seasonLength;
+            double previousLevel = level;
+            level = alpha * (history[i] - seasonal[slot]) + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            seasonal[slot] = gamma * (history[i] - level) + (1 - gamma) * seasonal[slot];
+        }
+        return Math.max(0, level + horizon * trend + seasonal[(n - 1 + horizon) % seasonLength]);
+    }
+
+    private double linearForecast(double[] history, int horizon) {
+        double level = history[0];
+        double trend = history[1] - history[0];
+        for (int i = 1; i < history.length; i++) {
+            double previousLevel = level;
+            level = alpha * history[i] + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+        }
+        return level + horizon * trend;
+    }
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static void requireSmoothing(String name, double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException("Holt-Winters " + name + " must be in [0, 1], got: " + value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.scaling;
+
+/**
+ * Inputs of one scaling evaluation.
+ *
+ * @param throughputHistory  ingestion throughput samples, oldest first, the last one being the current rate
+ * @param currentWorkers     workers the policy should take as provisioned
+ * @param workerCapacity     messages per second one worker can process
+ * @param processedRate      smoothed messages per second the workers reported processing (heartbeat {@code processed_count} deltas)
+ * @param backlogDrainRate   extra messages per second needed to drain the queued backlog within the drain target
+ */
+public record ScalingContext(double[] throughputHistory, int currentWorkers, double workerCapacity,
+                             double processedRate, double backlogDrainRate) {
+
+    public double currentThroughput() {
+        return throughputHistory.length == 0 ? 0 : throughputHistory[throughputHistory.length - 1];
+    }
+}
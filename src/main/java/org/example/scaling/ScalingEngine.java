@@ -0,0 +1,117 @@
+package org.example.scaling;
+
+import java.time.Duration;
+
+/**
+ * Turns the proposals of a {@link ScalingPolicy} into a worker target. The target only moves when the
+ * cooldowns allow it: a scale-up must be {@code scaleUpCooldown} and a scale-down {@code scaleDownCooldown}
+ * after the previous change in either direction, and a scale-down removes at most
+ * {@code maxScaleDownStep} workers. When the number of active workers moves away from the target (a worker
+ * died, or workers were added by hand) the target is reset to it. Not thread-safe; callers serialize evaluations.
+ */
+public class ScalingEngine {
+
+    public static final String SCALE_UP = "SCALE_UP";
+    public static final String SCALE_DOWN = "SCALE_DOWN";
+    public static final String HOLD = "HOLD";
+
+    private final ScalingPolicy policy;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long scaleUpCooldownMillis;
+    private final long scaleDownCooldownMillis;
+    private final int maxScaleDownStep;
+
+    private int target = -1;
+    private int observedWorkers = -1;
+    private long lastScaleUpMillis = Long.MIN_VALUE;
+    private long lastScaleDownMillis = Long.MIN_VALUE;
+
+    public ScalingEngine(ScalingPolicy policy, int minWorkers, int maxWorkers,
+                         Duration scaleUpCooldown, Duration scaleDownCooldown, int maxScaleDownStep) {
+        if (minWorkers < 0 || maxWorkers < minWorkers) {
+            throw new IllegalArgumentException("Worker limits must satisfy 0 <= min <= max");
+        }
+        if (maxScaleDownStep < 1) {
+            throw new IllegalArgumentException("Maximum scale-down step must be at least 1");
+        }
+        this.policy = policy;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.scaleUpCooldownMillis = scaleUpCooldown.toMillis();
+        this.scaleDownCooldownMillis = scaleDownCooldown.toMillis();
+        this.maxScaleDownStep = maxScaleDownStep;
+    }
+
+    public ScalingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @param context the current conditions; its {@code currentWorkers} is the number of active workers
+     */
+    public Decision evaluate(long nowMillis, ScalingContext context) {
+        int activeWorkers = context.currentWorkers();
+        if (activeWorkers != observedWorkers) {
+            // Progress towards the target keeps it; any other change (a worker died, someone scaled by hand) resets it.
+            boolean towardsTarget = observedWorkers >= 0
+                    && activeWorkers >= Math.min(observedWorkers, target) && activeWorkers <= Math.max(observedWorkers, target);
+            if (!towardsTarget) {
+                target = activeWorkers;
+            }
+            observedWorkers = activeWorkers;
+        }
+
+        ScalingPolicy.Proposal proposal = policy.propose(new ScalingContext(context.throughputHistory(), target,
+                context.workerCapacity(), context.processedRate(), context.backlogDrainRate()));
+        int desired = Math.max(minWorkers, Math.min(maxWorkers, proposal.workers()));
+        String reason = proposal.reason();
+
+        if (target < minWorkers) {
+            target = minWorkers;
+            lastScaleUpMillis = nowMillis;
+            reason = "Active workers below minimum threshold";
+        } else if (target > maxWorkers) {
+            target = maxWorkers;
+            lastScaleDownMillis = nowMillis;
+            reason = "Active workers above maximum threshold";
+        } else if (desired > target) {
+            if (sinceLastChange(nowMillis) >= scaleUpCooldownMillis) {
+                target = desired;
+                lastScaleUpMillis = nowMillis;
+            } else {
+                reason = "Scale-up cooling down: " + reason;
+            }
+        } else if (desired < target) {
+            if (sinceLastChange(nowMillis) >= scaleDownCooldownMillis) {
+                target = Math.max(desired, target - maxScaleDownStep);
+                lastScaleDownMillis = nowMillis;
+            } else {
+                reason = "Scale-down cooling down: " + reason;
+            }
+        }
+
+        String action = target > activeWorkers ? SCALE_UP : target < activeWorkers ? SCALE_DOWN : HOLD;
+        return new Decision(action, target, proposal.load(), reason);
+    }
+
+    /**
+     * What the policy asks for at {@code load}, within the worker limits. Ignores the cooldowns and the target,
+     * so it reads no mutable state and allocates nothing.
+     */
+    public int targetWorkers(double load, int workers, double workerCapacity) {
+        return Math.max(minWorkers, Math.min(maxWorkers, policy.targetWorkers(load, workers, workerCapacity)));
+    }
+
+    private long sinceLastChange(long nowMillis) {
+        long lastChange = Math.max(lastScaleUpMillis, lastScaleDownMillis);
+        return lastChange == Long.MIN_VALUE ? Long.MAX_VALUE : nowMillis - lastChange;
+    }
+
+    /**
+     * @param targetWorkers the worker count to converge to
+     * @param load          the load in messages per second the policy based its proposal on
+     */
+    public record Decision(String action, int targetWorkers, double load, String reason) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.scaling;
+
+/**
+ * Decides how many workers the observed load calls for. Cooldowns, worker limits and step limits are applied
+ * afterwards by the {@link ScalingEngine}, so a policy only expresses its view of the load.
+ */
+public interface ScalingPolicy {
+
+    String name();
+
+    Proposal propose(ScalingContext context);
+
+    /**
+     * The decision at the core of {@link #propose}: the worker count this policy asks for when {@code workers}
+     * workers of {@code workerCapacity} messages per second face {@code load} messages per second. Stateless and
+     * allocation-free, so it can be evaluated for many hypothetical loads at once.
+     */
+    int targetWorkers(double load, int workers, double workerCapacity);
+
+    /**
+     * @param workers the number of workers the policy asks for; {@code context.currentWorkers()} to hold
+     * @param load    the load in messages per second the decision was based on
+     */
+    record Proposal(int workers, double load, String reason) {
+    }
+}
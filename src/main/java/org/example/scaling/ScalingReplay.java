@@ -0,0 +1,81 @@
+package org.example.scaling;
+
+import org.example.model.ScalingReplayReport;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Feeds a recorded throughput trace through a {@link ScalingEngine} as if it were live, applying each target
+ * after {@code provisioningDelaySamples} samples, and reports how often the engine flapped and how often the
+ * active workers could not keep up with the trace. No queue backlog is modelled: the workers process the
+ * ingested rate up to their capacity, so the processed rate adds nothing to the trace and is left at zero.
+ */
+public final class ScalingReplay {
+
+    private ScalingReplay() {
+    }
+
+    public static ScalingReplayReport run(ScalingEngine engine, double[] trace, long sampleIntervalMillis, int historySize,
+                                          double workerCapacity, int initialWorkers, int provisioningDelaySamples,
+                                          long flapWindowMillis) {
+        int activeWorkers = initialWorkers;
+        Deque<int[]> pending = new ArrayDeque<>(); // {sample at which it applies, workers}
+        int scaleUps = 0;
+        int scaleDowns = 0;
+        int flaps = 0;
+        int underProvisioned = 0;
+        long workerSamples = 0;
+        double utilizationSum = 0;
+        int peakWorkers = activeWorkers;
+        int lastTarget = activeWorkers;
+        int lastDirection = 0;
+        long lastChangeMillis = Long.MIN_VALUE;
+
+        for (int i = 0; i < trace.length; i++) {
+            while (!pending.isEmpty() && pending.peekFirst()[0] <= i) {
+                activeWorkers = pending.pollFirst()[1];
+            }
+            long nowMillis = i * sampleIntervalMillis;
+            double[] history = Arrays.copyOfRange(trace, Math.max(0, i - historySize + 1), i + 1);
+            double capacity = activeWorkers * workerCapacity;
+            double processed = Math.min(trace[i], capacity);
+            ScalingEngine.Decision decision = engine.evaluate(nowMillis,
+                    new ScalingContext(history, activeWorkers, workerCapacity, 0, 0));
+
+            int target = decision.targetWorkers();
+            if (target != lastTarget) {
+                int direction = Integer.signum(target - lastTarget);
+                if (direction > 0) {
+                    scaleUps++;
+                } else {
+                    scaleDowns++;
+                }
+                if (lastDirection != 0 && direction != lastDirection && nowMillis - lastChangeMillis <= flapWindowMillis) {
+                    flaps++;
+                }
+                lastDirection = direction;
+                lastChangeMillis = nowMillis;
+                lastTarget = target;
+                pending.addLast(new int[]{i + provisioningDelaySamples, target});
+            }
+
+            if (trace[i] > capacity) {
+                underProvisioned++;
+            }
+            if (capacity > 0) {
+                utilizationSum += processed / capacity;
+            }
+            workerSamples += activeWorkers;
+            peakWorkers = Math.max(peakWorkers, activeWorkers);
+        }
+
+        int samples = trace.length;
+        return new ScalingReplayReport(engine.getPolicy().name(), samples, scaleUps, scaleDowns, flaps, underProvisioned,
+                samples == 0 ? 0 : (double) underProvisioned / samples,
+                samples == 0 ? 0 : (double) workerSamples / samples,
+                peakWorkers,
+                samples == 0 ? 0 : utilizationSum / samples);
+    }
+}
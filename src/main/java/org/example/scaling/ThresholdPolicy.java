@@ -0,0 +1,45 @@
+package org.example.scaling;
+
+/**
+ * The original rule set: scale up as soon as the current throughput exceeds the capacity of the workers,
+ * scale down by one worker while it is below {@code scaleDownPerWorker} messages per second per worker.
+ */
+public class ThresholdPolicy implements ScalingPolicy {
+
+    private final double scaleDownPerWorker;
+
+    public ThresholdPolicy(double scaleDownPerWorker) {
+        this.scaleDownPerWorker = scaleDownPerWorker;
+    }
+
+    @Override
+    public String name() {
+        return "threshold";
+    }
+
+    @Override
+    public Proposal propose(ScalingContext context) {
+        double load = context.currentThroughput() + context.backlogDrainRate();
+        int workers = context.currentWorkers();
+        int target = targetWorkers(load, workers, context.workerCapacity());
+        if (target > workers) {
+            return new Proposal(target, load, "Throughput exceeds " + (long) context.workerCapacity() + " msg/s per worker");
+        }
+        if (target < workers) {
+            return new Proposal(target, load, "Throughput is below " + (long) scaleDownPerWorker + " msg/s per worker");
+        }
+        return new Proposal(workers, load, "Throughput is within the acceptable range.");
+    }
+
+    @Override
+    public int targetWorkers(double load, int workers, double workerCapacity) {
+        double capacity = workers * workerCapacity;
+        if (load > capacity) {
+            return workers + (int) Math.ceil((load - capacity) / workerCapacity);
+        }
+        if (load < workers * scaleDownPerWorker) {
+            return workers - 1;
+        }
+        return workers;
+    }
+}
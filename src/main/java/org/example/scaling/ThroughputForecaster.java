@@ -0,0 +1,14 @@
+package org.example.scaling;
+
+/**
+ * Forecasts ingestion throughput from a sliding window of evenly spaced samples.
+ */
+public interface ThroughputForecaster {
+
+    /**
+     * Returns the expected throughput {@code horizon} samples after the last one of {@code history}.
+     *
+     * @param history samples, oldest first; may be empty
+     */
+    double forecast(double[] history, int horizon);
+}
@@ -0,0 +1,30 @@
+package org.example.serializer;
+
+final class BitReader {
+    private final byte[] buffer;
+    private final long bitLimit;
+    private long bitPosition;
+
+    BitReader(byte[] buffer, int byteOffset) {
+        this.buffer = buffer;
+        this.bitPosition = (long) byteOffset << 3;
+        this.bitLimit = (long) buffer.length << 3;
+    }
+
+    boolean readBit() {
+        if (bitPosition >= bitLimit) {
+            throw new IllegalArgumentException("Truncated time-series chunk");
+        }
+        boolean bit = (buffer[(int) (bitPosition >>> 3)] & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+}
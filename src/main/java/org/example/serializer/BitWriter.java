@@ -0,0 +1,44 @@
+package org.example.serializer;
+
+import java.util.Arrays;
+
+final class BitWriter {
+    private byte[] buffer = new byte[256];
+    private long bitPosition;
+
+    void writeBit(boolean bit) {
+        ensure(1);
+        if (bit) {
+            buffer[(int) (bitPosition >>> 3)] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    /**
+     * Writes the {@code count} low-order bits of {@code value}, most significant first.
+     */
+    void writeBits(long value, int count) {
+        ensure(count);
+        for (int i = count - 1; i >= 0; i--) {
+            if (((value >>> i) & 1) != 0) {
+                buffer[(int) (bitPosition >>> 3)] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+    }
+
+    long bitLength() {
+        return bitPosition;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, (int) ((bitPosition + 7) >>> 3));
+    }
+
+    private void ensure(int bits) {
+        long requiredBytes = (bitPosition + bits + 7) >>> 3;
+        if (requiredBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(buffer.length * 2L, requiredBytes));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads segments written by {@link ColumnarSegmentWriter} through a memory-mapped file. Segments whose time
+ * range does not overlap the query are rejected from the header alone; otherwise the sections are inflated
+ * straight from the mapping and only rows inside the range are materialized.
+ */
+public final class ColumnarSegmentReader {
+
+    private ColumnarSegmentReader() {
+    }
+
+    /**
+     * Hands every row in {@code [startMillis, endMillis]} to {@code visitor} in timestamp order.
+     *
+     * @return {@code false} if the visitor asked to stop
+     */
+    public static boolean read(Path file, long startMillis, long endMillis, Predicate<SensorData> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != ColumnarSegmentWriter.MAGIC) {
+                throw new IOException("Not a sensor segment: " + file);
+            }
+            byte version = buffer.get();
+            if (version != ColumnarSegmentWriter.VERSION_1) {
+                throw new IOException("Unsupported segment version " + version + ": " + file);
+            }
+            String sensorId = readString(buffer);
+            int rowCount = buffer.getInt();
+            long firstTimestamp = buffer.getLong();
+            long lastTimestamp = buffer.getLong();
+            if (rowCount == 0 || lastTimestamp < startMillis || firstTimestamp > endMillis) {
+                return true;
+            }
+            String[] columns = new String[buffer.getInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = readString(buffer);
+            }
+            List<Map<String, String>> dictionary = new ArrayList<>();
+            int dictionarySize = buffer.getInt();
+            for (int i = 0; i < dictionarySize; i++) {
+                int entries = buffer.getInt();
+                Map<String, String> metadata = new LinkedHashMap<>();
+                for (int j = 0; j < entries; j++) {
+                    metadata.put(readString(buffer), readString(buffer));
+                }
+                dictionary.add(metadata);
+            }
+
+            ByteBuffer timestampSection = ByteBuffer.wrap(inflateSection(buffer));
+            long[] millis = new long[rowCount];
+            int[] nanos = new int[rowCount];
+            long previous = 0;
+            for (int i = 0; i < rowCount; i++) {
+                long zigzag = readVarLong(timestampSection);
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                millis[i] = previous;
+                nanos[i] = (int) readVarLong(timestampSection);
+            }
+            int from = lowerBound(millis, startMillis);
+            int to = upperBound(millis, endMillis);
+            if (from >= to) {
+                return true;
+            }
+
+            double[][] values = new double[columns.length][];
+            boolean[][] present = new boolean[columns.length][];
+            for (int c = 0; c < columns.length; c++) {
+                ByteBuffer section = ByteBuffer.wrap(inflateSection(buffer));
+                byte[] presence = new byte[(rowCount + 7) >>> 3];
+                section.get(presence);
+                values[c] = new double[rowCount];
+                present[c] = new boolean[rowCount];
+                long previousBits = 0;
+                for (int i = 0; i < to; i++) {
+                    if ((presence[i >>> 3] & (1 << (i & 7))) != 0) {
+                        previousBits ^= section.getLong();
+                        values[c][i] = Double.longBitsToDouble(previousBits);
+                        present[c][i] = true;
+                    }
+                }
+            }
+
+            ByteBuffer metadataSection = ByteBuffer.wrap(inflateSection(buffer));
+            int[] metadataCodes = new int[rowCount];
+            for (int i = 0; i < to; i++) {
+                metadataCodes[i] = (int) readVarLong(metadataSection);
+            }
+
+            for (int i = from; i < to; i++) {
+                Map<String, Double> readings = new LinkedHashMap<>();
+                for (int c = 0; c < columns.length; c++) {
+                    if (present[c][i]) {
+                        readings.put(columns[c], values[c][i]);
+                    }
+                }
+                Map<String, String> metadata = metadataCodes[i] == 0 ? null : new LinkedHashMap<>(dictionary.get(metadataCodes[i] - 1));
+                SensorData row = new SensorData(sensorId, Instant.ofEpochMilli(millis[i]).plusNanos(nanos[i]), readings, metadata);
+                if (!visitor.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static byte[] inflateSection(ByteBuffer buffer) throws IOException {
+        int rawLength = buffer.getInt();
+        int compressedLength = buffer.getInt();
+        ByteBuffer compressed = buffer.slice(buffer.position(), compressedLength);
+        buffer.position(buffer.position() + compressedLength);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, offset, rawLength - offset);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != rawLength) {
+                throw new IOException("Truncated segment section");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt segment section", e);
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in segment");
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
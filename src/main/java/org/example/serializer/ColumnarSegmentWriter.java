@@ -0,0 +1,162 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the readings of one sensor as a compressed columnar segment, read back by {@link ColumnarSegmentReader}.
+ *
+ * <pre>
+ * int       magic ({@link #MAGIC})
+ * byte      version ({@link #VERSION_1})
+ * string    sensor id
+ * int       row count
+ * long      first / last timestamp (epoch millis)
+ * int       column count, then one string per column
+ * int       metadata dictionary size, then per entry: int entry count, string key, nullable string value
+ * section   timestamps: per row zigzag varint millis delta to the previous row, varint nanos within the millisecond
+ * section   per column: presence bitmap, then per present value the raw IEEE bits XOR the previous present value
+ * section   metadata: per row varint dictionary code (0 = no metadata)
+ * </pre>
+ *
+ * Strings are an int byte length ({@code -1} for null) followed by UTF-8 bytes. A section is its uncompressed
+ * length, its compressed length and the deflated bytes. Rows must be ordered by timestamp, since readers
+ * binary-search the timestamp column. Absent and null readings are both stored as absent.
+ */
+public final class ColumnarSegmentWriter {
+
+    public static final int MAGIC = 0x53534547; // "SSEG"
+    public static final byte VERSION_1 = 0x01;
+
+    private ColumnarSegmentWriter() {
+    }
+
+    public static void write(OutputStream target, String sensorId, List<SensorData> rows) throws IOException {
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).getTimestamp().isBefore(rows.get(i - 1).getTimestamp())) {
+                throw new IllegalArgumentException("Segment rows must be ordered by timestamp, row " + i + " is out of order");
+            }
+        }
+        List<String> columns = new ArrayList<>();
+        Map<String, Integer> columnIndex = new HashMap<>();
+        Map<Map<String, String>, Integer> metadataCodes = new LinkedHashMap<>();
+        for (SensorData row : rows) {
+            if (row.getReadings() != null) {
+                for (String name : row.getReadings().keySet()) {
+                    if (columnIndex.putIfAbsent(name, columns.size()) == null) {
+                        columns.add(name);
+                    }
+                }
+            }
+            if (row.getMetadata() != null) {
+                metadataCodes.putIfAbsent(row.getMetadata(), metadataCodes.size() + 1);
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION_1);
+        writeString(out, sensorId);
+        out.writeInt(rows.size());
+        out.writeLong(rows.isEmpty() ? 0 : rows.get(0).getTimestamp().toEpochMilli());
+        out.writeLong(rows.isEmpty() ? 0 : rows.get(rows.size() - 1).getTimestamp().toEpochMilli());
+        out.writeInt(columns.size());
+        for (String column : columns) {
+            writeString(out, column);
+        }
+        out.writeInt(metadataCodes.size());
+        for (Map<String, String> metadata : metadataCodes.keySet()) {
+            out.writeInt(metadata.size());
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+
+        ByteArrayOutputStream timestamps = new ByteArrayOutputStream(rows.size() * 3);
+        long previous = 0;
+        for (SensorData row : rows) {
+            long millis = row.getTimestamp().toEpochMilli();
+            long delta = millis - previous;
+            writeVarLong(timestamps, (delta << 1) ^ (delta >> 63));
+            writeVarLong(timestamps, row.getTimestamp().getNano() % 1_000_000);
+            previous = millis;
+        }
+        writeSection(out, timestamps.toByteArray());
+
+        for (String column : columns) {
+            byte[] presence = new byte[(rows.size() + 7) >>> 3];
+            ByteArrayOutputStream values = new ByteArrayOutputStream(rows.size() * 8);
+            long previousBits = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                Map<String, Double> readings = rows.get(i).getReadings();
+                Double value = readings == null ? null : readings.get(column);
+                if (value == null) {
+                    continue;
+                }
+                presence[i >>> 3] |= (byte) (1 << (i & 7));
+                long bits = Double.doubleToRawLongBits(value);
+                long xor = bits ^ previousBits;
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    values.write((int) (xor >>> shift));
+                }
+                previousBits = bits;
+            }
+            ByteArrayOutputStream section = new ByteArrayOutputStream(presence.length + values.size());
+            section.write(presence);
+            values.writeTo(section);
+            writeSection(out, section.toByteArray());
+        }
+
+        ByteArrayOutputStream metadata = new ByteArrayOutputStream(rows.size());
+        for (SensorData row : rows) {
+            writeVarLong(metadata, row.getMetadata() == null ? 0 : metadataCodes.get(row.getMetadata()));
+        }
+        writeSection(out, metadata.toByteArray());
+        out.flush();
+    }
+
+    private static void writeSection(DataOutputStream out, byte[] raw) throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            out.writeInt(raw.length);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary layout for {@link SensorData}.
+ *
+ * <pre>
+ * byte      version ({@link #VERSION_1})
+ * byte      flags (timestamp, sub-millisecond nanos, readings, metadata, schema)
+ * string    sensor id
+ * zigzag    timestamp epoch millis      (if present)
+ * varint    nanos within the millisecond (if present)
+ * varint    reading count, then per reading: name ref, 8-byte IEEE double (or nothing for null)
+ * varint    metadata count, then per entry: name ref, nullable string
+ * varint    schema id, then varint value count and one 8-byte IEEE double per value, NaN for missing (if present)
+ * </pre>
+ *
+ * A name ref is {@code (code << 1) | nullFlag} where code {@code 0} means the name follows inline and
+ * code {@code k} means entry {@code k - 1} of the dictionary. The dictionary is append-only: codes that have
+ * been written to Redis must keep their position. Strings are a varint byte length followed by UTF-8 bytes.
+ */
+public class SensorDataCodec {
+
+    public static final byte VERSION_1 = 0x01;
+
+    private static final int FLAG_TIMESTAMP = 1;
+    private static final int FLAG_NANOS = 1 << 1;
+    private static final int FLAG_READINGS = 1 << 2;
+    private static final int FLAG_METADATA = 1 << 3;
+    private static final int FLAG_SCHEMA = 1 << 4;
+
+    private final String[] dictionary;
+    private final Map<String, Integer> codes;
+
+    public SensorDataCodec(List<String> dictionary) {
+        this.dictionary = dictionary.toArray(new String[0]);
+        this.codes = new HashMap<>();
+        for (int i = 0; i < this.dictionary.length; i++) {
+            codes.putIfAbsent(this.dictionary[i], i + 1);
+        }
+    }
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == VERSION_1;
+    }
+
+    public byte[] encode(SensorData data) {
+        ByteSink out = new ByteSink(64);
+        Instant timestamp = data.getTimestamp();
+        int nanosOfMilli = timestamp != null ? timestamp.getNano() % 1_000_000 : 0;
+
+        int flags = 0;
+        if (timestamp != null) {
+            flags |= FLAG_TIMESTAMP;
+            if (nanosOfMilli != 0) {
+                flags |= FLAG_NANOS;
+            }
+        }
+        if (data.getReadings() != null) {
+            flags |= FLAG_READINGS;
+        }
+        if (data.getMetadata() != null) {
+            flags |= FLAG_METADATA;
+        }
+        if (data.getSchemaId() != null) {
+            flags |= FLAG_SCHEMA;
+        }
+
+        out.write(VERSION_1);
+        out.write(flags);
+        writeString(out, data.getSensorId());
+        if (timestamp != null) {
+            long millis = timestamp.toEpochMilli();
+            out.writeVarLong((millis << 1) ^ (millis >> 63));
+            if (nanosOfMilli != 0) {
+                out.writeVarLong(nanosOfMilli);
+            }
+        }
+        if (data.getReadings() != null) {
+            out.writeVarLong(data.getReadings().size());
+            for (Map.Entry<String, Double> reading : data.getReadings().entrySet()) {
+                Double value = reading.getValue();
+                writeNameRef(out, reading.getKey(), value == null);
+                if (value != null) {
+                    out.writeLong(Double.doubleToRawLongBits(value));
+                }
+            }
+        }
+        if (data.getMetadata() != null) {
+            out.writeVarLong(data.getMetadata().size());
+            for (Map.Entry<String, String> entry : data.getMetadata().entrySet()) {
+                writeNameRef(out, entry.getKey(), entry.getValue() == null);
+                if (entry.getValue() != null) {
+                    writeString(out, entry.getValue());
+                }
+            }
+        }
+        if (data.getSchemaId() != null) {
+            double[] values = data.getValues() != null ? data.getValues() : new double[0];
+            out.writeVarLong(data.getSchemaId());
+            out.writeVarLong(values.length);
+            for (double value : values) {
+                out.writeLong(Double.doubleToRawLongBits(value));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public SensorData decode(byte[] bytes) {
+        ByteSource in = new ByteSource(bytes);
+        byte version = in.read();
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported sensor data encoding version: " + version);
+        }
+        int flags = in.read();
+
+        SensorData data = new SensorData();
+        data.setSensorId(readString(in));
+        if ((flags & FLAG_TIMESTAMP) != 0) {
+            long zigzag = in.readVarLong();
+            long millis = (zigzag >>> 1) ^ -(zigzag & 1);
+            long nanos = (flags & FLAG_NANOS) != 0 ? in.readVarLong() : 0;
+            data.setTimestamp(Instant.ofEpochMilli(millis).plusNanos(nanos));
+        }
+        if ((flags & FLAG_READINGS) != 0) {
+            int count = (int) in.readVarLong();
+            Map<String, Double> readings = new LinkedHashMap<>(capacityFor(count));
+            for (int i = 0; i < count; i++) {
+                long ref = in.readVarLong();
+                String name = readName(in, ref);
+                readings.put(name, (ref & 1) != 0 ? null : Double.longBitsToDouble(in.readLong()));
+            }
+            data.setReadings(readings);
+        }
+        if ((flags & FLAG_METADATA) != 0) {
+            int count = (int) in.readVarLong();
+            Map<String, String> metadata = new LinkedHashMap<>(capacityFor(count));
+            for (int i = 0; i < count; i++) {
+                long ref = in.readVarLong();
+                String name = readName(in, ref);
+                metadata.put(name, (ref & 1) != 0 ? null : readString(in));
+            }
+            data.setMetadata(metadata);
+        }
+        if ((flags & FLAG_SCHEMA) != 0) {
+            data.setSchemaId((int) in.readVarLong());
+            double[] values = new double[(int) in.readVarLong()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.longBitsToDouble(in.readLong());
+            }
+            data.setValues(values);
+        }
+        return data;
+    }
+
+    private void writeNameRef(ByteSink out, String name, boolean nullValue) {
+        Integer code = codes.get(name);
+        int nullFlag = nullValue ? 1 : 0;
+        if (code != null) {
+            out.writeVarLong(((long) code << 1) | nullFlag);
+        } else {
+            out.writeVarLong(nullFlag);
+            writeString(out, name);
+        }
+    }
+
+    private String readName(ByteSource in, long ref) {
+        int code = (int) (ref >>> 1);
+        if (code == 0) {
+            return readString(in);
+        }
+        if (code > dictionary.length) {
+            throw new IllegalArgumentException("Unknown reading name code: " + code);
+        }
+        return dictionary[code - 1];
+    }
+
+    private static void writeString(ByteSink out, String value) {
+        if (value == null) {
+            out.writeVarLong(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVarLong(utf8.length + 1L);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteSource in) {
+        int length = (int) in.readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        return in.readString(length - 1);
+    }
+
+    private static int capacityFor(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    private static final class ByteSink {
+        private byte[] buffer;
+        private int position;
+
+        private ByteSink(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private void write(int b) {
+            ensure(1);
+            buffer[position++] = (byte) b;
+        }
+
+        private void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class ByteSource {
+        private final byte[] buffer;
+        private int position;
+
+        private ByteSource(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte read() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated sensor data encoding");
+            }
+            return buffer[position++];
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in sensor data encoding");
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (read() & 0xFF);
+            }
+            return value;
+        }
+
+        private String readString(int length) {
+            if (position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated sensor data encoding");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.serializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.model.SensorData;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads {@link SensorData} and {@code List<SensorData>} request bodies in JSON, CBOR ({@code application/cbor}) or
+ * Smile ({@code application/x-jackson-smile}) with {@link SensorDataReader}. It is registered ahead of the Jackson
+ * converters, so the ingest endpoints skip data binding. It only reads: {@code canWrite} is always false, so
+ * responses are written by the Jackson converters and the write methods are never called.
+ */
+public class SensorDataHttpMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+
+    private final SensorDataReader reader = new SensorDataReader();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final SmileFactory smileFactory = new SmileFactory();
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == SensorData.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == SensorData.class || isSensorDataList(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        JsonFactory factory = factoryFor(inputMessage.getHeaders().getContentType());
+        try (JsonParser parser = factory.createParser(inputMessage.getBody())) {
+            if (isSensorDataList(type)) {
+                return reader.readList(parser);
+            }
+            SensorData data = reader.read(parser);
+            if (data == null) {
+                throw new HttpMessageNotReadableException("Sensor reading must not be null", inputMessage);
+            }
+            return data;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("Malformed sensor reading: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    public void write(Object value, MediaType contentType, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("SensorDataHttpMessageConverter does not write responses");
+    }
+
+    @Override
+    public void write(Object value, Type type, MediaType contentType, HttpOutputMessage outputMessage) {
+        write(value, contentType, outputMessage);
+    }
+
+    private static boolean canRead(MediaType mediaType) {
+        return mediaType == null || SUPPORTED_MEDIA_TYPES.stream().anyMatch(supported -> supported.includes(mediaType));
+    }
+
+    private JsonFactory factoryFor(MediaType contentType) {
+        if (contentType != null && MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return cborFactory;
+        }
+        if (contentType != null && APPLICATION_SMILE.isCompatibleWith(contentType)) {
+            return smileFactory;
+        }
+        return jsonFactory;
+    }
+
+    private static boolean isSensorDataList(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == SensorData.class;
+    }
+}
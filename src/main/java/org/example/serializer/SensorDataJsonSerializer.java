@@ -0,0 +1,62 @@
+package org.example.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+import org.example.service.SensorSchemaRegistry;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * API representation of {@link SensorData}, for every response format. Map readings are written as before; readings
+ * of a registered schema are written in the same shape, with their values under the schema's reading names
+ * ({@code null} for a missing value), the schema's metadata and their {@code schema_id}. Storage mappers are not
+ * affected and keep the compact form.
+ */
+@JsonComponent
+public class SensorDataJsonSerializer extends JsonSerializer<SensorData> {
+
+    private final SensorSchemaRegistry schemaRegistry;
+
+    public SensorDataJsonSerializer(SensorSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    @Override
+    public void serialize(SensorData data, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        provider.defaultSerializeField("timestamp", data.getTimestamp(), gen);
+        SensorSchema schema = data.getSchemaId() == null ? null : schemaRegistry.getSchema(data.getSchemaId());
+        if (schema == null) {
+            provider.defaultSerializeField("readings", data.getReadings(), gen);
+            provider.defaultSerializeField("metadata", data.getMetadata(), gen);
+        } else {
+            gen.writeFieldName("readings");
+            gen.writeStartObject();
+            List<String> names = schema.getReadingNames();
+            double[] values = data.getValues();
+            for (int i = 0; i < names.size(); i++) {
+                gen.writeFieldName(names.get(i));
+                if (values == null || i >= values.length || Double.isNaN(values[i])) {
+                    gen.writeNull();
+                } else {
+                    gen.writeNumber(values[i]);
+                }
+            }
+            gen.writeEndObject();
+            provider.defaultSerializeField("metadata", schema.getMetadata(), gen);
+        }
+        gen.writeStringField("sensor_id", data.getSensorId());
+        if (data.getSchemaId() != null) {
+            gen.writeNumberField("schema_id", data.getSchemaId());
+            if (schema == null) {
+                provider.defaultSerializeField("values", data.getValues(), gen);
+            }
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.serializer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.model.SensorData;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for {@link SensorData} in any Jackson token format (JSON, CBOR, Smile). It walks the parser's
+ * tokens straight into the model, without the bean introspection, deserializer lookups and buffering of
+ * {@code ObjectMapper.readValue}.
+ * <p>
+ * Reading and metadata names are field names, which the parser canonicalizes in its factory's symbol table: each
+ * distinct name is decoded once and the same {@code String} instance is reused by every later reading. Keep one
+ * factory per format for the lifetime of the application to benefit from that.
+ * <p>
+ * Field handling follows the application's {@code ObjectMapper}: unknown fields are skipped, readings are numbers
+ * or numeric strings, metadata values are scalars, and timestamps are ISO-8601 strings or epoch seconds. The
+ * {@code values} of a schema reading are read into a {@code double[]} without boxing.
+ */
+public class SensorDataReader {
+
+    /**
+     * Reads one reading at the parser's current token, or its next one if there is none yet; {@code null} for a
+     * {@code null} value.
+     */
+    public SensorData read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT, "a sensor reading");
+
+        SensorData data = new SensorData();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "sensor_id" -> data.setSensorId(readText(parser, value, field));
+                case "timestamp" -> data.setTimestamp(readTimestamp(parser, value));
+                case "readings" -> data.setReadings(readReadings(parser, value));
+                case "metadata" -> data.setMetadata(readMetadata(parser, value));
+                case "schema_id" -> data.setSchemaId(readSchemaId(parser, value));
+                case "values" -> data.setValues(readValues(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Reads an array of readings; malformed-but-parseable entries fail the whole array, as with Jackson.
+     */
+    public List<SensorData> readList(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        expect(parser, token, JsonToken.START_ARRAY, "an array of sensor readings");
+        List<SensorData> readings = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            readings.add(read(parser));
+        }
+        return readings;
+    }
+
+    private static Map<String, Double> readReadings(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT, "an object for readings");
+        Map<String, Double> readings = new LinkedHashMap<>();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            readings.put(name, switch (value) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+                case VALUE_NULL -> null;
+                case VALUE_STRING -> parseDouble(parser, name);
+                default -> throw new JsonParseException(parser, "Reading " + name + " must be a number, got " + value);
+            });
+        }
+        return readings;
+    }
+
+    private static Integer readSchemaId(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            default -> throw new JsonParseException(parser, "Schema ID must be an integer, got " + token);
+        };
+    }
+
+    /**
+     * The values of a schema reading straight into a {@code double[]}; {@code null} entries become {@code NaN}.
+     */
+    private static double[] readValues(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_ARRAY, "an array for values");
+        double[] values = new double[16];
+        int count = 0;
+        JsonToken value;
+        while ((value = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count] = switch (value) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+                case VALUE_NULL -> Double.NaN;
+                case VALUE_STRING -> parseDouble(parser, "values[" + count + "]");
+                default -> throw new JsonParseException(parser, "Value " + count + " must be a number, got " + value);
+            };
+            count++;
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    private static Map<String, String> readMetadata(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT, "an object for metadata");
+        Map<String, String> metadata = new LinkedHashMap<>();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            metadata.put(name, readText(parser, parser.nextToken(), "metadata." + name));
+        }
+        return metadata;
+    }
+
+    private static String readText(JsonParser parser, JsonToken token, String field) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Field " + field + " must be a scalar, got " + token);
+        }
+        return parser.getText();
+    }
+
+    private static Instant readTimestamp(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                Instant utc = parseUtc(text);
+                if (utc != null) {
+                    return utc;
+                }
+                try {
+                    return Instant.parse(text);
+                } catch (DateTimeParseException e) {
+                    throw new JsonParseException(parser, "Invalid timestamp: " + text, e);
+                }
+            case VALUE_NUMBER_INT:
+                return Instant.ofEpochSecond(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                BigDecimal seconds = parser.getDecimalValue();
+                long wholeSeconds = seconds.longValue();
+                int nanos = seconds.subtract(BigDecimal.valueOf(wholeSeconds)).movePointRight(9).intValue();
+                return Instant.ofEpochSecond(wholeSeconds, nanos);
+            default:
+                throw new JsonParseException(parser, "Timestamp must be an ISO-8601 string or epoch seconds, got " + token);
+        }
+    }
+
+    /**
+     * The UTC form gateways send, {@code 2026-10-18T12:34:56.789Z} with zero to nine fraction digits, without the
+     * formatter machinery of {@link Instant#parse} (most of the allocation of a parsed reading). {@code null} for
+     * anything else, e.g. an offset, which then goes through {@link Instant#parse}.
+     */
+    static Instant parseUtc(String text) {
+        int length = text.length();
+        if (length < 20 || length > 30 || text.charAt(length - 1) != 'Z' || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != 't') || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        int nanos = 0;
+        if (length > 20) {
+            int fractionDigits = length - 21;
+            if (text.charAt(19) != '.' || fractionDigits == 0) {
+                return null;
+            }
+            nanos = digits(text, 20, fractionDigits);
+            if (nanos < 0) {
+                return null;
+            }
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        long epochDay = epochDay(year, month, day);
+        return Instant.ofEpochSecond(epochDay * 86_400 + hour * 3_600L + minute * 60L + second, nanos);
+    }
+
+    private static int digits(String text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (years 0 to 9999).
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    private static double parseDouble(JsonParser parser, String name) throws IOException {
+        try {
+            return Double.parseDouble(parser.getText().trim());
+        } catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "Reading " + name + " must be a number, got \"" + parser.getText() + "\"", e);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected, String what) throws IOException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + what + ", got " + (token == null ? "end of input" : token));
+        }
+    }
+}
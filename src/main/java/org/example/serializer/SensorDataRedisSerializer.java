@@ -0,0 +1,43 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Value serializer that writes {@link SensorData} with {@link SensorDataCodec} when binary encoding is enabled
+ * and delegates everything else to the JSON serializer. Reads accept both formats, telling them apart by the
+ * leading version byte, so binary encoding can be switched on while JSON members are still stored.
+ */
+public class SensorDataRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> fallback;
+    private final SensorDataCodec codec;
+    private final boolean writeBinary;
+
+    public SensorDataRedisSerializer(RedisSerializer<Object> fallback, SensorDataCodec codec, boolean writeBinary) {
+        this.fallback = fallback;
+        this.codec = codec;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (writeBinary && value instanceof SensorData) {
+            return codec.encode((SensorData) value);
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes != null && SensorDataCodec.isEncoded(bytes)) {
+            try {
+                return codec.decode(bytes);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Could not decode sensor data", e);
+            }
+        }
+        return fallback.deserialize(bytes);
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the readings of a chunk written by {@link TimeSeriesChunkEncoder}, one point at a time.
+ */
+public final class TimeSeriesChunkDecoder implements Iterator<SensorData> {
+
+    private final String sensorId;
+    private final String[] columns;
+    private final Map<String, String> metadata;
+    private final int pointCount;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    private final BitReader bits;
+
+    private int decoded;
+    private long timestamp;
+    private long delta;
+    private final long[] values;
+    private final int[] leading;
+    private final int[] trailing;
+
+    public TimeSeriesChunkDecoder(byte[] chunk) {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(chunk);
+        try (DataInputStream in = new DataInputStream(bytes)) {
+            byte version = in.readByte();
+            if (version != TimeSeriesChunkEncoder.VERSION_1) {
+                throw new IllegalArgumentException("Unsupported time-series chunk version: " + version);
+            }
+            sensorId = in.readUTF();
+            columns = new String[in.readShort()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = in.readUTF();
+            }
+            int metadataSize = in.readShort();
+            if (metadataSize < 0) {
+                metadata = null;
+            } else {
+                metadata = new LinkedHashMap<>();
+                for (int i = 0; i < metadataSize; i++) {
+                    metadata.put(in.readUTF(), in.readUTF());
+                }
+            }
+            pointCount = in.readInt();
+            firstTimestamp = in.readLong();
+            lastTimestamp = in.readLong();
+            bits = new BitReader(chunk, chunk.length - bytes.available());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed time-series chunk", e);
+        }
+        values = new long[columns.length];
+        leading = new int[columns.length];
+        trailing = new int[columns.length];
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return decoded < pointCount;
+    }
+
+    @Override
+    public SensorData next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (decoded == 0) {
+            timestamp = bits.readBits(64);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+        }
+
+        Map<String, Double> readings = new LinkedHashMap<>((int) (columns.length / 0.75f) + 1);
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = decoded == 0 ? bits.readBits(64) : readXor(i);
+            readings.put(columns[i], values[i] == TimeSeriesChunkEncoder.NULL_VALUE_BITS ? null : Double.longBitsToDouble(values[i]));
+        }
+        decoded++;
+        return new SensorData(sensorId, Instant.ofEpochMilli(timestamp), readings, metadata == null ? null : new LinkedHashMap<>(metadata));
+    }
+
+    private long readDeltaOfDelta() {
+        if (!bits.readBit()) {
+            return 0;
+        }
+        if (!bits.readBit()) {
+            return signExtend(bits.readBits(7), 7);
+        }
+        if (!bits.readBit()) {
+            return signExtend(bits.readBits(9), 9);
+        }
+        if (!bits.readBit()) {
+            return signExtend(bits.readBits(12), 12);
+        }
+        return bits.readBits(64);
+    }
+
+    private long readXor(int column) {
+        if (!bits.readBit()) {
+            return values[column];
+        }
+        if (bits.readBit()) {
+            leading[column] = (int) bits.readBits(5);
+            int meaningful = (int) bits.readBits(6) + 1;
+            trailing[column] = 64 - leading[column] - meaningful;
+        }
+        int meaningful = 64 - leading[column] - trailing[column];
+        return values[column] ^ (bits.readBits(meaningful) << trailing[column]);
+    }
+
+    private static long signExtend(long value, int width) {
+        int shift = 64 - width;
+        return (value << shift) >> shift;
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Gorilla-style encoder for a chunk of readings from one sensor. Timestamps are stored as delta-of-delta
+ * and every reading column as XOR against its previous value, interleaved point by point so the chunk can be
+ * decoded as a stream by {@link TimeSeriesChunkDecoder}.
+ *
+ * <pre>
+ * byte      version ({@link #VERSION_1})
+ * UTF       sensor id
+ * short     column count, then one UTF name per column
+ * short     metadata entry count (-1 for none), then UTF key / UTF value pairs
+ * int       point count
+ * long      first timestamp (epoch millis)
+ * long      last timestamp (epoch millis)
+ * bits      per point: timestamp, then one value per column
+ * </pre>
+ *
+ * A chunk has a fixed set of reading names and metadata; {@link #accepts(SensorData)} tells whether a reading fits.
+ * Timestamps are kept with millisecond precision and {@code null} reading values map to a reserved NaN payload.
+ */
+public final class TimeSeriesChunkEncoder {
+
+    public static final byte VERSION_1 = 0x01;
+
+    static final long NULL_VALUE_BITS = 0x7FF8_0000_0000_0BADL;
+
+    private final String sensorId;
+    private final List<String> columns;
+    private final Map<String, String> metadata;
+    private final BitWriter bits = new BitWriter();
+
+    private int pointCount;
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+
+    private final long[] lastValues;
+    private final int[] lastLeading;
+    private final int[] lastTrailing;
+    private final boolean[] hasWindow;
+
+    private SensorData lastReading;
+
+    public TimeSeriesChunkEncoder(String sensorId, List<String> columns, Map<String, String> metadata) {
+        this.sensorId = sensorId;
+        this.columns = List.copyOf(columns);
+        this.metadata = metadata;
+        this.lastValues = new long[columns.size()];
+        this.lastLeading = new int[columns.size()];
+        this.lastTrailing = new int[columns.size()];
+        this.hasWindow = new boolean[columns.size()];
+    }
+
+    public static TimeSeriesChunkEncoder forReading(SensorData data) {
+        return new TimeSeriesChunkEncoder(data.getSensorId(), List.copyOf(data.getReadings().keySet()), data.getMetadata());
+    }
+
+    /**
+     * Whether the reading can be appended: same reading names, same metadata and not older than the last point.
+     */
+    public boolean accepts(SensorData data) {
+        return data.getReadings().size() == columns.size()
+                && data.getReadings().keySet().containsAll(columns)
+                && Objects.equals(data.getMetadata(), metadata)
+                && (pointCount == 0 || data.getTimestamp().toEpochMilli() >= lastTimestamp);
+    }
+
+    public void append(SensorData data) {
+        long timestamp = data.getTimestamp().toEpochMilli();
+        if (pointCount == 0) {
+            firstTimestamp = timestamp;
+            bits.writeBits(timestamp, 64);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+
+        for (int i = 0; i < columns.size(); i++) {
+            Double value = data.getReadings().get(columns.get(i));
+            long valueBits = value == null ? NULL_VALUE_BITS : Double.doubleToRawLongBits(value);
+            if (pointCount == 0) {
+                bits.writeBits(valueBits, 64);
+            } else {
+                writeXor(i, valueBits);
+            }
+            lastValues[i] = valueBits;
+        }
+        pointCount++;
+        lastReading = data;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            bits.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            bits.writeBits(0b10, 2);
+            bits.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            bits.writeBits(0b110, 3);
+            bits.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            bits.writeBits(0b1110, 4);
+            bits.writeBits(dod, 12);
+        } else {
+            bits.writeBits(0b1111, 4);
+            bits.writeBits(dod, 64);
+        }
+    }
+
+    private void writeXor(int column, long valueBits) {
+        long xor = valueBits ^ lastValues[column];
+        if (xor == 0) {
+            bits.writeBit(false);
+            return;
+        }
+        bits.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        int previousLeading = lastLeading[column];
+        int previousTrailing = lastTrailing[column];
+        if (hasWindow[column] && leading >= previousLeading && trailing >= previousTrailing) {
+            bits.writeBit(false);
+            bits.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            int meaningful = 64 - leading - trailing;
+            bits.writeBit(true);
+            bits.writeBits(leading, 5);
+            bits.writeBits(meaningful - 1, 6);
+            bits.writeBits(xor >>> trailing, meaningful);
+            lastLeading[column] = leading;
+            lastTrailing[column] = trailing;
+            hasWindow[column] = true;
+        }
+    }
+
+    public String getSensorId() {
+        return sensorId;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public SensorData getLastReading() {
+        return lastReading;
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (int) (bits.bitLength() >>> 3));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION_1);
+            out.writeUTF(sensorId);
+            out.writeShort(columns.size());
+            for (String column : columns) {
+                out.writeUTF(column);
+            }
+            if (metadata == null) {
+                out.writeShort(-1);
+            } else {
+                out.writeShort(metadata.size());
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue() == null ? "" : entry.getValue());
+                }
+            }
+            out.writeInt(pointCount);
+            out.writeLong(firstTimestamp);
+            out.writeLong(lastTimestamp);
+            out.write(bits.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
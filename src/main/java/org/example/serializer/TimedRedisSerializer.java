@@ -0,0 +1,63 @@
+package org.example.serializer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value serializer that records the time spent in its delegate ({@code redis.serialization}) and the size of the
+ * payloads written and read ({@code redis.payload.size}), both tagged with {@code operation}.
+ */
+public class TimedRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final Timer serializeTimer;
+    private final Timer deserializeTimer;
+    private final DistributionSummary serializedBytes;
+    private final DistributionSummary deserializedBytes;
+
+    public TimedRedisSerializer(RedisSerializer<Object> delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.serializeTimer = Timer.builder("redis.serialization").tag("operation", "serialize").register(meterRegistry);
+        this.deserializeTimer = Timer.builder("redis.serialization").tag("operation", "deserialize").register(meterRegistry);
+        this.serializedBytes = DistributionSummary.builder("redis.payload.size").baseUnit("bytes")
+                .tag("operation", "serialize").register(meterRegistry);
+        this.deserializedBytes = DistributionSummary.builder("redis.payload.size").baseUnit("bytes")
+                .tag("operation", "deserialize").register(meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        long start = System.nanoTime();
+        byte[] bytes;
+        try {
+            bytes = delegate.serialize(value);
+        } finally {
+            serializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (bytes != null) {
+            serializedBytes.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null) {
+            return delegate.deserialize(null);
+        }
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = delegate.deserialize(bytes);
+        } finally {
+            deserializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        deserializedBytes.record(bytes.length);
+        return value;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mergeable count/sum/min/max accumulator for one reading within one time bucket.
+ */
+final class AggregateStats {
+
+    static final Set<String> SUPPORTED = Set.of("min", "max", "avg", "sum", "count");
+
+    long count;
+    double sum;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    void add(double value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(AggregateStats other) {
+        merge(other.count, other.sum, other.min, other.max);
+    }
+
+    void merge(long otherCount, double otherSum, double otherMin, double otherMax) {
+        count += otherCount;
+        sum += otherSum;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    Map<String, Number> select(Iterable<String> aggregations) {
+        Map<String, Number> values = new LinkedHashMap<>();
+        for (String aggregation : aggregations) {
+            switch (aggregation) {
+                case "min" -> values.put("min", min);
+                case "max" -> values.put("max", max);
+                case "avg" -> values.put("avg", sum / count);
+                case "sum" -> values.put("sum", sum);
+                case "count" -> values.put("count", count);
+                default -> throw new IllegalArgumentException("Unsupported aggregation: " + aggregation);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.service;
+
+import org.example.model.AggregationResult;
+import org.example.model.SensorData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Downsamples a sensor's readings into fixed {@code step} buckets over {@code [start, end)} in a single pass.
+ * When the step and both range bounds are aligned to a rollup resolution whose retention still covers the start of
+ * the range, the precomputed rollups of the coarsest such resolution are used instead of the raw readings.
+ */
+@Service
+public class AggregationService {
+
+    private final SensorService sensorService;
+    private final RollupService rollupService;
+    private final SensorSchemaRegistry schemaRegistry;
+
+    @Value("${query.aggregate.max-buckets:10000}")
+    private int maxBuckets;
+
+    public AggregationService(SensorService sensorService, RollupService rollupService, SensorSchemaRegistry schemaRegistry) {
+        this.sensorService = sensorService;
+        this.rollupService = rollupService;
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    public AggregationResult aggregate(String sensorId, Instant start, Instant end, Duration step,
+                                       List<String> aggregations, Set<String> readings, String source) {
+        long stepMillis = step.toMillis();
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("Step must be positive");
+        }
+        for (String aggregation : aggregations) {
+            if (!AggregateStats.SUPPORTED.contains(aggregation)) {
+                throw new IllegalArgumentException("Unsupported aggregation: " + aggregation + ", expected one of " + AggregateStats.SUPPORTED);
+            }
+        }
+        long startMillis = start.toEpochMilli();
+        long endMillis = end.toEpochMilli();
+        long bucketCount = (endMillis - startMillis + stepMillis - 1) / stepMillis;
+        if (bucketCount > maxBuckets) {
+            throw new IllegalArgumentException("Range and step produce " + bucketCount + " buckets, the maximum is " + maxBuckets);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, AggregateStats>[] stats = new Map[(int) bucketCount];
+        RollupService.Resolution resolution = selectResolution(stepMillis, startMillis, endMillis);
+        String usedSource;
+        if ("raw".equals(source) || resolution == null) {
+            if ("rollup".equals(source)) {
+                throw new IllegalArgumentException("No rollup resolution divides the step and both range bounds"
+                        + " and is retained back to the start of the range");
+            }
+            usedSource = "raw";
+            sensorService.streamReadingsInRange(sensorId, start, end, data -> {
+                addRaw(stats, data, startMillis, stepMillis, readings);
+                return true;
+            });
+        } else {
+            usedSource = "rollup:" + resolution.name();
+            rollupService.readBuckets(sensorId, resolution, startMillis, endMillis).forEach((bucketStart, bucket) -> {
+                int index = (int) ((bucketStart - startMillis) / stepMillis);
+                bucket.forEach((name, s) -> {
+                    if (readings.isEmpty() || readings.contains(name)) {
+                        bucketAt(stats, index).computeIfAbsent(name, n -> new AggregateStats()).merge(s);
+                    }
+                });
+            });
+        }
+
+        List<AggregationResult.Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i] == null) {
+                continue;
+            }
+            Map<String, Map<String, Number>> values = new TreeMap<>();
+            stats[i].forEach((name, s) -> values.put(name, s.select(aggregations)));
+            buckets.add(new AggregationResult.Bucket(Instant.ofEpochMilli(startMillis + i * stepMillis), values));
+        }
+        return new AggregationResult(sensorId, stepMillis, usedSource, buckets);
+    }
+
+    private RollupService.Resolution selectResolution(long stepMillis, long startMillis, long endMillis) {
+        if (!rollupService.isEnabled()) {
+            return null;
+        }
+        long now = Instant.now().toEpochMilli();
+        RollupService.Resolution selected = null;
+        for (RollupService.Resolution resolution : rollupService.getResolutions()) {
+            long r = resolution.millis();
+            // Buckets expire ttl after their last update, so older ones may be gone while raw readings remain.
+            boolean retained = startMillis >= now - resolution.ttlSeconds() * 1000;
+            if (stepMillis % r == 0 && startMillis % r == 0 && endMillis % r == 0 && retained) {
+                selected = resolution;
+            }
+        }
+        return selected;
+    }
+
+    private void addRaw(Map<String, AggregateStats>[] stats, SensorData data, long startMillis, long stepMillis, Set<String> readings) {
+        long offset = data.getTimestamp().toEpochMilli() - startMillis;
+        if (offset < 0 || offset / stepMillis >= stats.length || (data.getReadings() == null && data.getValues() == null)) {
+            return;
+        }
+        Map<String, AggregateStats> bucket = bucketAt(stats, (int) (offset / stepMillis));
+        schemaRegistry.forEachReading(data, (name, value) -> {
+            if (Double.isFinite(value) && (readings.isEmpty() || readings.contains(name))) {
+                bucket.computeIfAbsent(name, n -> new AggregateStats()).add(value);
+            }
+        });
+    }
+
+    private static Map<String, AggregateStats> bucketAt(Map<String, AggregateStats>[] stats, int index) {
+        if (stats[index] == null) {
+            stats[index] = new HashMap<>();
+        }
+        return stats[index];
+    }
+}
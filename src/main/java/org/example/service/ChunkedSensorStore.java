@@ -0,0 +1,572 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.model.SensorData;
+import org.example.sharding.RedisShards;
+import org.example.serializer.TimeSeriesChunkDecoder;
+import org.example.serializer.TimeSeriesChunkEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Chunked storage engine for sensor history. Readings are appended to a per-sensor in-memory head chunk that is
+ * sealed after {@code storage.chunk.max-points} points or {@code storage.chunk.max-span-minutes} minutes,
+ * compressed with {@link TimeSeriesChunkEncoder} and stored as one binary value:
+ * <ul>
+ *     <li>{@code sensor:{id}:chunk:{chunkId}} holds the compressed chunk,</li>
+ *     <li>{@code sensor:{id}:chunks} is a ZSET of chunk ids scored by the chunk start time.</li>
+ * </ul>
+ * Because a chunk never spans more than the configured span, a range query only fetches the chunks starting in
+ * {@code [start - span, end]}. Head chunks live in memory until sealed and are sealed on shutdown.
+ * <p>
+ * A reading older than the last point of its head chunk is buffered next to the head instead of sealing it, and the
+ * buffer is written as chunks of its own, sorted, when the head is sealed, so chunks of one sensor may overlap in time.
+ * A sealed chunk gets its ID and joins the pending chunks, which reads include, while the head is still locked, and
+ * leaves them only once it is written, so its points stay visible throughout; one that cannot be written is retried
+ * on every seal check.
+ * Heads of sensors with nothing left in memory are dropped on the seal check.
+ * Both keys live on the sensor's shard. Chunks are already columnar with the reading names stored once per chunk,
+ * so readings of a registered schema are expanded to the map form on append.
+ */
+@Service
+public class ChunkedSensorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedSensorStore.class);
+
+    private static final String SENSOR_KEY_PREFIX = "sensor:";
+    private static final String CHUNK_INDEX_KEY_SUFFIX = ":chunks";
+    private static final String CHUNK_KEY_INFIX = ":chunk:";
+
+    private final RedisShards redisShards;
+    private final SensorSchemaRegistry schemaRegistry;
+    private final Map<String, Head> heads = new ConcurrentHashMap<>();
+    private final Map<String, Deque<PendingChunk>> unpersisted = new ConcurrentHashMap<>();
+    // Chunks from several nodes share one index, so ids carry a per-process prefix.
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong chunkSequence = new AtomicLong();
+
+    @Value("${storage.chunk.max-points:1024}")
+    private int maxPoints;
+
+    @Value("${storage.chunk.max-span-minutes:60}")
+    private long maxSpanMinutes;
+
+    public ChunkedSensorStore(RedisShards redisShards, SensorSchemaRegistry schemaRegistry) {
+        this.redisShards = redisShards;
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    public void append(SensorData reading) {
+        SensorData data = schemaRegistry.expand(reading);
+        long timestamp = data.getTimestamp().toEpochMilli();
+        List<PendingChunk> sealed = null;
+        while (true) {
+            Head head = heads.computeIfAbsent(data.getSensorId(), id -> new Head());
+            synchronized (head) {
+                if (head.evicted) {
+                    continue;
+                }
+                TimeSeriesChunkEncoder chunk = head.chunk;
+                if (chunk != null && timestamp < chunk.getLastTimestamp()) {
+                    head.late.add(data);
+                    if (head.late.size() >= maxPoints) {
+                        sealed = track(encodeLate(head));
+                    }
+                    break;
+                }
+                if (chunk != null && (!chunk.accepts(data) || spanExceeded(chunk, timestamp))) {
+                    sealed = seal(head);
+                    chunk = null;
+                }
+                if (chunk == null) {
+                    chunk = TimeSeriesChunkEncoder.forReading(data);
+                }
+                chunk.append(data);
+                head.chunk = chunk;
+                if (chunk.getPointCount() >= maxPoints) {
+                    if (sealed == null) {
+                        sealed = seal(head);
+                    } else {
+                        sealed.addAll(seal(head));
+                    }
+                }
+                break;
+            }
+        }
+        if (sealed != null) {
+            sealed.forEach(this::persist);
+        }
+    }
+
+    public SensorData getLatestReading(String sensorId) {
+        // The pending chunks are taken with the head, as a chunk sealed in between would be in neither snapshot.
+        List<PendingChunk> pendingChunks;
+        Head head = heads.get(sensorId);
+        if (head != null) {
+            synchronized (head) {
+                if (head.chunk != null) {
+                    return head.chunk.getLastReading();
+                }
+                pendingChunks = pendingChunks(sensorId);
+            }
+        } else {
+            pendingChunks = pendingChunks(sensorId);
+        }
+        SensorData latest = null;
+        for (PendingChunk pending : pendingChunks) {
+            SensorData last = pending.chunk.getLastReading();
+            if (latest == null || last.getTimestamp().isAfter(latest.getTimestamp())) {
+                latest = last;
+            }
+        }
+        // Chunks may overlap, so the latest point is in one of the chunks starting within a span of the last start.
+        long spanMillis = TimeUnit.MINUTES.toMillis(maxSpanMinutes);
+        List<byte[]> chunks = redisShards.templateFor(sensorId).execute((RedisCallback<List<byte[]>>) connection -> {
+            byte[] indexKey = bytes(indexKey(sensorId));
+            Set<Tuple> last = connection.zSetCommands().zRevRangeWithScores(indexKey, 0, 0);
+            if (last == null || last.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double lastStart = last.iterator().next().getScore();
+            Set<byte[]> ids = connection.zSetCommands().zRangeByScore(indexKey, lastStart - spanMillis, Double.POSITIVE_INFINITY);
+            return fetchChunks(connection, sensorId, ids);
+        });
+        if (chunks != null) {
+            for (byte[] chunk : chunks) {
+                if (chunk == null) {
+                    continue;
+                }
+                TimeSeriesChunkDecoder decoder = new TimeSeriesChunkDecoder(chunk);
+                if (latest != null && decoder.getLastTimestamp() <= latest.getTimestamp().toEpochMilli()) {
+                    continue;
+                }
+                while (decoder.hasNext()) {
+                    latest = decoder.next();
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Streams every stored reading of the sensor in {@code [start, end]} to {@code visitor} in timestamp order, until
+     * the visitor returns {@code false}. Chunks may overlap in time, so their points are merged. Readings with the same
+     * timestamp come in chunk order (start time, then chunk ID, then the in-memory chunks), which stays the same from
+     * one call to the next, so callers can resume after a number of readings with one timestamp.
+     */
+    public void scanRange(String sensorId, Instant start, Instant end, Predicate<SensorData> visitor) {
+        long startMillis = start.toEpochMilli();
+        long endMillis = end.toEpochMilli();
+        long spanMillis = TimeUnit.MINUTES.toMillis(maxSpanMinutes);
+
+        // The head and the pending chunks are taken together, before the index is read: a chunk sealed in between would
+        // be in neither snapshot, while one written in between is found in both places and read once.
+        byte[] headChunk = null;
+        List<SensorData> late = List.of();
+        List<PendingChunk> pendingChunks;
+        Head head = heads.get(sensorId);
+        if (head != null) {
+            synchronized (head) {
+                if (head.chunk != null) {
+                    headChunk = head.chunk.toByteArray();
+                }
+                if (!head.late.isEmpty()) {
+                    late = new ArrayList<>(head.late);
+                    late.sort(Comparator.comparing(SensorData::getTimestamp));
+                }
+                pendingChunks = pendingChunks(sensorId);
+            }
+        } else {
+            pendingChunks = pendingChunks(sensorId);
+        }
+        List<StoredChunk> stored = new ArrayList<>();
+        redisShards.templateFor(sensorId).execute((RedisCallback<Object>) connection -> {
+            Set<Tuple> entries = connection.zSetCommands().zRangeByScoreWithScores(bytes(indexKey(sensorId)),
+                    startMillis - spanMillis, endMillis);
+            if (entries == null || entries.isEmpty()) {
+                return null;
+            }
+            Set<byte[]> ids = new LinkedHashSet<>();
+            entries.forEach(entry -> ids.add(entry.getValue()));
+            List<byte[]> chunks = fetchChunks(connection, sensorId, ids);
+            int i = 0;
+            for (Tuple entry : entries) {
+                stored.add(new StoredChunk(entry.getScore().longValue(), new String(entry.getValue(), StandardCharsets.UTF_8),
+                        chunks.get(i++)));
+            }
+            return null;
+        });
+        Set<String> storedIds = new HashSet<>();
+        stored.forEach(chunk -> storedIds.add(chunk.id()));
+        for (PendingChunk pending : pendingChunks) {
+            if (!storedIds.contains(pending.id)) {
+                stored.add(new StoredChunk(pending.chunk.getFirstTimestamp(), pending.id, pending.encoded));
+            }
+        }
+        // The index order, whether or not a chunk has been written yet.
+        stored.sort(Comparator.comparingLong(StoredChunk::start).thenComparing(StoredChunk::id));
+        List<byte[]> encoded = new ArrayList<>(stored.size() + 1);
+        stored.forEach(chunk -> encoded.add(chunk.encoded()));
+        encoded.add(headChunk);
+
+        List<Iterator<SensorData>> sources = new ArrayList<>(encoded.size() + 1);
+        for (byte[] chunk : encoded) {
+            if (chunk == null) {
+                continue;
+            }
+            TimeSeriesChunkDecoder decoder = new TimeSeriesChunkDecoder(chunk);
+            if (decoder.getLastTimestamp() >= startMillis && decoder.getFirstTimestamp() <= endMillis) {
+                sources.add(decoder);
+            }
+        }
+        sources.add(late.iterator());
+        merge(sources, startMillis, endMillis, visitor);
+    }
+
+    public List<SensorData> getReadingsInRange(String sensorId, Instant start, Instant end) {
+        List<SensorData> readings = new ArrayList<>();
+        scanRange(sensorId, start, end, readings::add);
+        return readings;
+    }
+
+    /**
+     * Decodes up to {@code limit} sealed chunks of the sensor whose points all lie before {@code cutoffMillis}.
+     * The ids of the returned chunks are added to {@code chunkIds} so they can be removed with
+     * {@link #deleteChunks} once the readings have been archived.
+     */
+    public List<SensorData> readChunksBefore(String sensorId, long cutoffMillis, int limit, List<String> chunkIds) {
+        List<String> candidateIds = new ArrayList<>();
+        List<byte[]> chunks = redisShards.templateFor(sensorId).execute((RedisCallback<List<byte[]>>) connection -> {
+            Set<byte[]> ids = connection.zSetCommands().zRangeByScore(bytes(indexKey(sensorId)), Double.NEGATIVE_INFINITY, cutoffMillis - 1, 0, limit);
+            if (ids != null) {
+                ids.forEach(id -> candidateIds.add(new String(id, StandardCharsets.UTF_8)));
+            }
+            return fetchChunks(connection, sensorId, ids);
+        });
+        List<SensorData> readings = new ArrayList<>();
+        if (chunks == null) {
+            return readings;
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            if (chunk == null) {
+                // Index entry without a chunk; drop it along with the archived ones.
+                chunkIds.add(candidateIds.get(i));
+                continue;
+            }
+            TimeSeriesChunkDecoder decoder = new TimeSeriesChunkDecoder(chunk);
+            if (decoder.getLastTimestamp() >= cutoffMillis) {
+                continue;
+            }
+            while (decoder.hasNext()) {
+                readings.add(decoder.next());
+            }
+            chunkIds.add(candidateIds.get(i));
+        }
+        return readings;
+    }
+
+    public void deleteChunks(String sensorId, List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        redisShards.templateFor(sensorId).executePipelined((RedisCallback<Object>) connection -> {
+            byte[][] ids = new byte[chunkIds.size()][];
+            byte[][] keys = new byte[chunkIds.size()][];
+            for (int i = 0; i < chunkIds.size(); i++) {
+                ids[i] = bytes(chunkIds.get(i));
+                keys[i] = bytes(chunkKey(sensorId, chunkIds.get(i)));
+            }
+            connection.zSetCommands().zRem(bytes(indexKey(sensorId)), ids);
+            connection.keyCommands().del(keys);
+            return null;
+        });
+    }
+
+    /**
+     * Seals head chunks that have been open longer than the configured span so idle sensors get persisted too,
+     * retries the chunks that could not be written and drops the heads left empty.
+     */
+    @Scheduled(fixedDelayString = "${storage.chunk.seal-check-interval-ms:60000}")
+    public void sealExpiredHeads() {
+        long now = Instant.now().toEpochMilli();
+        for (Map.Entry<String, Head> entry : heads.entrySet()) {
+            Head head = entry.getValue();
+            List<PendingChunk> sealed = null;
+            synchronized (head) {
+                if (head.chunk != null && spanExceeded(head.chunk, now)) {
+                    sealed = seal(head);
+                }
+                if (head.chunk == null && head.late.isEmpty()) {
+                    head.evicted = true;
+                    heads.remove(entry.getKey(), head);
+                }
+            }
+            if (sealed != null) {
+                sealed.forEach(this::persist);
+            }
+        }
+        retryUnpersisted();
+    }
+
+    @PreDestroy
+    public void sealAll() {
+        for (Head head : heads.values()) {
+            List<PendingChunk> sealed;
+            synchronized (head) {
+                sealed = seal(head);
+            }
+            sealed.forEach(this::persist);
+        }
+        retryUnpersisted();
+        int left = unpersisted.values().stream().mapToInt(Collection::size).sum();
+        if (left > 0) {
+            log.error("Shutting down with {} chunks that could not be written to Redis", left);
+        }
+    }
+
+    /**
+     * The number of sealed chunks not written to Redis yet, including those being written.
+     */
+    public int getUnpersistedChunkCount() {
+        return unpersisted.values().stream().mapToInt(Collection::size).sum();
+    }
+
+    int getHeadCount() {
+        return heads.size();
+    }
+
+    private boolean spanExceeded(TimeSeriesChunkEncoder head, long timestampMillis) {
+        return timestampMillis - head.getFirstTimestamp() >= TimeUnit.MINUTES.toMillis(maxSpanMinutes);
+    }
+
+    /**
+     * Takes the head chunk and the late readings buffered next to it out of the head, into the pending chunks. Must
+     * hold the head's monitor.
+     */
+    private List<PendingChunk> seal(Head head) {
+        List<TimeSeriesChunkEncoder> sealed = encodeLate(head);
+        if (head.chunk != null) {
+            sealed.add(head.chunk);
+            head.chunk = null;
+        }
+        return track(sealed);
+    }
+
+    /**
+     * Gives the sealed chunks their IDs and adds them to the pending chunks, which reads include until they are
+     * written. Must hold the head's monitor, so that no read finds the points in neither place.
+     */
+    private List<PendingChunk> track(List<TimeSeriesChunkEncoder> sealed) {
+        List<PendingChunk> pending = new ArrayList<>(sealed.size());
+        if (sealed.isEmpty()) {
+            return pending;
+        }
+        for (TimeSeriesChunkEncoder chunk : sealed) {
+            String chunkId = chunk.getFirstTimestamp() + "-" + nodeId + "-" + chunkSequence.incrementAndGet();
+            pending.add(new PendingChunk(chunkId, chunk, chunk.toByteArray()));
+        }
+        unpersisted.compute(sealed.get(0).getSensorId(), (id, queue) -> {
+            Deque<PendingChunk> chunks = queue != null ? queue : new ArrayDeque<>();
+            chunks.addAll(pending);
+            return chunks;
+        });
+        return pending;
+    }
+
+    /**
+     * Encodes the late readings of the head, sorted by time, into as few chunks as their reading names, metadata and
+     * the maximum span allow, and clears them. Must hold the head's monitor.
+     */
+    private List<TimeSeriesChunkEncoder> encodeLate(Head head) {
+        List<TimeSeriesChunkEncoder> chunks = new ArrayList<>();
+        if (head.late.isEmpty()) {
+            return chunks;
+        }
+        head.late.sort(Comparator.comparing(SensorData::getTimestamp));
+        TimeSeriesChunkEncoder chunk = null;
+        for (SensorData data : head.late) {
+            if (chunk == null || !chunk.accepts(data) || spanExceeded(chunk, data.getTimestamp().toEpochMilli())
+                    || chunk.getPointCount() >= maxPoints) {
+                chunk = TimeSeriesChunkEncoder.forReading(data);
+                chunks.add(chunk);
+            }
+            chunk.append(data);
+        }
+        head.late.clear();
+        return chunks;
+    }
+
+    private void persist(PendingChunk pending) {
+        try {
+            write(pending);
+        } catch (RuntimeException e) {
+            log.error("Failed to persist chunk {} of sensor {} ({} points), keeping it for a retry", pending.id,
+                    pending.chunk.getSensorId(), pending.chunk.getPointCount(), e);
+            return;
+        }
+        written(pending);
+    }
+
+    private void retryUnpersisted() {
+        for (String sensorId : unpersisted.keySet()) {
+            for (PendingChunk pending : pendingChunks(sensorId)) {
+                try {
+                    write(pending);
+                } catch (RuntimeException e) {
+                    log.warn("Retrying chunk {} of sensor {} failed: {}", pending.id, sensorId, e.getMessage());
+                    return;
+                }
+                written(pending);
+            }
+        }
+    }
+
+    private void written(PendingChunk pending) {
+        unpersisted.computeIfPresent(pending.chunk.getSensorId(), (id, queue) -> {
+            queue.remove(pending);
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    /**
+     * Writes the chunk and its index entry. The chunk ID is fixed when the chunk is sealed, so a retry after a
+     * partial write overwrites the same key and index member.
+     */
+    private void write(PendingChunk pending) {
+        String sensorId = pending.chunk.getSensorId();
+        redisShards.templateFor(sensorId).executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().set(bytes(chunkKey(sensorId, pending.id)), pending.encoded);
+            connection.zSetCommands().zAdd(bytes(indexKey(sensorId)), pending.chunk.getFirstTimestamp(), bytes(pending.id));
+            return null;
+        });
+    }
+
+    private List<PendingChunk> pendingChunks(String sensorId) {
+        List<PendingChunk> snapshot = new ArrayList<>(0);
+        unpersisted.computeIfPresent(sensorId, (id, queue) -> {
+            snapshot.addAll(queue);
+            return queue;
+        });
+        return snapshot;
+    }
+
+    private List<byte[]> fetchChunks(RedisConnection connection, String sensorId, Set<byte[]> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        byte[][] keys = ids.stream()
+                .map(id -> bytes(chunkKey(sensorId, new String(id, StandardCharsets.UTF_8))))
+                .toArray(byte[][]::new);
+        return connection.stringCommands().mGet(keys);
+    }
+
+    static String indexKey(String sensorId) {
+        return SENSOR_KEY_PREFIX + sensorId + CHUNK_INDEX_KEY_SUFFIX;
+    }
+
+    static String chunkKey(String sensorId, String chunkId) {
+        return SENSOR_KEY_PREFIX + sensorId + CHUNK_KEY_INFIX + chunkId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Merges time-ordered sources into one time-ordered stream, taking equal timestamps in source order.
+     */
+    private static void merge(List<Iterator<SensorData>> sources, long startMillis, long endMillis, Predicate<SensorData> visitor) {
+        PriorityQueue<MergeCursor> queue = new PriorityQueue<>(Math.max(1, sources.size()));
+        for (int i = 0; i < sources.size(); i++) {
+            MergeCursor cursor = new MergeCursor(i, sources.get(i));
+            if (cursor.advance(startMillis, endMillis)) {
+                queue.add(cursor);
+            }
+        }
+        while (!queue.isEmpty()) {
+            MergeCursor cursor = queue.poll();
+            if (!visitor.test(cursor.current)) {
+                return;
+            }
+            if (cursor.advance(startMillis, endMillis)) {
+                queue.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Per-sensor holder for the open chunk and the late readings; also the monitor guarding them. An evicted head has
+     * been removed from the map and must not be written to.
+     */
+    private static final class Head {
+        private TimeSeriesChunkEncoder chunk;
+        private final List<SensorData> late = new ArrayList<>(0);
+        private boolean evicted;
+    }
+
+    /**
+     * The next in-range reading of one merge source.
+     */
+    private static final class MergeCursor implements Comparable<MergeCursor> {
+        private final int source;
+        private final Iterator<SensorData> readings;
+        private SensorData current;
+        private long timestamp;
+
+        private MergeCursor(int source, Iterator<SensorData> readings) {
+            this.source = source;
+            this.readings = readings;
+        }
+
+        /**
+         * Moves to the next reading in {@code [startMillis, endMillis]}; {@code false} when the source has none left.
+         */
+        private boolean advance(long startMillis, long endMillis) {
+            while (readings.hasNext()) {
+                current = readings.next();
+                timestamp = current.getTimestamp().toEpochMilli();
+                if (timestamp > endMillis) {
+                    return false;
+                }
+                if (timestamp >= startMillis) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int compareTo(MergeCursor other) {
+            int byTime = Long.compare(timestamp, other.timestamp);
+            return byTime != 0 ? byTime : Integer.compare(source, other.source);
+        }
+    }
+
+    /**
+     * A sealed chunk with the ID it is written under.
+     */
+    private record PendingChunk(String id, TimeSeriesChunkEncoder chunk, byte[] encoded) {
+    }
+
+    /**
+     * A chunk in a range scan with its index score (start time) and ID; {@code encoded} is {@code null} for an index
+     * entry whose chunk is gone.
+     */
+    private record StoredChunk(long start, String id, byte[] encoded) {
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.exception.IngestionBackpressureException;
+import org.example.model.BatchIngestResult;
+import org.example.model.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind ingestion mode. Readings are put on a bounded, lock-free in-process queue and
+ * drainer threads coalesce them into pipelined Redis batches, flushing when a batch reaches
+ * {@code ingest.write-behind.flush-size} readings or {@code ingest.write-behind.flush-interval-ms} has elapsed since
+ * its first reading. Drainers with nothing to do park until a reading is enqueued.
+ * A batch that fails to flush is retried with exponential backoff and keeps its queue slots until it is written;
+ * while a flush is failing, new readings are refused with backpressure instead of being acknowledged.
+ */
+@Service
+public class IngestionBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionBuffer.class);
+
+    private final SensorService sensorService;
+    private final ConcurrentLinkedQueue<SensorData> queue = new ConcurrentLinkedQueue<>();
+    // The queue itself is unbounded; capacity is enforced by reserving slots on this counter.
+    private final AtomicInteger depth = new AtomicInteger();
+    private final List<Thread> drainers = new ArrayList<>();
+    // Drainers parked for want of readings; enqueueing wakes one of them.
+    private final ConcurrentLinkedQueue<Thread> waitingDrainers = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private volatile boolean storageFailing;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedReadings = new AtomicLong();
+    private final AtomicLong failedReadings = new AtomicLong();
+    private final AtomicLong retriedFlushes = new AtomicLong();
+    private final AtomicLong rejectedReadings = new AtomicLong();
+    private final AtomicLong lastFlushSize = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+
+    @Value("${ingest.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ingest.write-behind.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${ingest.write-behind.flush-size:1000}")
+    private int flushSize;
+
+    @Value("${ingest.write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${ingest.write-behind.drainers:2}")
+    private int drainerCount;
+
+    @Value("${ingest.write-behind.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${ingest.write-behind.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    @Value("${ingest.write-behind.max-retry-backoff-ms:5000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${ingest.write-behind.shutdown-attempts:3}")
+    private int shutdownAttempts;
+
+    public IngestionBuffer(SensorService sensorService) {
+        this.sensorService = sensorService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < drainerCount; i++) {
+            Thread drainer = new Thread(this::drainLoop, "ingest-drainer-" + i);
+            drainer.setDaemon(true);
+            drainer.start();
+            drainers.add(drainer);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        drainers.forEach(LockSupport::unpark);
+        for (Thread drainer : drainers) {
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(SensorData data) {
+        if (data.getTimestamp() == null) {
+            data.setTimestamp(Instant.now());
+        }
+        reserve(1);
+        queue.offer(data);
+        wakeDrainer();
+    }
+
+    /**
+     * Validates the batch and enqueues all valid readings, or none of them if the queue cannot hold the whole batch.
+     */
+    public BatchIngestResult enqueueBatch(List<SensorData> batch) {
+        List<SensorData> valid = new ArrayList<>(batch.size());
+        BatchIngestResult result = sensorService.validateBatch(batch, valid);
+        if (!valid.isEmpty()) {
+            reserve(valid.size());
+            queue.addAll(valid);
+            wakeDrainer();
+        }
+        return result;
+    }
+
+    private void reserve(int count) {
+        if (storageFailing) {
+            rejectedReadings.addAndGet(count);
+            throw new IngestionBackpressureException("Buffered readings cannot be written to Redis", retryAfterSeconds);
+        }
+        while (true) {
+            int current = depth.get();
+            if (current + count > queueCapacity) {
+                rejectedReadings.addAndGet(count);
+                throw new IngestionBackpressureException("Ingestion queue is full", retryAfterSeconds);
+            }
+            if (depth.compareAndSet(current, current + count)) {
+                return;
+            }
+        }
+    }
+
+    private void wakeDrainer() {
+        Thread drainer = waitingDrainers.poll();
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    private void drainLoop() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running || !queue.isEmpty()) {
+            List<SensorData> batch = new ArrayList<>(flushSize);
+            long deadline = 0;
+            while (batch.size() < flushSize) {
+                SensorData data = queue.poll();
+                if (data != null) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + flushIntervalNanos;
+                    }
+                    batch.add(data);
+                    continue;
+                }
+                if (!running) {
+                    break;
+                }
+                if (batch.isEmpty()) {
+                    awaitReadings(0);
+                    continue;
+                }
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                awaitReadings(remainingNanos);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    /**
+     * Parks the drainer until a reading is enqueued, the buffer stops or {@code timeoutNanos} (if positive) elapses.
+     * The drainer is registered before the queue is checked again, so a reading enqueued in between either is seen
+     * by that check or unparks the drainer.
+     */
+    private void awaitReadings(long timeoutNanos) {
+        Thread drainer = Thread.currentThread();
+        waitingDrainers.add(drainer);
+        if (queue.isEmpty() && running) {
+            if (timeoutNanos > 0) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        waitingDrainers.remove(drainer);
+    }
+
+    /**
+     * Writes the batch, retrying with exponential backoff until it succeeds. Once the buffer is stopping, a batch
+     * gets {@code ingest.write-behind.shutdown-attempts} attempts before it is given up and counted as failed.
+     */
+    private void flush(List<SensorData> batch) {
+        long startNanos = System.nanoTime();
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sensorService.storeBatch(batch);
+                flushedReadings.addAndGet(batch.size());
+                storageFailing = false;
+                break;
+            } catch (RuntimeException e) {
+                storageFailing = true;
+                if (!running && attempt >= shutdownAttempts) {
+                    failedReadings.addAndGet(batch.size());
+                    log.error("Giving up on {} buffered readings after {} attempts", batch.size(), attempt, e);
+                    break;
+                }
+                retriedFlushes.incrementAndGet();
+                log.warn("Failed to flush {} buffered readings (attempt {}), retrying in {} ms", batch.size(), attempt, backoffMs, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, maxRetryBackoffMs);
+            }
+        }
+        depth.addAndGet(-batch.size());
+        long elapsed = System.nanoTime() - startNanos;
+        flushCount.incrementAndGet();
+        lastFlushSize.set(batch.size());
+        lastFlushNanos.set(elapsed);
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    public Map<String, Object> getStats() {
+        long flushes = flushCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queue_depth", depth.get());
+        stats.put("queue_capacity", queueCapacity);
+        stats.put("flush_count", flushes);
+        stats.put("flushed_readings", flushedReadings.get());
+        stats.put("failed_readings", failedReadings.get());
+        stats.put("retried_flushes", retriedFlushes.get());
+        stats.put("storage_failing", storageFailing);
+        stats.put("rejected_readings", rejectedReadings.get());
+        stats.put("last_flush_size", lastFlushSize.get());
+        stats.put("avg_flush_size", flushes == 0 ? 0.0 : (double) (flushedReadings.get() + failedReadings.get()) / flushes);
+        stats.put("last_flush_latency_ms", lastFlushNanos.get() / 1_000_000.0);
+        stats.put("avg_flush_latency_ms", flushes == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / flushes);
+        stats.put("max_flush_latency_ms", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+}
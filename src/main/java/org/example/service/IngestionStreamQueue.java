@@ -0,0 +1,431 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.example.exception.IngestionBackpressureException;
+import org.example.model.SensorData;
+import org.example.model.WorkBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Hands ingested readings to the registered workers through Redis Streams. When {@code queue.streams.enabled=true}
+ * every stored reading is also XADDed to one of {@code queue.streams.shards} streams
+ * ({@code ingest:stream:{shard}}, chosen by sensor ID so a sensor's readings stay ordered). Workers consume them
+ * through one consumer group, each worker being a consumer named after its ID:
+ * <ul>
+ *     <li>{@link #poll} first reclaims entries another consumer left pending longer than
+ *     {@code queue.streams.claim-idle} (XAUTOCLAIM), then reads new entries (XREADGROUP),</li>
+ *     <li>{@link #acknowledge} XACKs processed entries,</li>
+ *     <li>{@link #retireConsumer} removes the consumer of a deregistered or dead worker (XGROUP DELCONSUMER) once
+ *     the other workers have reclaimed all its pending entries, checking again every
+ *     {@code queue.streams.consumer-cleanup-interval-ms} until then.</li>
+ * </ul>
+ * The backlog (entries not yet delivered plus entries delivered but not acknowledged) is refreshed every
+ * {@code queue.streams.lag-refresh-interval-ms}; it feeds the scaling recommendation and rejects ingest with
+ * 503 once it exceeds {@code queue.streams.max-backlog}. Requires Redis 6.2 (XAUTOCLAIM); the group lag is
+ * read from XINFO GROUPS on Redis 7 and counted with XRANGE on older servers.
+ */
+@Service
+public class IngestionStreamQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionStreamQueue.class);
+
+    private static final String STREAM_KEY_PREFIX = "ingest:stream:";
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.UTF_8);
+    private static final String ID_SEPARATOR = "/";
+    private static final int MAX_COUNTED_LAG = 100_000;
+
+    private static final byte[] RETIRED_CONSUMERS_KEY = bytes("ingest:stream:retired-consumers");
+
+    private static final String AUTOCLAIM_SCRIPT =
+            "local reply = redis.call('XAUTOCLAIM', KEYS[1], ARGV[1], ARGV[2], ARGV[3], '0-0', 'COUNT', ARGV[4]) "
+            + "return reply[2]";
+    // Deleting a consumer drops its pending entries, so it is only deleted while it has none: 1 once it is gone
+    // (or the stream or group is), 0 while it still holds entries.
+    private static final String DELETE_CONSUMER_SCRIPT =
+            "local pending = redis.pcall('XPENDING', KEYS[1], ARGV[1], '-', '+', 1, ARGV[2]) "
+            + "if type(pending) ~= 'table' or pending.err then return 1 end "
+            + "if #pending > 0 then return 0 end "
+            + "redis.call('XGROUP', 'DELCONSUMER', KEYS[1], ARGV[1], ARGV[2]) "
+            + "return 1";
+    private static final String BACKLOG_SCRIPT =
+            "local groups = redis.pcall('XINFO', 'GROUPS', KEYS[1]) "
+            + "if type(groups) ~= 'table' or groups.err then return {0, 0} end "
+            + "for _, group in ipairs(groups) do "
+            + "  local info = {} "
+            + "  for i = 1, #group, 2 do info[group[i]] = group[i + 1] end "
+            + "  if info['name'] == ARGV[1] then "
+            + "    local lag = info['lag'] "
+            + "    if not lag then "
+            + "      lag = #redis.call('XRANGE', KEYS[1], '(' .. info['last-delivered-id'], '+', 'COUNT', ARGV[2]) "
+            + "    end "
+            + "    return {lag, info['pending']} "
+            + "  end "
+            + "end "
+            + "return {0, 0}";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private volatile long backlog;
+    private volatile long lag;
+
+    @Value("${queue.streams.enabled:false}")
+    private boolean enabled;
+
+    @Value("${queue.streams.shards:4}")
+    private int shards;
+
+    @Value("${queue.streams.group:workers}")
+    private String group;
+
+    @Value("${queue.streams.max-length:2000000}")
+    private long maxLength;
+
+    @Value("${queue.streams.max-backlog:1000000}")
+    private long maxBacklog;
+
+    @Value("${queue.streams.claim-idle:30s}")
+    private Duration claimIdle;
+
+    @Value("${queue.streams.poll.max-count:1000}")
+    private int maxPollCount;
+
+    @Value("${queue.streams.poll.max-block:5s}")
+    private Duration maxPollBlock;
+
+    @Value("${queue.streams.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    public IngestionStreamQueue(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    @PostConstruct
+    public void createGroups() {
+        if (!enabled) {
+            return;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            byte[] key = streamKey(shard);
+            try {
+                redisTemplate.execute((RedisCallback<String>) connection ->
+                        connection.streamCommands().xGroupCreate(key, group, ReadOffset.from("0"), true));
+            } catch (RedisSystemException e) {
+                if (!String.valueOf(e.getMostSpecificCause().getMessage()).startsWith("BUSYGROUP")) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Entries not yet delivered to any worker plus entries delivered but not yet acknowledged, as of the last refresh.
+     */
+    public long getBacklog() {
+        return enabled ? backlog : 0;
+    }
+
+    /**
+     * Entries not yet delivered to any worker, as of the last refresh. Unlike the backlog it excludes entries the
+     * workers hold but have not acknowledged yet, so it only grows while the workers cannot keep up.
+     */
+    public long getLag() {
+        return enabled ? lag : 0;
+    }
+
+    /**
+     * Rejects {@code count} more readings with a 503 while the workers are too far behind.
+     */
+    public void checkCapacity(int count) {
+        if (enabled && backlog + count > maxBacklog) {
+            throw new IngestionBackpressureException("Worker queue backlog of " + backlog + " entries is over the limit", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * XADDs every reading to its shard in one pipelined pass, trimming each stream to about
+     * {@code queue.streams.max-length} entries.
+     */
+    public void publish(List<SensorData> readings) {
+        if (!enabled || readings.isEmpty()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (SensorData data : readings) {
+                byte[] key = streamKey(shardOf(data.getSensorId()));
+                MapRecord<byte[], byte[], byte[]> record = StreamRecords.newRecord()
+                        .in(key)
+                        .ofMap(Collections.singletonMap(DATA_FIELD, serializer.serialize(data)));
+                connection.streamCommands().xAdd(record, options);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns up to about {@code count} entries for the worker: entries reclaimed from consumers that stopped
+     * acknowledging first, then new entries, waiting up to {@code blockMillis} when there are none.
+     * Entry IDs are {@code {shard}/{stream entry id}}.
+     */
+    public WorkBatch poll(String workerId, int count, long blockMillis) {
+        requireEnabled();
+        if (count < 1 || count > maxPollCount) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxPollCount);
+        }
+        if (blockMillis < 0 || blockMillis > maxPollBlock.toMillis()) {
+            throw new IllegalArgumentException("Block must be between 0 and " + maxPollBlock.toMillis() + " ms");
+        }
+
+        WorkBatch batch = new WorkBatch();
+        int firstShard = Math.floorMod(workerId.hashCode(), shards);
+        for (int i = 0; i < shards && batch.getItems().size() < count; i++) {
+            int shard = (firstShard + i) % shards;
+            reclaim(shard, workerId, count - batch.getItems().size(), batch);
+        }
+        batch.setReclaimed(batch.getItems().size());
+
+        int remaining = count - batch.getItems().size();
+        if (remaining > 0) {
+            // COUNT applies per stream, so spread the request over the shards.
+            StreamReadOptions options = StreamReadOptions.empty().count(Math.max(1, remaining / shards));
+            if (blockMillis > 0 && batch.getItems().isEmpty()) {
+                options = options.block(Duration.ofMillis(blockMillis));
+            }
+            @SuppressWarnings("unchecked")
+            StreamOffset<byte[]>[] offsets = new StreamOffset[shards];
+            for (int shard = 0; shard < shards; shard++) {
+                offsets[shard] = StreamOffset.create(streamKey(shard), ReadOffset.lastConsumed());
+            }
+            StreamReadOptions readOptions = options;
+            List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                    connection.streamCommands().xReadGroup(Consumer.from(group, workerId), readOptions, offsets));
+            if (records != null) {
+                for (ByteRecord record : records) {
+                    int shard = shardOfKey(record.getStream());
+                    byte[] data = null;
+                    for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                        if (Arrays.equals(field.getKey(), DATA_FIELD)) {
+                            data = field.getValue();
+                        }
+                    }
+                    batch.getItems().add(new WorkBatch.Item(shard + ID_SEPARATOR + record.getId().getValue(), toSensorData(data)));
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Acknowledges processed entries and returns how many were still pending.
+     */
+    public long acknowledge(List<String> ids) {
+        requireEnabled();
+        Map<Integer, List<RecordId>> idsByShard = new TreeMap<>();
+        for (String id : ids) {
+            int separator = id == null ? -1 : id.indexOf(ID_SEPARATOR);
+            try {
+                if (separator < 0) {
+                    throw new IllegalArgumentException();
+                }
+                int shard = Integer.parseInt(id.substring(0, separator));
+                if (shard < 0 || shard >= shards) {
+                    throw new IllegalArgumentException();
+                }
+                idsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(RecordId.of(id.substring(separator + 1)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid entry id: " + id);
+            }
+        }
+        if (idsByShard.isEmpty()) {
+            return 0;
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            idsByShard.forEach((shard, recordIds) ->
+                    connection.streamCommands().xAck(streamKey(shard), group, recordIds.toArray(new RecordId[0])));
+            return null;
+        });
+        long acknowledged = 0;
+        for (Object result : results) {
+            if (result instanceof Number n) {
+                acknowledged += n.longValue();
+            }
+        }
+        return acknowledged;
+    }
+
+    /**
+     * Removes the worker's consumer from the group of every shard it holds no pending entries on. A consumer that
+     * still holds entries is kept until {@link #poll} has handed them to other workers (they are reclaimed once idle
+     * for {@code queue.streams.claim-idle}), and removed by {@link #removeRetiredConsumers} after that.
+     */
+    public void retireConsumer(String workerId) {
+        if (!enabled) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.setCommands().sAdd(RETIRED_CONSUMERS_KEY, bytes(workerId)));
+        removeConsumer(workerId);
+    }
+
+    /**
+     * Keeps a worker that registers again from losing its consumer to an earlier {@link #retireConsumer}.
+     */
+    public void reinstateConsumer(String workerId) {
+        if (!enabled) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.setCommands().sRem(RETIRED_CONSUMERS_KEY, bytes(workerId)));
+    }
+
+    @Scheduled(fixedDelayString = "${queue.streams.consumer-cleanup-interval-ms:30000}")
+    public void removeRetiredConsumers() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<byte[]> retired = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                    connection.setCommands().sMembers(RETIRED_CONSUMERS_KEY));
+            if (retired == null) {
+                return;
+            }
+            for (byte[] workerId : retired) {
+                removeConsumer(new String(workerId, StandardCharsets.UTF_8));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove the consumers of retired workers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the worker's consumer on every shard where it holds no pending entries, and forgets the worker once
+     * it is gone from all of them.
+     */
+    private void removeConsumer(String workerId) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int shard = 0; shard < shards; shard++) {
+                connection.scriptingCommands().eval(bytes(DELETE_CONSUMER_SCRIPT), ReturnType.INTEGER, 1,
+                        streamKey(shard), bytes(group), bytes(workerId));
+            }
+            return null;
+        });
+        for (Object result : results) {
+            if (!(result instanceof Number n) || n.longValue() != 1) {
+                return;
+            }
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.setCommands().sRem(RETIRED_CONSUMERS_KEY, bytes(workerId)));
+    }
+
+    @Scheduled(fixedDelayString = "${queue.streams.lag-refresh-interval-ms:1000}")
+    public void refreshBacklog() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (int shard = 0; shard < shards; shard++) {
+                    connection.scriptingCommands().eval(bytes(BACKLOG_SCRIPT), ReturnType.MULTI, 1,
+                            streamKey(shard), bytes(group), bytes(Integer.toString(MAX_COUNTED_LAG)));
+                }
+                return connection.closePipeline();
+            });
+            long total = 0;
+            long undelivered = 0;
+            if (results != null) {
+                for (Object result : results) {
+                    if (result instanceof List<?> values) {
+                        for (Object value : values) {
+                            total += value instanceof Number n ? n.longValue() : 0;
+                        }
+                        undelivered += !values.isEmpty() && values.get(0) instanceof Number n ? n.longValue() : 0;
+                    }
+                }
+            }
+            backlog = total;
+            lag = undelivered;
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh the worker queue backlog: {}", e.getMessage());
+        }
+    }
+
+    private void reclaim(int shard, String workerId, int count, WorkBatch batch) {
+        Object reply = redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands().eval(
+                bytes(AUTOCLAIM_SCRIPT), ReturnType.MULTI, 1, streamKey(shard),
+                bytes(group), bytes(workerId), bytes(Long.toString(claimIdle.toMillis())), bytes(Integer.toString(count))));
+        if (!(reply instanceof List<?> entries)) {
+            return;
+        }
+        for (Object entry : entries) {
+            // Entries trimmed from the stream come back empty on Redis 6.2.
+            if (!(entry instanceof List<?> parts) || parts.size() < 2 || !(parts.get(1) instanceof List<?> fields)) {
+                continue;
+            }
+            byte[] data = null;
+            for (int i = 0; i + 1 < fields.size(); i += 2) {
+                if (Arrays.equals((byte[]) fields.get(i), DATA_FIELD)) {
+                    data = (byte[]) fields.get(i + 1);
+                }
+            }
+            String entryId = new String((byte[]) parts.get(0), StandardCharsets.UTF_8);
+            batch.getItems().add(new WorkBatch.Item(shard + ID_SEPARATOR + entryId, toSensorData(data)));
+        }
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("The worker queue is disabled (queue.streams.enabled=false)");
+        }
+    }
+
+    private SensorData toSensorData(byte[] value) {
+        Object obj = value == null ? null : redisTemplate.getValueSerializer().deserialize(value);
+        if (obj == null || obj instanceof SensorData) {
+            return (SensorData) obj;
+        }
+        return objectMapper.convertValue(obj, SensorData.class);
+    }
+
+    private int shardOf(String sensorId) {
+        return Math.floorMod(sensorId.hashCode(), shards);
+    }
+
+    private static int shardOfKey(byte[] key) {
+        return Integer.parseInt(new String(key, StandardCharsets.UTF_8).substring(STREAM_KEY_PREFIX.length()));
+    }
+
+    private static byte[] streamKey(int shard) {
+        return bytes(STREAM_KEY_PREFIX + shard);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.model.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the latest reading per sensor, bounded by size and TTL and populated write-through from
+ * ingest. Sensors updated on this node are collected and published on {@value #INVALIDATION_CHANNEL} every
+ * {@code cache.latest.invalidation-interval-ms}, so other nodes drop their copies without an extra Redis call
+ * per reading.
+ */
+@Service
+public class LatestReadingCache implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LatestReadingCache.class);
+
+    private static final String INVALIDATION_CHANNEL = "sensors:latest:invalidate";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Cache<String, SensorData> cache;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidationsReceived = new AtomicLong();
+
+    public LatestReadingCache(RedisTemplate<String, Object> redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              @Value("${cache.latest.enabled:true}") boolean enabled,
+                              @Value("${cache.latest.max-size:100000}") long maxSize,
+                              @Value("${cache.latest.ttl:30s}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    public SensorData get(String sensorId, Function<String, SensorData> loader) {
+        if (!enabled) {
+            return loader.apply(sensorId);
+        }
+        return cache.get(sensorId, loader);
+    }
+
+    public SensorData getIfPresent(String sensorId) {
+        return enabled ? cache.getIfPresent(sensorId) : null;
+    }
+
+    /**
+     * Caches a reading that was loaded from Redis; unlike {@link #put(SensorData)} no invalidation is published.
+     */
+    public void putLoaded(SensorData data) {
+        if (enabled) {
+            cache.asMap().merge(data.getSensorId(), data,
+                    (cached, loaded) -> loaded.getTimestamp().isBefore(cached.getTimestamp()) ? cached : loaded);
+        }
+    }
+
+    /**
+     * Stores the reading unless a newer one is already cached, and schedules an invalidation for other nodes.
+     */
+    public void put(SensorData data) {
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().merge(data.getSensorId(), data,
+                (cached, incoming) -> incoming.getTimestamp().isBefore(cached.getTimestamp()) ? cached : incoming);
+        dirty.add(data.getSensorId());
+    }
+
+    @Scheduled(fixedDelayString = "${cache.latest.invalidation-interval-ms:100}")
+    public void publishInvalidations() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder(nodeId);
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            message.append('\n').append(it.next());
+            it.remove();
+        }
+        byte[] channel = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+        byte[] body = message.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish latest-reading invalidations: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split("\n");
+        if (lines.length == 0 || nodeId.equals(lines[0])) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            cache.invalidate(lines[i]);
+        }
+        invalidationsReceived.addAndGet(lines.length - 1L);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hit_rate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("invalidations_received", invalidationsReceived.get());
+        return result;
+    }
+}
@@ -1,19 +1,99 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class MetricsService {
 
     private final ThroughputMonitor throughputMonitor;
+    private final IngestionBuffer ingestionBuffer;
+    private final LatestReadingCache latestReadingCache;
+    private final MeterRegistry meterRegistry;
 
-    public MetricsService(ThroughputMonitor throughputMonitor) {
+    /**
+     * Timers reported by {@link #getLatencyPercentiles()}: the service hot paths, the Redis (de)serializer,
+     * Lettuce's per-command latencies and Spring MVC's per-endpoint request timings.
+     */
+    private static final List<String> LATENCY_TIMERS = List.of(
+            "sensors.ingest", "sensors.query", "workers.heartbeat", "workers.list", "throughput.flush",
+            "redis.serialization", "lettuce.command.completion", "http.server.requests");
+
+    public MetricsService(ThroughputMonitor throughputMonitor, IngestionBuffer ingestionBuffer,
+                          LatestReadingCache latestReadingCache, MeterRegistry meterRegistry) {
         this.throughputMonitor = throughputMonitor;
+        this.ingestionBuffer = ingestionBuffer;
+        this.latestReadingCache = latestReadingCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Map<String, Number> getThroughput() {
+        Map<String, Number> throughput = new LinkedHashMap<>();
+        throughput.put("current_throughput", throughputMonitor.getCurrentThroughput());
+        throughput.put("avg_10s", throughputMonitor.getAverageThroughput(10));
+        throughput.put("avg_60s", throughputMonitor.getAverageThroughput(60));
+        throughput.put("local_throughput", throughputMonitor.getLocalThroughput());
+        return throughput;
+    }
+
+    public Map<String, Object> getIngestionBufferStats() {
+        return ingestionBuffer.getStats();
+    }
+
+    public Map<String, Object> getLatestReadingCacheStats() {
+        return latestReadingCache.getStats();
+    }
+
+    /**
+     * Count, mean, p50/p99/p99.9 and max in milliseconds for every tagged timer, keyed by
+     * {@code name{tag=value,...}}. Percentiles come from the timers' own histograms, so they cover the
+     * timer's sliding window rather than the whole uptime.
+     */
+    public Map<String, Map<String, Number>> getLatencyPercentiles() {
+        Map<String, Map<String, Number>> latencies = new TreeMap<>();
+        for (String name : LATENCY_TIMERS) {
+            for (Timer timer : meterRegistry.find(name).timers()) {
+                latencies.put(meterKey(timer), summarize(timer.takeSnapshot()));
+            }
+        }
+        return latencies;
+    }
+
+    private static String meterKey(Timer timer) {
+        List<Tag> tags = timer.getId().getTags();
+        if (tags.isEmpty()) {
+            return timer.getId().getName();
+        }
+        return tags.stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", timer.getId().getName() + "{", "}"));
+    }
+
+    private static Map<String, Number> summarize(HistogramSnapshot snapshot) {
+        Map<String, Number> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        summary.put("mean_ms", snapshot.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put(percentileKey(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        summary.put("max_ms", snapshot.max(TimeUnit.MILLISECONDS));
+        return summary;
     }
 
-    public Map<String, Long> getThroughput() {
-        return Map.of("current_throughput", throughputMonitor.getCurrentThroughput());
+    private static String percentileKey(double percentile) {
+        // 0.5 -> p50, 0.99 -> p99, 0.999 -> p999
+        String digits = Double.toString(percentile).substring(2);
+        return "p" + (digits.length() == 1 ? digits + "0" : digits) + "_ms";
     }
 }
@@ -0,0 +1,162 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.model.SensorData;
+import org.example.sharding.RedisShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link SensorService} for single-reading ingest, the latest reading and range queries,
+ * built on {@link ReactiveRedisTemplate}: no thread waits while Redis answers. The in-process parts (sensor index,
+ * rollups, latest-reading cache, throughput) are shared with the blocking path. What only exists as blocking code,
+ * the chunked storage engine, the worker stream queue, the segment archive and sharded storage, runs on the bounded
+ * elastic scheduler.
+ */
+@Service
+public class ReactiveSensorService {
+
+    private static final String SENSOR_KEY_PREFIX = "sensor:";
+    private static final String SENSOR_DATA_KEY_SUFFIX = ":data";
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final SensorService sensorService;
+    private final SensorIndex sensorIndex;
+    private final RollupService rollupService;
+    private final LatestReadingCache latestReadingCache;
+    private final ThroughputMonitor throughputMonitor;
+    private final IngestionStreamQueue ingestionStreamQueue;
+    private final SegmentArchive segmentArchive;
+    private final RedisShards redisShards;
+    private final ObjectMapper objectMapper;
+    private final Timer ingestTimer;
+    private final Timer rangeQueryTimer;
+    private final Timer latestLoadTimer;
+
+    @Value("${storage.engine:zset}")
+    private String storageEngine;
+
+    public ReactiveSensorService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate, SensorService sensorService,
+                                 SensorIndex sensorIndex, RollupService rollupService, LatestReadingCache latestReadingCache,
+                                 ThroughputMonitor throughputMonitor, IngestionStreamQueue ingestionStreamQueue,
+                                 SegmentArchive segmentArchive, RedisShards redisShards, MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.sensorService = sensorService;
+        this.sensorIndex = sensorIndex;
+        this.rollupService = rollupService;
+        this.latestReadingCache = latestReadingCache;
+        this.throughputMonitor = throughputMonitor;
+        this.ingestionStreamQueue = ingestionStreamQueue;
+        this.segmentArchive = segmentArchive;
+        this.redisShards = redisShards;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.ingestTimer = Timer.builder("sensors.ingest").tag("mode", "reactive").register(meterRegistry);
+        this.rangeQueryTimer = Timer.builder("sensors.query").tag("type", "range-reactive").register(meterRegistry);
+        this.latestLoadTimer = Timer.builder("sensors.query").tag("type", "latest-reactive").register(meterRegistry);
+    }
+
+    public Mono<Void> ingestData(SensorData data) {
+        if (data.getTimestamp() == null) {
+            data.setTimestamp(Instant.now());
+        }
+        if (isBlocking() || ingestionStreamQueue.isEnabled()) {
+            return blocking(() -> {
+                sensorService.ingestData(data);
+                return Boolean.TRUE;
+            }).then();
+        }
+
+        String sensorId = data.getSensorId();
+        String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+        Mono<Boolean> store = reactiveRedisTemplate.opsForZSet().add(key, data, data.getTimestamp().toEpochMilli());
+        // Add to set of all sensors (only the first time this node sees the sensor)
+        Mono<Long> register = sensorIndex.isKnown(sensorId)
+                ? Mono.empty()
+                : reactiveRedisTemplate.opsForSet().add(SensorIndex.ALL_SENSORS_KEY, sensorId)
+                        .doOnSuccess(added -> sensorIndex.markKnown(List.of(sensorId)));
+
+        return timed(Mono.when(store, register)
+                .doOnSuccess(ignored -> {
+                    rollupService.record(data);
+                    latestReadingCache.put(data);
+                    throughputMonitor.increment();
+                }), ingestTimer);
+    }
+
+    public Mono<SensorData> getLatestReading(String sensorId) {
+        SensorData cached = latestReadingCache.getIfPresent(sensorId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        if (isBlocking()) {
+            return blocking(() -> sensorService.getLatestReading(sensorId));
+        }
+        String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+        return timed(reactiveRedisTemplate.opsForZSet().reverseRange(key, Range.closed(0L, 0L))
+                .next()
+                .map(this::toSensorData)
+                .doOnNext(latestReadingCache::putLoaded), latestLoadTimer);
+    }
+
+    /**
+     * Readings of {@code [start, end]}: archived segments first, then the hot readings held in Redis.
+     */
+    public Mono<List<SensorData>> getReadingsInRange(String sensorId, Instant start, Instant end) {
+        if (isBlocking()) {
+            return blocking(() -> sensorService.getReadingsInRange(sensorId, start, end));
+        }
+        Mono<List<SensorData>> archived = segmentArchive.isEnabled()
+                ? blocking(() -> {
+                    List<SensorData> readings = new ArrayList<>();
+                    segmentArchive.scanRange(sensorId, start, end, readings::add);
+                    return readings;
+                })
+                : Mono.just(List.of());
+        String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+        Flux<SensorData> hot = reactiveRedisTemplate.opsForZSet()
+                .rangeByScore(key, Range.closed((double) start.toEpochMilli(), (double) end.toEpochMilli()))
+                .map(this::toSensorData);
+        return timed(archived.flatMapMany(Flux::fromIterable).concatWith(hot).collectList(), rangeQueryTimer);
+    }
+
+    /**
+     * The chunked engine has no reactive code and the reactive template only talks to the primary Redis, so both
+     * go through {@link SensorService}.
+     */
+    private boolean isBlocking() {
+        return "chunked".equalsIgnoreCase(storageEngine) || redisShards.size() > 1;
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> Mono<T> timed(Mono<T> mono, Timer timer) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return mono.doFinally(signal -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private SensorData toSensorData(Object obj) {
+        if (obj instanceof SensorData) {
+            return (SensorData) obj;
+        }
+        return objectMapper.convertValue(obj, SensorData.class);
+    }
+}
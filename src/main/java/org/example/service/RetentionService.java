@@ -0,0 +1,252 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.example.model.SensorData;
+import org.example.sharding.RedisShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps only the last {@code retention.hot-window} of sensor history in Redis. Every
+ * {@code retention.interval-ms} one node (elected with a {@code SET NX} lock) walks {@code sensors:all}, exports
+ * readings older than the window to the {@link SegmentArchive} in pages of {@code retention.batch-size} and
+ * only then removes them from Redis. The exact exported members are removed rather than the score range, so
+ * a late reading that arrives while a page is exported stays in Redis for the next run.
+ * <p>
+ * A node failing between writing a segment and removing its members exports those readings again on the next
+ * run, so the cold tier may hold duplicates after a crash, but never loses readings.
+ * <p>
+ * Runs execute on a dedicated thread, so a long export never holds up the other scheduled jobs. The lock is
+ * renewed once a third of {@code retention.lock-ttl} has passed; a run that cannot renew it stops before the
+ * next page, so two nodes never export the same sensors concurrently.
+ */
+@Service
+public class RetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private static final String LOCK_KEY = "retention:lock";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0";
+    private static final String SENSOR_KEY_PREFIX = "sensor:";
+    private static final String SENSOR_DATA_KEY_SUFFIX = ":data";
+    private static final int SENSOR_SCAN_COUNT = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisShards redisShards;
+    private final SensorIndex sensorIndex;
+    private final ChunkedSensorStore chunkedSensorStore;
+    private final SegmentArchive segmentArchive;
+    private final SensorSchemaRegistry schemaRegistry;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService archiveExecutor = Executors.newSingleThreadExecutor(daemonThreads());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${retention.hot-window:7d}")
+    private Duration hotWindow;
+
+    @Value("${retention.batch-size:10000}")
+    private int batchSize;
+
+    @Value("${retention.lock-ttl:30m}")
+    private Duration lockTtl;
+
+    @Value("${storage.engine:zset}")
+    private String storageEngine;
+
+    public RetentionService(RedisTemplate<String, Object> redisTemplate, RedisShards redisShards, SensorIndex sensorIndex,
+                            ChunkedSensorStore chunkedSensorStore, SegmentArchive segmentArchive,
+                            SensorSchemaRegistry schemaRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.redisShards = redisShards;
+        this.sensorIndex = sensorIndex;
+        this.chunkedSensorStore = chunkedSensorStore;
+        this.segmentArchive = segmentArchive;
+        this.schemaRegistry = schemaRegistry;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * Hands a run to the archive thread unless the previous one is still going.
+     */
+    @Scheduled(fixedDelayString = "${retention.interval-ms:3600000}", initialDelayString = "${retention.interval-ms:3600000}")
+    public void scheduleArchive() {
+        if (!segmentArchive.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        archiveExecutor.execute(() -> {
+            try {
+                archiveExpired();
+            } catch (RuntimeException e) {
+                log.error("Retention run failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    public void archiveExpired() {
+        if (!segmentArchive.isEnabled() || !acquireLock()) {
+            return;
+        }
+        Lease lease = new Lease();
+        long cutoff = Instant.now().minus(hotWindow).toEpochMilli();
+        long sensors = 0;
+        long archived = 0;
+        try (CloseableIterator<String> sensorIds = sensorIndex.scanMatching("*", SENSOR_SCAN_COUNT)) {
+            while (sensorIds.hasNext() && lease.isHeld()) {
+                String sensorId = sensorIds.next();
+                try {
+                    archived += "chunked".equalsIgnoreCase(storageEngine)
+                            ? archiveChunks(sensorId, cutoff, lease)
+                            : archiveMembers(sensorId, cutoff, lease);
+                    sensors++;
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to archive readings of sensor {}", sensorId, e);
+                }
+            }
+        } finally {
+            releaseLock();
+        }
+        if (!lease.held) {
+            log.warn("Lost the retention lock, stopping the run early; the next run picks up the remaining sensors");
+        }
+        log.info("Archived {} readings of {} sensors older than {}", archived, sensors, Instant.ofEpochMilli(cutoff));
+    }
+
+    @PreDestroy
+    public void stop() {
+        archiveExecutor.shutdownNow();
+    }
+
+    private long archiveMembers(String sensorId, long cutoff, Lease lease) throws IOException {
+        byte[] key = bytes(SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX);
+        RedisOperations<String, Object> shard = redisShards.templateFor(sensorId);
+        RedisSerializer<?> serializer = shard.getValueSerializer();
+        long archived = 0;
+        while (lease.isHeld()) {
+            // Raw members, so exactly these byte strings can be removed after the export.
+            Set<byte[]> members = shard.execute((RedisCallback<Set<byte[]>>) connection ->
+                    connection.zSetCommands().zRangeByScore(key, Double.NEGATIVE_INFINITY, cutoff - 1, 0, batchSize));
+            if (members == null || members.isEmpty()) {
+                return archived;
+            }
+            List<SensorData> readings = new ArrayList<>(members.size());
+            for (byte[] member : members) {
+                Object value = serializer.deserialize(member);
+                SensorData data = value instanceof SensorData ? (SensorData) value : objectMapper.convertValue(value, SensorData.class);
+                // Segments are columnar by reading name, so schema readings are archived in the map form.
+                readings.add(schemaRegistry.expand(data));
+            }
+            segmentArchive.write(sensorId, readings);
+            byte[][] removed = members.toArray(new byte[0][]);
+            shard.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zRem(key, removed));
+            archived += readings.size();
+            if (members.size() < batchSize) {
+                return archived;
+            }
+        }
+        return archived;
+    }
+
+    private long archiveChunks(String sensorId, long cutoff, Lease lease) throws IOException {
+        long archived = 0;
+        int chunksPerPage = Math.max(1, batchSize / 1024);
+        while (lease.isHeld()) {
+            List<String> chunkIds = new ArrayList<>();
+            List<SensorData> readings = chunkedSensorStore.readChunksBefore(sensorId, cutoff, chunksPerPage, chunkIds);
+            if (chunkIds.isEmpty()) {
+                return archived;
+            }
+            // Chunks written by different nodes may interleave.
+            readings.sort(Comparator.comparing(SensorData::getTimestamp));
+            if (!readings.isEmpty()) {
+                segmentArchive.write(sensorId, readings);
+            }
+            chunkedSensorStore.deleteChunks(sensorId, chunkIds);
+            archived += readings.size();
+        }
+        return archived;
+    }
+
+    private boolean acquireLock() {
+        Boolean acquired = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                .set(bytes(LOCK_KEY), bytes(nodeId), Expiration.from(lockTtl), RedisStringCommands.SetOption.ifAbsent()));
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    private void releaseLock() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                    .eval(bytes(RELEASE_SCRIPT), ReturnType.INTEGER, 1, bytes(LOCK_KEY), bytes(nodeId)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release the retention lock, it expires after {}: {}", lockTtl, e.getMessage());
+        }
+    }
+
+    private boolean renewLock() {
+        try {
+            Long renewed = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                    .eval(bytes(RENEW_SCRIPT), ReturnType.INTEGER, 1, bytes(LOCK_KEY), bytes(nodeId),
+                            bytes(Long.toString(lockTtl.toMillis()))));
+            return renewed != null && renewed == 1;
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the retention lock: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("retention-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The lock held by the current run, renewed when a third of its TTL has passed since the last renewal.
+     */
+    private final class Lease {
+
+        private long renewAt = System.nanoTime() + lockTtl.toNanos() / 3;
+        private boolean held = true;
+
+        boolean isHeld() {
+            if (held && System.nanoTime() - renewAt >= 0) {
+                held = renewLock();
+                renewAt = System.nanoTime() + lockTtl.toNanos() / 3;
+            }
+            return held;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.example.service;
+
+import org.example.model.SensorData;
+import org.example.sharding.RedisShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rollups precomputed at ingest time. Every ingested reading is folded into in-memory count/sum/min/max buckets
+ * for each configured resolution (e.g. 1m and 1h). Once per {@code rollup.flush-interval-ms} the partial buckets
+ * are merged into Redis with a Lua script, so rollups from several nodes combine correctly:
+ * <ul>
+ *     <li>{@code sensor:{id}:rollup:{resolution}:{bucketStart}} is a HASH with {@code {reading}|count/sum/min/max} fields,</li>
+ *     <li>{@code sensor:{id}:rollup:{resolution}} is a ZSET of bucket starts.</li>
+ * </ul>
+ */
+@Service
+public class RollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    private static final String SENSOR_KEY_PREFIX = "sensor:";
+    private static final String ROLLUP_KEY_INFIX = ":rollup:";
+
+    private final RedisShards redisShards;
+    private final SensorSchemaRegistry schemaRegistry;
+    private final DefaultRedisScript<Long> mergeScript;
+    private final List<Resolution> resolutions = new ArrayList<>();
+    private final Map<PendingKey, Map<String, AggregateStats>> pending = new ConcurrentHashMap<>();
+    // Names of the shards the merge script is known to be loaded on.
+    private final Set<String> scriptLoaded = ConcurrentHashMap.newKeySet();
+
+    @Value("${rollup.enabled:true}")
+    private boolean enabled;
+
+    public RollupService(RedisShards redisShards, SensorSchemaRegistry schemaRegistry,
+                         @Value("${rollup.resolutions:1m:7d,1h:90d}") List<String> resolutionSpecs) {
+        this.redisShards = redisShards;
+        this.schemaRegistry = schemaRegistry;
+        this.mergeScript = new DefaultRedisScript<>();
+        this.mergeScript.setLocation(new ClassPathResource("scripts/rollup_merge.lua"));
+        this.mergeScript.setResultType(Long.class);
+        for (String spec : resolutionSpecs) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rollup resolution must be <step>:<ttl>, got: " + spec);
+            }
+            resolutions.add(new Resolution(parts[0],
+                    DurationStyle.detectAndParse(parts[0]).toMillis(),
+                    DurationStyle.detectAndParse(parts[1]).toSeconds()));
+        }
+        resolutions.sort(Comparator.comparingLong(Resolution::millis));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Resolution> getResolutions() {
+        return resolutions;
+    }
+
+    public void record(SensorData data) {
+        if (!enabled || (data.getReadings() == null && data.getValues() == null)) {
+            return;
+        }
+        long timestamp = data.getTimestamp().toEpochMilli();
+        for (Resolution resolution : resolutions) {
+            PendingKey key = new PendingKey(data.getSensorId(), resolution, Math.floorDiv(timestamp, resolution.millis()) * resolution.millis());
+            // compute() runs atomically with the remove() in flush(), so no update can land in a flushed bucket.
+            pending.compute(key, (k, stats) -> {
+                if (stats == null) {
+                    stats = new HashMap<>();
+                }
+                Map<String, AggregateStats> bucket = stats;
+                schemaRegistry.forEachReading(data, (name, value) -> {
+                    if (Double.isFinite(value)) {
+                        bucket.computeIfAbsent(name, n -> new AggregateStats()).add(value);
+                    }
+                });
+                return stats;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rollup.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<PendingKey, Map<String, AggregateStats>> batch = new HashMap<>();
+        for (PendingKey key : pending.keySet()) {
+            Map<String, AggregateStats> stats = pending.remove(key);
+            if (stats != null && !stats.isEmpty()) {
+                batch.put(key, stats);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        redisShards.groupBySensor(batch.keySet(), PendingKey::sensorId).forEach((shard, keys) -> {
+            try {
+                if (!scriptLoaded.contains(shard.name())) {
+                    shard.template().execute((RedisCallback<String>) connection ->
+                            connection.scriptingCommands().scriptLoad(bytes(mergeScript.getScriptAsString())));
+                    scriptLoaded.add(shard.name());
+                }
+                byte[] sha = bytes(mergeScript.getSha1());
+                shard.template().executePipelined((RedisCallback<Object>) connection -> {
+                    keys.forEach(key -> connection.scriptingCommands()
+                            .evalSha(sha, ReturnType.INTEGER, 2, mergeArguments(key, batch.get(key))));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Typically NOSCRIPT after a Redis restart, in which case no bucket was merged: reload the script and
+                // retry the buckets on the next flush. A connection failure part-way through the pipeline may double count.
+                scriptLoaded.remove(shard.name());
+                keys.forEach(key -> pending.merge(key, batch.get(key), (current, failed) -> {
+                    failed.forEach((name, s) -> current.computeIfAbsent(name, n -> new AggregateStats()).merge(s));
+                    return current;
+                }));
+                log.warn("Failed to flush {} rollup buckets to shard {}: {}", keys.size(), shard.name(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads the stored buckets of {@code resolution} whose start lies in {@code [startMillis, endMillis)}.
+     */
+    public NavigableMap<Long, Map<String, AggregateStats>> readBuckets(String sensorId, Resolution resolution, long startMillis, long endMillis) {
+        String indexKey = indexKey(sensorId, resolution);
+        NavigableMap<Long, Map<String, AggregateStats>> buckets = new TreeMap<>();
+        RedisOperations<String, Object> shard = redisShards.templateFor(sensorId);
+        Set<byte[]> members = shard.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByScore(bytes(indexKey), startMillis, endMillis - 1));
+        if (members == null || members.isEmpty()) {
+            return buckets;
+        }
+        List<Long> bucketStarts = new ArrayList<>(members.size());
+        for (byte[] member : members) {
+            bucketStarts.add(Long.parseLong(new String(member, StandardCharsets.UTF_8)));
+        }
+        // Pipelined on the raw connection so the hash values are not run through the template's value serializer.
+        List<Object> results = shard.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (Long bucketStart : bucketStarts) {
+                connection.hashCommands().hGetAll(bytes(bucketKey(sensorId, resolution, bucketStart)));
+            }
+            return connection.closePipeline();
+        });
+        if (results == null) {
+            return buckets;
+        }
+        for (int i = 0; i < bucketStarts.size(); i++) {
+            Map<String, AggregateStats> stats = parseBucket(results.get(i));
+            if (!stats.isEmpty()) {
+                buckets.put(bucketStarts.get(i), stats);
+            }
+        }
+        return buckets;
+    }
+
+    private static byte[][] mergeArguments(PendingKey key, Map<String, AggregateStats> stats) {
+        byte[][] keysAndArgs = new byte[4 + stats.size() * 5][];
+        keysAndArgs[0] = bytes(bucketKey(key.sensorId(), key.resolution(), key.bucketStart()));
+        keysAndArgs[1] = bytes(indexKey(key.sensorId(), key.resolution()));
+        keysAndArgs[2] = bytes(Long.toString(key.bucketStart()));
+        keysAndArgs[3] = bytes(Long.toString(key.resolution().ttlSeconds()));
+        int i = 4;
+        for (Map.Entry<String, AggregateStats> entry : stats.entrySet()) {
+            AggregateStats s = entry.getValue();
+            keysAndArgs[i++] = bytes(entry.getKey());
+            keysAndArgs[i++] = bytes(Long.toString(s.count));
+            keysAndArgs[i++] = bytes(Double.toString(s.sum));
+            keysAndArgs[i++] = bytes(Double.toString(s.min));
+            keysAndArgs[i++] = bytes(Double.toString(s.max));
+        }
+        return keysAndArgs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, AggregateStats> parseBucket(Object result) {
+        Map<String, AggregateStats> stats = new LinkedHashMap<>();
+        if (!(result instanceof Map)) {
+            return stats;
+        }
+        ((Map<byte[], byte[]>) result).forEach((field, value) -> {
+            String name = new String(field, StandardCharsets.UTF_8);
+            int separator = name.lastIndexOf('|');
+            if (separator < 0) {
+                return;
+            }
+            AggregateStats s = stats.computeIfAbsent(name.substring(0, separator), n -> new AggregateStats());
+            String number = new String(value, StandardCharsets.UTF_8);
+            switch (name.substring(separator + 1)) {
+                case "count" -> s.count = Long.parseLong(number);
+                case "sum" -> s.sum = Double.parseDouble(number);
+                case "min" -> s.min = Double.parseDouble(number);
+                case "max" -> s.max = Double.parseDouble(number);
+                default -> { }
+            }
+        });
+        return stats;
+    }
+
+    static String indexKey(String sensorId, Resolution resolution) {
+        return SENSOR_KEY_PREFIX + sensorId + ROLLUP_KEY_INFIX + resolution.name();
+    }
+
+    private static String bucketKey(String sensorId, Resolution resolution, long bucketStart) {
+        return indexKey(sensorId, resolution) + ":" + bucketStart;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record Resolution(String name, long millis, long ttlSeconds) {
+    }
+
+    private record PendingKey(String sensorId, Resolution resolution, long bucketStart) {
+    }
+}
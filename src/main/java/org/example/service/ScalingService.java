@@ -1,62 +1,407 @@
 package org.example.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.model.ScalingRecommendation;
+import org.example.model.ScalingReplayReport;
+import org.example.model.ScalingReplayRequest;
+import org.example.model.ScalingWhatIfReport;
+import org.example.model.ScalingWhatIfRequest;
 import org.example.model.Worker;
+import org.example.scaling.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * Recommends the number of workers. Once per {@code scaling.history.sample-interval-ms} the cluster throughput
+ * is sampled into a sliding history of {@code scaling.history.size} samples, and the workers' processed rate and
+ * per-worker capacity are learned from their heartbeat processing rates; a {@link ScalingEngine} running the configured
+ * {@link ScalingPolicy} turns it into a recommendation with cooldowns and hysteresis.
+ * <p>
+ * The recommendation is computed every {@code scaling.recommendation.refresh-interval-ms} into an immutable
+ * {@link RecommendationSnapshot} that is swapped in atomically, so reading it costs no Redis calls. Its ETag covers
+ * the action, the worker counts and the reason, and listeners are notified whenever that changes.
+ */
 @Service
 public class ScalingService {
 
+    private static final Logger log = LoggerFactory.getLogger(ScalingService.class);
+
     private final WorkerService workerService;
     private final ThroughputMonitor throughputMonitor;
+    private final IngestionStreamQueue ingestionStreamQueue;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<RecommendationSnapshot> snapshot = new AtomicReference<>();
+    private final List<Consumer<RecommendationSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private double[] history = new double[0];
+    private int historyStart;
+    private int historyLength;
+    private ScalingEngine engine;
+    private double processedRate;
+    private double measuredCapacity;
+    private long previousLag;
+    private long lagStreakStart;
+    private int lagStreak;
 
     @Value("${scaling.worker.capacity:1500}")
     private int workerCapacity;
 
+    @Value("${scaling.worker.capacity-source:measured}")
+    private String capacitySource;
+
+    @Value("${scaling.worker.min-capacity-fraction:0.25}")
+    private double minCapacityFraction;
+
+    @Value("${scaling.worker.saturation-samples:5}")
+    private int saturationSamples;
+
     @Value("${scaling.worker.min:1}")
     private int minWorkers;
 
     @Value("${scaling.worker.max:10}")
     private int maxWorkers;
 
-    public ScalingService(WorkerService workerService, ThroughputMonitor throughputMonitor) {
+    @Value("${queue.streams.drain-target:30s}")
+    private Duration drainTarget;
+
+    @Value("${scaling.policy:ewma}")
+    private String policyName;
+
+    @Value("${scaling.target-utilization:0.7}")
+    private double targetUtilization;
+
+    @Value("${scaling.hysteresis.scale-up-band:0.1}")
+    private double scaleUpBand;
+
+    @Value("${scaling.hysteresis.scale-down-band:0.2}")
+    private double scaleDownBand;
+
+    @Value("${scaling.cooldown.scale-up:30s}")
+    private Duration scaleUpCooldown;
+
+    @Value("${scaling.cooldown.scale-down:5m}")
+    private Duration scaleDownCooldown;
+
+    @Value("${scaling.scale-down.max-step:2}")
+    private int maxScaleDownStep;
+
+    @Value("${scaling.threshold.scale-down-per-worker:1000}")
+    private double scaleDownPerWorker;
+
+    @Value("${scaling.history.size:600}")
+    private int historySize;
+
+    @Value("${scaling.history.sample-interval-ms:1000}")
+    private long sampleIntervalMillis;
+
+    @Value("${scaling.forecast.horizon:30}")
+    private int forecastHorizon;
+
+    @Value("${scaling.forecast.ewma.alpha:0.3}")
+    private double ewmaAlpha;
+
+    @Value("${scaling.forecast.holt-winters.alpha:0.2}")
+    private double holtWintersAlpha;
+
+    @Value("${scaling.forecast.holt-winters.beta:0.01}")
+    private double holtWintersBeta;
+
+    @Value("${scaling.forecast.holt-winters.gamma:0.1}")
+    private double holtWintersGamma;
+
+    @Value("${scaling.forecast.holt-winters.season-length:300}")
+    private int holtWintersSeasonLength;
+
+    @Value("${scaling.replay.flap-window:10m}")
+    private Duration flapWindow;
+
+    @Value("${scaling.what-if.max-throughputs:100000}")
+    private int maxWhatIfThroughputs;
+
+    public ScalingService(WorkerService workerService, ThroughputMonitor throughputMonitor,
+                          IngestionStreamQueue ingestionStreamQueue, ObjectMapper objectMapper) {
         this.workerService = workerService;
         this.throughputMonitor = throughputMonitor;
+        this.ingestionStreamQueue = ingestionStreamQueue;
+        this.objectMapper = objectMapper;
     }
 
-    public ScalingRecommendation getScalingRecommendation() {
-        long currentThroughput = throughputMonitor.getCurrentThroughput();
+    @Scheduled(fixedRateString = "${scaling.history.sample-interval-ms:1000}")
+    public void sample() {
+        long throughput = throughputMonitor.getCurrentThroughput();
         List<Worker> workers = workerService.getAllWorkers();
-        int activeWorkers = workers.size();
-
-        String recommendation = "HOLD";
-        int recommendedWorkers = activeWorkers;
-        String reason = "Throughput is within the acceptable range.";
-
-        long requiredCapacity = (long) activeWorkers * workerCapacity;
-        long lowerThreshold = (long) activeWorkers * 1000;
-
-        if (activeWorkers < minWorkers) {
-            recommendation = "SCALE_UP";
-            recommendedWorkers = minWorkers;
-            reason = "Active workers below minimum threshold";
-        } else if (currentThroughput > requiredCapacity && activeWorkers < maxWorkers) {
-            recommendation = "SCALE_UP";
-            recommendedWorkers = Math.min(maxWorkers, activeWorkers + (int) Math.ceil((currentThroughput - requiredCapacity) / (double) workerCapacity));
-            reason = "Throughput exceeds " + workerCapacity + " msg/s per worker";
-        } else if (currentThroughput < lowerThreshold && activeWorkers > minWorkers) {
-            recommendation = "SCALE_DOWN";
-            recommendedWorkers = Math.max(minWorkers, activeWorkers - 1); // Scale down one by one
-            reason = "Throughput is below 1000 msg/s per worker";
-        }
-        
-        if(recommendedWorkers == activeWorkers && !recommendation.equals("SCALE_UP")) {
-             recommendation = "HOLD";
-        }
-
-        return new ScalingRecommendation(currentThroughput, activeWorkers, recommendation, recommendedWorkers, reason);
+        synchronized (lock) {
+            if (history.length != historySize) {
+                history = new double[historySize];
+                historyStart = 0;
+                historyLength = 0;
+            }
+            history[(historyStart + historyLength) % historySize] = throughput;
+            if (historyLength < historySize) {
+                historyLength++;
+            } else {
+                historyStart = (historyStart + 1) % historySize;
+            }
+
+            double totalRate = 0;
+            int measuredWorkers = 0;
+            for (Worker worker : workers) {
+                if ("active".equals(worker.getStatus())
+                        && worker.getHeartbeatSamples() != null && worker.getHeartbeatSamples().size() > 1) {
+                    totalRate += worker.getProcessingRateEwma();
+                    measuredWorkers++;
+                }
+            }
+            processedRate = totalRate;
+            boolean saturated = isSaturated(ingestionStreamQueue.getLag());
+            if (measuredWorkers > 0) {
+                learnCapacity(totalRate / measuredWorkers, saturated);
+            }
+        }
+    }
+
+    /**
+     * Whether the workers are running flat out: entries have been waiting undelivered for
+     * {@code scaling.worker.saturation-samples} samples in a row, never shrinking and ending higher than they
+     * started. Entries delivered but not yet acknowledged do not count, since a worker keeping up always holds some.
+     */
+    private boolean isSaturated(long lag) {
+        if (lag > 0 && lag >= previousLag) {
+            if (lagStreak == 0) {
+                lagStreakStart = lag;
+            }
+            lagStreak++;
+        } else {
+            lagStreak = 0;
+        }
+        previousLag = lag;
+        return lagStreak >= saturationSamples && lag > lagStreakStart;
+    }
+
+    /**
+     * Learns what one worker can process from the measured rates. While the lag keeps growing the workers run
+     * flat out, so their average rate is their capacity; otherwise they process only what arrives, which only
+     * proves a lower bound.
+     */
+    private void learnCapacity(double averageRate, boolean saturated) {
+        if (saturated) {
+            measuredCapacity = averageRate;
+        } else if (measuredCapacity > 0) {
+            measuredCapacity = Math.max(measuredCapacity, averageRate);
+        }
+    }
+
+    /**
+     * Messages per second one worker is taken to process: the measured capacity once the workers have been
+     * observed under load (with {@code scaling.worker.capacity-source=measured}), {@code scaling.worker.capacity}
+     * otherwise. A measured capacity is never taken below {@code scaling.worker.min-capacity-fraction} of the
+     * configured one, so a few slow samples cannot inflate the recommendation without bound.
+     */
+    private double workerCapacity() {
+        if (!"measured".equalsIgnoreCase(capacitySource) || measuredCapacity <= 0) {
+            return workerCapacity;
+        }
+        return Math.max(measuredCapacity, workerCapacity * minCapacityFraction);
+    }
+
+    /**
+     * The latest recommendation, computed on the spot only if no refresh has completed yet.
+     */
+    public RecommendationSnapshot getRecommendationSnapshot() {
+        RecommendationSnapshot current = snapshot.get();
+        return current != null ? current : refreshRecommendation();
+    }
+
+    /**
+     * Registers a listener called, on the refreshing thread, with every snapshot whose ETag changed.
+     */
+    public void addListener(Consumer<RecommendationSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedRateString = "${scaling.recommendation.refresh-interval-ms:1000}")
+    public RecommendationSnapshot refreshRecommendation() {
+        ScalingRecommendation recommendation;
+        try {
+            recommendation = computeRecommendation();
+        } catch (RuntimeException e) {
+            RecommendationSnapshot current = snapshot.get();
+            if (current == null) {
+                throw e;
+            }
+            log.warn("Could not refresh the scaling recommendation, serving the previous one: {}", e.getMessage());
+            return current;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(recommendation);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the scaling recommendation", e);
+        }
+        RecommendationSnapshot next = new RecommendationSnapshot(json, etagOf(recommendation), System.currentTimeMillis());
+        RecommendationSnapshot previous = snapshot.getAndSet(next);
+        if (previous == null || !previous.etag().equals(next.etag())) {
+            for (Consumer<RecommendationSnapshot> listener : listeners) {
+                try {
+                    listener.accept(next);
+                } catch (RuntimeException e) {
+                    log.warn("Scaling recommendation listener failed: {}", e.getMessage());
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Identifies the decision rather than the document, hence weak: the throughput, backlog and load in the JSON move
+     * every refresh, so hashing all of it would invalidate caches and push an event each second with nothing to act on.
+     */
+    private static String etagOf(ScalingRecommendation recommendation) {
+        String decision = recommendation.getRecommendedAction() + "|" + recommendation.getActiveWorkers() + "|"
+                + recommendation.getRecommendedWorkers() + "|" + recommendation.getReason();
+        return "W/\"" + DigestUtils.md5DigestAsHex(decision.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private ScalingRecommendation computeRecommendation() {
+        long currentThroughput = throughputMonitor.getCurrentThroughput();
+        int activeWorkers = workerService.countActiveWorkers();
+        long queueBacklog = ingestionStreamQueue.getBacklog();
+        double backlogDrainRate = queueBacklog / (double) Math.max(1, drainTarget.toSeconds());
+
+        ScalingEngine.Decision decision;
+        double capacity;
+        synchronized (lock) {
+            capacity = workerCapacity();
+            if (engine == null) {
+                engine = newEngine(policyName);
+            }
+            double[] samples = historySnapshot();
+            if (samples.length == 0) {
+                samples = new double[]{currentThroughput};
+            }
+            decision = engine.evaluate(System.currentTimeMillis(),
+                    new ScalingContext(samples, activeWorkers, capacity, processedRate, backlogDrainRate));
+        }
+        return new ScalingRecommendation(currentThroughput, activeWorkers, decision.action(), decision.targetWorkers(),
+                decision.reason(), queueBacklog, engine.getPolicy().name(), Math.round(decision.load()), Math.round(capacity));
+    }
+
+    /**
+     * Replays a recorded throughput trace through a fresh engine with the configured settings.
+     */
+    public ScalingReplayReport replay(ScalingReplayRequest request) {
+        if (request.getTrace() == null || request.getTrace().isEmpty()) {
+            throw new IllegalArgumentException("trace cannot be empty");
+        }
+        long interval = request.getSampleIntervalMs() == null ? sampleIntervalMillis : request.getSampleIntervalMs();
+        if (interval < 1) {
+            throw new IllegalArgumentException("sample_interval_ms must be positive");
+        }
+        if (request.getProvisioningDelaySamples() < 0) {
+            throw new IllegalArgumentException("provisioning_delay_samples cannot be negative");
+        }
+        double[] trace = new double[request.getTrace().size()];
+        for (int i = 0; i < trace.length; i++) {
+            Double value = request.getTrace().get(i);
+            if (value == null || value < 0 || !Double.isFinite(value)) {
+                throw new IllegalArgumentException("trace[" + i + "] must be a non-negative number");
+            }
+            trace[i] = value;
+        }
+        ScalingEngine replayEngine = newEngine(request.getPolicy() == null ? policyName : request.getPolicy());
+        int initialWorkers = request.getInitialWorkers() == null ? minWorkers : request.getInitialWorkers();
+        return ScalingReplay.run(replayEngine, trace, interval, historySize, workerCapacity, initialWorkers,
+                request.getProvisioningDelaySamples(), flapWindow.toMillis());
+    }
+
+    /**
+     * Evaluates the policy's decision for many hypothetical throughputs against the same workers, without
+     * cooldowns or forecasting: each throughput is taken as the load.
+     */
+    public ScalingWhatIfReport whatIf(ScalingWhatIfRequest request) {
+        double[] throughputs = request.getThroughputs();
+        if (throughputs == null || throughputs.length == 0) {
+            throw new IllegalArgumentException("throughputs cannot be empty");
+        }
+        if (throughputs.length > maxWhatIfThroughputs) {
+            throw new IllegalArgumentException("At most " + maxWhatIfThroughputs + " throughputs can be evaluated at once");
+        }
+        for (int i = 0; i < throughputs.length; i++) {
+            if (throughputs[i] < 0 || !Double.isFinite(throughputs[i])) {
+                throw new IllegalArgumentException("throughputs[" + i + "] must be a non-negative number");
+            }
+        }
+        if (request.getWorkers() != null && request.getWorkers() < 0) {
+            throw new IllegalArgumentException("workers cannot be negative");
+        }
+        if (request.getWorkerCapacity() != null && !(request.getWorkerCapacity() > 0)) {
+            throw new IllegalArgumentException("worker_capacity must be positive");
+        }
+        ScalingEngine whatIfEngine = newEngine(request.getPolicy() == null ? policyName : request.getPolicy());
+        int workers = request.getWorkers() == null ? workerService.countActiveWorkers() : request.getWorkers();
+        double capacity;
+        if (request.getWorkerCapacity() != null) {
+            capacity = request.getWorkerCapacity();
+        } else {
+            synchronized (lock) {
+                capacity = workerCapacity();
+            }
+        }
+
+        int[] recommended = new int[throughputs.length];
+        String[] actions = new String[throughputs.length];
+        for (int i = 0; i < throughputs.length; i++) {
+            int target = whatIfEngine.targetWorkers(throughputs[i], workers, capacity);
+            recommended[i] = target;
+            actions[i] = target > workers ? ScalingEngine.SCALE_UP : target < workers ? ScalingEngine.SCALE_DOWN : ScalingEngine.HOLD;
+        }
+        return new ScalingWhatIfReport(whatIfEngine.getPolicy().name(), workers, capacity, recommended, actions);
+    }
+
+    private ScalingEngine newEngine(String policy) {
+        return new ScalingEngine(newPolicy(policy), minWorkers, maxWorkers, scaleUpCooldown, scaleDownCooldown, maxScaleDownStep);
+    }
+
+    private ScalingPolicy newPolicy(String policy) {
+        return switch (policy.toLowerCase()) {
+            case "threshold" -> new ThresholdPolicy(scaleDownPerWorker);
+            case "ewma" -> new ForecastPolicy("ewma", new EwmaForecaster(ewmaAlpha), forecastHorizon,
+                    targetUtilization, scaleUpBand, scaleDownBand);
+            case "holt-winters" -> new ForecastPolicy("holt-winters",
+                    new HoltWintersForecaster(holtWintersAlpha, holtWintersBeta, holtWintersGamma, holtWintersSeasonLength),
+                    forecastHorizon, targetUtilization, scaleUpBand, scaleDownBand);
+            default -> throw new IllegalArgumentException("Unknown scaling policy: " + policy + " (threshold, ewma or holt-winters)");
+        };
+    }
+
+    private double[] historySnapshot() {
+        double[] samples = new double[historyLength];
+        for (int i = 0; i < historyLength; i++) {
+            samples[i] = history[(historyStart + i) % history.length];
+        }
+        return samples;
+    }
+
+    /**
+     * An immutable, already serialized scaling recommendation.
+     *
+     * @param json       the recommendation as JSON; shared, so must not be modified
+     * @param etag       a weak entity tag of the decision in {@code json}
+     * @param computedAt epoch millis of the refresh that produced it
+     */
+    public record RecommendationSnapshot(byte[] json, String etag, long computedAt) {
     }
 }
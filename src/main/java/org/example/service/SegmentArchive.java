@@ -0,0 +1,199 @@
+package org.example.service;
+
+import org.example.model.SensorData;
+import org.example.serializer.ColumnarSegmentReader;
+import org.example.serializer.ColumnarSegmentWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for sensor history: readings evicted from Redis by {@link RetentionService} are kept as compressed
+ * columnar segments ({@link ColumnarSegmentWriter}) partitioned by sensor and UTC day:
+ * <pre>
+ * {retention.archive-dir}/{url-encoded sensor id}/{yyyyMMdd}/{first}-{last}-{node}-{seq}.seg
+ * </pre>
+ * File names carry the first and last timestamp, so a range query opens only the partitions and segments
+ * that overlap it. Segments are written to a temporary file and moved into place, so readers never see a
+ * partial segment.
+ * <p>
+ * The directory is local to each node: segments land on the disk of whichever node won the retention lock, and a
+ * node only serves the archive it can see. With more than one node, {@code retention.archive-dir} must be a
+ * shared mount (e.g. NFS) so every node reads the same cold tier.
+ */
+@Service
+public class SegmentArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentArchive.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path root;
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    public SegmentArchive(@Value("${retention.archive-dir:data/archive}") String archiveDir,
+                          @Value("${retention.enabled:false}") boolean enabled) {
+        this.root = Paths.get(archiveDir);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes the readings of one sensor, ordered by timestamp, as one segment per UTC day.
+     */
+    public void write(String sensorId, List<SensorData> readings) throws IOException {
+        Map<LocalDate, List<SensorData>> partitions = new TreeMap<>();
+        for (SensorData data : readings) {
+            partitions.computeIfAbsent(partitionOf(data.getTimestamp().toEpochMilli()), day -> new ArrayList<>()).add(data);
+        }
+        for (Map.Entry<LocalDate, List<SensorData>> partition : partitions.entrySet()) {
+            List<SensorData> rows = partition.getValue();
+            Path directory = sensorDirectory(sensorId).resolve(PARTITION_FORMAT.format(partition.getKey()));
+            Files.createDirectories(directory);
+            String name = rows.get(0).getTimestamp().toEpochMilli() + "-" + rows.get(rows.size() - 1).getTimestamp().toEpochMilli()
+                    + "-" + nodeId + "-" + segmentSequence.incrementAndGet() + SEGMENT_SUFFIX;
+            Path temporary = directory.resolve(name + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                ColumnarSegmentWriter.write(out, sensorId, rows);
+            }
+            Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Hands every archived reading of the sensor in {@code [start, end]} to {@code visitor} in timestamp order.
+     *
+     * @return {@code false} if the visitor asked to stop
+     */
+    public boolean scanRange(String sensorId, Instant start, Instant end, Predicate<SensorData> visitor) {
+        if (!enabled) {
+            return true;
+        }
+        long startMillis = start.toEpochMilli();
+        long endMillis = end.toEpochMilli();
+        Path sensorDirectory = sensorDirectory(sensorId);
+        if (!Files.isDirectory(sensorDirectory)) {
+            return true;
+        }
+        LocalDate firstDay = partitionOf(startMillis);
+        LocalDate lastDay = partitionOf(endMillis);
+        try {
+            List<Segment> segments = new ArrayList<>();
+            for (Path partition : list(sensorDirectory)) {
+                LocalDate day = parsePartition(partition.getFileName().toString());
+                if (day == null || day.isBefore(firstDay) || day.isAfter(lastDay)) {
+                    continue;
+                }
+                for (Path file : list(partition)) {
+                    Segment segment = Segment.parse(file);
+                    if (segment != null && segment.last() >= startMillis && segment.first() <= endMillis) {
+                        segments.add(segment);
+                    }
+                }
+            }
+            segments.sort(Comparator.comparingLong(Segment::first).thenComparing(segment -> segment.file().getFileName().toString()));
+            int i = 0;
+            while (i < segments.size()) {
+                // Segments written by later runs (late readings, re-exports after a crash) may overlap earlier ones.
+                int j = i + 1;
+                long groupLast = segments.get(i).last();
+                while (j < segments.size() && segments.get(j).first() < groupLast) {
+                    groupLast = Math.max(groupLast, segments.get(j).last());
+                    j++;
+                }
+                boolean more = j == i + 1
+                        ? ColumnarSegmentReader.read(segments.get(i).file(), startMillis, endMillis, visitor)
+                        : readMerged(segments.subList(i, j), startMillis, endMillis, visitor);
+                if (!more) {
+                    return false;
+                }
+                i = j;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived readings of sensor " + sensorId, e);
+        }
+    }
+
+    /**
+     * Reads overlapping segments into memory and visits their rows in timestamp order, rows with the same timestamp
+     * in segment order. Each segment holds at most one retention page, so this stays bounded.
+     */
+    private static boolean readMerged(List<Segment> segments, long startMillis, long endMillis, Predicate<SensorData> visitor)
+            throws IOException {
+        List<SensorData> rows = new ArrayList<>();
+        for (Segment segment : segments) {
+            ColumnarSegmentReader.read(segment.file(), startMillis, endMillis, rows::add);
+        }
+        rows.sort(Comparator.comparing(SensorData::getTimestamp));
+        for (SensorData row : rows) {
+            if (!visitor.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path sensorDirectory(String sensorId) {
+        // Dots are encoded too so no sensor id can resolve to "." or "..".
+        return root.resolve(URLEncoder.encode(sensorId, StandardCharsets.UTF_8).replace(".", "%2E"));
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.toList();
+        }
+    }
+
+    private static LocalDate partitionOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static LocalDate parsePartition(String name) {
+        try {
+            return LocalDate.parse(name, PARTITION_FORMAT);
+        } catch (RuntimeException e) {
+            log.debug("Ignoring unexpected archive entry {}", name);
+            return null;
+        }
+    }
+
+    private record Segment(Path file, long first, long last) {
+
+        static Segment parse(Path file) {
+            String name = file.getFileName().toString();
+            if (!name.endsWith(SEGMENT_SUFFIX)) {
+                return null;
+            }
+            String[] parts = name.split("-");
+            try {
+                return new Segment(file, Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
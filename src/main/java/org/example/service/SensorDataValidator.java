@@ -0,0 +1,85 @@
+package org.example.service;
+
+import org.example.exception.InvalidReadingException;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The constraints on {@link SensorData}, checked by hand on the ingest path: the same rules and messages as Bean
+ * Validation, without its reflective property walk and violation objects for every reading. A reading has either
+ * {@code readings} or, for a registered schema, {@code schema_id} and one value per reading name of the schema.
+ * A schema reading may also come back in the expanded form the API returns, {@code schema_id} with {@code readings}
+ * under exactly the schema's reading names; it is converted to values in place (see
+ * {@link SensorSchemaRegistry#compact}).
+ */
+@Component
+public class SensorDataValidator {
+
+    private final SensorSchemaRegistry schemaRegistry;
+
+    public SensorDataValidator(SensorSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    /**
+     * The violations as {@code property: message}, sorted by property; empty for a valid reading.
+     */
+    public List<String> violations(SensorData data) {
+        boolean missingSensorId = data.getSensorId() == null || data.getSensorId().isBlank();
+        if (data.getSchemaId() == null) {
+            boolean missingReadings = data.getReadings() == null;
+            if (!missingReadings && !missingSensorId && data.getValues() == null) {
+                return List.of();
+            }
+            List<String> violations = new ArrayList<>(2);
+            if (missingReadings) {
+                violations.add("readings: Readings are required");
+            }
+            if (data.getValues() != null) {
+                violations.add("schemaId: Schema ID is required for values");
+            }
+            if (missingSensorId) {
+                violations.add("sensorId: Sensor ID is required");
+            }
+            return violations;
+        }
+
+        SensorSchema schema = schemaRegistry.getSchema(data.getSchemaId());
+        if (schema != null && data.getReadings() != null && data.getValues() == null) {
+            schemaRegistry.compact(data, schema);
+        }
+        List<String> violations = new ArrayList<>(0);
+        if (data.getMetadata() != null) {
+            violations.add("metadata: Metadata of schema readings is registered with the schema");
+        }
+        if (data.getReadings() != null) {
+            violations.add(data.getValues() == null
+                    ? "readings: Readings of a schema ID must be exactly the schema's reading names, or use values"
+                    : "readings: Readings cannot be combined with values");
+        }
+        if (schema == null) {
+            violations.add("schemaId: Unknown schema " + data.getSchemaId());
+        }
+        if (missingSensorId) {
+            violations.add("sensorId: Sensor ID is required");
+        }
+        if (data.getValues() == null && data.getReadings() == null) {
+            violations.add("values: Values are required");
+        } else if (schema != null && data.getValues() != null && data.getValues().length != schema.getReadingNames().size()) {
+            violations.add("values: Schema " + schema.getName() + " expects " + schema.getReadingNames().size()
+                    + " values, got " + data.getValues().length);
+        }
+        return violations;
+    }
+
+    public void check(SensorData data) {
+        List<String> violations = violations(data);
+        if (!violations.isEmpty()) {
+            throw new InvalidReadingException(violations);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.model.SensorPage;
+import org.example.sharding.RedisShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code sensors:all} set of known sensor IDs. Ingest consults a bounded in-process seen-set first, so the
+ * SADD is only issued the first time a node sees a sensor (and again after the entry expires or is evicted).
+ * A Bloom filter is deliberately not used: a false positive would skip the SADD of a new sensor for good.
+ * Listing walks the set with SSCAN instead of SMEMBERS.
+ * <p>
+ * When sharded, every shard holds the {@code sensors:all} entries of its own sensors. Counting and listing
+ * scatter to all shards and merge the replies; a listing cursor then carries one SSCAN cursor per shard.
+ */
+@Service
+public class SensorIndex {
+
+    public static final String ALL_SENSORS_KEY = "sensors:all";
+    // Members go through the JSON value serializer and are stored as quoted strings, so MATCH globs must be quoted too.
+    private static final String MEMBER_QUOTE = "\"";
+    private static final String SSCAN_SCRIPT = "return redis.call('SSCAN', KEYS[1], ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])";
+    private static final String SHARD_CURSOR_SEPARATOR = ".";
+    private static final String SHARD_DONE = "-";
+
+    private final RedisShards redisShards;
+    private final Cache<String, Boolean> known;
+
+    @Value("${sensors.list.max-count:10000}")
+    private int maxCount;
+
+    public SensorIndex(RedisShards redisShards,
+                       @Value("${sensors.known.max-size:1000000}") long knownMaxSize,
+                       @Value("${sensors.known.ttl:1h}") Duration knownTtl) {
+        this.redisShards = redisShards;
+        this.known = Caffeine.newBuilder()
+                .maximumSize(knownMaxSize)
+                .expireAfterWrite(knownTtl)
+                .build();
+    }
+
+    public boolean isKnown(String sensorId) {
+        return known.getIfPresent(sensorId) != null;
+    }
+
+    /**
+     * Returns the IDs this node has not yet registered in {@code sensors:all}.
+     */
+    public List<String> filterUnknown(Collection<String> sensorIds) {
+        List<String> unknown = new ArrayList<>();
+        for (String sensorId : sensorIds) {
+            if (!isKnown(sensorId)) {
+                unknown.add(sensorId);
+            }
+        }
+        return unknown;
+    }
+
+    /**
+     * Records IDs whose SADD has been issued successfully.
+     */
+    public void markKnown(Collection<String> sensorIds) {
+        for (String sensorId : sensorIds) {
+            known.put(sensorId, Boolean.TRUE);
+        }
+    }
+
+    public void register(String sensorId) {
+        if (!isKnown(sensorId)) {
+            redisShards.templateFor(sensorId).opsForSet().add(ALL_SENSORS_KEY, sensorId);
+            known.put(sensorId, Boolean.TRUE);
+        }
+    }
+
+    public long count() {
+        long count = 0;
+        for (Long size : redisShards.scatter(shard -> shard.template().opsForSet().size(ALL_SENSORS_KEY))) {
+            count += size == null ? 0 : size;
+        }
+        return count;
+    }
+
+    /**
+     * Returns one SSCAN step over {@code sensors:all}. Like SSCAN itself, a page may hold fewer or more than
+     * {@code count} IDs (or none) while {@code next_cursor} is not {@code null}. When sharded, every unfinished
+     * shard is scanned with an equal share of {@code count} and the cursor is {@code <cursor>.<cursor>...} in shard
+     * order, with {@code -} for shards that are done.
+     */
+    public SensorPage scan(String cursor, int count, String prefix) {
+        if (count < 1 || count > maxCount) {
+            throw new IllegalArgumentException("Count must be between 1 and " + maxCount);
+        }
+        String[] cursors = parseCursor(cursor);
+        String match = prefix == null || prefix.isEmpty() ? "*" : MEMBER_QUOTE + escapeGlob(prefix) + "*";
+
+        long pending = Arrays.stream(cursors).filter(c -> !SHARD_DONE.equals(c)).count();
+        int shardCount = (int) Math.max(1, (count + pending - 1) / Math.max(1, pending));
+        List<SensorPage> pages = redisShards.scatter(shard -> {
+            String start = cursors[shard.index()];
+            return SHARD_DONE.equals(start) ? new SensorPage(List.of(), null) : scanShard(shard.template(), start, match, shardCount);
+        });
+
+        List<String> sensorIds = new ArrayList<>();
+        String[] next = new String[cursors.length];
+        boolean more = false;
+        for (int i = 0; i < pages.size(); i++) {
+            SensorPage page = pages.get(i);
+            sensorIds.addAll(page.getSensorIds());
+            next[i] = page.getNextCursor() == null ? SHARD_DONE : page.getNextCursor();
+            more |= page.getNextCursor() != null;
+        }
+        if (!more) {
+            return new SensorPage(sensorIds, null);
+        }
+        return new SensorPage(sensorIds, next.length == 1 ? next[0] : String.join(SHARD_CURSOR_SEPARATOR, next));
+    }
+
+    private SensorPage scanShard(RedisOperations<String, Object> shard, String start, String match, int count) {
+        // SSCAN from an arbitrary cursor; the typed scan API always starts from cursor 0.
+        Object reply = shard.execute((RedisCallback<Object>) connection -> connection.scriptingCommands().eval(
+                bytes(SSCAN_SCRIPT), ReturnType.MULTI, 1,
+                bytes(ALL_SENSORS_KEY), bytes(start), bytes(match), bytes(Integer.toString(count))));
+        List<?> parts = reply instanceof List ? (List<?>) reply : List.of();
+        String nextCursor = parts.isEmpty() ? "0" : new String((byte[]) parts.get(0), StandardCharsets.UTF_8);
+        List<String> sensorIds = new ArrayList<>();
+        if (parts.size() > 1 && parts.get(1) instanceof List<?> members) {
+            RedisSerializer<?> serializer = shard.getValueSerializer();
+            for (Object member : members) {
+                sensorIds.add(String.valueOf(serializer.deserialize((byte[]) member)));
+            }
+        }
+        return new SensorPage(sensorIds, "0".equals(nextCursor) ? null : nextCursor);
+    }
+
+    private String[] parseCursor(String cursor) {
+        int shards = redisShards.size();
+        if (cursor == null) {
+            String[] cursors = new String[shards];
+            Arrays.fill(cursors, "0");
+            return cursors;
+        }
+        String[] cursors = cursor.split(Pattern.quote(SHARD_CURSOR_SEPARATOR), -1);
+        if (cursors.length != shards) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        for (String part : cursors) {
+            boolean done = shards > 1 && SHARD_DONE.equals(part);
+            if (!done && (part.isEmpty() || !part.chars().allMatch(Character::isDigit))) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * Iterates every known sensor ID matching the glob {@code pattern}, shard after shard. The caller must close
+     * the iterator.
+     */
+    public CloseableIterator<String> scanMatching(String pattern, int count) {
+        ScanOptions options = ScanOptions.scanOptions().match(MEMBER_QUOTE + pattern + MEMBER_QUOTE).count(count).build();
+        Iterator<RedisShards.Shard> shards = redisShards.getShards().iterator();
+        return new CloseableIterator<>() {
+            private Cursor<Object> current;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (current != null) {
+                        current.close();
+                        current = null;
+                    }
+                    if (!shards.hasNext()) {
+                        return false;
+                    }
+                    current = shards.next().template().opsForSet().scan(ALL_SENSORS_KEY, options);
+                }
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return String.valueOf(current.next());
+            }
+
+            @Override
+            public void close() {
+                if (current != null) {
+                    current.close();
+                }
+            }
+        };
+    }
+
+    private static String escapeGlob(String literal) {
+        return literal.replaceAll("([*?\\[\\]\\\\])", "\\\\$1");
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
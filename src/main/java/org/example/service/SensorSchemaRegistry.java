@@ -0,0 +1,195 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Registered sensor types. A schema fixes the order of a sensor type's readings, so its readings travel and are
+ * stored as {@code schema_id} plus a {@code double[]} of values, without a name and a boxed value per reading;
+ * its static metadata is kept once, with the schema.
+ * <p>
+ * Schemas are immutable and live on the primary Redis: the {@code schemas} HASH maps an ID to the schema,
+ * {@code schemas:names} maps a name to its ID and {@code schemas:next-id} hands out IDs. Each node caches the
+ * schemas it has resolved, so the ingest and query paths only reach Redis the first time they see an ID.
+ */
+@Service
+public class SensorSchemaRegistry {
+
+    private static final String SCHEMAS_KEY = "schemas";
+    private static final String NAMES_KEY = "schemas:names";
+    private static final String NEXT_ID_KEY = "schemas:next-id";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final HashOperations<String, String, Object> hashOperations;
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, SensorSchema> schemas = new ConcurrentHashMap<>();
+
+    public SensorSchemaRegistry(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.hashOperations = redisTemplate.opsForHash();
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Registers a schema under a new ID. Registering the same name again returns the existing schema if its
+     * readings and metadata are identical, and fails otherwise: a schema cannot change once readings refer to it.
+     */
+    public SensorSchema register(SensorSchema request) {
+        String name = request.getName();
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Schema name is required");
+        }
+        List<String> readingNames = request.getReadingNames();
+        if (readingNames == null || readingNames.isEmpty()) {
+            throw new IllegalArgumentException("Reading names are required");
+        }
+        Set<String> distinct = new HashSet<>();
+        for (String readingName : readingNames) {
+            if (readingName == null || readingName.isBlank()) {
+                throw new IllegalArgumentException("Reading names cannot be empty");
+            }
+            if (!distinct.add(readingName)) {
+                throw new IllegalArgumentException("Duplicate reading name: " + readingName);
+            }
+        }
+        Map<String, String> metadata = request.getMetadata() == null ? null : new LinkedHashMap<>(request.getMetadata());
+
+        while (true) {
+            SensorSchema existing = getSchema(name);
+            if (existing != null) {
+                if (!existing.getReadingNames().equals(readingNames) || !Objects.equals(existing.getMetadata(), metadata)) {
+                    throw new IllegalArgumentException("Schema " + name + " is already registered with different readings or metadata");
+                }
+                return existing;
+            }
+            Long id = redisTemplate.opsForValue().increment(NEXT_ID_KEY);
+            SensorSchema schema = new SensorSchema(id.intValue(), name, List.copyOf(readingNames), metadata);
+            // The schema is written before its name, so a name never resolves to a missing ID.
+            hashOperations.put(SCHEMAS_KEY, id.toString(), schema);
+            if (Boolean.TRUE.equals(hashOperations.putIfAbsent(NAMES_KEY, name, id.toString()))) {
+                schemas.put(schema.getSchemaId(), schema);
+                return schema;
+            }
+            // Registered concurrently by another request: drop this ID and compare with the winner.
+            hashOperations.delete(SCHEMAS_KEY, id.toString());
+        }
+    }
+
+    /**
+     * The schema with the given ID, or {@code null} if none is registered.
+     */
+    public SensorSchema getSchema(int schemaId) {
+        SensorSchema schema = schemas.get(schemaId);
+        if (schema == null) {
+            schema = toSchema(hashOperations.get(SCHEMAS_KEY, Integer.toString(schemaId)));
+            if (schema != null) {
+                schemas.put(schemaId, schema);
+            }
+        }
+        return schema;
+    }
+
+    public SensorSchema getSchema(String name) {
+        Object id = hashOperations.get(NAMES_KEY, name);
+        return id == null ? null : getSchema(Integer.parseInt(id.toString()));
+    }
+
+    public List<SensorSchema> getSchemas() {
+        List<SensorSchema> all = new ArrayList<>();
+        for (Object value : hashOperations.values(SCHEMAS_KEY)) {
+            all.add(toSchema(value));
+        }
+        all.sort(Comparator.comparing(SensorSchema::getSchemaId));
+        return all;
+    }
+
+    /**
+     * Calls {@code consumer} with the name and value of every present reading, for both map and schema readings.
+     * Missing values ({@code null} in a map, {@code NaN} in a schema reading) are skipped.
+     */
+    public void forEachReading(SensorData data, ObjDoubleConsumer<String> consumer) {
+        if (data.getSchemaId() == null) {
+            if (data.getReadings() != null) {
+                for (Map.Entry<String, Double> reading : data.getReadings().entrySet()) {
+                    if (reading.getValue() != null) {
+                        consumer.accept(reading.getKey(), reading.getValue());
+                    }
+                }
+            }
+            return;
+        }
+        SensorSchema schema = getSchema(data.getSchemaId());
+        double[] values = data.getValues();
+        if (schema == null || values == null) {
+            return;
+        }
+        List<String> names = schema.getReadingNames();
+        for (int i = 0; i < values.length && i < names.size(); i++) {
+            if (!Double.isNaN(values[i])) {
+                consumer.accept(names.get(i), values[i]);
+            }
+        }
+    }
+
+    /**
+     * The reading with readings and metadata as maps: a schema reading is expanded with its schema's reading names
+     * and metadata, a map reading is returned as is. For the paths that work per reading name, such as the
+     * chunked storage engine and the archive.
+     */
+    public SensorData expand(SensorData data) {
+        if (data.getSchemaId() == null) {
+            return data;
+        }
+        SensorSchema schema = getSchema(data.getSchemaId());
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown schema: " + data.getSchemaId());
+        }
+        List<String> names = schema.getReadingNames();
+        double[] values = data.getValues();
+        Map<String, Double> readings = new LinkedHashMap<>((int) (names.size() / 0.75f) + 1);
+        for (int i = 0; i < names.size(); i++) {
+            readings.put(names.get(i), values == null || i >= values.length || Double.isNaN(values[i]) ? null : values[i]);
+        }
+        return new SensorData(data.getSensorId(), data.getTimestamp(), readings, schema.getMetadata());
+    }
+
+    /**
+     * The inverse of {@link #expand}: converts a schema reading given with {@code readings}, as the API returns it,
+     * to {@code values} in place and drops its metadata. Only done when the reading names are exactly the schema's
+     * and the metadata is absent or the schema's; returns {@code false} and leaves the reading as is otherwise.
+     */
+    public boolean compact(SensorData data, SensorSchema schema) {
+        Map<String, Double> readings = data.getReadings();
+        List<String> names = schema.getReadingNames();
+        if (readings == null || readings.size() != names.size() || !readings.keySet().containsAll(names)) {
+            return false;
+        }
+        if (data.getMetadata() != null && !data.getMetadata().equals(schema.getMetadata() != null ? schema.getMetadata() : Map.of())) {
+            return false;
+        }
+        double[] values = new double[names.size()];
+        for (int i = 0; i < values.length; i++) {
+            Double value = readings.get(names.get(i));
+            values[i] = value != null ? value : Double.NaN;
+        }
+        data.setValues(values);
+        data.setReadings(null);
+        data.setMetadata(null);
+        return true;
+    }
+
+    private SensorSchema toSchema(Object value) {
+        if (value == null || value instanceof SensorSchema) {
+            return (SensorSchema) value;
+        }
+        return objectMapper.convertValue(value, SensorSchema.class);
+    }
+}
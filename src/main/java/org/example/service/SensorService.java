@@ -2,81 +2,513 @@ package org.example.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.model.BatchIngestResult;
+import org.example.model.ReadingsPage;
 import org.example.model.SensorData;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.example.model.SensorPage;
+import org.example.sharding.RedisShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Service;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 @Service
 public class SensorService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisShards redisShards;
     private final ObjectMapper objectMapper;
     private final ThroughputMonitor throughputMonitor;
+    private final SensorDataValidator validator;
+    private final ChunkedSensorStore chunkedSensorStore;
+    private final RollupService rollupService;
+    private final LatestReadingCache latestReadingCache;
+    private final SensorIndex sensorIndex;
+    private final SegmentArchive segmentArchive;
+    private final IngestionStreamQueue ingestionStreamQueue;
+    private final Timer ingestTimer;
+    private final Timer batchIngestTimer;
+    private final DistributionSummary batchSizes;
+    private final Timer rangeQueryTimer;
+    private final Timer pageQueryTimer;
+    private final Timer latestLoadTimer;
 
     private static final String SENSOR_KEY_PREFIX = "sensor:";
     private static final String SENSOR_DATA_KEY_SUFFIX = ":data";
-    private static final String ALL_SENSORS_KEY = "sensors:all";
 
-    public SensorService(RedisTemplate<String, Object> redisTemplate, ThroughputMonitor throughputMonitor) {
-        this.redisTemplate = redisTemplate;
+    @Value("${ingest.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${storage.engine:zset}")
+    private String storageEngine;
+
+    @Value("${query.page.max-size:10000}")
+    private int maxPageSize;
+
+    @Value("${query.stream.page-size:1000}")
+    private int streamPageSize;
+
+    @Value("${query.bulk.page-size:1000}")
+    private int bulkPageSize;
+
+    public SensorService(RedisShards redisShards, ThroughputMonitor throughputMonitor, SensorDataValidator validator,
+                         ChunkedSensorStore chunkedSensorStore, RollupService rollupService,
+                         LatestReadingCache latestReadingCache, SensorIndex sensorIndex, SegmentArchive segmentArchive,
+                         IngestionStreamQueue ingestionStreamQueue, MeterRegistry meterRegistry) {
+        this.redisShards = redisShards;
         this.throughputMonitor = throughputMonitor;
+        this.validator = validator;
+        this.chunkedSensorStore = chunkedSensorStore;
+        this.rollupService = rollupService;
+        this.latestReadingCache = latestReadingCache;
+        this.sensorIndex = sensorIndex;
+        this.segmentArchive = segmentArchive;
+        this.ingestionStreamQueue = ingestionStreamQueue;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.ingestTimer = Timer.builder("sensors.ingest").tag("mode", "single").register(meterRegistry);
+        this.batchIngestTimer = Timer.builder("sensors.ingest").tag("mode", "batch").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("sensors.ingest.batch.size").register(meterRegistry);
+        this.rangeQueryTimer = Timer.builder("sensors.query").tag("type", "range").register(meterRegistry);
+        this.pageQueryTimer = Timer.builder("sensors.query").tag("type", "page").register(meterRegistry);
+        this.latestLoadTimer = Timer.builder("sensors.query").tag("type", "latest").register(meterRegistry);
     }
 
     public void ingestData(SensorData data) {
+        long started = System.nanoTime();
+        try {
+            writeReading(data);
+        } finally {
+            ingestTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void writeReading(SensorData data) {
         if (data.getTimestamp() == null) {
             data.setTimestamp(Instant.now());
         }
 
-        String key = SENSOR_KEY_PREFIX + data.getSensorId() + SENSOR_DATA_KEY_SUFFIX;
-        
-        // Store in ZSET for time-range queries (Score = timestamp epoch milli)
-        redisTemplate.opsForZSet().add(key, data, data.getTimestamp().toEpochMilli());
-        
-        // Add to set of all sensors
-        redisTemplate.opsForSet().add(ALL_SENSORS_KEY, data.getSensorId());
+        if (isChunked()) {
+            chunkedSensorStore.append(data);
+        } else {
+            String key = SENSOR_KEY_PREFIX + data.getSensorId() + SENSOR_DATA_KEY_SUFFIX;
+
+            // Store in ZSET for time-range queries (Score = timestamp epoch milli)
+            redisShards.templateFor(data.getSensorId()).opsForZSet().add(key, data, data.getTimestamp().toEpochMilli());
+        }
+
+        // Add to set of all sensors (only the first time this node sees the sensor)
+        sensorIndex.register(data.getSensorId());
+
+        rollupService.record(data);
+        latestReadingCache.put(data);
+        ingestionStreamQueue.publish(List.of(data));
 
         // Record throughput
         throughputMonitor.increment();
     }
 
+    /**
+     * Validates every reading of the batch and writes the valid ones in a single pipelined pass per shard:
+     * one ZADD per distinct sensor and one SADD for sensors not seen before. Throughput is counted once for the
+     * batch after the pipeline, in {@link ThroughputMonitor}'s local buckets.
+     * A {@code null} entry stands for a reading that could not be parsed.
+     */
+    public BatchIngestResult ingestBatch(List<SensorData> batch) {
+        List<SensorData> valid = new ArrayList<>(batch.size());
+        BatchIngestResult result = validateBatch(batch, valid);
+        storeBatch(valid);
+        return result;
+    }
+
+    /**
+     * Validates the batch, stamps missing timestamps and collects the valid readings into {@code valid}
+     * without writing anything to Redis.
+     */
+    public BatchIngestResult validateBatch(List<SensorData> batch, List<SensorData> valid) {
+        if (batch.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size " + batch.size() + " exceeds the maximum of " + maxBatchSize);
+        }
+
+        BatchIngestResult result = new BatchIngestResult();
+        for (int i = 0; i < batch.size(); i++) {
+            SensorData data = batch.get(i);
+            String error = validate(data);
+            if (error != null) {
+                result.getResults().add(new BatchIngestResult.ItemResult(i, data != null ? data.getSensorId() : null, "rejected", error));
+                continue;
+            }
+            if (data.getTimestamp() == null) {
+                data.setTimestamp(Instant.now());
+            }
+            valid.add(data);
+            result.getResults().add(new BatchIngestResult.ItemResult(i, data.getSensorId(), "accepted", null));
+        }
+
+        result.setAccepted(valid.size());
+        result.setRejected(batch.size() - valid.size());
+        return result;
+    }
+
+    /**
+     * Writes already validated readings in a single pipelined pass per shard. The Redis writes come before any
+     * in-process bookkeeping (rollups, chunk heads, cache, throughput), so a call that failed with an exception can
+     * be retried: the ZADDs and SADDs are idempotent and only the stream entries may be published twice.
+     */
+    public void storeBatch(List<SensorData> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            writeBatch(readings);
+        } finally {
+            batchIngestTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            batchSizes.record(readings.size());
+        }
+    }
+
+    private void writeBatch(List<SensorData> readings) {
+        Map<String, Set<ZSetOperations.TypedTuple<Object>>> tuplesBySensor = new HashMap<>();
+        Set<String> sensorIds = new LinkedHashSet<>();
+        for (SensorData data : readings) {
+            sensorIds.add(data.getSensorId());
+            if (!isChunked()) {
+                tuplesBySensor.computeIfAbsent(data.getSensorId(), id -> new LinkedHashSet<>())
+                        .add(new DefaultTypedTuple<>(data, (double) data.getTimestamp().toEpochMilli()));
+            }
+        }
+
+        Set<String> unknownSensorIds = new HashSet<>(sensorIndex.filterUnknown(sensorIds));
+        if (!tuplesBySensor.isEmpty() || !unknownSensorIds.isEmpty()) {
+            redisShards.groupBySensor(sensorIds, id -> id).forEach((shard, shardSensorIds) ->
+                    writePipelined(shard.template(), shardSensorIds, tuplesBySensor, unknownSensorIds));
+            sensorIndex.markKnown(unknownSensorIds);
+        }
+        ingestionStreamQueue.publish(readings);
+        for (SensorData data : readings) {
+            if (isChunked()) {
+                chunkedSensorStore.append(data);
+            }
+            rollupService.record(data);
+            latestReadingCache.put(data);
+        }
+        throughputMonitor.increment(readings.size());
+    }
+
+    private String validate(SensorData data) {
+        if (data == null) {
+            return "Malformed reading";
+        }
+        List<String> violations = validator.violations(data);
+        return violations.isEmpty() ? null : String.join(", ", violations);
+    }
+
+    private void writePipelined(RedisOperations<String, Object> shard, List<String> sensorIds,
+                                Map<String, Set<ZSetOperations.TypedTuple<Object>>> tuplesBySensor, Set<String> unknownSensorIds) {
+        Object[] newSensorIds = sensorIds.stream().filter(unknownSensorIds::contains).toArray();
+        if (newSensorIds.length == 0 && sensorIds.stream().noneMatch(tuplesBySensor::containsKey)) {
+            return;
+        }
+        shard.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (String sensorId : sensorIds) {
+                    Set<ZSetOperations.TypedTuple<Object>> tuples = tuplesBySensor.get(sensorId);
+                    if (tuples != null) {
+                        ops.opsForZSet().add(SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX, tuples);
+                    }
+                }
+                if (newSensorIds.length > 0) {
+                    ops.opsForSet().add(SensorIndex.ALL_SENSORS_KEY, newSensorIds);
+                }
+                return null;
+            }
+        });
+    }
+
+    private boolean isChunked() {
+        return "chunked".equalsIgnoreCase(storageEngine);
+    }
+
     public SensorData getLatestReading(String sensorId) {
-        String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
-        Set<Object> result = redisTemplate.opsForZSet().reverseRange(key, 0, 0);
-        if (result != null && !result.isEmpty()) {
-            Object obj = result.iterator().next();
-            if (obj instanceof SensorData) {
-                return (SensorData) obj;
-            } else {
-                 return objectMapper.convertValue(obj, SensorData.class);
+        return latestReadingCache.get(sensorId, this::loadLatestReading);
+    }
+
+    private SensorData loadLatestReading(String sensorId) {
+        long started = System.nanoTime();
+        try {
+            return readLatestReading(sensorId);
+        } finally {
+            latestLoadTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private SensorData readLatestReading(String sensorId) {
+        SensorData latest = null;
+        if (isChunked()) {
+            latest = chunkedSensorStore.getLatestReading(sensorId);
+        } else {
+            String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+            Set<Object> result = redisShards.templateFor(sensorId).opsForZSet().reverseRange(key, 0, 0);
+            if (result != null && !result.isEmpty()) {
+                latest = toSensorData(result.iterator().next());
             }
         }
-        return null;
+        return latest;
     }
 
+    /**
+     * Returns the readings of the range from the cold archive followed by those still held in Redis.
+     */
     public List<SensorData> getReadingsInRange(String sensorId, Instant start, Instant end) {
-        String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
-        Set<Object> result = redisTemplate.opsForZSet().rangeByScore(key, start.toEpochMilli(), end.toEpochMilli());
-        
+        long started = System.nanoTime();
+        try {
+            return readRange(sensorId, start, end);
+        } finally {
+            rangeQueryTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<SensorData> readRange(String sensorId, Instant start, Instant end) {
         List<SensorData> readings = new ArrayList<>();
-        if (result != null) {
-            for (Object obj : result) {
-                 if (obj instanceof SensorData) {
-                    readings.add((SensorData) obj);
-                } else {
-                     readings.add(objectMapper.convertValue(obj, SensorData.class));
+        segmentArchive.scanRange(sensorId, start, end, readings::add);
+        if (isChunked()) {
+            readings.addAll(chunkedSensorStore.getReadingsInRange(sensorId, start, end));
+        } else {
+            String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+            Set<Object> result = redisShards.templateFor(sensorId).opsForZSet().rangeByScore(key, start.toEpochMilli(), end.toEpochMilli());
+
+            if (result != null) {
+                for (Object obj : result) {
+                    readings.add(toSensorData(obj));
                 }
             }
         }
         return readings;
     }
 
-    public Set<Object> getAllSensors() {
-        return redisTemplate.opsForSet().members(ALL_SENSORS_KEY);
+    /**
+     * Returns at most {@code limit} readings of the range, starting at {@code cursor} (or at {@code start} when
+     * {@code null}). The cursor is {@code <epochMillis>:<skip>}: the score to resume from and how many readings
+     * with exactly that score were already returned, so readings sharing a timestamp are never lost or repeated.
+     * Archived and Redis readings are merged in timestamp order, archived ones first on equal timestamps.
+     */
+    public ReadingsPage getReadingsPage(String sensorId, Instant start, Instant end, String cursor, int limit) {
+        return readPage(sensorId, start, end, cursor, limit, true);
+    }
+
+    private ReadingsPage readPage(String sensorId, Instant start, Instant end, String cursor, int limit, boolean withArchive) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+        long fromScore = start.toEpochMilli();
+        long skip = 0;
+        if (cursor != null) {
+            String[] parts = cursor.split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                fromScore = Long.parseLong(parts[0]);
+                skip = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        long started = System.nanoTime();
+        try {
+            return mergePage(sensorId, end, fromScore, skip, limit, withArchive);
+        } finally {
+            pageQueryTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ReadingsPage mergePage(String sensorId, Instant end, long fromScore, long skip, int limit, boolean withArchive) {
+        // Each tier is read from the cursor's score on; the first skip + limit + 1 readings of the merged order
+        // come from the first skip + limit + 1 readings of each tier.
+        int wanted = (int) Math.min(Integer.MAX_VALUE, skip + limit + 1L);
+        Instant from = Instant.ofEpochMilli(fromScore);
+        List<SensorData> archived = new ArrayList<>();
+        if (withArchive) {
+            segmentArchive.scanRange(sensorId, from, end, collectUpTo(archived, wanted));
+        }
+        List<SensorData> hot = new ArrayList<>();
+        if (isChunked()) {
+            chunkedSensorStore.scanRange(sensorId, from, end, collectUpTo(hot, wanted));
+        } else {
+            String key = SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX;
+            Set<Object> result = redisShards.templateFor(sensorId).opsForZSet()
+                    .rangeByScore(key, fromScore, end.toEpochMilli(), 0, wanted);
+            if (result != null) {
+                for (Object obj : result) {
+                    hot.add(toSensorData(obj));
+                }
+            }
+        }
+
+        List<SensorData> items = new ArrayList<>(limit);
+        long lastScore = fromScore;
+        long sameScoreCount = skip;
+        long toSkip = skip;
+        boolean hasMore = false;
+        int a = 0;
+        int h = 0;
+        while (a < archived.size() || h < hot.size()) {
+            boolean fromArchive = h == hot.size() || (a < archived.size()
+                    && !archived.get(a).getTimestamp().isAfter(hot.get(h).getTimestamp()));
+            SensorData data = fromArchive ? archived.get(a++) : hot.get(h++);
+            long score = data.getTimestamp().toEpochMilli();
+            if (score == fromScore && toSkip > 0) {
+                toSkip--;
+                continue;
+            }
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            items.add(data);
+            sameScoreCount = score == lastScore ? sameScoreCount + 1 : 1;
+            lastScore = score;
+        }
+        return new ReadingsPage(items, hasMore ? lastScore + ":" + sameScoreCount : null);
+    }
+
+    private static Predicate<SensorData> collectUpTo(List<SensorData> target, int count) {
+        return data -> {
+            target.add(data);
+            return target.size() < count;
+        };
+    }
+
+    /**
+     * Walks the whole range page by page and hands every reading to {@code visitor} until it returns {@code false},
+     * so memory use stays bounded by the page size regardless of the range size. Archived readings come first.
+     */
+    public void streamReadingsInRange(String sensorId, Instant start, Instant end, Predicate<SensorData> visitor) {
+        if (!segmentArchive.scanRange(sensorId, start, end, visitor)) {
+            return;
+        }
+        if (isChunked()) {
+            chunkedSensorStore.scanRange(sensorId, start, end, visitor);
+            return;
+        }
+        String cursor = null;
+        do {
+            ReadingsPage page = readPage(sensorId, start, end, cursor, streamPageSize, false);
+            for (SensorData data : page.getItems()) {
+                if (!visitor.test(data)) {
+                    return;
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    /**
+     * Resolves the latest reading of every given sensor and hands it to {@code visitor}. Cache hits are served
+     * in-process; the misses of each page of {@code query.bulk.page-size} IDs are fetched in one pipelined pass
+     * per shard.
+     * Sensors without readings are skipped.
+     */
+    public void streamLatestReadings(Iterator<String> sensorIds, Predicate<SensorData> visitor) {
+        List<String> page = new ArrayList<>(bulkPageSize);
+        while (sensorIds.hasNext()) {
+            page.add(sensorIds.next());
+            if (page.size() == bulkPageSize || !sensorIds.hasNext()) {
+                if (!visitLatestPage(page, visitor)) {
+                    return;
+                }
+                page.clear();
+            }
+        }
+    }
+
+    /**
+     * Resolves the latest reading of every known sensor whose ID matches the glob {@code pattern}.
+     */
+    public void streamLatestReadings(String pattern, Predicate<SensorData> visitor) {
+        try (CloseableIterator<String> ids = sensorIndex.scanMatching(pattern, bulkPageSize)) {
+            streamLatestReadings(ids, visitor);
+        }
+    }
+
+    private boolean visitLatestPage(List<String> sensorIds, Predicate<SensorData> visitor) {
+        List<String> misses = new ArrayList<>();
+        for (String sensorId : sensorIds) {
+            SensorData cached = latestReadingCache.getIfPresent(sensorId);
+            if (cached == null) {
+                misses.add(sensorId);
+            } else if (!visitor.test(cached)) {
+                return false;
+            }
+        }
+        if (misses.isEmpty()) {
+            return true;
+        }
+
+        List<SensorData> loaded = new ArrayList<>(misses.size());
+        if (isChunked()) {
+            for (String sensorId : misses) {
+                loaded.add(chunkedSensorStore.getLatestReading(sensorId));
+            }
+        } else {
+            redisShards.groupBySensor(misses, id -> id).forEach((shard, shardMisses) -> {
+                List<Object> results = shard.template().executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        for (String sensorId : shardMisses) {
+                            ops.opsForZSet().reverseRange(SENSOR_KEY_PREFIX + sensorId + SENSOR_DATA_KEY_SUFFIX, 0, 0);
+                        }
+                        return null;
+                    }
+                });
+                for (Object result : results) {
+                    Collection<?> members = result instanceof Collection ? (Collection<?>) result : List.of();
+                    loaded.add(members.isEmpty() ? null : toSensorData(members.iterator().next()));
+                }
+            });
+        }
+
+        for (SensorData data : loaded) {
+            if (data == null) {
+                continue;
+            }
+            latestReadingCache.putLoaded(data);
+            if (!visitor.test(data)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SensorData toSensorData(Object obj) {
+        if (obj instanceof SensorData) {
+            return (SensorData) obj;
+        }
+        return objectMapper.convertValue(obj, SensorData.class);
+    }
+
+    public SensorPage getSensors(String cursor, int count, String prefix) {
+        return sensorIndex.scan(cursor, count, prefix);
+    }
+
+    public long countSensors() {
+        return sensorIndex.count();
     }
 }
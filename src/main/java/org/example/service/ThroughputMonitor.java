@@ -1,42 +1,236 @@
 package org.example.service;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.sharding.RedisShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts ingested messages in a ring of per-second {@link LongAdder} buckets held in local memory.
+ * Once per second the deltas are flushed to the shared {@code throughput:{epochSecond}} keys with a single
+ * pipelined pass and the cluster-wide counts of the last {@value #WINDOW_SECONDS} seconds are read back,
+ * so readers are always served from memory.
+ * <p>
+ * When sharded, each node writes its deltas to the shard its node ID hashes to, which spreads the counter writes
+ * over the shards, and the window is read from every shard and summed.
+ */
 @Service
 public class ThroughputMonitor {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private static final Logger log = LoggerFactory.getLogger(ThroughputMonitor.class);
+
     private static final String THROUGHPUT_KEY_PREFIX = "throughput:";
+    private static final int WINDOW_SECONDS = 60;
+    private static final int RING_SIZE = 128; // power of two, comfortably larger than the window
+    private static final long KEY_TTL_SECONDS = 2L * WINDOW_SECONDS;
+    private static final long MAX_SNAPSHOT_AGE_SECONDS = 5;
+
+    private final RedisShards redisShards;
+    private final RedisShards.Shard counterShard;
+    private final AtomicReferenceArray<Bucket> ring = new AtomicReferenceArray<>(RING_SIZE);
+    private volatile ClusterSnapshot clusterSnapshot = new ClusterSnapshot(0, new long[WINDOW_SECONDS]);
+    private final Timer flushTimer;
 
-    public ThroughputMonitor(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public ThroughputMonitor(RedisShards redisShards, MeterRegistry meterRegistry) {
+        this.redisShards = redisShards;
+        this.counterShard = redisShards.forKey(UUID.randomUUID().toString());
+        this.flushTimer = Timer.builder("throughput.flush").register(meterRegistry);
+        Gauge.builder("throughput.current", this, ThroughputMonitor::getCurrentThroughput)
+                .description("Messages ingested across the cluster during the last completed second")
+                .register(meterRegistry);
     }
 
     public void increment() {
-        long currentSecond = Instant.now().getEpochSecond();
-        String key = THROUGHPUT_KEY_PREFIX + currentSecond;
-        redisTemplate.opsForValue().increment(key);
-        redisTemplate.expire(key, 10, TimeUnit.SECONDS); // Keep for 10 seconds
+        increment(1);
+    }
+
+    public void increment(long count) {
+        bucketFor(Instant.now().getEpochSecond()).count.add(count);
     }
 
+    /**
+     * Messages ingested across the cluster during the last completed second.
+     */
     public long getCurrentThroughput() {
-        // Get throughput for the last completed second to be stable, or current second?
-        // Usually current second is fluctuating. Let's take the max of last few seconds or just the last second.
-        // Let's take the last second for simplicity as "current" rate.
-        long lastSecond = Instant.now().getEpochSecond() - 1;
-        String key = THROUGHPUT_KEY_PREFIX + lastSecond;
-        Object val = redisTemplate.opsForValue().get(key);
-        if (val != null) {
-            if (val instanceof Integer) {
-                return ((Integer) val).longValue();
-            } else if (val instanceof Long) {
-                return (Long) val;
+        return countForSecondsAgo(1);
+    }
+
+    /**
+     * Average messages per second across the cluster over the last {@code windowSeconds} completed seconds.
+     */
+    public double getAverageThroughput(int windowSeconds) {
+        if (windowSeconds < 1 || windowSeconds > WINDOW_SECONDS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + WINDOW_SECONDS + " seconds");
+        }
+        long total = 0;
+        for (int secondsAgo = 1; secondsAgo <= windowSeconds; secondsAgo++) {
+            total += countForSecondsAgo(secondsAgo);
+        }
+        return (double) total / windowSeconds;
+    }
+
+    /**
+     * Messages ingested by this node only during the last completed second.
+     */
+    public long getLocalThroughput() {
+        return localCount(Instant.now().getEpochSecond() - 1);
+    }
+
+    private long countForSecondsAgo(int secondsAgo) {
+        long now = Instant.now().getEpochSecond();
+        long second = now - secondsAgo;
+        ClusterSnapshot snapshot = clusterSnapshot;
+        long index = snapshot.second() - second;
+        if (now - snapshot.second() <= MAX_SNAPSHOT_AGE_SECONDS && index >= 0 && index < snapshot.counts().length) {
+            return snapshot.counts()[(int) index];
+        }
+        // Redis has not been reachable lately; fall back to what this node has counted itself.
+        return localCount(second);
+    }
+
+    private long localCount(long second) {
+        Bucket bucket = ring.get(slot(second));
+        return bucket != null && bucket.second == second ? bucket.count.sum() : 0;
+    }
+
+    private Bucket bucketFor(long second) {
+        int slot = slot(second);
+        Bucket bucket = ring.get(slot);
+        while (bucket == null || bucket.second < second) {
+            Bucket fresh = new Bucket(second);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
             }
+            bucket = ring.get(slot);
+        }
+        return bucket;
+    }
+
+    private static int slot(long second) {
+        return (int) (second & (RING_SIZE - 1));
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void flush() {
+        long started = System.nanoTime();
+        try {
+            flushDeltas();
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushDeltas() {
+        long now = Instant.now().getEpochSecond();
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (long second = now - WINDOW_SECONDS; second <= now; second++) {
+            Bucket bucket = ring.get(slot(second));
+            if (bucket == null || bucket.second != second) {
+                continue;
+            }
+            long total = bucket.count.sum();
+            long delta = total - bucket.flushed;
+            if (delta > 0) {
+                deltas.put(THROUGHPUT_KEY_PREFIX + second, delta);
+                bucket.flushed = total;
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            try {
+                writeDeltas(deltas);
+            } catch (DataAccessException e) {
+                // Nothing was counted in Redis; put the deltas back so they are retried on the next flush.
+                deltas.forEach((key, delta) -> {
+                    long second = Long.parseLong(key.substring(THROUGHPUT_KEY_PREFIX.length()));
+                    Bucket bucket = ring.get(slot(second));
+                    if (bucket != null && bucket.second == second) {
+                        bucket.flushed -= delta;
+                    }
+                });
+                log.warn("Failed to flush throughput counters: {}", e.getMessage());
+            }
+        }
+
+        try {
+            clusterSnapshot = readWindow(now);
+        } catch (DataAccessException e) {
+            // The deltas are in Redis already; keep the previous snapshot until it ages out.
+            log.warn("Failed to read the cluster throughput: {}", e.getMessage());
+        }
+    }
+
+    private void writeDeltas(Map<String, Long> deltas) {
+        counterShard.template().executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                deltas.forEach((key, delta) -> {
+                    ops.opsForValue().increment(key, delta);
+                    ops.expire(key, KEY_TTL_SECONDS, TimeUnit.SECONDS);
+                });
+                return null;
+            }
+        });
+    }
+
+    private ClusterSnapshot readWindow(long now) {
+        List<String> windowKeys = new ArrayList<>(WINDOW_SECONDS);
+        for (int secondsAgo = 1; secondsAgo <= WINDOW_SECONDS; secondsAgo++) {
+            windowKeys.add(THROUGHPUT_KEY_PREFIX + (now - secondsAgo));
+        }
+        long[] counts = new long[WINDOW_SECONDS];
+        for (List<Object> values : redisShards.scatter(shard -> shard.template().opsForValue().multiGet(windowKeys))) {
+            if (values != null) {
+                for (int i = 0; i < counts.length && i < values.size(); i++) {
+                    counts[i] += toLong(values.get(i));
+                }
+            }
+        }
+        return new ClusterSnapshot(now - 1, counts);
+    }
+
+    private static long toLong(Object val) {
+        if (val instanceof Integer) {
+            return ((Integer) val).longValue();
+        } else if (val instanceof Long) {
+            return (Long) val;
         }
         return 0;
     }
+
+    private static final class Bucket {
+        private final long second;
+        private final LongAdder count = new LongAdder();
+        // Only touched by the flushing thread.
+        private long flushed;
+
+        private Bucket(long second) {
+            this.second = second;
+        }
+    }
+
+    /**
+     * Cluster-wide counts where {@code counts[i]} belongs to {@code second - i}.
+     */
+    private record ClusterSnapshot(long second, long[] counts) {
+    }
 }
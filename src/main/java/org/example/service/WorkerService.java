@@ -1,134 +1,358 @@
 package org.example.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.example.model.ScalingRecommendation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.example.model.Worker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.SetOperations;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Worker registry. Each worker is a HASH of plain string fields at {@code worker:{id}}
+ * ({@code worker_id}, {@code status}, {@code registered_at} and {@code last_heartbeat} in epoch millis,
+ * {@code processed_count}, {@code processing_rate}, {@code processing_rate_ewma} and
+ * {@code heartbeat_samples} as {@code millis:count,...}), indexed by the {@code workers:index} SET.
+ * A heartbeat is a single EVALSHA of {@code scripts/worker_heartbeat.lua}, which updates the fields and the
+ * processing rates atomically, so concurrent heartbeats cannot lose updates.
+ * <p>
+ * Liveness is tracked in the {@code workers:heartbeats} ZSET, scored by the last heartbeat in epoch millis.
+ * Workers whose heartbeats lapse for {@code workers.liveness.stale-after} are marked {@code stale}, and after
+ * {@code workers.liveness.dead-after} they are declared dead and deregistered by {@link #sweep()}. A deregistered
+ * worker's consumer is retired from the worker queue ({@link IngestionStreamQueue#retireConsumer}).
+ */
 @Service
 public class WorkerService {
 
+    private static final Logger log = LoggerFactory.getLogger(WorkerService.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ValueOperations<String, Object> valueOperations;
+    private final IngestionStreamQueue ingestionStreamQueue;
     private final SetOperations<String, Object> setOperations;
-    private final ThroughputMonitor throughputMonitor;
     private final ObjectMapper objectMapper;
+    private final DefaultRedisScript<Object> heartbeatScript;
+    private final DefaultRedisScript<Object> sweepScript;
+    private final Timer heartbeatTimer;
+    private final Timer listTimer;
+    private volatile long lastStaleCutoff = Long.MIN_VALUE;
 
     private static final String WORKER_KEY_PREFIX = "worker:";
     private static final String WORKER_INDEX_KEY = "workers:index";
+    private static final byte[] LIVENESS_KEY = bytes("workers:heartbeats");
+    private static final byte[] RETURN_WORKER = bytes("1");
+    private static final byte[] RETURN_NOTHING = bytes("0");
+    private static final long SWEPT_STALE = 1;
+    private static final long SWEPT_DEAD = 2;
+
+    @Value("${workers.rate.samples:8}")
+    private int rateSamples;
+
+    @Value("${workers.rate.ewma-tau:30s}")
+    private Duration rateEwmaTau;
 
-    @Value("${scaling.worker.capacity:1500}")
-    private int workerCapacity;
+    @Value("${workers.liveness.stale-after:30s}")
+    private Duration staleAfter;
 
-    @Value("${scaling.worker.min:1}")
-    private int minWorkers;
+    @Value("${workers.liveness.dead-after:5m}")
+    private Duration deadAfter;
 
-    @Value("${scaling.worker.max:10}")
-    private int maxWorkers;
+    @Value("${workers.liveness.sweep-batch-size:500}")
+    private int sweepBatchSize;
 
-    public WorkerService(RedisTemplate<String, Object> redisTemplate, ThroughputMonitor throughputMonitor, ObjectMapper objectMapper) {
+    public WorkerService(RedisTemplate<String, Object> redisTemplate, IngestionStreamQueue ingestionStreamQueue,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.valueOperations = redisTemplate.opsForValue();
+        this.ingestionStreamQueue = ingestionStreamQueue;
         this.setOperations = redisTemplate.opsForSet();
-        this.throughputMonitor = throughputMonitor;
         this.objectMapper = objectMapper;
+        this.heartbeatScript = new DefaultRedisScript<>();
+        this.heartbeatScript.setLocation(new ClassPathResource("scripts/worker_heartbeat.lua"));
+        this.sweepScript = new DefaultRedisScript<>();
+        this.sweepScript.setLocation(new ClassPathResource("scripts/worker_sweep.lua"));
+        this.heartbeatTimer = Timer.builder("workers.heartbeat").register(meterRegistry);
+        this.listTimer = Timer.builder("workers.list").register(meterRegistry);
+    }
+
+    /**
+     * Rewrites workers still stored as JSON values by an earlier version as hashes, and adds workers
+     * registered before liveness tracking to the liveness ZSET.
+     */
+    @PostConstruct
+    public void migrateLegacyWorkers() {
+        try {
+            Set<Object> ids = setOperations.members(WORKER_INDEX_KEY);
+            if (ids == null) {
+                return;
+            }
+            int migrated = 0;
+            int tracked = 0;
+            for (Object id : ids) {
+                String key = WORKER_KEY_PREFIX + id;
+                DataType type = redisTemplate.type(key);
+                if (type == DataType.STRING) {
+                    Worker worker = convertToWorker(redisTemplate.opsForValue().get(key));
+                    if (worker != null) {
+                        redisTemplate.execute((RedisCallback<Object>) connection -> {
+                            connection.keyCommands().del(bytes(key));
+                            connection.hashCommands().hMSet(bytes(key), toHash(worker));
+                            return null;
+                        });
+                        migrated++;
+                    }
+                }
+                Boolean added = redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+                    byte[] lastHeartbeat = connection.hashCommands().hGet(bytes(key), bytes("last_heartbeat"));
+                    long score = lastHeartbeat == null ? System.currentTimeMillis() : Long.parseLong(string(lastHeartbeat));
+                    return connection.zSetCommands().zAdd(LIVENESS_KEY, score, bytes(id.toString()),
+                            RedisZSetCommands.ZAddArgs.ifNotExists());
+                });
+                if (Boolean.TRUE.equals(added)) {
+                    tracked++;
+                }
+            }
+            if (migrated > 0) {
+                log.info("Migrated {} workers from JSON values to hashes", migrated);
+            }
+            if (tracked > 0) {
+                log.info("Added {} workers to liveness tracking", tracked);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not check for workers stored as JSON values: {}", e.getMessage());
+        }
     }
 
     public Worker registerWorker(Worker worker) {
         String workerId = worker.getWorkerId();
-        
-        String key = WORKER_KEY_PREFIX + workerId;
-        valueOperations.set(key, worker);
+        byte[] key = bytes(WORKER_KEY_PREFIX + workerId);
+        Map<byte[], byte[]> hash = toHash(worker);
+        // Registering counts as a heartbeat, so the worker is live until its first real one is due.
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(key);
+            connection.hashCommands().hMSet(key, hash);
+            connection.zSetCommands().zAdd(LIVENESS_KEY, System.currentTimeMillis(), bytes(workerId));
+            return null;
+        });
         setOperations.add(WORKER_INDEX_KEY, workerId);
-        
+        ingestionStreamQueue.reinstateConsumer(workerId);
         return worker;
     }
 
     public void deregisterWorker(String workerId) {
         String key = WORKER_KEY_PREFIX + workerId;
         redisTemplate.delete(key);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zRem(LIVENESS_KEY, bytes(workerId)));
         setOperations.remove(WORKER_INDEX_KEY, workerId);
+        ingestionStreamQueue.retireConsumer(workerId);
     }
 
-    public Worker updateHealth(String workerId, long processedCount) {
-        String key = WORKER_KEY_PREFIX + workerId;
-        Object obj = valueOperations.get(key);
-        
-        if (obj != null) {
-            Worker worker = convertToWorker(obj);
-            if (worker != null) {
-                worker.setLastHeartbeat(Instant.now());
-                worker.setProcessedCount(processedCount);
-                worker.setStatus("active");
-                valueOperations.set(key, worker);
-                return worker;
+    /**
+     * Number of workers that sent a heartbeat within {@code workers.liveness.stale-after}: one ZCOUNT.
+     */
+    public int countActiveWorkers() {
+        long since = System.currentTimeMillis() - staleAfter.toMillis();
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zCount(LIVENESS_KEY, Range.rightUnbounded(Range.Bound.exclusive(since))));
+        return count == null ? 0 : count.intValue();
+    }
+
+    /**
+     * Marks workers whose heartbeats lapsed as {@code stale} and deregisters the dead ones. The lapsed IDs are
+     * read from the liveness ZSET {@code workers.liveness.sweep-batch-size} at a time, and each worker is then
+     * expired by its own pipelined {@code scripts/worker_sweep.lua} call over its hash and the ZSET, so every
+     * script declares the keys it touches and Redis is never blocked for long.
+     */
+    @Scheduled(fixedDelayString = "${workers.liveness.sweep-interval-ms:5000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long deadCutoff = now - deadAfter.toMillis();
+        long staleCutoff = now - staleAfter.toMillis();
+        // Only workers that lapsed since the previous sweep need marking; the first sweep checks the whole window.
+        long staleFrom = Math.max(lastStaleCutoff, deadCutoff);
+        int stale = 0;
+        List<String> dead = new ArrayList<>();
+        try {
+            List<String> batch;
+            do {
+                // Dead workers leave the ZSET, so every batch starts from the beginning of the range.
+                batch = lapsedWorkers(Double.NEGATIVE_INFINITY, deadCutoff, 0);
+                List<Object> results = sweepWorkers(batch, deadCutoff, staleCutoff);
+                List<String> removed = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (results.get(i) instanceof Number n && n.longValue() == SWEPT_DEAD) {
+                        removed.add(batch.get(i));
+                    }
+                }
+                if (!removed.isEmpty()) {
+                    setOperations.remove(WORKER_INDEX_KEY, removed.toArray());
+                    dead.addAll(removed);
+                }
+            } while (batch.size() >= sweepBatchSize);
+            long offset = 0;
+            do {
+                batch = lapsedWorkers(staleFrom + 1, staleCutoff, offset);
+                for (Object result : sweepWorkers(batch, deadCutoff, staleCutoff)) {
+                    if (result instanceof Number n && n.longValue() == SWEPT_STALE) {
+                        stale++;
+                    }
+                }
+                offset += batch.size();
+            } while (batch.size() >= sweepBatchSize);
+            lastStaleCutoff = staleCutoff;
+        } catch (RuntimeException e) {
+            log.warn("Worker liveness sweep failed: {}", e.getMessage());
+            return;
+        }
+        if (stale > 0) {
+            log.info("Marked {} workers stale after missing heartbeats for {}", stale, staleAfter);
+        }
+        if (!dead.isEmpty()) {
+            log.info("Deregistered {} dead workers after missing heartbeats for {}: {}", dead.size(), deadAfter, dead);
+            try {
+                dead.forEach(ingestionStreamQueue::retireConsumer);
+            } catch (RuntimeException e) {
+                log.warn("Failed to retire the worker queue consumers of dead workers: {}", e.getMessage());
             }
         }
-        return null;
     }
 
-    public List<Worker> getAllWorkers() {
-        Set<Object> ids = setOperations.members(WORKER_INDEX_KEY);
-        if (ids == null || ids.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * At most {@code workers.liveness.sweep-batch-size} IDs of the liveness ZSET scored in {@code [min, max]}.
+     */
+    private List<String> lapsedWorkers(double min, double max, long offset) {
+        Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByScore(LIVENESS_KEY, min, max, offset, sweepBatchSize));
+        List<String> ids = new ArrayList<>();
+        if (members != null) {
+            for (byte[] member : members) {
+                ids.add(string(member));
+            }
         }
+        return ids;
+    }
 
-        List<String> keys = ids.stream()
-                .map(id -> WORKER_KEY_PREFIX + id)
-                .collect(Collectors.toList());
-
-        List<Object> results = valueOperations.multiGet(keys);
-        
-        if (results == null) {
-            return Collections.emptyList();
+    /**
+     * Runs the sweep script once per worker in one pipeline and returns the replies in order.
+     */
+    private List<Object> sweepWorkers(List<String> workerIds, long deadCutoff, long staleCutoff) {
+        if (workerIds.isEmpty()) {
+            return List.of();
         }
+        byte[] script = bytes(sweepScript.getScriptAsString());
+        byte[] dead = bytes(Long.toString(deadCutoff));
+        byte[] stale = bytes(Long.toString(staleCutoff));
+        List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            // Loading is idempotent and makes sure the pipelined EVALSHAs cannot fail with NOSCRIPT.
+            byte[] sha = bytes(connection.scriptingCommands().scriptLoad(script));
+            connection.openPipeline();
+            for (String workerId : workerIds) {
+                connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 2,
+                        bytes(WORKER_KEY_PREFIX + workerId), LIVENESS_KEY, bytes(workerId), dead, stale);
+            }
+            return connection.closePipeline();
+        });
+        return results == null ? List.of() : results;
+    }
 
-        return results.stream()
-                .filter(Objects::nonNull)
-                .map(this::convertToWorker)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+    /**
+     * Records a heartbeat and returns the updated worker, or {@code null} for an unknown worker.
+     */
+    public Worker updateHealth(String workerId, long processedCount) {
+        Object reply = heartbeat(workerId, processedCount, RETURN_WORKER);
+        // The script's 0 for an unknown worker comes back as a one-element list.
+        return reply instanceof List<?> fields && fields.size() > 1 ? toWorker(fields) : null;
     }
 
-    public ScalingRecommendation getScalingRecommendation() {
-        long currentThroughput = throughputMonitor.getCurrentThroughput();
-        List<Worker> workers = getAllWorkers();
-        int activeWorkers = workers.size();
+    /**
+     * Records a heartbeat without reading the worker back; {@code false} for an unknown worker.
+     */
+    public boolean recordHeartbeat(String workerId, long processedCount) {
+        Object reply = heartbeat(workerId, processedCount, RETURN_NOTHING);
+        return reply instanceof Number n && n.longValue() != 0;
+    }
 
-        String recommendation = "HOLD";
-        int recommendedWorkers = activeWorkers;
-        String reason = "Throughput is within the acceptable range.";
+    private Object heartbeat(String workerId, long processedCount, byte[] returnMode) {
+        long started = System.nanoTime();
+        ReturnType returnType = returnMode == RETURN_WORKER ? ReturnType.MULTI : ReturnType.INTEGER;
+        try {
+            return evalScript(heartbeatScript, returnType, 2,
+                    bytes(WORKER_KEY_PREFIX + workerId),
+                    LIVENESS_KEY,
+                    bytes(Long.toString(System.currentTimeMillis())),
+                    bytes(Long.toString(processedCount)),
+                    bytes(Integer.toString(rateSamples)),
+                    bytes(Long.toString(rateEwmaTau.toMillis())),
+                    returnMode,
+                    bytes(workerId));
+        } finally {
+            heartbeatTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        long requiredCapacity = (long) activeWorkers * workerCapacity;
-        long lowerThreshold = (long) activeWorkers * 1000;
+    private Object evalScript(DefaultRedisScript<Object> script, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+        byte[] sha = bytes(script.getSha1());
+        return redisTemplate.execute((RedisCallback<Object>) connection -> {
+            try {
+                return connection.scriptingCommands().evalSha(sha, returnType, numKeys, keysAndArgs);
+            } catch (RuntimeException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                // EVAL caches the script, so the next calls go through EVALSHA again.
+                return connection.scriptingCommands().eval(bytes(script.getScriptAsString()), returnType, numKeys, keysAndArgs);
+            }
+        });
+    }
 
-        if (activeWorkers < minWorkers) {
-            recommendation = "SCALE_UP";
-            recommendedWorkers = minWorkers;
-            reason = "Active workers below minimum threshold";
-        } else if (currentThroughput > requiredCapacity && activeWorkers < maxWorkers) {
-            recommendation = "SCALE_UP";
-            recommendedWorkers = Math.min(maxWorkers, activeWorkers + (int) Math.ceil((currentThroughput - requiredCapacity) / (double) workerCapacity));
-            reason = "Throughput exceeds " + workerCapacity + " msg/s per worker";
-        } else if (currentThroughput < lowerThreshold && activeWorkers > minWorkers) {
-            recommendation = "SCALE_DOWN";
-            recommendedWorkers = Math.max(minWorkers, activeWorkers - 1); // Scale down one by one
-            reason = "Throughput is below 1000 msg/s per worker";
+    public List<Worker> getAllWorkers() {
+        long started = System.nanoTime();
+        try {
+            return loadAllWorkers();
+        } finally {
+            listTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
         }
-        
-        if(recommendedWorkers == activeWorkers && !recommendation.equals("SCALE_UP")) {
-             recommendation = "HOLD";
+    }
+
+    private List<Worker> loadAllWorkers() {
+        Set<Object> ids = setOperations.members(WORKER_INDEX_KEY);
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> results = redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (Object id : ids) {
+                connection.hashCommands().hGetAll(bytes(WORKER_KEY_PREFIX + id));
+            }
+            return connection.closePipeline();
+        });
+        if (results == null) {
+            return Collections.emptyList();
         }
 
-        return new ScalingRecommendation(currentThroughput, activeWorkers, recommendation, recommendedWorkers, reason);
+        List<Worker> workers = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result instanceof Map<?, ?> hash && !hash.isEmpty()) {
+                workers.add(toWorker(hash));
+            }
+        }
+        return workers;
     }
 
     private Worker convertToWorker(Object obj) {
@@ -143,4 +367,84 @@ public class WorkerService {
             return null;
         }
     }
+
+    private static Map<byte[], byte[]> toHash(Worker worker) {
+        Map<byte[], byte[]> hash = new LinkedHashMap<>();
+        putField(hash, "worker_id", worker.getWorkerId());
+        putField(hash, "status", worker.getStatus());
+        putField(hash, "registered_at", worker.getRegisteredAt() == null ? null : Long.toString(worker.getRegisteredAt().toEpochMilli()));
+        putField(hash, "last_heartbeat", worker.getLastHeartbeat() == null ? null : Long.toString(worker.getLastHeartbeat().toEpochMilli()));
+        putField(hash, "processed_count", Long.toString(worker.getProcessedCount()));
+        putField(hash, "processing_rate", Double.toString(worker.getProcessingRate()));
+        putField(hash, "processing_rate_ewma", Double.toString(worker.getProcessingRateEwma()));
+        if (worker.getHeartbeatSamples() != null && !worker.getHeartbeatSamples().isEmpty()) {
+            StringBuilder samples = new StringBuilder();
+            for (Worker.HeartbeatSample sample : worker.getHeartbeatSamples()) {
+                if (samples.length() > 0) {
+                    samples.append(',');
+                }
+                samples.append(sample.getTimestamp()).append(':').append(sample.getProcessedCount());
+            }
+            putField(hash, "heartbeat_samples", samples.toString());
+        }
+        return hash;
+    }
+
+    private static void putField(Map<byte[], byte[]> hash, String field, String value) {
+        if (value != null) {
+            hash.put(bytes(field), bytes(value));
+        }
+    }
+
+    /**
+     * Builds a worker from an HGETALL reply, either a field map or a flat field/value list.
+     */
+    private static Worker toWorker(Object reply) {
+        Map<String, String> fields = new HashMap<>();
+        if (reply instanceof Map<?, ?> map) {
+            map.forEach((field, value) -> fields.put(string(field), string(value)));
+        } else if (reply instanceof List<?> list) {
+            for (int i = 0; i + 1 < list.size(); i += 2) {
+                fields.put(string(list.get(i)), string(list.get(i + 1)));
+            }
+        }
+        Worker worker = new Worker();
+        worker.setWorkerId(fields.get("worker_id"));
+        worker.setStatus(fields.get("status"));
+        worker.setRegisteredAt(instant(fields.get("registered_at")));
+        worker.setLastHeartbeat(instant(fields.get("last_heartbeat")));
+        worker.setProcessedCount(fields.containsKey("processed_count") ? Long.parseLong(fields.get("processed_count")) : 0);
+        worker.setProcessingRate(fields.containsKey("processing_rate") ? Double.parseDouble(fields.get("processing_rate")) : 0);
+        worker.setProcessingRateEwma(fields.containsKey("processing_rate_ewma") ? Double.parseDouble(fields.get("processing_rate_ewma")) : 0);
+        String samples = fields.get("heartbeat_samples");
+        if (samples != null && !samples.isEmpty()) {
+            for (String sample : samples.split(",")) {
+                int separator = sample.indexOf(':');
+                worker.getHeartbeatSamples().add(new Worker.HeartbeatSample(
+                        Long.parseLong(sample.substring(0, separator)), Long.parseLong(sample.substring(separator + 1))));
+            }
+        }
+        return worker;
+    }
+
+    private static Instant instant(String epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(Long.parseLong(epochMillis));
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] b ? new String(b, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
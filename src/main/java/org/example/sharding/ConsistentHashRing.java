@@ -0,0 +1,54 @@
+package org.example.sharding;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring. Every node is placed at {@code virtualNodes} points and a key belongs to the node of the
+ * first point at or after the key's hash, wrapping around. Adding a node only moves the keys that now land on its
+ * points, about {@code 1/N} of them, and the virtual nodes keep the shares even. Points depend on the node names
+ * only, so every process that is given the same names builds the same ring regardless of their order.
+ */
+public final class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> points = new TreeMap<>();
+
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be at least 1");
+        }
+        nodes.forEach((name, node) -> {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.putIfAbsent(hash(name + "#" + i), node);
+            }
+        });
+    }
+
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> point = points.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, followed by the MurmurHash3 finalizer so that keys differing in the
+     * last character still spread over the whole ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
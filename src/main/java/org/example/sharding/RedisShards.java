@@ -0,0 +1,182 @@
+package org.example.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * The Redis nodes holding sensor data. Sensor-scoped keys ({@code sensor:{id}:*}, the sensor's entry in
+ * {@code sensors:all}) live on the node the {@link ConsistentHashRing} assigns to the sensor ID, and the
+ * {@code throughput:*} counters are spread over the nodes and summed on read. Coordination keys (workers, worker
+ * queue, locks, cache invalidations) stay on the primary {@code spring.data.redis.*} connection.
+ * <p>
+ * Without {@code redis.sharding.nodes} there is a single shard backed by the primary {@code redisTemplate}.
+ */
+@Component
+public class RedisShards implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisShards.class);
+
+    static final String DEFAULT_SHARD = "default";
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+    private final ConsistentHashRing<Shard> ring;
+    private final ExecutorService scatterExecutor;
+
+    public RedisShards(RedisTemplate<String, Object> redisTemplate, RedisSerializer<Object> redisValueSerializer,
+                       @Value("${redis.sharding.nodes:}") List<String> nodes,
+                       @Value("${redis.sharding.virtual-nodes:160}") int virtualNodes,
+                       @Value("${spring.data.redis.timeout:60s}") Duration timeout,
+                       @Value("${spring.data.redis.password:}") String password) {
+        for (String node : nodes) {
+            if (!node.isBlank()) {
+                shards.add(new Shard(shards.size(), node.trim(), connect(node.trim(), timeout, password, redisValueSerializer)));
+            }
+        }
+        if (shards.isEmpty()) {
+            shards.add(new Shard(0, DEFAULT_SHARD, redisTemplate));
+        }
+
+        Map<String, Shard> byName = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            if (byName.put(shard.name(), shard) != null) {
+                throw new IllegalArgumentException("Redis shard listed twice: " + shard.name());
+            }
+        }
+        this.ring = new ConsistentHashRing<>(byName, virtualNodes);
+        this.scatterExecutor = shards.size() == 1 ? null : Executors.newCachedThreadPool(daemonThreads());
+        if (shards.size() > 1) {
+            log.info("Sharding sensor data over {} Redis nodes with {} virtual nodes each", shards.size(), virtualNodes);
+        }
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    public Shard forSensor(String sensorId) {
+        return forKey(sensorId);
+    }
+
+    /**
+     * The shard owning any other string on the ring, e.g. a node ID.
+     */
+    public Shard forKey(String key) {
+        return shards.size() == 1 ? shards.get(0) : ring.nodeFor(key);
+    }
+
+    public RedisTemplate<String, Object> templateFor(String sensorId) {
+        return forSensor(sensorId).template();
+    }
+
+    /**
+     * Groups items by the shard of their sensor, keeping the order of the items within each shard.
+     */
+    public <T> Map<Shard, List<T>> groupBySensor(Collection<T> items, Function<T, String> sensorIdOf) {
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(forSensor(sensorIdOf.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Runs {@code call} against every shard concurrently and returns the results in shard order.
+     */
+    public <T> List<T> scatter(Function<Shard, T> call) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(call.apply(shards.get(0)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> call.apply(shard), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+        for (LettuceConnectionFactory connectionFactory : connectionFactories) {
+            connectionFactory.destroy();
+        }
+    }
+
+    private RedisTemplate<String, Object> connect(String node, Duration timeout, String password,
+                                                  RedisSerializer<Object> valueSerializer) {
+        int separator = node.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Redis shard must be <host>:<port>, got: " + node);
+        }
+        RedisStandaloneConfiguration standalone;
+        try {
+            standalone = new RedisStandaloneConfiguration(node.substring(0, separator), Integer.parseInt(node.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Redis shard must be <host>:<port>, got: " + node);
+        }
+        if (!password.isEmpty()) {
+            standalone.setPassword(password);
+        }
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(standalone,
+                LettuceClientConfiguration.builder().commandTimeout(timeout).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        connectionFactories.add(connectionFactory);
+
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("redis-shard-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * One Redis node; {@code index} is its position in {@code redis.sharding.nodes}.
+     */
+    public record Shard(int index, String name, RedisTemplate<String, Object> template) {
+    }
+}
@@ -0,0 +1,361 @@
+package org.example.sharding;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.example.model.ShardRebalanceReport;
+import org.example.service.SensorIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Moves sensor data to the shard that owns it after {@code redis.sharding.nodes} changed, e.g. when a node was added.
+ * Run it once every application node uses the new node list, so that new readings already go to the new owners.
+ * It walks every shard once and moves what belongs elsewhere now:
+ * <ul>
+ *     <li>{@code sensor:{id}:*} keys (SCAN) are DUMPed with their TTL, restored on the new owner by
+ *     {@code shard_restore.lua}, which merges them into keys written there since the ring changed, and deleted;</li>
+ *     <li>{@code sensors:all} entries (SSCAN) are added on the new owner and removed from the old shard.</li>
+ * </ul>
+ * The application keeps serving meanwhile; until a sensor's keys have moved, its queries only see the readings written
+ * since the change.
+ * <p>
+ * A run executes on a dedicated thread and records its progress in {@code shards:rebalance:status} on the primary
+ * Redis, so any node can report it. A lock on the primary Redis keeps two runs from overlapping; it is renewed once a
+ * third of {@code redis.sharding.rebalance.lock-ttl} has passed, and a run that cannot renew it stops before the next
+ * key. Every restore is recorded in a journal on the new owner ({@code shards:rebalance:journal}) until the key is
+ * deleted on the old shard, so a run that failed in between and is started again does not merge the key twice.
+ */
+@Service
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String LOCK_KEY = "shards:rebalance:lock";
+    private static final String STATUS_KEY = "shards:rebalance:status";
+    static final String JOURNAL_KEY = "shards:rebalance:journal";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0";
+    // The key layouts of SensorService, ChunkedSensorStore and RollupService; group 1 is the sensor ID.
+    private static final Pattern SENSOR_KEY = Pattern.compile("^sensor:(.+)(:data|:chunks|:chunk:[^:]+|:rollup:[^:]+(?::\\d+)?)$");
+    private static final String SCRATCH_KEY_SUFFIX = ":rebalance";
+    private static final long MERGED = 2;
+
+    private final RedisShards redisShards;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final DefaultRedisScript<Long> restoreScript;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService rebalanceExecutor = Executors.newSingleThreadExecutor(daemonThreads());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${redis.sharding.rebalance.batch-size:500}")
+    private int batchSize;
+
+    @Value("${redis.sharding.rebalance.lock-ttl:5m}")
+    private Duration lockTtl;
+
+    public ShardRebalancer(RedisShards redisShards, RedisTemplate<String, Object> redisTemplate) {
+        this.redisShards = redisShards;
+        this.redisTemplate = redisTemplate;
+        this.restoreScript = new DefaultRedisScript<>();
+        this.restoreScript.setLocation(new ClassPathResource("scripts/shard_restore.lua"));
+        this.restoreScript.setResultType(Long.class);
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+
+    /**
+     * Starts a rebalance on the rebalance thread and returns its initial status; {@code null} when one is already
+     * running on any node.
+     */
+    public ShardRebalanceReport start() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        if (!acquireLock()) {
+            running.set(false);
+            return null;
+        }
+        ShardRebalanceReport report = new ShardRebalanceReport(ShardRebalanceReport.RUNNING, redisShards.size(), 0, 0, 0,
+                Instant.now(), 0, null);
+        // The run updates its own copy, the caller gets the initial status.
+        ShardRebalanceReport progress = objectMapper.convertValue(report, ShardRebalanceReport.class);
+        try {
+            saveStatus(report);
+            rebalanceExecutor.execute(() -> {
+                try {
+                    rebalance(progress);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseLock();
+            running.set(false);
+            throw e;
+        }
+        return report;
+    }
+
+    /**
+     * Status of the latest rebalance, {@code null} when none has run.
+     */
+    public ShardRebalanceReport getStatus() {
+        Object value = redisTemplate.opsForValue().get(STATUS_KEY);
+        if (value == null) {
+            return null;
+        }
+        ShardRebalanceReport report = objectMapper.convertValue(value, ShardRebalanceReport.class);
+        if (ShardRebalanceReport.RUNNING.equals(report.getState()) && !Boolean.TRUE.equals(redisTemplate.hasKey(LOCK_KEY))) {
+            report.setState(ShardRebalanceReport.INTERRUPTED);
+        }
+        return report;
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebalanceExecutor.shutdownNow();
+    }
+
+    private void rebalance(ShardRebalanceReport report) {
+        Lease lease = new Lease();
+        Set<String> scriptLoaded = new HashSet<>();
+        try {
+            for (RedisShards.Shard source : redisShards.getShards()) {
+                moveKeys(source, scriptLoaded, report, lease);
+                moveIndexEntries(source, report, lease);
+            }
+            if (lease.held) {
+                report.setState(ShardRebalanceReport.COMPLETED);
+            } else {
+                report.setState(ShardRebalanceReport.FAILED);
+                report.setError("Lost the rebalance lock");
+            }
+        } catch (RuntimeException e) {
+            log.error("Rebalance failed", e);
+            report.setState(ShardRebalanceReport.FAILED);
+            report.setError(e.getMessage());
+        } finally {
+            releaseLock();
+            report.setDurationMs(Duration.between(report.getStartedAt(), Instant.now()).toMillis());
+            try {
+                saveStatus(report);
+            } catch (RuntimeException e) {
+                log.warn("Failed to record the rebalance status: {}", e.getMessage());
+            }
+        }
+        log.info("Rebalance of {} shards {}: moved {} sensors and {} keys ({} merged) in {} ms", report.getShards(),
+                report.getState(), report.getSensorsMoved(), report.getKeysMoved(), report.getKeysMerged(),
+                report.getDurationMs());
+    }
+
+    /**
+     * Sensor count ({@code sensors:all}) and key count (DBSIZE) of every shard.
+     */
+    public List<Map<String, Object>> getShardStats() {
+        return redisShards.scatter(shard -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", shard.name());
+            stats.put("sensors", shard.template().opsForSet().size(SensorIndex.ALL_SENSORS_KEY));
+            stats.put("keys", shard.template().execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize()));
+            return stats;
+        });
+    }
+
+    private void moveKeys(RedisShards.Shard source, Set<String> scriptLoaded, ShardRebalanceReport report, Lease lease) {
+        Map<RedisShards.Shard, List<String>> misplaced = new LinkedHashMap<>();
+        int pending = 0;
+        ScanOptions options = ScanOptions.scanOptions().match("sensor:*").count(batchSize).build();
+        try (Cursor<String> keys = source.template().scan(options)) {
+            while (keys.hasNext() && lease.isHeld()) {
+                String key = keys.next();
+                Matcher matcher = SENSOR_KEY.matcher(key);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                RedisShards.Shard owner = redisShards.forSensor(matcher.group(1));
+                if (owner.index() == source.index()) {
+                    continue;
+                }
+                misplaced.computeIfAbsent(owner, shard -> new ArrayList<>()).add(key);
+                if (++pending == batchSize) {
+                    moveBatch(source, misplaced, scriptLoaded, report);
+                    misplaced.clear();
+                    pending = 0;
+                }
+            }
+        }
+        moveBatch(source, misplaced, scriptLoaded, report);
+    }
+
+    private void moveBatch(RedisShards.Shard source, Map<RedisShards.Shard, List<String>> keysByOwner,
+                           Set<String> scriptLoaded, ShardRebalanceReport report) {
+        keysByOwner.forEach((owner, keys) -> {
+            List<Object> dumps = source.template().execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (String key : keys) {
+                    connection.keyCommands().dump(bytes(key));
+                    connection.keyCommands().pTtl(bytes(key));
+                }
+                return connection.closePipeline();
+            });
+            List<String> moved = new ArrayList<>(keys.size());
+            List<byte[][]> restores = new ArrayList<>(keys.size());
+            for (int i = 0; dumps != null && i < keys.size(); i++) {
+                byte[] payload = (byte[]) dumps.get(2 * i);
+                Long ttl = (Long) dumps.get(2 * i + 1);
+                if (payload == null || ttl == null || ttl == -2) {
+                    continue; // expired or deleted since the scan
+                }
+                String key = keys.get(i);
+                moved.add(key);
+                restores.add(new byte[][]{bytes(key), bytes(key + SCRATCH_KEY_SUFFIX), bytes(JOURNAL_KEY), payload,
+                        bytes(Long.toString(Math.max(ttl, 0))), bytes(source.name())});
+            }
+            if (moved.isEmpty()) {
+                return;
+            }
+
+            if (scriptLoaded.add(owner.name())) {
+                owner.template().execute((RedisCallback<String>) connection ->
+                        connection.scriptingCommands().scriptLoad(bytes(restoreScript.getScriptAsString())));
+            }
+            byte[] sha = bytes(restoreScript.getSha1());
+            List<Object> results = owner.template().execute((RedisCallback<List<Object>>) connection -> {
+                connection.openPipeline();
+                for (byte[][] keysAndArgs : restores) {
+                    connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 3, keysAndArgs);
+                }
+                return connection.closePipeline();
+            });
+            byte[][] movedKeys = moved.stream().map(ShardRebalancer::bytes).toArray(byte[][]::new);
+            source.template().execute((RedisCallback<Long>) connection -> connection.keyCommands().del(movedKeys));
+            owner.template().execute((RedisCallback<Long>) connection -> connection.hashCommands().hDel(bytes(JOURNAL_KEY), movedKeys));
+
+            report.setKeysMoved(report.getKeysMoved() + moved.size());
+            if (results != null) {
+                report.setKeysMerged(report.getKeysMerged()
+                        + results.stream().filter(result -> result instanceof Long code && code == MERGED).count());
+            }
+            saveStatus(report);
+        });
+    }
+
+    private void moveIndexEntries(RedisShards.Shard source, ShardRebalanceReport report, Lease lease) {
+        Map<RedisShards.Shard, List<Object>> misplaced = new LinkedHashMap<>();
+        int pending = 0;
+        ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+        try (Cursor<Object> members = source.template().opsForSet().scan(SensorIndex.ALL_SENSORS_KEY, options)) {
+            while (members.hasNext() && lease.isHeld()) {
+                Object sensorId = members.next();
+                RedisShards.Shard owner = redisShards.forSensor(String.valueOf(sensorId));
+                if (owner.index() == source.index()) {
+                    continue;
+                }
+                misplaced.computeIfAbsent(owner, shard -> new ArrayList<>()).add(sensorId);
+                if (++pending == batchSize) {
+                    moveIndexBatch(source, misplaced, report);
+                    misplaced.clear();
+                    pending = 0;
+                }
+            }
+        }
+        moveIndexBatch(source, misplaced, report);
+    }
+
+    private void moveIndexBatch(RedisShards.Shard source, Map<RedisShards.Shard, List<Object>> sensorIdsByOwner,
+                                ShardRebalanceReport report) {
+        sensorIdsByOwner.forEach((owner, sensorIds) -> {
+            Object[] members = sensorIds.toArray();
+            owner.template().opsForSet().add(SensorIndex.ALL_SENSORS_KEY, members);
+            source.template().opsForSet().remove(SensorIndex.ALL_SENSORS_KEY, members);
+            report.setSensorsMoved(report.getSensorsMoved() + members.length);
+        });
+        if (!sensorIdsByOwner.isEmpty()) {
+            saveStatus(report);
+        }
+    }
+
+    private void saveStatus(ShardRebalanceReport report) {
+        redisTemplate.opsForValue().set(STATUS_KEY, report);
+    }
+
+    private boolean acquireLock() {
+        Boolean acquired = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                .set(bytes(LOCK_KEY), bytes(nodeId), Expiration.from(lockTtl), RedisStringCommands.SetOption.ifAbsent()));
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    private void releaseLock() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.scriptingCommands()
+                    .eval(bytes(RELEASE_SCRIPT), ReturnType.INTEGER, 1, bytes(LOCK_KEY), bytes(nodeId)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release the rebalance lock, it expires after {}: {}", lockTtl, e.getMessage());
+        }
+    }
+
+    private boolean renewLock() {
+        try {
+            Long renewed = redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                    .eval(bytes(RENEW_SCRIPT), ReturnType.INTEGER, 1, bytes(LOCK_KEY), bytes(nodeId),
+                            bytes(Long.toString(lockTtl.toMillis()))));
+            return renewed != null && renewed == 1;
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew the rebalance lock: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-rebalance-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The lock held by the current run, renewed when a third of its TTL has passed since the last renewal.
+     */
+    private final class Lease {
+
+        private long renewAt = System.nanoTime() + lockTtl.toNanos() / 3;
+        private boolean held = true;
+
+        boolean isHeld() {
+            if (held && System.nanoTime() - renewAt >= 0) {
+                held = renewLock();
+                renewAt = System.nanoTime() + lockTtl.toNanos() / 3;
+            }
+            return held;
+        }
+    }
+}
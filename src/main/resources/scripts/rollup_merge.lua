@@ -0,0 +1,23 @@
+-- Merges partial rollup statistics into one bucket hash.
+-- KEYS[1] = bucket hash, KEYS[2] = bucket index (ZSET)
+-- ARGV[1] = bucket start (epoch millis), ARGV[2] = TTL in seconds,
+-- followed by groups of (reading name, count, sum, min, max)
+for i = 3, #ARGV, 5 do
+    local name = ARGV[i]
+    redis.call('HINCRBY', KEYS[1], name .. '|count', ARGV[i + 1])
+    redis.call('HINCRBYFLOAT', KEYS[1], name .. '|sum', ARGV[i + 2])
+    local min = redis.call('HGET', KEYS[1], name .. '|min')
+    if (not min) or tonumber(ARGV[i + 3]) < tonumber(min) then
+        redis.call('HSET', KEYS[1], name .. '|min', ARGV[i + 3])
+    end
+    local max = redis.call('HGET', KEYS[1], name .. '|max')
+    if (not max) or tonumber(ARGV[i + 4]) > tonumber(max) then
+        redis.call('HSET', KEYS[1], name .. '|max', ARGV[i + 4])
+    end
+end
+redis.call('ZADD', KEYS[2], ARGV[1], ARGV[1])
+-- Drop index entries of buckets that have outlived the TTL, counted from this bucket's start
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. (tonumber(ARGV[1]) - tonumber(ARGV[2]) * 1000))
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+redis.call('EXPIRE', KEYS[2], ARGV[2])
+return 1
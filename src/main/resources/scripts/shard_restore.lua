@@ -0,0 +1,57 @@
+-- Restores one key moved from another shard during a rebalance. Readings may already have been written to the new
+-- shard since the ring changed, so an existing key is merged rather than replaced.
+-- The move is recorded in a journal hash (field = key, value = source shard and payload digest) that the rebalancer
+-- clears once the key is deleted on the source; a move retried after a failure in between is skipped, so merged
+-- counters are not added twice.
+-- KEYS[1] = key, KEYS[2] = scratch key, KEYS[3] = journal
+-- ARGV[1] = DUMP payload from the old shard, ARGV[2] = remaining TTL in millis (0 for none), ARGV[3] = source shard
+-- Returns 1 when the key was restored, 2 when it was merged into an existing key, 3 when it had already been moved.
+local mark = ARGV[3] .. '|' .. redis.sha1hex(ARGV[1])
+if redis.call('HGET', KEYS[3], KEYS[1]) == mark then
+    return 3
+end
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    redis.call('RESTORE', KEYS[1], ARGV[2], ARGV[1])
+    redis.call('HSET', KEYS[3], KEYS[1], mark)
+    return 1
+end
+redis.call('RESTORE', KEYS[2], 0, ARGV[1], 'REPLACE')
+local kind = redis.call('TYPE', KEYS[1]).ok
+local ttl = redis.call('PTTL', KEYS[1])
+local moved = tonumber(ARGV[2])
+if kind == 'zset' then
+    -- Readings, chunk and rollup indexes: members are unique, so the union keeps both sides.
+    redis.call('ZUNIONSTORE', KEYS[1], 2, KEYS[1], KEYS[2], 'AGGREGATE', 'MAX')
+elseif kind == 'hash' then
+    -- Rollup buckets: counts and sums add up, minima and maxima combine.
+    local fields = redis.call('HGETALL', KEYS[2])
+    for i = 1, #fields, 2 do
+        local field, value = fields[i], fields[i + 1]
+        local stat = string.match(field, '|(%a+)$')
+        if stat == 'count' then
+            redis.call('HINCRBY', KEYS[1], field, value)
+        elseif stat == 'sum' then
+            redis.call('HINCRBYFLOAT', KEYS[1], field, value)
+        elseif stat == 'min' or stat == 'max' then
+            local current = tonumber(redis.call('HGET', KEYS[1], field))
+            local other = tonumber(value)
+            if (not current) or (stat == 'min' and other < current) or (stat == 'max' and other > current) then
+                redis.call('HSET', KEYS[1], field, value)
+            end
+        else
+            redis.call('HSETNX', KEYS[1], field, value)
+        end
+    end
+end
+if kind == 'zset' or kind == 'hash' then
+    -- The merged key expires only when both sides would have; PTTL is -1 for a key without an expiry.
+    if ttl > 0 and moved > 0 then
+        redis.call('PEXPIRE', KEYS[1], math.max(ttl, moved))
+    else
+        redis.call('PERSIST', KEYS[1])
+    end
+end
+-- Sealed chunks (strings) have unique names, so an existing one already holds the same points.
+redis.call('DEL', KEYS[2])
+redis.call('HSET', KEYS[3], KEYS[1], mark)
+return 2
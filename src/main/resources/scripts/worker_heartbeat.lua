@@ -0,0 +1,61 @@
+-- Records one worker heartbeat atomically.
+-- KEYS[1] = worker hash, KEYS[2] = liveness ZSET
+-- ARGV[1] = now (epoch millis), ARGV[2] = processed count, ARGV[3] = samples to keep,
+-- ARGV[4] = EWMA time constant in millis, ARGV[5] = '1' to return the updated hash, ARGV[6] = worker ID
+-- Returns 0 for an unknown worker, otherwise 1 or the HGETALL of the worker.
+if redis.call('TYPE', KEYS[1]).ok ~= 'hash' then
+    return 0
+end
+local now = tonumber(ARGV[1])
+local count = tonumber(ARGV[2])
+local fields = redis.call('HMGET', KEYS[1], 'heartbeat_samples', 'processing_rate_ewma')
+
+local samples = {}
+if fields[1] then
+    for ts, processed in string.gmatch(fields[1], '(%d+):(%d+)') do
+        samples[#samples + 1] = { tonumber(ts), tonumber(processed) }
+    end
+end
+local ewma = tonumber(fields[2]) or 0
+local rate
+local previous = samples[#samples]
+if previous and count < previous[2] then
+    -- The worker restarted: start the samples over.
+    samples = {}
+    previous = nil
+    rate = 0
+    ewma = 0
+end
+if previous and now > previous[1] then
+    local elapsed = now - previous[1]
+    rate = (count - previous[2]) * 1000 / elapsed
+    if #samples == 1 then
+        ewma = rate
+    else
+        local alpha = 1 - math.exp(-elapsed / tonumber(ARGV[4]))
+        ewma = alpha * rate + (1 - alpha) * ewma
+    end
+end
+samples[#samples + 1] = { now, count }
+while #samples > tonumber(ARGV[3]) do
+    table.remove(samples, 1)
+end
+
+local encoded = {}
+for i, sample in ipairs(samples) do
+    encoded[i] = string.format('%d:%d', sample[1], sample[2])
+end
+local update = { 'status', 'active', 'last_heartbeat', ARGV[1], 'processed_count', ARGV[2],
+                 'heartbeat_samples', table.concat(encoded, ',') }
+if rate then
+    update[#update + 1] = 'processing_rate'
+    update[#update + 1] = string.format('%.17g', rate)
+    update[#update + 1] = 'processing_rate_ewma'
+    update[#update + 1] = string.format('%.17g', ewma)
+end
+redis.call('HSET', KEYS[1], unpack(update))
+redis.call('ZADD', KEYS[2], ARGV[1], ARGV[6])
+if ARGV[5] == '1' then
+    return redis.call('HGETALL', KEYS[1])
+end
+return 1
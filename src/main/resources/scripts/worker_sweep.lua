@@ -0,0 +1,19 @@
+-- Expires one worker whose heartbeats lapsed, re-checking its liveness score so a heartbeat that arrived
+-- after the caller selected it wins.
+-- KEYS[1] = worker hash, KEYS[2] = liveness ZSET
+-- ARGV[1] = worker ID, ARGV[2] = dead cutoff, ARGV[3] = stale cutoff (epoch millis)
+-- Returns 2 if the worker was removed as dead, 1 if it was marked stale, 0 otherwise.
+local score = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1]))
+if not score then
+    return 0
+end
+if score <= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1])
+    redis.call('ZREM', KEYS[2], ARGV[1])
+    return 2
+end
+if score <= tonumber(ARGV[3]) and redis.call('HGET', KEYS[1], 'status') == 'active' then
+    redis.call('HSET', KEYS[1], 'status', 'stale')
+    return 1
+end
+return 0
@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.RedisConfig;
+import org.example.service.*;
+import org.example.sharding.RedisShards;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * The application's services wired against {@link InMemoryRedis}, with {@code application.properties} plus the
+ * given overrides. Scheduling is off, so flushes only run when a benchmark calls them, and the pub/sub listener
+ * container never subscribes.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private final InMemoryRedis redis = new InMemoryRedis();
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    BenchmarkContext(Map<String, Object> properties) {
+        try {
+            context.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        context.registerBean("redisConnectionFactory", RedisConnectionFactory.class, () -> redis);
+        context.registerBean(ObjectMapper.class, () -> objectMapper);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(LocalValidatorFactoryBean.class);
+        // Registered before RedisConfig is processed, so it takes the place of the subscribing container.
+        context.registerBean("redisMessageListenerContainer", RedisMessageListenerContainer.class, IdleListenerContainer::new);
+        context.register(RedisConfig.class, RedisShards.class, SensorSchemaRegistry.class, SensorDataValidator.class, ThroughputMonitor.class, SensorIndex.class, RollupService.class,
+                LatestReadingCache.class, ChunkedSensorStore.class, SegmentArchive.class, IngestionStreamQueue.class,
+                SensorService.class, WorkerService.class);
+        context.refresh();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    InMemoryRedis redis() {
+        return redis;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static final class IdleListenerContainer extends RedisMessageListenerContainer {
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void afterPropertiesSet() {
+        }
+    }
+}
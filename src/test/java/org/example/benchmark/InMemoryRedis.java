@@ -0,0 +1,410 @@
+package org.example.benchmark;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.*;
+import org.springframework.data.redis.connection.zset.Tuple;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * In-JVM stand-in for Redis used by the benchmarks. Connections are dynamic proxies of {@link RedisConnection}
+ * that answer the commands of the benchmarked paths (strings, sets, hashes, sorted sets, pipelining) from
+ * in-memory maps, so a suite measures the application's own work: serialization, conversion and bookkeeping,
+ * without a network round trip. Commands it does not know, including scripting, fail with
+ * {@link InvalidDataAccessApiUsageException}. All commands run under one lock, as they would on Redis.
+ */
+final class InMemoryRedis implements RedisConnectionFactory {
+
+    private final Map<String, Object> keyspace = new HashMap<>();
+    // Like Lettuce's shared connection, one connection per thread is reused instead of opening one per command.
+    private final ThreadLocal<RedisConnection> connections = ThreadLocal.withInitial(() ->
+            (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                    new Class<?>[]{RedisConnection.class}, new Connection()));
+
+    @Override
+    public RedisConnection getConnection() {
+        return connections.get();
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        throw new InvalidDataAccessApiUsageException("The in-memory stand-in is not a cluster");
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return true;
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new InvalidDataAccessApiUsageException("The in-memory stand-in has no sentinels");
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return ex instanceof DataAccessException dataAccessException ? dataAccessException : null;
+    }
+
+    /**
+     * Drops every key.
+     */
+    synchronized void flushAll() {
+        keyspace.clear();
+    }
+
+    synchronized int size() {
+        return keyspace.size();
+    }
+
+    private final class Connection implements InvocationHandler {
+
+        private List<Object> pipeline;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "openPipeline" -> {
+                    if (pipeline == null) {
+                        pipeline = new ArrayList<>();
+                    }
+                    return null;
+                }
+                case "closePipeline" -> {
+                    List<Object> results = pipeline == null ? List.of() : pipeline;
+                    pipeline = null;
+                    return results;
+                }
+                case "isPipelined" -> {
+                    return pipeline != null;
+                }
+                case "isQueueing" -> {
+                    return false;
+                }
+                case "close" -> {
+                    return null;
+                }
+                case "isClosed" -> {
+                    return false;
+                }
+                case "getNativeConnection" -> {
+                    return this;
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "InMemoryRedisConnection";
+                }
+                default -> {
+                    if (name.endsWith("Commands") && method.getParameterCount() == 0) {
+                        // RedisConnection implements every command interface itself.
+                        return proxy;
+                    }
+                }
+            }
+
+            Object result;
+            synchronized (InMemoryRedis.this) {
+                result = execute(name, args == null ? new Object[0] : args);
+            }
+            if (pipeline != null) {
+                pipeline.add(result);
+                return null;
+            }
+            return result;
+        }
+    }
+
+    private Object execute(String command, Object[] args) {
+        return switch (command) {
+            case "ping" -> "PONG";
+            case "select" -> null;
+            case "exists" -> exists(args);
+            case "type" -> type(key(args[0]));
+            case "del" -> del((byte[][]) args[0]);
+            case "expire", "pExpire" -> keyspace.containsKey(key(args[0]));
+            case "get" -> keyspace.get(key(args[0])) instanceof byte[] value ? value : null;
+            case "set" -> {
+                keyspace.put(key(args[0]), args[1]);
+                yield Boolean.TRUE;
+            }
+            case "mGet" -> mGet((byte[][]) args[0]);
+            case "incrBy" -> incrBy(key(args[0]), ((Number) args[1]).longValue());
+            case "incr" -> incrBy(key(args[0]), 1);
+            case "sAdd" -> sAdd(key(args[0]), (byte[][]) args[1]);
+            case "sRem" -> sRem(key(args[0]), (byte[][]) args[1]);
+            case "sMembers" -> sMembers(key(args[0]));
+            case "sCard" -> (long) set(key(args[0]), false).size();
+            case "sIsMember" -> set(key(args[0]), false).contains(member((byte[]) args[1]));
+            case "hSet" -> hash(key(args[0]), true).put(member((byte[]) args[1]), (byte[]) args[2]) == null;
+            case "hMSet" -> {
+                Map<String, byte[]> hash = hash(key(args[0]), true);
+                ((Map<?, ?>) args[1]).forEach((field, value) -> hash.put(member((byte[]) field), (byte[]) value));
+                yield null;
+            }
+            case "hSetNX" -> hash(key(args[0]), true).putIfAbsent(member((byte[]) args[1]), (byte[]) args[2]) == null;
+            case "hDel" -> hDel(key(args[0]), (byte[][]) args[1]);
+            case "hGet" -> hash(key(args[0]), false).get(member((byte[]) args[1]));
+            case "hVals" -> new ArrayList<>(hash(key(args[0]), false).values());
+            case "hGetAll" -> hGetAll(key(args[0]));
+            case "zAdd" -> zAdd(key(args[0]), args);
+            case "zRem" -> zRem(key(args[0]), (byte[][]) args[1]);
+            case "zCard" -> (long) sortedSet(key(args[0]), false).scores.size();
+            case "zCount" -> zCount(key(args[0]), args);
+            case "zRangeByScore" -> zRangeByScore(key(args[0]), args);
+            default -> throw new InvalidDataAccessApiUsageException(
+                    "The in-memory Redis stand-in does not support " + command);
+        };
+    }
+
+    private long exists(Object[] args) {
+        if (args[0] instanceof byte[] key) {
+            return keyspace.containsKey(key(key)) ? 1 : 0;
+        }
+        long count = 0;
+        for (byte[] key : (byte[][]) args[0]) {
+            if (keyspace.containsKey(key(key))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private DataType type(String key) {
+        Object value = keyspace.get(key);
+        if (value == null) {
+            return DataType.NONE;
+        }
+        if (value instanceof byte[]) {
+            return DataType.STRING;
+        }
+        if (value instanceof ZSet) {
+            return DataType.ZSET;
+        }
+        if (value instanceof Set) {
+            return DataType.SET;
+        }
+        return DataType.HASH;
+    }
+
+    private long del(byte[][] keys) {
+        long removed = 0;
+        for (byte[] key : keys) {
+            if (keyspace.remove(key(key)) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private List<byte[]> mGet(byte[][] keys) {
+        List<byte[]> values = new ArrayList<>(keys.length);
+        for (byte[] key : keys) {
+            values.add(keyspace.get(key(key)) instanceof byte[] value ? value : null);
+        }
+        return values;
+    }
+
+    private long incrBy(String key, long delta) {
+        Object current = keyspace.get(key);
+        long value = (current instanceof byte[] bytes ? Long.parseLong(new String(bytes, StandardCharsets.US_ASCII)) : 0) + delta;
+        keyspace.put(key, Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        return value;
+    }
+
+    private long sAdd(String key, byte[][] values) {
+        Set<String> set = set(key, true);
+        long added = 0;
+        for (byte[] value : values) {
+            if (set.add(member(value))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private long sRem(String key, byte[][] values) {
+        Set<String> set = set(key, false);
+        long removed = 0;
+        for (byte[] value : values) {
+            if (set.remove(member(value))) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Set<byte[]> sMembers(String key) {
+        Set<byte[]> members = new LinkedHashSet<>();
+        for (String member : set(key, false)) {
+            members.add(bytes(member));
+        }
+        return members;
+    }
+
+    private long hDel(String key, byte[][] fields) {
+        Map<String, byte[]> hash = hash(key, false);
+        if (hash.isEmpty()) {
+            return 0;
+        }
+        long removed = 0;
+        for (byte[] field : fields) {
+            if (hash.remove(member(field)) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private Map<byte[], byte[]> hGetAll(String key) {
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        hash(key, false).forEach((field, value) -> entries.put(bytes(field), value));
+        return entries;
+    }
+
+    private Object zAdd(String key, Object[] args) {
+        ZSet set = sortedSet(key, true);
+        if (args[1] instanceof Set<?> tuples) {
+            long added = 0;
+            for (Object tuple : tuples) {
+                if (set.add(((Tuple) tuple).getScore(), member(((Tuple) tuple).getValue()))) {
+                    added++;
+                }
+            }
+            return added;
+        }
+        return set.add((Double) args[1], member((byte[]) args[2]));
+    }
+
+    private long zRem(String key, byte[][] values) {
+        ZSet set = sortedSet(key, false);
+        long removed = 0;
+        for (byte[] value : values) {
+            if (set.remove(member(value))) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private long zCount(String key, Object[] args) {
+        return scoreRange(sortedSet(key, false), args).size();
+    }
+
+    private Set<byte[]> zRangeByScore(String key, Object[] args) {
+        List<ScoredMember> matches = scoreRange(sortedSet(key, false), args);
+        int offset = 0;
+        int count = matches.size();
+        Object last = args[args.length - 1];
+        if (last instanceof org.springframework.data.redis.connection.Limit limit && limit.isLimited()) {
+            offset = limit.getOffset();
+            count = limit.getCount();
+        } else if (args.length == 6) {
+            offset = ((Number) args[3]).intValue();
+            count = ((Number) args[4]).intValue();
+        }
+        Set<byte[]> members = new LinkedHashSet<>();
+        for (int i = offset; i < matches.size() && members.size() < count; i++) {
+            members.add(bytes(matches.get(i).member()));
+        }
+        return members;
+    }
+
+    private static List<ScoredMember> scoreRange(ZSet set, Object[] args) {
+        double min;
+        double max;
+        boolean minInclusive = true;
+        boolean maxInclusive = true;
+        if (args[1] instanceof Range<?> range) {
+            min = bound(range.getLowerBound(), Double.NEGATIVE_INFINITY);
+            max = bound(range.getUpperBound(), Double.POSITIVE_INFINITY);
+            minInclusive = range.getLowerBound().isInclusive();
+            maxInclusive = range.getUpperBound().isInclusive();
+        } else {
+            min = ((Number) args[1]).doubleValue();
+            max = ((Number) args[2]).doubleValue();
+        }
+        List<ScoredMember> matches = new ArrayList<>();
+        for (ScoredMember entry : set.ordered.tailSet(new ScoredMember(min, ""))) {
+            if (entry.score() > max || (!maxInclusive && entry.score() == max)) {
+                break;
+            }
+            if (minInclusive || entry.score() > min) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    private static double bound(Range.Bound<?> bound, double unbounded) {
+        return bound.getValue().map(value -> ((Number) value).doubleValue()).orElse(unbounded);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> set(String key, boolean create) {
+        Object value = create ? keyspace.computeIfAbsent(key, k -> new LinkedHashSet<String>()) : keyspace.get(key);
+        return value == null ? Set.of() : (Set<String>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hash(String key, boolean create) {
+        Object value = create ? keyspace.computeIfAbsent(key, k -> new LinkedHashMap<String, byte[]>()) : keyspace.get(key);
+        return value == null ? Map.of() : (Map<String, byte[]>) value;
+    }
+
+    private ZSet sortedSet(String key, boolean create) {
+        Object value = create ? keyspace.computeIfAbsent(key, k -> new ZSet()) : keyspace.get(key);
+        return value == null ? new ZSet() : (ZSet) value;
+    }
+
+    // Keys and members are held as ISO-8859-1 strings: one char per byte, so any byte[] round-trips.
+    private static String key(Object key) {
+        return member((byte[]) key);
+    }
+
+    private static String member(byte[] value) {
+        return new String(value, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(String member) {
+        return member.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class ZSet {
+        private final TreeSet<ScoredMember> ordered = new TreeSet<>();
+        private final Map<String, Double> scores = new HashMap<>();
+
+        boolean add(double score, String member) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                ordered.remove(new ScoredMember(previous, member));
+            }
+            ordered.add(new ScoredMember(score, member));
+            return previous == null;
+        }
+
+        boolean remove(String member) {
+            Double previous = scores.remove(member);
+            return previous != null && ordered.remove(new ScoredMember(previous, member));
+        }
+    }
+
+    private record ScoredMember(double score, String member) implements Comparable<ScoredMember> {
+        @Override
+        public int compareTo(ScoredMember other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : member.compareTo(other.member);
+        }
+    }
+}
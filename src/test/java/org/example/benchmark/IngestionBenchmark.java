@@ -0,0 +1,101 @@
+package org.example.benchmark;
+
+import org.example.model.SensorData;
+import org.example.service.SensorService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SensorService#ingestData} and {@link SensorService#ingestBatch} against {@link InMemoryRedis}: template
+ * and serializer work, the sensor index, rollup accumulation, the latest-reading cache and throughput counting.
+ * Readings rotate over {@code sensorCount} sensors; every operation stores a new member. Reported per reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestionBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"4", "16"})
+    private int readingCount;
+
+    @Param({"32", "512"})
+    private int payloadBytes;
+
+    @Param({"100", "100000"})
+    private int sensorCount;
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    private BenchmarkContext context;
+    private SensorService sensorService;
+    private SensorData[] readings;
+    private Instant start;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(Map.of(
+                "redis.sensor-data.encoding", encoding,
+                "redis.sensor-data.dictionary", String.join(",", SensorReadings.names(readingCount))));
+        sensorService = context.bean(SensorService.class);
+        readings = new SensorData[Math.min(sensorCount, 4096)];
+        start = Instant.parse("2026-10-18T00:00:00Z");
+        for (int i = 0; i < readings.length; i++) {
+            readings[i] = SensorReadings.reading(SensorReadings.sensorId(i), start, readingCount, payloadBytes);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        // Keep the stand-in from growing across iterations; the first write of each sensor pays for its key again.
+        context.redis().flushAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void ingestData() {
+        sensorService.ingestData(next());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object ingestBatch() {
+        List<SensorData> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(next());
+        }
+        return sensorService.ingestBatch(batch);
+    }
+
+    private SensorData next() {
+        long n = sequence++;
+        SensorData template = readings[(int) (n % readings.length)];
+        String sensorId = sensorCount <= readings.length ? template.getSensorId() : SensorReadings.sensorId((int) (n % sensorCount));
+        return new SensorData(sensorId, start.plusMillis(n), template.getReadings(), template.getMetadata());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IngestionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
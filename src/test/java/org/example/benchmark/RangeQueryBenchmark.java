@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import org.example.model.SensorData;
+import org.example.service.SensorService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SensorService#getReadingsInRange} against {@link InMemoryRedis}: ZRANGEBYSCORE, value deserialization
+ * and the {@code convertValue} of each member into {@link SensorData}. One sensor holds {@code rangeSize}
+ * readings, all of them returned; reported per query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeQueryBenchmark {
+
+    @Param({"4", "16"})
+    private int readingCount;
+
+    @Param({"32", "512"})
+    private int payloadBytes;
+
+    @Param({"100", "10000"})
+    private int rangeSize;
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    private BenchmarkContext context;
+    private SensorService sensorService;
+    private Instant start;
+    private Instant end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(Map.of(
+                "redis.sensor-data.encoding", encoding,
+                "redis.sensor-data.dictionary", String.join(",", SensorReadings.names(readingCount))));
+        sensorService = context.bean(SensorService.class);
+        start = Instant.parse("2026-10-18T00:00:00Z");
+        List<SensorData> batch = new ArrayList<>(rangeSize);
+        for (int i = 0; i < rangeSize; i++) {
+            batch.add(SensorReadings.reading("sensor-000001", start.plusSeconds(i), readingCount, payloadBytes));
+        }
+        sensorService.storeBatch(batch);
+        end = start.plusSeconds(rangeSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SensorData> getReadingsInRange() {
+        return sensorService.getReadingsInRange("sensor-000001", start, end);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RangeQueryBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.benchmark;
+
+import org.example.scaling.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one scaling decision per policy, with the settings from {@code application.properties}.
+ * {@code targetWorkers} is the primitive decision the what-if endpoint loops over and should stay at 0 B/op
+ * under {@code -prof gc}; {@code evaluate} is the full engine path with forecasting, cooldowns and the reason text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingDecisionBenchmark {
+
+    private static final int THROUGHPUTS = 1024;
+    private static final double WORKER_CAPACITY = 1500;
+
+    @Param({"threshold", "ewma", "holt-winters"})
+    private String policyName;
+
+    private ScalingEngine engine;
+    private double[] throughputs;
+    private double[] history;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ScalingPolicy policy = switch (policyName) {
+            case "threshold" -> new ThresholdPolicy(1000);
+            case "ewma" -> new ForecastPolicy("ewma", new EwmaForecaster(0.3), 30, 0.7, 0.1, 0.2);
+            default -> new ForecastPolicy("holt-winters", new HoltWintersForecaster(0.2, 0.01, 0.1, 300), 30, 0.7, 0.1, 0.2);
+        };
+        engine = new ScalingEngine(policy, 1, 10, Duration.ofSeconds(30), Duration.ofMinutes(5), 2);
+
+        SplittableRandom random = new SplittableRandom(42);
+        throughputs = new double[THROUGHPUTS];
+        for (int i = 0; i < throughputs.length; i++) {
+            throughputs[i] = random.nextDouble(0, 20_000);
+        }
+        history = new double[600];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = 6000 + 3000 * Math.sin(2 * Math.PI * i / 300) + random.nextDouble(-500, 500);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(THROUGHPUTS)
+    public int targetWorkers() {
+        int sum = 0;
+        for (double throughput : throughputs) {
+            sum += engine.targetWorkers(throughput, 5, WORKER_CAPACITY);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ScalingEngine.Decision evaluate() {
+        now += 1000;
+        return engine.evaluate(now, new ScalingContext(history, 5, WORKER_CAPACITY, 0, 0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScalingDecisionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.benchmark;
+
+import org.example.model.SensorData;
+import org.example.serializer.SensorDataCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON value serializer configured in {@code RedisConfig} with the binary {@link SensorDataCodec}.
+ * Both are the template's value serializer as {@code RedisConfig} builds it, for
+ * {@code redis.sensor-data.encoding=json} and {@code binary}. Bytes per point are printed once per trial;
+ * encode/decode cost is reported in ns per point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SensorDataSerializerBenchmark {
+
+    @Param({"4", "16"})
+    private int readingCount;
+
+    @Param({"32", "512"})
+    private int payloadBytes;
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> binary;
+    private SensorData point;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        point = SensorReadings.reading("sensor-000042", Instant.parse("2026-10-18T12:34:56.789Z"), readingCount, payloadBytes);
+        json = valueSerializer("json");
+        binary = valueSerializer("binary");
+
+        jsonBytes = json.serialize(point);
+        binaryBytes = binary.serialize(point);
+        System.out.printf("%nreadings=%d payload=%d bytes/point: json=%d binary=%d%n",
+                readingCount, payloadBytes, jsonBytes.length, binaryBytes.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<Object> valueSerializer(String encoding) {
+        try (BenchmarkContext context = new BenchmarkContext(Map.of(
+                "redis.sensor-data.encoding", encoding,
+                "redis.sensor-data.dictionary", String.join(",", SensorReadings.names(readingCount))))) {
+            return (RedisSerializer<Object>) context.bean(RedisTemplate.class).getValueSerializer();
+        }
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.serialize(point);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binary.serialize(point);
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SensorDataSerializerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.benchmark;
+
+import org.example.model.SensorData;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic readings shared by the benchmarks: {@code readingCount} readings named {@code reading_0..n} plus
+ * a {@code location} and a {@code firmware} metadata entry, the location padded to {@code payloadBytes}.
+ */
+final class SensorReadings {
+
+    private SensorReadings() {
+    }
+
+    static SensorData reading(String sensorId, Instant timestamp, int readingCount, int payloadBytes) {
+        Map<String, Double> readings = new LinkedHashMap<>();
+        for (int i = 0; i < readingCount; i++) {
+            readings.put("reading_" + i, 20.0 + i * 0.37);
+        }
+        Map<String, String> metadata = new LinkedHashMap<>();
+        StringBuilder location = new StringBuilder("building-7/floor-3");
+        while (location.length() < payloadBytes) {
+            location.append("/rack-").append(location.length());
+        }
+        metadata.put("location", location.substring(0, Math.max(payloadBytes, 1)));
+        metadata.put("firmware", "2.4.1");
+        return new SensorData(sensorId, timestamp, readings, metadata);
+    }
+
+    /**
+     * The same readings as {@link #reading} for a schema registered with {@link #readingNames} and {@link #metadata}.
+     */
+    static SensorData schemaReading(String sensorId, Instant timestamp, int schemaId, int readingCount) {
+        double[] values = new double[readingCount];
+        for (int i = 0; i < readingCount; i++) {
+            values[i] = 20.0 + i * 0.37;
+        }
+        return new SensorData(sensorId, timestamp, null, null, schemaId, values);
+    }
+
+    static List<String> readingNames(int readingCount) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < readingCount; i++) {
+            names.add("reading_" + i);
+        }
+        return names;
+    }
+
+    static Map<String, String> metadata(int payloadBytes) {
+        return reading("", null, 0, payloadBytes).getMetadata();
+    }
+
+    /**
+     * The reading and metadata names, for the binary encoding's dictionary.
+     */
+    static List<String> names(int readingCount) {
+        List<String> names = readingNames(readingCount);
+        names.add("location");
+        names.add("firmware");
+        return names;
+    }
+
+    static String sensorId(int index) {
+        return String.format("sensor-%06d", index);
+    }
+}
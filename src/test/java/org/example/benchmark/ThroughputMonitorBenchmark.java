@@ -0,0 +1,67 @@
+package org.example.benchmark;
+
+import org.example.service.ThroughputMonitor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ThroughputMonitor}: the per-message {@code increment} uncontended and from four threads, the read
+ * served from the cluster snapshot, and the once-per-second {@code flush} against {@link InMemoryRedis}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThroughputMonitorBenchmark {
+
+    private BenchmarkContext context;
+    private ThroughputMonitor monitor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(Map.of());
+        monitor = context.bean(ThroughputMonitor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void increment() {
+        monitor.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incrementContended() {
+        monitor.increment();
+    }
+
+    @Benchmark
+    public long getCurrentThroughput() {
+        return monitor.getCurrentThroughput();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void flush() {
+        monitor.increment();
+        monitor.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThroughputMonitorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
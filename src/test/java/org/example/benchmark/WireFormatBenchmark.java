@@ -0,0 +1,156 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+import org.example.serializer.SensorDataCodec;
+import org.example.serializer.SensorDataReader;
+import org.example.service.SensorDataValidator;
+import org.example.service.SensorSchemaRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and validating one ingest body per format. {@code databind*} is the path before the streaming reader:
+ * {@code ObjectMapper.readValue} plus Bean Validation, as {@code @Valid @RequestBody} did. {@code streaming*} is
+ * {@link SensorDataReader} plus {@link SensorDataValidator}; {@code *Schema} is the same for a reading of a
+ * registered schema, sent as {@code schema_id} plus {@code values}. Body bytes and stored bytes per reading are
+ * printed once per trial; parse cost is reported in ns per reading and, with {@code -prof gc}, allocated bytes per
+ * reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"4", "16"})
+    private int readingCount;
+
+    @Param({"32"})
+    private int payloadBytes;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator beanValidator;
+    private BenchmarkContext context;
+    private SensorDataValidator validator;
+    private final SensorDataReader reader = new SensorDataReader();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final SmileFactory smileFactory = new SmileFactory();
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private byte[] smileBytes;
+    private byte[] schemaJsonBytes;
+    private byte[] schemaCborBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        jsonMapper = mapper(new JsonFactory());
+        cborMapper = mapper(new CBORFactory());
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = validatorFactory.getValidator();
+        context = new BenchmarkContext(Map.of());
+        validator = context.bean(SensorDataValidator.class);
+        SensorSchema schema = context.bean(SensorSchemaRegistry.class).register(new SensorSchema(null, "benchmark",
+                SensorReadings.readingNames(readingCount), SensorReadings.metadata(payloadBytes)));
+
+        Instant timestamp = Instant.parse("2026-10-18T12:34:56.789Z");
+        SensorData point = SensorReadings.reading("sensor-000042", timestamp, readingCount, payloadBytes);
+        SensorData schemaPoint = SensorReadings.schemaReading("sensor-000042", timestamp, schema.getSchemaId(), readingCount);
+        jsonBytes = jsonMapper.writeValueAsBytes(point);
+        cborBytes = cborMapper.writeValueAsBytes(point);
+        smileBytes = mapper(new SmileFactory()).writeValueAsBytes(point);
+        schemaJsonBytes = jsonMapper.writeValueAsBytes(schemaPoint);
+        schemaCborBytes = cborMapper.writeValueAsBytes(schemaPoint);
+        SensorDataCodec codec = context.bean(SensorDataCodec.class);
+        System.out.printf("%nreadings=%d payload=%d bytes/reading: json=%d cbor=%d smile=%d schema json=%d schema cbor=%d"
+                        + " stored binary=%d stored schema binary=%d%n",
+                readingCount, payloadBytes, jsonBytes.length, cborBytes.length, smileBytes.length,
+                schemaJsonBytes.length, schemaCborBytes.length, codec.encode(point).length, codec.encode(schemaPoint).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+        context.close();
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    @Benchmark
+    public Object databindJson() throws IOException {
+        SensorData data = jsonMapper.readValue(jsonBytes, SensorData.class);
+        return beanValidator.validate(data);
+    }
+
+    @Benchmark
+    public Object databindCbor() throws IOException {
+        SensorData data = cborMapper.readValue(cborBytes, SensorData.class);
+        return beanValidator.validate(data);
+    }
+
+    @Benchmark
+    public Object streamingJson() throws IOException {
+        return readAndValidate(jsonFactory, jsonBytes);
+    }
+
+    @Benchmark
+    public Object streamingCbor() throws IOException {
+        return readAndValidate(cborFactory, cborBytes);
+    }
+
+    @Benchmark
+    public Object streamingSmile() throws IOException {
+        return readAndValidate(smileFactory, smileBytes);
+    }
+
+    @Benchmark
+    public Object streamingJsonSchema() throws IOException {
+        return readAndValidate(jsonFactory, schemaJsonBytes);
+    }
+
+    @Benchmark
+    public Object streamingCborSchema() throws IOException {
+        return readAndValidate(cborFactory, schemaCborBytes);
+    }
+
+    private Object readAndValidate(JsonFactory factory, byte[] body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            SensorData data = reader.read(parser);
+            return validator.violations(data);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WireFormatBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Worker;
+import org.example.service.WorkerService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the worker registry against {@link InMemoryRedis}. {@code getAllWorkers} is the pipelined HGETALL and
+ * hash parsing; {@code convertValueWorkers} reads the same workers as JSON values through the template and
+ * {@code convertValue}, the path of the workers stored before the hash layout (still used to migrate them).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkerRegistryBenchmark {
+
+    @Param({"10", "1000"})
+    private int workerCount;
+
+    private BenchmarkContext context;
+    private WorkerService workerService;
+    private RedisTemplate<String, Object> redisTemplate;
+    private ObjectMapper objectMapper;
+    private List<String> jsonKeys;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new BenchmarkContext(Map.of());
+        workerService = context.bean(WorkerService.class);
+        redisTemplate = context.bean(RedisTemplate.class);
+        objectMapper = context.bean(ObjectMapper.class);
+        jsonKeys = new ArrayList<>(workerCount);
+        Instant now = Instant.parse("2026-10-18T12:00:00Z");
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker();
+            worker.setWorkerId(String.format("worker-%04d", i));
+            worker.setStatus("active");
+            worker.setRegisteredAt(now.minusSeconds(3600));
+            worker.setLastHeartbeat(now);
+            worker.setProcessedCount(1_000_000L + i);
+            worker.setProcessingRate(1450.5);
+            worker.setProcessingRateEwma(1432.25);
+            for (int sample = 0; sample < 8; sample++) {
+                worker.getHeartbeatSamples().add(new Worker.HeartbeatSample(now.toEpochMilli() - (8 - sample) * 5000L, 990_000L + sample * 1000L));
+            }
+            workerService.registerWorker(worker);
+            String jsonKey = "legacy:worker:" + worker.getWorkerId();
+            redisTemplate.opsForValue().set(jsonKey, worker);
+            jsonKeys.add(jsonKey);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Worker> getAllWorkers() {
+        return workerService.getAllWorkers();
+    }
+
+    @Benchmark
+    public List<Worker> convertValueWorkers() {
+        List<Object> values = redisTemplate.opsForValue().multiGet(jsonKeys);
+        List<Worker> workers = new ArrayList<>(values.size());
+        for (Object value : values) {
+            workers.add(objectMapper.convertValue(value, Worker.class));
+        }
+        return workers;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WorkerRegistryBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
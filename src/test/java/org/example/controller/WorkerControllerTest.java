@@ -0,0 +1,58 @@
+package org.example.controller;
+
+import org.example.model.Worker;
+import org.example.service.IngestionStreamQueue;
+import org.example.service.WorkerService;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkerControllerTest {
+
+    private static RedisTestContext context;
+    private static WorkerController controller;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of(), IngestionStreamQueue.class, WorkerService.class, WorkerController.class);
+        controller = context.bean(WorkerController.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void answersAMinimalHeartbeatWithNoContent() {
+        Worker worker = new Worker();
+        worker.setWorkerId("minimal");
+        worker.setStatus("active");
+        controller.registerWorker(worker);
+
+        ResponseEntity<Worker> minimal = controller.updateHealth("minimal", Map.of("processed_count", 5L), "return=minimal");
+        ResponseEntity<Worker> full = controller.updateHealth("minimal", Map.of("processed_count", 8L), null);
+
+        assertThat(minimal.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(minimal.getBody()).isNull();
+        assertThat(full.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(full.getBody().getProcessedCount()).isEqualTo(8);
+        assertThat(full.getBody().getHeartbeatSamples()).extracting(Worker.HeartbeatSample::getProcessedCount)
+                .containsExactly(5L, 8L);
+    }
+
+    @Test
+    void answersHeartbeatsOfUnknownWorkersWithNotFound() {
+        assertThat(controller.updateHealth("gone", Map.of("processed_count", 1L), "return=minimal").getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(controller.updateHealth("gone", Map.of("processed_count", 1L), null).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.UnixOperatingSystemMXBean;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares request handling modes under closed-loop load: every simulated connection keeps exactly one request
+ * outstanding and sends the next as soon as the response arrives, so the offered load is the concurrency itself and
+ * a mode that serves more requests at once shows it as throughput. The modes are
+ * <ul>
+ *     <li>{@code platform}: the blocking endpoints on Tomcat's platform thread pool
+ *     ({@code server.tomcat.threads.max}, 200 by default),</li>
+ *     <li>{@code virtual}: the same endpoints with {@code spring.threads.virtual.enabled=true} (Java 21),</li>
+ *     <li>{@code reactive}: the {@code /api/v1/reactive/sensors} endpoints on platform threads.</li>
+ * </ul>
+ * Each mode gets a fresh application (in this JVM, over HTTP on a random port) whose sensors are seeded with one
+ * reading each, then is driven at every concurrency level for a warmup and a measured period. Arguments are
+ * {@code key=value}:
+ * <ul>
+ *     <li>{@code concurrency}: comma-separated connection counts, {@code 1000,5000,10000} by default,</li>
+ *     <li>{@code modes}: comma-separated, {@code platform,virtual,reactive} by default; {@code virtual} is skipped
+ *     with a warning before Java 21,</li>
+ *     <li>{@code query}: {@code latest} (default) or {@code range} (the last ten minutes),</li>
+ *     <li>{@code duration}, {@code warmup}: per level, {@code 60s} and {@code 15s} by default,</li>
+ *     <li>{@code sensors}: how many sensors are seeded and queried, 1000 by default,</li>
+ *     <li>{@code out}, {@code redis}, {@code app.{property}}: as for {@link SoakHarness}.</li>
+ * </ul>
+ * Tomcat's connection limit and accept queue are raised to the highest concurrency for every mode, so only request
+ * handling differs. Client and server share the JVM and need about two file descriptors per connection. Prints the
+ * achieved requests per second and latency percentiles per mode and level, and writes them to
+ * {@code {out}/execution-modes-{yyyyMMdd-HHmmss}.json}.
+ */
+public final class ExecutionModeComparison {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String SENSOR_PREFIX = "modes-";
+    private static final int SEED_BATCH = 500;
+
+    private ExecutionModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = SoakHarness.parse(args);
+        List<Integer> levels = Arrays.stream(options.getOrDefault("concurrency", "1000,5000,10000").split(","))
+                .map(String::trim).map(Integer::parseInt).toList();
+        List<String> modes = new ArrayList<>(List.of(options.getOrDefault("modes", "platform,virtual,reactive").split(",")));
+        for (String mode : modes) {
+            if (!List.of("platform", "virtual", "reactive").contains(mode)) {
+                throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+        }
+        if (modes.contains("virtual") && Runtime.version().feature() < 21) {
+            SoakRun.log("WARNING: virtual threads need a Java 21 runtime, this is %s; skipping the virtual mode", Runtime.version());
+            modes.remove("virtual");
+        }
+        String query = options.getOrDefault("query", "latest");
+        if (!List.of("latest", "range").contains(query)) {
+            throw new IllegalArgumentException("Unknown query " + query);
+        }
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "15s"));
+        int sensors = Integer.parseInt(options.getOrDefault("sensors", "1000"));
+        int maxConcurrency = Collections.max(levels);
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean os
+                && os.getMaxFileDescriptorCount() < 2L * maxConcurrency + 1_000) {
+            SoakRun.log("WARNING: %d connections need about %d file descriptors, the limit is %d; raise it with ulimit -n",
+                    maxConcurrency, 2L * maxConcurrency + 1_000, os.getMaxFileDescriptorCount());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        RedisServer embeddedRedis = options.containsKey("redis") ? null : SoakHarness.startEmbeddedRedis();
+        try {
+            String redisNode = embeddedRedis != null ? "127.0.0.1:" + embeddedRedis.ports().get(0) : options.get("redis").split(",")[0];
+            for (String mode : modes) {
+                Map<String, String> properties = new LinkedHashMap<>();
+                properties.put("spring.threads.virtual.enabled", String.valueOf(mode.equals("virtual")));
+                properties.put("server.tomcat.max-connections", String.valueOf(maxConcurrency + 1_000));
+                properties.put("server.tomcat.accept-count", String.valueOf(maxConcurrency));
+                options.forEach((key, value) -> {
+                    if (key.startsWith("app.")) {
+                        properties.put(key.substring("app.".length()), value);
+                    }
+                });
+                ConfigurableApplicationContext application = SoakHarness.startApplication(redisNode, properties);
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build();
+                try {
+                    URI target = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/");
+                    seed(http, target, sensors);
+                    for (int connections : levels) {
+                        SoakRun.log("%s: %d connections, warming up for %ds", mode, connections, warmup.toSeconds());
+                        Map<String, Object> result = measure(http, target, mode, query, sensors, connections, warmup, duration);
+                        results.add(result);
+                        SoakRun.log("%s: %d connections, %.0f req/s, p99 %s ms, %d errors", mode, connections,
+                                result.get("throughput_per_second"), ((Map<?, ?>) result.get("latency_ms")).get("p99"),
+                                result.get("errors"));
+                    }
+                } finally {
+                    application.close();
+                }
+            }
+        } finally {
+            if (embeddedRedis != null) {
+                embeddedRedis.stop();
+            }
+        }
+
+        Path out = Path.of(options.getOrDefault("out", "target/soak"));
+        Files.createDirectories(out);
+        Path file = out.resolve("execution-modes-"
+                + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(ZonedDateTime.now(ZoneOffset.UTC)) + ".json");
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runtime", Runtime.version().toString());
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("query", query);
+        report.put("duration_seconds", duration.toSeconds());
+        report.put("warmup_seconds", warmup.toSeconds());
+        report.put("sensors", sensors);
+        report.put("results", results);
+        JSON.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+
+        SoakRun.log("%-9s %11s %12s %10s %10s %10s %8s", "mode", "connections", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+        for (Map<String, Object> result : results) {
+            Map<?, ?> latency = (Map<?, ?>) result.get("latency_ms");
+            SoakRun.log("%-9s %11d %12.0f %10s %10s %10s %8d", result.get("mode"), result.get("connections"),
+                    result.get("throughput_per_second"), latency.get("p50"), latency.get("p99"), latency.get("p99_9"),
+                    result.get("errors"));
+        }
+        SoakRun.log("Results in %s", file.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Writes one reading for each sensor, so that every query finds data.
+     */
+    private static void seed(HttpClient http, URI target, int sensors) throws Exception {
+        String timestamp = Instant.now().toString();
+        for (int first = 0; first < sensors; first += SEED_BATCH) {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int i = first; i < Math.min(sensors, first + SEED_BATCH); i++) {
+                batch.add(Map.of("sensor_id", sensorId(i), "timestamp", timestamp, "readings", Map.of("value", (double) i)));
+            }
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(target.resolve("/api/v1/sensors/data/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(batch)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Could not seed the sensors: " + response.statusCode() + " " + response.body());
+            }
+        }
+    }
+
+    /**
+     * Runs {@code connections} closed loops for the warmup and the measured period and returns the throughput and
+     * latencies of the measured one.
+     */
+    private static Map<String, Object> measure(HttpClient http, URI target, String mode, String query, int sensors,
+                                               int connections, Duration warmup, Duration duration) throws InterruptedException {
+        OperationStats stats = new OperationStats("query:" + mode);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch stopped = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            send(http, target, mode, query, sensors, stats, running, stopped);
+        }
+        TimeUnit.MILLISECONDS.sleep(warmup.toMillis());
+        stats.begin();
+        long startNanos = System.nanoTime();
+        TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        stats.end();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        running.set(false);
+        if (!stopped.await(1, TimeUnit.MINUTES)) {
+            SoakRun.log("WARNING: %d connections still had a request outstanding", stopped.getCount());
+        }
+
+        Histogram total = stats.sample();
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (total.getTotalCount() > 0) {
+            latency.put("mean", total.getMean() / 1000.0);
+            latency.put("p50", total.getValueAtPercentile(50) / 1000.0);
+            latency.put("p99", total.getValueAtPercentile(99) / 1000.0);
+            latency.put("p99_9", total.getValueAtPercentile(99.9) / 1000.0);
+            latency.put("max", total.getMaxValue() / 1000.0);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("connections", connections);
+        result.put("requests", total.getTotalCount());
+        result.put("throughput_per_second", total.getTotalCount() / seconds);
+        result.put("errors", stats.errors());
+        result.put("statuses", stats.statuses());
+        result.put("latency_ms", latency);
+        return result;
+    }
+
+    /**
+     * Sends one request of a connection and, when its response arrives, the next, until {@code running} is cleared.
+     */
+    private static void send(HttpClient http, URI target, String mode, String query, int sensors, OperationStats stats,
+                             AtomicBoolean running, CountDownLatch stopped) {
+        if (!running.get()) {
+            stopped.countDown();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(target.resolve(path(mode, query, sensors)))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        long sentNanos = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (response != null) {
+                stats.record(System.nanoTime() - sentNanos, response.statusCode());
+            } else {
+                stats.failed(System.nanoTime() - sentNanos);
+            }
+            send(http, target, mode, query, sensors, stats, running, stopped);
+        });
+    }
+
+    private static String path(String mode, String query, int sensors) {
+        String sensorId = sensorId(ThreadLocalRandom.current().nextInt(sensors));
+        String base = (mode.equals("reactive") ? "/api/v1/reactive/sensors/" : "/api/v1/sensors/") + sensorId + "/data";
+        if (query.equals("latest")) {
+            return base;
+        }
+        Instant end = Instant.now().truncatedTo(ChronoUnit.MINUTES).plus(1, ChronoUnit.MINUTES);
+        return base + "/range?start=" + end.minus(10, ChronoUnit.MINUTES) + "&end=" + end;
+    }
+
+    private static String sensorId(int index) {
+        return String.format("%s%06d", SENSOR_PREFIX, index);
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * HTTP client of a soak run. Requests are paced open-loop by a single scheduler thread and sent from a fixed pool
+ * of client threads; a request that finds {@code max_queued_requests} already waiting is dropped and counted.
+ */
+final class LoadClient implements AutoCloseable {
+
+    private static final long TICK_MILLIS = 5;
+
+    private final URI baseUri;
+    private final HttpClient http;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, OperationStats> stats = new ConcurrentSkipListMap<>();
+    private final List<Pacer> pacers = new CopyOnWriteArrayList<>();
+    private volatile boolean measuring;
+
+    LoadClient(URI baseUri, int threads, int maxQueued) {
+        this.baseUri = baseUri;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(maxQueued),
+                daemonThreads("load-client"), new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("load-pacer"));
+        this.scheduler.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30));
+    }
+
+    OperationStats stats(String operation) {
+        return stats.computeIfAbsent(operation, name -> {
+            OperationStats operationStats = new OperationStats(name);
+            if (measuring) {
+                operationStats.begin();
+            }
+            return operationStats;
+        });
+    }
+
+    /**
+     * Ends the warmup: from now on requests are recorded.
+     */
+    void beginMeasuring() {
+        measuring = true;
+        stats.values().forEach(OperationStats::begin);
+    }
+
+    void endMeasuring() {
+        measuring = false;
+        stats.values().forEach(OperationStats::end);
+    }
+
+    /**
+     * Whether any request was dropped, i.e. the generator could not keep up with the profile.
+     */
+    boolean saturated() {
+        return stats.values().stream().anyMatch(operationStats -> operationStats.dropped() > 0);
+    }
+
+    Collection<OperationStats> allStats() {
+        return stats.values();
+    }
+
+    /**
+     * Calls {@code fire} with the scheduled send time ({@link System#nanoTime()}) {@code rate} times per second,
+     * the rate being read again on every tick. {@code fire} runs on the scheduler thread and must only
+     * {@link #submit} work.
+     */
+    void pace(DoubleSupplier rate, LongConsumer fire) {
+        pacers.add(new Pacer(rate, fire));
+    }
+
+    /**
+     * Runs {@code task} on a client thread, or counts a drop against {@code operation} if the queue is full.
+     */
+    void submit(String operation, Runnable task) {
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            stats(operation).drop();
+        }
+    }
+
+    /**
+     * Sends the request on the calling thread and records its latency from {@code scheduledNanos}; {@code null}
+     * when no response arrived.
+     */
+    HttpResponse<byte[]> call(String operation, long scheduledNanos, HttpRequest request) {
+        OperationStats operationStats = stats(operation);
+        HttpResponse<byte[]> response = send(request);
+        if (response != null) {
+            operationStats.record(System.nanoTime() - scheduledNanos, response.statusCode());
+        } else {
+            operationStats.failed(System.nanoTime() - scheduledNanos);
+        }
+        return response;
+    }
+
+    /**
+     * Sends the request without recording it, for monitoring; {@code null} when no response arrived.
+     */
+    HttpResponse<byte[]> send(HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    int queued() {
+        return pool.getQueue().size();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (Pacer pacer : pacers) {
+            pacer.tick(now);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        pool.shutdown();
+        if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        return new ThreadFactory() {
+            private int next;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, prefix + "-" + next++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    private static final class Pacer {
+        private final DoubleSupplier rate;
+        private final LongConsumer fire;
+        private long lastNanos = -1;
+        private double credit;
+
+        private Pacer(DoubleSupplier rate, LongConsumer fire) {
+            this.rate = rate;
+            this.fire = fire;
+        }
+
+        private void tick(long now) {
+            double perSecond = rate.getAsDouble();
+            if (lastNanos < 0 || perSecond <= 0) {
+                lastNanos = now;
+                credit = 0;
+                return;
+            }
+            long elapsed = now - lastNanos;
+            credit += perSecond * elapsed / 1e9;
+            // Spread the requests that came due during this tick over it rather than firing them all at its end.
+            int due = (int) credit;
+            for (int i = 0; i < due; i++) {
+                fire.accept(lastNanos + (long) ((i + 1) * (double) elapsed / due));
+            }
+            credit -= due;
+            lastNanos = now;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a soak run simulates, read from JSON ({@code src/test/resources/loadtest/{name}.json} or a file path). Rates
+ * are open-loop: requests are issued on schedule whether or not earlier ones have completed, and latency is measured
+ * from the scheduled send time, so a stalled server shows up as latency instead of as a slower request rate.
+ */
+@Data
+public class LoadProfile {
+    private String name;
+
+    @JsonProperty("duration_seconds")
+    private long durationSeconds = 300;
+
+    /**
+     * Readings sent before measuring starts, to warm up the JIT, connection pools and caches.
+     */
+    @JsonProperty("warmup_seconds")
+    private long warmupSeconds = 30;
+
+    /**
+     * Interval of the timeline: Redis memory, throughput and the scaling recommendation.
+     */
+    @JsonProperty("sample_interval_ms")
+    private long sampleIntervalMs = 5000;
+
+    /**
+     * Threads sending requests. Requests that find them all busy queue up, and count as dropped beyond
+     * {@code max_queued_requests}: the generator, not the server, is then the bottleneck and the run is not valid.
+     */
+    @JsonProperty("client_threads")
+    private int clientThreads = 64;
+
+    @JsonProperty("max_queued_requests")
+    private int maxQueuedRequests = 10000;
+
+    /**
+     * Properties for the application started by the harness, on top of {@code application.properties}.
+     */
+    @JsonProperty("app_properties")
+    private Map<String, String> appProperties = new LinkedHashMap<>();
+
+    private List<SensorPopulation> sensors = new ArrayList<>();
+
+    private WorkerPopulation workers = new WorkerPopulation();
+
+    private List<QueryMix> queries = new ArrayList<>();
+
+    @Data
+    public static class SensorPopulation {
+        /**
+         * Prefix of the sensor IDs, {@code {name}-000000} and up.
+         */
+        private String name;
+
+        private int count = 1000;
+
+        /**
+         * Readings per second of each sensor.
+         */
+        @JsonProperty("rate_per_sensor")
+        private double ratePerSensor = 1;
+
+        private int readings = 4;
+
+        /**
+         * Size of the {@code location} metadata entry; the sensor also has a {@code firmware} entry.
+         */
+        @JsonProperty("payload_bytes")
+        private int payloadBytes = 32;
+
+        /**
+         * Readings per request; 1 uses the single-reading endpoint, more the batch endpoint.
+         */
+        @JsonProperty("batch_size")
+        private int batchSize = 1;
+
+        /**
+         * {@code json}, {@code cbor}, {@code smile} or {@code ndjson} (batches only).
+         */
+        private String format = "json";
+
+        /**
+         * Registers the population as a sensor schema and sends {@code schema_id} plus {@code values}.
+         */
+        private boolean schema;
+
+        private Burst burst;
+    }
+
+    /**
+     * Every {@code every_seconds} the rate is multiplied by {@code multiplier} for {@code duration_seconds}.
+     */
+    @Data
+    public static class Burst {
+        @JsonProperty("every_seconds")
+        private long everySeconds = 60;
+
+        @JsonProperty("duration_seconds")
+        private long durationSeconds = 10;
+
+        private double multiplier = 5;
+    }
+
+    @Data
+    public static class WorkerPopulation {
+        /**
+         * Workers kept alive: each one that dies is replaced by a newly registered one.
+         */
+        private int count;
+
+        @JsonProperty("heartbeat_interval_ms")
+        private long heartbeatIntervalMs = 5000;
+
+        /**
+         * Mean lifetime of a worker; lifetimes are exponentially distributed. 0 keeps workers for the whole run.
+         */
+        @JsonProperty("mean_lifetime_seconds")
+        private long meanLifetimeSeconds = 600;
+
+        /**
+         * Share of dying workers that just stop sending heartbeats instead of deregistering, left to the liveness
+         * sweep.
+         */
+        @JsonProperty("crash_fraction")
+        private double crashFraction = 0.5;
+
+        /**
+         * Readings per second a worker reports as processed, when it does not poll the queue.
+         */
+        @JsonProperty("processing_rate")
+        private double processingRate = 1000;
+
+        /**
+         * Polls and acknowledges the worker queue ({@code queue.streams.enabled=true}) on every heartbeat, and
+         * reports the acknowledged readings as processed.
+         */
+        private boolean poll;
+
+        @JsonProperty("poll_count")
+        private int pollCount = 1000;
+    }
+
+    @Data
+    public static class QueryMix {
+        /**
+         * {@code latest}, {@code range}, {@code page}, {@code aggregate} or {@code stream}, over a random sensor of
+         * the populations; {@code reactive-latest} and {@code reactive-range} query the same through the reactive
+         * endpoints.
+         */
+        private String type;
+
+        /**
+         * Queries per second.
+         */
+        private double rate = 10;
+
+        /**
+         * The queried time range ends now and spans this many seconds.
+         */
+        @JsonProperty("window_seconds")
+        private long windowSeconds = 300;
+    }
+}
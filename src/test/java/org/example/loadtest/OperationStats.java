@@ -0,0 +1,120 @@
+package org.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds, 3 significant digits) and outcome counts of one kind of request. Nothing is
+ * recorded before {@link #begin()}, so warmup requests do not count. {@link #sample()} hands out the histogram of
+ * the interval since the previous sample and accumulates it into the run's total.
+ */
+final class OperationStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final boolean notFoundIsError;
+    private Histogram interval;
+    private volatile boolean measuring;
+
+    OperationStats(String name) {
+        this.name = name;
+        // A query may hit a sensor that has no readings yet; a worker must always be found.
+        this.notFoundIsError = !name.startsWith("query:");
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void begin() {
+        recorder.reset();
+        total.reset();
+        statuses.clear();
+        failures.reset();
+        dropped.reset();
+        measuring = true;
+    }
+
+    /**
+     * Stops recording, so the last {@link #sample()} and the status counts cover the same requests.
+     */
+    void end() {
+        measuring = false;
+    }
+
+    void record(long latencyNanos, int status) {
+        if (measuring) {
+            recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * A request that got no response (connection error, timeout).
+     */
+    void failed(long latencyNanos) {
+        if (measuring) {
+            recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            failures.increment();
+        }
+    }
+
+    /**
+     * A request that was never sent because the client's queue was full.
+     */
+    void drop() {
+        if (measuring) {
+            dropped.increment();
+        }
+    }
+
+    synchronized Histogram sample() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return interval;
+    }
+
+    /**
+     * The whole run; call {@link #sample()} first to include the latest requests.
+     */
+    synchronized Histogram total() {
+        return total.copy();
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Failed requests and 4xx/5xx responses, except a 404 to a query.
+     */
+    long errors() {
+        long errors = failures.sum();
+        for (Map.Entry<Integer, LongAdder> entry : statuses.entrySet()) {
+            if (entry.getKey() >= 400 && (entry.getKey() != 404 || notFoundIsError)) {
+                errors += entry.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.loadtest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Queries of one type at a fixed rate, each over a random sensor of a random population. Range bounds are whole
+ * minutes, so aggregations can be served from the 1m rollups.
+ */
+final class QueryLoad {
+
+    private final LoadProfile.QueryMix query;
+    private final List<SensorLoad> sensors;
+    private final LoadClient client;
+    private final String operation;
+
+    QueryLoad(LoadProfile.QueryMix query, List<SensorLoad> sensors, LoadClient client) {
+        this.query = query;
+        this.sensors = sensors;
+        this.client = client;
+        this.operation = "query:" + query.getType();
+        if (!List.of("latest", "range", "page", "aggregate", "stream", "reactive-latest", "reactive-range").contains(query.getType())) {
+            throw new IllegalArgumentException("Unknown query type " + query.getType());
+        }
+        if (sensors.isEmpty()) {
+            throw new IllegalArgumentException("Queries need at least one sensor population");
+        }
+    }
+
+    void start() {
+        client.pace(query::getRate, this::send);
+    }
+
+    private void send(long scheduledNanos) {
+        client.submit(operation, () -> client.call(operation, scheduledNanos, client.request(path()).GET().build()));
+    }
+
+    private String path() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SensorLoad population = sensors.get(random.nextInt(sensors.size()));
+        String sensorId = population.sensorId(random.nextInt(population.count()));
+        String base = "/api/v1/sensors/" + sensorId + "/data";
+        String reactiveBase = "/api/v1/reactive/sensors/" + sensorId + "/data";
+        Instant end = Instant.now().truncatedTo(ChronoUnit.MINUTES).plus(1, ChronoUnit.MINUTES);
+        Instant start = end.minusSeconds(Math.max(60, query.getWindowSeconds() / 60 * 60));
+        String range = "?start=" + start + "&end=" + end;
+        return switch (query.getType()) {
+            case "latest" -> base;
+            case "range" -> base + "/range" + range;
+            case "page" -> base + "/range/page" + range + "&limit=1000";
+            case "stream" -> base + "/range/stream" + range;
+            case "reactive-latest" -> reactiveBase;
+            case "reactive-range" -> reactiveBase + "/range" + range;
+            default -> base + "/aggregate" + range + "&step=1m&aggregations=avg,min,max,count";
+        };
+    }
+}
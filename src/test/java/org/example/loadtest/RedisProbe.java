@@ -0,0 +1,74 @@
+package org.example.loadtest;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Memory and key counts of the Redis nodes behind the application, from {@code INFO memory} and {@code DBSIZE}
+ * over connections of its own.
+ */
+final class RedisProbe implements AutoCloseable {
+
+    private final Map<String, LettuceConnectionFactory> nodes = new LinkedHashMap<>();
+
+    RedisProbe(List<String> addresses) {
+        for (String address : addresses) {
+            String[] hostPort = address.trim().split(":");
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(hostPort[0], Integer.parseInt(hostPort[1])));
+            factory.afterPropertiesSet();
+            factory.start();
+            nodes.put(address.trim(), factory);
+        }
+    }
+
+    List<String> addresses() {
+        return new ArrayList<>(nodes.keySet());
+    }
+
+    /**
+     * Per node: {@code used_memory}, {@code used_memory_rss} and {@code keys}; an {@code error} for an unreachable
+     * node.
+     */
+    Map<String, Map<String, Object>> sample() {
+        Map<String, Map<String, Object>> sample = new LinkedHashMap<>();
+        nodes.forEach((address, factory) -> {
+            Map<String, Object> node = new LinkedHashMap<>();
+            try (RedisConnection connection = factory.getConnection()) {
+                Properties memory = connection.serverCommands().info("memory");
+                node.put("used_memory", Long.parseLong(memory.getProperty("used_memory", "0")));
+                node.put("used_memory_rss", Long.parseLong(memory.getProperty("used_memory_rss", "0")));
+                node.put("keys", connection.serverCommands().dbSize());
+            } catch (RuntimeException e) {
+                node.put("error", e.getMessage());
+            }
+            sample.put(address, node);
+        });
+        return sample;
+    }
+
+    /**
+     * {@code used_memory} summed over the nodes of a {@link #sample()}.
+     */
+    static long usedMemory(Map<String, Map<String, Object>> sample) {
+        long total = 0;
+        for (Map<String, Object> node : sample.values()) {
+            if (node.get("used_memory") instanceof Long usedMemory) {
+                total += usedMemory;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        nodes.values().forEach(LettuceConnectionFactory::destroy);
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One simulated sensor population. Its sensors report in turn, at {@code count * rate_per_sensor} readings per
+ * second (times the burst multiplier during a burst), batched and encoded as the profile says. Values follow a slow
+ * sine per sensor plus noise; the metadata of a sensor never changes.
+ */
+final class SensorLoad {
+
+    private static final ObjectMapper JSON = mapper(new JsonFactory());
+    private static final ObjectMapper CBOR = mapper(new CBORFactory());
+    private static final ObjectMapper SMILE = mapper(new SmileFactory());
+
+    private final LoadProfile.SensorPopulation population;
+    private final LoadClient client;
+    private final String operation;
+    private final long startNanos;
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder accepted = new LongAdder();
+    private final List<String> readingNames = new ArrayList<>();
+    private final Map<String, String> metadata = new LinkedHashMap<>();
+    private Integer schemaId;
+
+    SensorLoad(LoadProfile.SensorPopulation population, LoadClient client, long startNanos) {
+        this.population = population;
+        this.client = client;
+        this.operation = "ingest:" + population.getName();
+        this.startNanos = startNanos;
+        for (int i = 0; i < population.getReadings(); i++) {
+            readingNames.add("reading_" + i);
+        }
+        StringBuilder location = new StringBuilder("site-").append(population.getName());
+        while (location.length() < population.getPayloadBytes()) {
+            location.append("/rack-").append(location.length());
+        }
+        metadata.put("location", location.substring(0, Math.max(population.getPayloadBytes(), 1)));
+        metadata.put("firmware", "2.4.1");
+    }
+
+    /**
+     * Registers the population's schema if it uses one and starts sending.
+     */
+    void start() throws IOException {
+        if (population.isSchema()) {
+            SensorSchema schema = new SensorSchema(null, "loadtest-" + population.getName(), readingNames, metadata);
+            HttpResponse<byte[]> response = client.call("schema:register", System.nanoTime(), client.request("/api/v1/schemas")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(schema)))
+                    .build());
+            if (response == null || response.statusCode() != 200) {
+                throw new IllegalStateException("Could not register the schema of " + population.getName()
+                        + (response == null ? "" : ": " + new String(response.body())));
+            }
+            schemaId = JSON.readValue(response.body(), SensorSchema.class).getSchemaId();
+        }
+        double batchesPerSecond = population.getCount() * population.getRatePerSensor() / Math.max(1, population.getBatchSize());
+        client.pace(() -> batchesPerSecond * burstMultiplier(), this::send);
+    }
+
+    String sensorId(int index) {
+        return String.format("%s-%06d", population.getName(), index);
+    }
+
+    int count() {
+        return population.getCount();
+    }
+
+    /**
+     * Readings answered with a 2xx, for the Redis memory per reading.
+     */
+    long accepted() {
+        return accepted.sum();
+    }
+
+    void resetAccepted() {
+        accepted.reset();
+    }
+
+    private double burstMultiplier() {
+        LoadProfile.Burst burst = population.getBurst();
+        if (burst == null || burst.getEverySeconds() <= 0) {
+            return 1;
+        }
+        long second = (System.nanoTime() - startNanos) / 1_000_000_000L;
+        return second % burst.getEverySeconds() >= burst.getEverySeconds() - burst.getDurationSeconds() ? burst.getMultiplier() : 1;
+    }
+
+    private void send(long scheduledNanos) {
+        int batchSize = Math.max(1, population.getBatchSize());
+        long first = cursor.getAndAdd(batchSize);
+        client.submit(operation, () -> {
+            List<SensorData> batch = new ArrayList<>(batchSize);
+            Instant now = Instant.now();
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(reading((int) ((first + i) % population.getCount()), now));
+            }
+            HttpResponse<byte[]> response = client.call(operation, scheduledNanos, request(batch));
+            if (response != null && response.statusCode() / 100 == 2) {
+                accepted.add(batchSize);
+            }
+        });
+    }
+
+    private SensorData reading(int index, Instant timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double phase = timestamp.toEpochMilli() / 60_000.0 + index;
+        double[] values = new double[readingNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round((20 + i + 5 * Math.sin(phase + i) + random.nextGaussian() * 0.1) * 100) / 100.0;
+        }
+        if (schemaId != null) {
+            return new SensorData(sensorId(index), timestamp, null, null, schemaId, values);
+        }
+        Map<String, Double> readings = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            readings.put(readingNames.get(i), values[i]);
+        }
+        return new SensorData(sensorId(index), timestamp, readings, metadata);
+    }
+
+    private HttpRequest request(List<SensorData> batch) {
+        String format = population.getFormat();
+        boolean single = batch.size() == 1 && !"ndjson".equals(format);
+        HttpRequest.Builder builder = client.request(single ? "/api/v1/sensors/data" : "/api/v1/sensors/data/batch");
+        try {
+            byte[] body;
+            switch (format) {
+                case "json" -> {
+                    builder.header("Content-Type", "application/json");
+                    body = JSON.writeValueAsBytes(single ? batch.get(0) : batch);
+                }
+                case "cbor" -> {
+                    builder.header("Content-Type", "application/cbor");
+                    body = CBOR.writeValueAsBytes(single ? batch.get(0) : batch);
+                }
+                case "smile" -> {
+                    builder.header("Content-Type", "application/x-jackson-smile");
+                    body = SMILE.writeValueAsBytes(single ? batch.get(0) : batch);
+                }
+                case "ndjson" -> {
+                    builder.header("Content-Type", "application/x-ndjson");
+                    ByteArrayOutputStream lines = new ByteArrayOutputStream();
+                    for (SensorData data : batch) {
+                        lines.write(JSON.writeValueAsBytes(data));
+                        lines.write('\n');
+                    }
+                    body = lines.toByteArray();
+                }
+                default -> throw new IllegalArgumentException("Unknown format " + format + " of population " + population.getName());
+            }
+            return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ObjectMapper mapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares two soak runs: {@code SoakCompare <baseline> <candidate> [tolerance]}, each a run directory or its
+ * {@code summary.json}. Prints per operation the throughput, p50/p99/p99.9 latency and errors of both runs, plus Redis
+ * memory growth per reading and scaling recommendation changes. Exits with status 1 if the candidate regressed by
+ * more than {@code tolerance} (default 0.1): a higher p99 or p99.9, a lower throughput, more errors or drops, or more
+ * Redis memory per reading.
+ */
+public final class SoakCompare {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private SoakCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SoakCompare <baseline run or summary.json> <candidate run or summary.json> [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+        int regressions = compare(read(args[0]), read(args[1]), tolerance);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Prints the comparison of two {@code summary.json} documents and returns the number of regressions.
+     */
+    static int compare(JsonNode baseline, JsonNode candidate, double tolerance) {
+        System.out.printf("baseline  %s%ncandidate %s%n%n", baseline.path("run_id").asText(), candidate.path("run_id").asText());
+        if (!baseline.path("profile").equals(candidate.path("profile"))) {
+            System.out.printf("WARNING: the runs used different profiles%n%n");
+        }
+        if (baseline.path("saturated").asBoolean() || candidate.path("saturated").asBoolean()) {
+            System.out.printf("WARNING: a run dropped requests, its latencies understate the load it was asked for%n%n");
+        }
+        System.out.printf("%-24s %-9s %12s %12s %9s%n", "operation", "metric", "baseline", "candidate", "change");
+        int regressions = 0;
+        Set<String> operations = new TreeSet<>();
+        baseline.path("operations").fieldNames().forEachRemaining(operations::add);
+        candidate.path("operations").fieldNames().forEachRemaining(operations::add);
+        for (String operation : operations) {
+            JsonNode before = baseline.path("operations").path(operation);
+            JsonNode after = candidate.path("operations").path(operation);
+            regressions += row(operation, "req/s", before.path("throughput_per_second"), after.path("throughput_per_second"), -tolerance);
+            regressions += row(operation, "p50 ms", before.path("latency_ms").path("p50"), after.path("latency_ms").path("p50"), Double.NaN);
+            regressions += row(operation, "p99 ms", before.path("latency_ms").path("p99"), after.path("latency_ms").path("p99"), tolerance);
+            regressions += row(operation, "p99.9 ms", before.path("latency_ms").path("p99_9"), after.path("latency_ms").path("p99_9"), tolerance);
+            regressions += row(operation, "errors", before.path("errors"), after.path("errors"), 0);
+            regressions += row(operation, "dropped", before.path("dropped"), after.path("dropped"), 0);
+        }
+        System.out.println();
+        regressions += row("redis", "B/reading", baseline.path("redis_memory").path("growth_bytes_per_reading"),
+                candidate.path("redis_memory").path("growth_bytes_per_reading"), tolerance);
+        row("redis", "peak B", baseline.path("redis_memory").path("peak_bytes"), candidate.path("redis_memory").path("peak_bytes"), Double.NaN);
+        row("scaling", "changes", baseline.path("scaling").path("recommended_workers_changes"),
+                candidate.path("scaling").path("recommended_workers_changes"), Double.NaN);
+        row("scaling", "max", baseline.path("scaling").path("recommended_workers_max"),
+                candidate.path("scaling").path("recommended_workers_max"), Double.NaN);
+
+        System.out.printf("%n%d regression(s) beyond a tolerance of %.0f%%%n", regressions, tolerance * 100);
+        return regressions;
+    }
+
+    /**
+     * Prints one metric; returns 1 if it regressed. A positive {@code tolerance} flags increases beyond it, a negative
+     * one decreases, {@code 0} any increase and {@code NaN} nothing.
+     */
+    private static int row(String operation, String metric, JsonNode before, JsonNode after, double tolerance) {
+        if (before.isMissingNode() && after.isMissingNode()) {
+            return 0;
+        }
+        String change = "";
+        boolean regressed = false;
+        if (before.isNumber() && after.isNumber()) {
+            double a = before.asDouble();
+            double b = after.asDouble();
+            if (a != 0) {
+                change = String.format("%+.1f%%", (b - a) / a * 100);
+            }
+            if (tolerance == 0) {
+                regressed = b > a;
+            } else if (tolerance > 0) {
+                regressed = a > 0 && (b - a) / a > tolerance;
+            } else if (tolerance < 0) {
+                regressed = a > 0 && (b - a) / a < tolerance;
+            }
+        }
+        System.out.printf("%-24s %-9s %12s %12s %9s%s%n", operation, metric, format(before), format(after), change,
+                regressed ? "  REGRESSION" : "");
+        return regressed ? 1 : 0;
+    }
+
+    private static String format(JsonNode value) {
+        if (value.isMissingNode() || value.isNull()) {
+            return "-";
+        }
+        if (value.isIntegralNumber()) {
+            return String.format("%,d", value.asLong());
+        }
+        return value.isNumber() ? String.format("%,.2f", value.asDouble()) : value.asText();
+    }
+
+    static JsonNode read(String location) throws IOException {
+        Path path = Path.of(location);
+        if (Files.isDirectory(path)) {
+            path = path.resolve("summary.json");
+        }
+        return JSON.readTree(path.toFile());
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.Main;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Soak test entry point. Starts an embedded Redis and the application in this JVM (the real controllers, over HTTP
+ * on a random port), runs a {@link LoadProfile} against it with {@link SoakRun} and writes the results to
+ * {@code {out}/{profile}-{yyyyMMdd-HHmmss}}. Arguments are {@code key=value}:
+ * <ul>
+ *     <li>{@code profile}: a profile under {@code src/test/resources/loadtest} ({@code smoke} by default) or a
+ *     JSON file,</li>
+ *     <li>{@code duration}, {@code warmup}: override the profile's, e.g. {@code 2h} or {@code 30s},</li>
+ *     <li>{@code out}: the results directory, {@code target/soak} by default,</li>
+ *     <li>{@code redis}: {@code host:port} of a running Redis (comma-separated for several shards) instead of the
+ *     embedded one,</li>
+ *     <li>{@code target}: the base URL of a running application instead of starting one; its Redis nodes are then
+ *     given with {@code redis} (default {@code localhost:6379}) and only used to sample memory,</li>
+ *     <li>{@code app.{property}}: an application property, on top of the profile's {@code app_properties}.</li>
+ * </ul>
+ * Load generator and application share the JVM unless {@code target} is given, so the client-side latencies include
+ * the generator's own pauses; compare runs made the same way.
+ */
+public final class SoakHarness {
+
+    private SoakHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(parse(args));
+        System.exit(0);
+    }
+
+    /**
+     * Runs the profile given by {@code options} (the {@code key=value} arguments) and returns the run directory.
+     */
+    static Path run(Map<String, String> options) throws Exception {
+        LoadProfile profile = loadProfile(options.getOrDefault("profile", "smoke"));
+        if (options.containsKey("duration")) {
+            profile.setDurationSeconds(DurationStyle.detectAndParse(options.get("duration")).toSeconds());
+        }
+        if (options.containsKey("warmup")) {
+            profile.setWarmupSeconds(DurationStyle.detectAndParse(options.get("warmup")).toSeconds());
+        }
+        options.forEach((key, value) -> {
+            if (key.startsWith("app.")) {
+                profile.getAppProperties().put(key.substring("app.".length()), value);
+            }
+        });
+        String runId = profile.getName() + "-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(ZonedDateTime.now(ZoneOffset.UTC));
+        Path outputDir = Path.of(options.getOrDefault("out", "target/soak")).resolve(runId);
+
+        Path runDir;
+        RedisServer embeddedRedis = null;
+        ConfigurableApplicationContext application = null;
+        try {
+            List<String> redisNodes = new ArrayList<>();
+            URI target;
+            if (options.containsKey("target")) {
+                target = URI.create(options.get("target"));
+                redisNodes.addAll(List.of(options.getOrDefault("redis", "localhost:6379").split(",")));
+            } else {
+                if (options.containsKey("redis")) {
+                    redisNodes.addAll(List.of(options.get("redis").split(",")));
+                } else {
+                    embeddedRedis = startEmbeddedRedis();
+                    redisNodes.add("127.0.0.1:" + embeddedRedis.ports().get(0));
+                }
+                application = startApplication(redisNodes.get(0), profile.getAppProperties());
+                target = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/");
+            }
+            String shardNodes = profile.getAppProperties().getOrDefault("redis.sharding.nodes", "");
+            for (String node : shardNodes.split(",")) {
+                if (!node.isBlank() && !redisNodes.contains(node.trim())) {
+                    redisNodes.add(node.trim());
+                }
+            }
+            try (RedisProbe redisProbe = new RedisProbe(redisNodes)) {
+                runDir = new SoakRun(profile, runId, target, redisProbe, outputDir).run();
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (embeddedRedis != null) {
+                embeddedRedis.stop();
+            }
+        }
+        return runDir;
+    }
+
+    /**
+     * A Redis on a free local port without persistence.
+     */
+    static RedisServer startEmbeddedRedis() throws IOException {
+        int port = freePort();
+        RedisServer redis = RedisServer.newRedisServer()
+                .bind("127.0.0.1")
+                .port(port)
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        redis.start();
+        SoakRun.log("Embedded Redis on port %d", port);
+        return redis;
+    }
+
+    /**
+     * The application on a random port, with Redis at {@code redisNode} ({@code host:port}).
+     */
+    static ConfigurableApplicationContext startApplication(String redisNode, Map<String, String> properties) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        String[] hostPort = redisNode.split(":");
+        arguments.put("server.port", "0");
+        arguments.put("spring.data.redis.host", hostPort[0]);
+        arguments.put("spring.data.redis.port", hostPort[1]);
+        arguments.put("spring.main.banner-mode", "off");
+        arguments.put("logging.level.root", "WARN");
+        arguments.putAll(properties);
+        List<String> args = new ArrayList<>();
+        arguments.forEach((key, value) -> args.add("--" + key + "=" + value));
+        SoakRun.log("Starting the application with %s", properties);
+        return SpringApplication.run(Main.class, args.toArray(new String[0]));
+    }
+
+    static LoadProfile loadProfile(String name) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Path file = Path.of(name);
+        LoadProfile profile;
+        if (Files.isRegularFile(file)) {
+            profile = mapper.readValue(file.toFile(), LoadProfile.class);
+        } else {
+            try (InputStream in = new ClassPathResource("loadtest/" + name + ".json").getInputStream()) {
+                profile = mapper.readValue(in, LoadProfile.class);
+            }
+        }
+        if (profile.getName() == null) {
+            profile.setName(file.getFileName().toString().replaceFirst("\\.json$", ""));
+        }
+        return profile;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(option.substring(0, separator), option.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
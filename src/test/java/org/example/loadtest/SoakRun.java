@@ -0,0 +1,272 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One soak run against a started application: warmup, then {@code duration_seconds} of measured load with a timeline
+ * sample every {@code sample_interval_ms}. Writes to its output directory:
+ * <ul>
+ *     <li>{@code timeline.ndjson}: one line per sample with Redis memory and keys per node, the cluster-wide
+ *     throughput, the scaling recommendation and each operation's requests and latency in the interval; written as
+ *     the run goes, so an aborted run still leaves its timeline,</li>
+ *     <li>{@code summary.json}: the profile, latency percentiles, throughput and status counts per operation, Redis
+ *     memory growth, worker churn, how the scaling recommendation evolved and the server-side latency percentiles,</li>
+ *     <li>{@code {operation}.hgrm}: the full latency distribution of each operation in HdrHistogram's percentile
+ *     format, in milliseconds.</li>
+ * </ul>
+ */
+final class SoakRun {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private final LoadProfile profile;
+    private final String runId;
+    private final URI target;
+    private final RedisProbe redisProbe;
+    private final Path outputDir;
+    private final List<Map<String, Object>> recommendations = new ArrayList<>();
+    private long peakMemory;
+
+    SoakRun(LoadProfile profile, String runId, URI target, RedisProbe redisProbe, Path outputDir) {
+        this.profile = profile;
+        this.runId = runId;
+        this.target = target;
+        this.redisProbe = redisProbe;
+        this.outputDir = outputDir;
+    }
+
+    Path run() throws Exception {
+        Files.createDirectories(outputDir);
+        long startNanos = System.nanoTime();
+        LoadClient client = new LoadClient(target, profile.getClientThreads(), profile.getMaxQueuedRequests());
+        List<SensorLoad> sensors = new ArrayList<>();
+        for (LoadProfile.SensorPopulation population : profile.getSensors()) {
+            sensors.add(new SensorLoad(population, client, startNanos));
+        }
+        List<QueryLoad> queries = new ArrayList<>();
+        for (LoadProfile.QueryMix query : profile.getQueries()) {
+            queries.add(new QueryLoad(query, sensors, client));
+        }
+        WorkerLoad workers = new WorkerLoad(profile.getWorkers(), client, runId);
+
+        log("Run %s against %s, Redis %s", runId, target, redisProbe.addresses());
+        for (SensorLoad sensor : sensors) {
+            sensor.start();
+        }
+        workers.start();
+        queries.forEach(QueryLoad::start);
+        log("Warming up for %ds", profile.getWarmupSeconds());
+        TimeUnit.SECONDS.sleep(profile.getWarmupSeconds());
+
+        client.beginMeasuring();
+        sensors.forEach(SensorLoad::resetAccepted);
+        workers.resetCounts();
+        long measureStartNanos = System.nanoTime();
+        Instant startedAt = Instant.now();
+        long startMemory = RedisProbe.usedMemory(redisProbe.sample());
+        peakMemory = startMemory;
+        log("Measuring for %ds", profile.getDurationSeconds());
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        Map<String, Map<String, Object>> lastRedis;
+        try (BufferedWriter timeline = Files.newBufferedWriter(outputDir.resolve("timeline.ndjson"), StandardCharsets.UTF_8)) {
+            sampler.scheduleAtFixedRate(() -> writeSample(timeline, client, measureStartNanos),
+                    profile.getSampleIntervalMs(), profile.getSampleIntervalMs(), TimeUnit.MILLISECONDS);
+            TimeUnit.SECONDS.sleep(profile.getDurationSeconds());
+            sampler.shutdown();
+            sampler.awaitTermination(1, TimeUnit.MINUTES);
+            client.endMeasuring();
+            lastRedis = writeSample(timeline, client, measureStartNanos);
+        }
+        double seconds = (System.nanoTime() - measureStartNanos) / 1e9;
+        long accepted = sensors.stream().mapToLong(SensorLoad::accepted).sum();
+        Map<String, Object> operations = operations(client, seconds);
+        Map<String, Long> workerCounts = workers.counts();
+        Object serverLatency = get(client, "/api/v1/metrics/latency");
+        boolean saturated = client.saturated();
+
+        client.close();
+        workers.stop();
+        if (saturated) {
+            log("WARNING: requests were dropped, the generator could not sustain the profile; latencies are not comparable");
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("run_id", runId);
+        summary.put("target", target.toString());
+        summary.put("started_at", startedAt.toString());
+        summary.put("duration_seconds", seconds);
+        summary.put("profile", profile);
+        summary.put("saturated", saturated);
+        summary.put("operations", operations);
+        summary.put("readings_accepted", accepted);
+        summary.put("redis_memory", redisMemory(startMemory, lastRedis, accepted));
+        summary.put("workers", workerCounts);
+        summary.put("scaling", scaling());
+        summary.put("server_latency", serverLatency);
+        JSON.writerWithDefaultPrettyPrinter().writeValue(outputDir.resolve("summary.json").toFile(), summary);
+        for (OperationStats stats : client.allStats()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(stats.name().replace(':', '_') + ".hgrm")))) {
+                stats.total().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        log("Results in %s", outputDir.toAbsolutePath());
+        return outputDir;
+    }
+
+    private Map<String, Map<String, Object>> writeSample(BufferedWriter timeline, LoadClient client, long measureStartNanos) {
+        try {
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("elapsed_ms", (System.nanoTime() - measureStartNanos) / 1_000_000);
+            sample.put("timestamp", Instant.now().toString());
+            Map<String, Map<String, Object>> redis = redisProbe.sample();
+            long usedMemory = RedisProbe.usedMemory(redis);
+            peakMemory = Math.max(peakMemory, usedMemory);
+            sample.put("redis_used_memory", usedMemory);
+            sample.put("redis", redis);
+            sample.put("throughput", get(client, "/api/v1/metrics/throughput"));
+            Object recommendation = get(client, "/api/v1/scaling/recommendation");
+            sample.put("scaling", recommendation);
+            if (recommendation instanceof Map<?, ?> map) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("elapsed_ms", sample.get("elapsed_ms"));
+                map.forEach((key, value) -> entry.put(key.toString(), value));
+                recommendations.add(entry);
+            }
+            sample.put("client_queue", client.queued());
+            Map<String, Object> operations = new TreeMap<>();
+            for (OperationStats stats : client.allStats()) {
+                Histogram interval = stats.sample();
+                Map<String, Object> operation = new LinkedHashMap<>();
+                operation.put("count", interval.getTotalCount());
+                operation.putAll(percentiles(interval));
+                operations.put(stats.name(), operation);
+            }
+            sample.put("operations", operations);
+            synchronized (timeline) {
+                timeline.write(JSON.writeValueAsString(sample));
+                timeline.newLine();
+                timeline.flush();
+            }
+            log("%5ds  redis %,d B  queue %d  %s", (Long) sample.get("elapsed_ms") / 1000, usedMemory, client.queued(),
+                    recommendation instanceof Map<?, ?> map ? map.get("recommended_action") + "/" + map.get("recommended_workers") : "-");
+            return redis;
+        } catch (IOException | RuntimeException e) {
+            log("Sample failed: %s", e);
+            return Map.of();
+        }
+    }
+
+    private static Map<String, Object> operations(LoadClient client, double seconds) {
+        Map<String, Object> operations = new TreeMap<>();
+        for (OperationStats stats : client.allStats()) {
+            Histogram total = stats.total();
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("count", total.getTotalCount());
+            operation.put("throughput_per_second", total.getTotalCount() / seconds);
+            operation.put("errors", stats.errors());
+            operation.put("failures", stats.failures());
+            operation.put("dropped", stats.dropped());
+            operation.put("statuses", stats.statuses());
+            operation.put("latency_ms", percentiles(total));
+            operations.put(stats.name(), operation);
+        }
+        return operations;
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        if (histogram.getTotalCount() == 0) {
+            return percentiles;
+        }
+        percentiles.put("mean", histogram.getMean() / 1000.0);
+        percentiles.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+        percentiles.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+        percentiles.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+        percentiles.put("p99_9", histogram.getValueAtPercentile(99.9) / 1000.0);
+        percentiles.put("max", histogram.getMaxValue() / 1000.0);
+        return percentiles;
+    }
+
+    private Map<String, Object> redisMemory(long startMemory, Map<String, Map<String, Object>> lastRedis, long accepted) {
+        long endMemory = RedisProbe.usedMemory(lastRedis);
+        Map<String, Object> memory = new LinkedHashMap<>();
+        memory.put("start_bytes", startMemory);
+        memory.put("end_bytes", endMemory);
+        memory.put("peak_bytes", peakMemory);
+        memory.put("growth_bytes", endMemory - startMemory);
+        memory.put("growth_bytes_per_reading", accepted == 0 ? null : (double) (endMemory - startMemory) / accepted);
+        memory.put("nodes", lastRedis);
+        return memory;
+    }
+
+    /**
+     * How the recommendation moved over the run: how often the recommended worker count changed, its range, the
+     * samples per action and the first and last recommendation.
+     */
+    private Map<String, Object> scaling() {
+        Map<String, Object> scaling = new LinkedHashMap<>();
+        scaling.put("samples", recommendations.size());
+        if (recommendations.isEmpty()) {
+            return scaling;
+        }
+        int changes = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        Object previous = null;
+        Map<String, Integer> actions = new TreeMap<>();
+        for (Map<String, Object> recommendation : recommendations) {
+            Object workers = recommendation.get("recommended_workers");
+            if (workers instanceof Number number) {
+                min = Math.min(min, number.intValue());
+                max = Math.max(max, number.intValue());
+            }
+            if (previous != null && !previous.equals(workers)) {
+                changes++;
+            }
+            previous = workers;
+            actions.merge(String.valueOf(recommendation.get("recommended_action")), 1, Integer::sum);
+        }
+        scaling.put("recommended_workers_changes", changes);
+        scaling.put("recommended_workers_min", min == Integer.MAX_VALUE ? null : min);
+        scaling.put("recommended_workers_max", max == Integer.MIN_VALUE ? null : max);
+        scaling.put("actions", actions);
+        scaling.put("first", recommendations.get(0));
+        scaling.put("last", recommendations.get(recommendations.size() - 1));
+        return scaling;
+    }
+
+    private static Object get(LoadClient client, String path) {
+        HttpResponse<byte[]> response = client.send(client.request(path).GET().build());
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            return JSON.readValue(response.body(), MAP);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static void log(String format, Object... args) {
+        System.out.printf("[soak] " + format + "%n", args);
+    }
+}
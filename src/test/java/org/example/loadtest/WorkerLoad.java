@@ -0,0 +1,184 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A population of simulated workers. Every heartbeat interval each live worker optionally polls and acknowledges
+ * the worker queue, then sends a heartbeat with its processed count. A worker whose lifetime is over either
+ * deregisters or, with probability {@code crash_fraction}, simply stops, and a new worker is registered in its place.
+ * A worker whose heartbeat is answered with 404 (declared dead by the liveness sweep) is replaced the same way.
+ * Workers run on threads of their own, as separate processes would, so sensor load cannot starve their heartbeats.
+ */
+final class WorkerLoad {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final LoadProfile.WorkerPopulation population;
+    private final LoadClient client;
+    private final String idPrefix;
+    private final Queue<SimulatedWorker> live = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder deregistered = new LongAdder();
+    private final LongAdder crashed = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private ScheduledExecutorService executor;
+
+    WorkerLoad(LoadProfile.WorkerPopulation population, LoadClient client, String runId) {
+        this.population = population;
+        this.client = client;
+        this.idPrefix = "loadtest-" + runId + "-w";
+    }
+
+    void start() {
+        if (population.getCount() <= 0) {
+            return;
+        }
+        executor = Executors.newScheduledThreadPool(Math.min(population.getCount(), 8), LoadClient.daemonThreads("load-worker"));
+        for (int i = 0; i < population.getCount(); i++) {
+            register(System.nanoTime());
+        }
+        executor.scheduleAtFixedRate(this::tick, population.getHeartbeatIntervalMs(), population.getHeartbeatIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deregisters the workers still alive, so the next run starts without them.
+     */
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        SimulatedWorker worker;
+        while ((worker = live.poll()) != null) {
+            client.call("worker:deregister", System.nanoTime(), client.request("/api/v1/workers/" + worker.id).DELETE().build());
+        }
+    }
+
+    Map<String, Long> counts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("registered", registered.sum());
+        counts.put("deregistered", deregistered.sum());
+        counts.put("crashed", crashed.sum());
+        counts.put("evicted", evicted.sum());
+        counts.put("live", (long) live.size());
+        return counts;
+    }
+
+    void resetCounts() {
+        registered.reset();
+        deregistered.reset();
+        crashed.reset();
+        evicted.reset();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (SimulatedWorker worker : List.copyOf(live)) {
+            executor.execute(() -> {
+                if (now >= worker.diesAtNanos) {
+                    die(worker, now);
+                } else {
+                    heartbeat(worker, now);
+                }
+            });
+        }
+    }
+
+    private void register(long scheduledNanos) {
+        String id = idPrefix + sequence.incrementAndGet();
+        HttpResponse<byte[]> response = client.call("worker:register", scheduledNanos, client.request("/api/v1/workers")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"worker_id\":\"" + id + "\"}"))
+                .build());
+        if (response != null && response.statusCode() == 200) {
+            registered.increment();
+            live.add(new SimulatedWorker(id, scheduledNanos + lifetimeNanos()));
+        }
+    }
+
+    private void die(SimulatedWorker worker, long scheduledNanos) {
+        if (!live.remove(worker)) {
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < population.getCrashFraction()) {
+            crashed.increment();
+        } else {
+            client.call("worker:deregister", scheduledNanos, client.request("/api/v1/workers/" + worker.id).DELETE().build());
+            deregistered.increment();
+        }
+        register(System.nanoTime());
+    }
+
+    private void heartbeat(SimulatedWorker worker, long scheduledNanos) {
+        if (population.isPoll()) {
+            worker.processed += pollAndAcknowledge(worker, scheduledNanos);
+        } else {
+            worker.processed += Math.round(population.getProcessingRate() * population.getHeartbeatIntervalMs() / 1000.0);
+        }
+        HttpResponse<byte[]> response = client.call("worker:heartbeat", scheduledNanos, client.request("/api/v1/workers/" + worker.id + "/health")
+                .header("Content-Type", "application/json")
+                .header("Prefer", "return=minimal")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"processed_count\":" + worker.processed + "}"))
+                .build());
+        if (response != null && response.statusCode() == 404 && live.remove(worker)) {
+            evicted.increment();
+            register(System.nanoTime());
+        }
+    }
+
+    private int pollAndAcknowledge(SimulatedWorker worker, long scheduledNanos) {
+        HttpResponse<byte[]> polled = client.call("worker:poll", scheduledNanos, client.request(
+                "/api/v1/workers/" + worker.id + "/poll?count=" + population.getPollCount() + "&block_ms=0")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build());
+        if (polled == null || polled.statusCode() != 200) {
+            return 0;
+        }
+        List<String> ids = new ArrayList<>();
+        try {
+            for (JsonNode item : JSON.readTree(polled.body()).path("items")) {
+                ids.add(item.path("id").asText());
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            client.call("worker:ack", System.nanoTime(), client.request("/api/v1/workers/" + worker.id + "/ack")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(Map.of("ids", ids))))
+                    .build());
+        } catch (IOException e) {
+            return 0;
+        }
+        return ids.size();
+    }
+
+    private long lifetimeNanos() {
+        if (population.getMeanLifetimeSeconds() <= 0) {
+            return Long.MAX_VALUE / 2;
+        }
+        double seconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * population.getMeanLifetimeSeconds();
+        return (long) (seconds * 1e9);
+    }
+
+    private static final class SimulatedWorker {
+        private final String id;
+        private final long diesAtNanos;
+        private volatile long processed;
+
+        private SimulatedWorker(String id, long diesAtNanos) {
+            this.id = id;
+            this.diesAtNanos = diesAtNanos;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ColumnarSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsNaNNegativeAndSignedZeroValuesBitExact() throws IOException {
+        double[] values = {Double.NaN, -1.5, -0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -Double.MAX_VALUE,
+                Double.MIN_VALUE, Double.longBitsToDouble(0x7FF8_0000_0000_0001L)};
+        List<SensorData> rows = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            rows.add(new SensorData("s", Instant.ofEpochMilli(1_000L * i), Map.of("value", values[i]), null));
+        }
+
+        List<SensorData> decoded = readAll(write(rows));
+
+        assertThat(decoded).hasSize(values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.get(i).getReadings().get("value")))
+                    .as("value %d", i)
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+
+    @Test
+    void storesNullAndMissingReadingsAsAbsentAndKeepsMetadataAndNanos() throws IOException {
+        Map<String, Double> withNull = new LinkedHashMap<>();
+        withNull.put("temperature", 20.5);
+        withNull.put("humidity", null);
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("location", "hall");
+        metadata.put("note", null);
+        List<SensorData> rows = List.of(
+                new SensorData("s", Instant.ofEpochSecond(10, 123_456_789), withNull, metadata),
+                new SensorData("s", Instant.ofEpochSecond(11), Map.of("humidity", 40.0), null),
+                new SensorData("s", Instant.ofEpochSecond(12), null, metadata));
+
+        List<SensorData> decoded = readAll(write(rows));
+
+        assertThat(decoded.get(0).getTimestamp()).isEqualTo(Instant.ofEpochSecond(10, 123_456_789));
+        assertThat(decoded.get(0).getReadings()).containsExactly(Map.entry("temperature", 20.5));
+        assertThat(decoded.get(0).getMetadata()).isEqualTo(metadata);
+        assertThat(decoded.get(1).getReadings()).containsExactly(Map.entry("humidity", 40.0));
+        assertThat(decoded.get(1).getMetadata()).isNull();
+        assertThat(decoded.get(2).getReadings()).isEmpty();
+        assertThat(decoded.get(2).getMetadata()).isEqualTo(metadata);
+    }
+
+    @Test
+    void readsOnlyTheRequestedRangeIncludingRepeatedTimestampsAndStopsWhenAsked() throws IOException {
+        long[] timestamps = {-5_000, 1_000, 2_000, 2_000, 3_000, 4_000};
+        List<SensorData> rows = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            rows.add(new SensorData("s", Instant.ofEpochMilli(timestamps[i]), Map.of("seq", (double) i), null));
+        }
+        Path file = write(rows);
+
+        List<Double> inRange = new ArrayList<>();
+        ColumnarSegmentReader.read(file, 2_000, 3_000, data -> inRange.add(data.getReadings().get("seq")));
+        List<Double> stopped = new ArrayList<>();
+        boolean completed = ColumnarSegmentReader.read(file, Long.MIN_VALUE, Long.MAX_VALUE,
+                data -> stopped.add(data.getReadings().get("seq")) && stopped.size() < 2);
+
+        assertThat(inRange).containsExactly(2.0, 3.0, 4.0);
+        assertThat(stopped).containsExactly(0.0, 1.0);
+        assertThat(completed).isFalse();
+        assertThat(readAll(file).get(0).getTimestamp()).isEqualTo(Instant.ofEpochMilli(-5_000));
+    }
+
+    @Test
+    void writesAndReadsAnEmptySegment() throws IOException {
+        Path file = write(List.of());
+
+        assertThat(readAll(file)).isEmpty();
+    }
+
+    @Test
+    void rejectsOutOfOrderRows() {
+        List<SensorData> rows = List.of(
+                new SensorData("s", Instant.ofEpochMilli(2_000), Map.of("a", 1.0), null),
+                new SensorData("s", Instant.ofEpochMilli(1_000), Map.of("a", 2.0), null));
+
+        assertThatThrownBy(() -> ColumnarSegmentWriter.write(OutputStream.nullOutputStream(), "s", rows))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("out of order");
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        Path file = directory.resolve("other.seg");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5});
+
+        assertThatThrownBy(() -> readAll(file)).isInstanceOf(IOException.class);
+    }
+
+    private Path write(List<SensorData> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarSegmentWriter.write(out, "s", rows);
+        Path file = Files.createTempFile(directory, "segment", ".seg");
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    private static List<SensorData> readAll(Path file) throws IOException {
+        List<SensorData> rows = new ArrayList<>();
+        assertThat(ColumnarSegmentReader.read(file, Long.MIN_VALUE, Long.MAX_VALUE, rows::add)).isTrue();
+        return rows;
+    }
+}
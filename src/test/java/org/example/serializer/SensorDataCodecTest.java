@@ -0,0 +1,132 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorDataCodecTest {
+
+    private final SensorDataCodec codec = new SensorDataCodec(List.of("temperature", "humidity", "location"));
+
+    @Test
+    void roundTripsDictionaryAndInlineNames() {
+        Map<String, Double> readings = new LinkedHashMap<>();
+        readings.put("temperature", 21.5);
+        readings.put("co2", 412.0);
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("location", "hall");
+        metadata.put("firmware", "1.2.3");
+        SensorData data = new SensorData("sensor-1", Instant.parse("2024-03-01T12:00:00.123Z"), readings, metadata);
+
+        SensorData decoded = codec.decode(codec.encode(data));
+
+        assertThat(decoded).isEqualTo(data);
+        assertThat(decoded.getReadings().keySet()).containsExactly("temperature", "co2");
+        assertThat(decoded.getMetadata().keySet()).containsExactly("location", "firmware");
+    }
+
+    @Test
+    void keepsNaNInfinitiesNegativesAndSignedZeroBitExact() {
+        double[] values = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, -273.15, Double.MIN_VALUE,
+                -Double.MAX_VALUE};
+        Map<String, Double> readings = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            readings.put("r" + i, values[i]);
+        }
+
+        SensorData decoded = codec.decode(codec.encode(new SensorData("s", Instant.EPOCH, readings, null)));
+
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.getReadings().get("r" + i)))
+                    .as("r" + i)
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+
+    @Test
+    void distinguishesNullValuesFromMissingMaps() {
+        Map<String, Double> readings = new LinkedHashMap<>();
+        readings.put("temperature", null);
+        readings.put("custom", null);
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("location", null);
+
+        SensorData withNulls = codec.decode(codec.encode(new SensorData("s", Instant.EPOCH, readings, metadata)));
+        SensorData withoutMaps = codec.decode(codec.encode(new SensorData("s", Instant.EPOCH, null, null)));
+        SensorData emptyMaps = codec.decode(codec.encode(new SensorData("s", Instant.EPOCH, Map.of(), Map.of())));
+
+        assertThat(withNulls.getReadings()).containsEntry("temperature", null).containsEntry("custom", null);
+        assertThat(withNulls.getMetadata()).containsEntry("location", null);
+        assertThat(withoutMaps.getReadings()).isNull();
+        assertThat(withoutMaps.getMetadata()).isNull();
+        assertThat(emptyMaps.getReadings()).isEmpty();
+        assertThat(emptyMaps.getMetadata()).isEmpty();
+    }
+
+    @Test
+    void roundTripsSchemaReadingsBitExact() {
+        double[] values = {21.5, Double.NaN, -0.0, Double.POSITIVE_INFINITY, -273.15};
+        SensorData data = new SensorData("sensor-1", Instant.parse("2024-03-01T12:00:00.123Z"), null, null);
+        data.setSchemaId(300);
+        data.setValues(values);
+
+        SensorData decoded = codec.decode(codec.encode(data));
+
+        assertThat(decoded.getSchemaId()).isEqualTo(300);
+        assertThat(decoded.getReadings()).isNull();
+        assertThat(decoded.getMetadata()).isNull();
+        assertThat(decoded.getValues()).hasSameSizeAs(values);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.getValues()[i])).as("value %d", i)
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+        assertThat(decoded).isEqualTo(data);
+    }
+
+    @Test
+    void roundTripsTimestampsBeforeTheEpochAndSubMillisecondNanos() {
+        for (Instant timestamp : List.of(Instant.parse("1969-12-31T23:59:59.999Z"), Instant.parse("1900-01-01T00:00:00Z"),
+                Instant.parse("2024-03-01T12:00:00.123456789Z"), Instant.ofEpochSecond(-1, 1))) {
+            SensorData decoded = codec.decode(codec.encode(new SensorData("s", timestamp, null, null)));
+            assertThat(decoded.getTimestamp()).isEqualTo(timestamp);
+        }
+        assertThat(codec.decode(codec.encode(new SensorData("s", null, null, null))).getTimestamp()).isNull();
+    }
+
+    @Test
+    void roundTripsNonAsciiStrings() {
+        SensorData data = new SensorData("capteur-é-東京", Instant.EPOCH, Map.of("température", 1.0), Map.of("note", "ünïcødé ✓"));
+
+        assertThat(codec.decode(codec.encode(data))).isEqualTo(data);
+    }
+
+    @Test
+    void rejectsTruncatedInputAndUnknownVersions() {
+        byte[] encoded = codec.encode(new SensorData("sensor-1", Instant.EPOCH, Map.of("temperature", 1.0), null));
+
+        assertThat(SensorDataCodec.isEncoded(encoded)).isTrue();
+        assertThat(SensorDataCodec.isEncoded("{\"sensor_id\":\"s\"}".getBytes())).isFalse();
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, encoded.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        byte[] unknownVersion = encoded.clone();
+        unknownVersion[0] = 0x7F;
+        assertThatThrownBy(() -> codec.decode(unknownVersion)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsCodesBeyondTheDictionary() {
+        byte[] encoded = codec.encode(new SensorData("s", Instant.EPOCH, Map.of("location", 1.0), null));
+
+        assertThatThrownBy(() -> new SensorDataCodec(List.of("temperature")).decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown reading name code");
+    }
+}
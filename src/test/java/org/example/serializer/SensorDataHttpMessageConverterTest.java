@@ -0,0 +1,73 @@
+package org.example.serializer;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.example.model.SensorData;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorDataHttpMessageConverterTest {
+
+    private static final Type SENSOR_DATA_LIST = new ParameterizedTypeReference<List<SensorData>>() { }.getType();
+
+    private final SensorDataHttpMessageConverter converter = new SensorDataHttpMessageConverter();
+
+    @Test
+    void readsAJsonReading() throws IOException {
+        MockHttpInputMessage body = body(MediaType.APPLICATION_JSON,
+                "{\"sensor_id\":\"s\",\"timestamp\":\"2024-03-01T12:00:00Z\",\"readings\":{\"t\":21.5}}".getBytes(StandardCharsets.UTF_8));
+
+        Object data = converter.read(SensorData.class, body);
+
+        assertThat(data).isEqualTo(new SensorData("s", Instant.parse("2024-03-01T12:00:00Z"), Map.of("t", 21.5), null));
+    }
+
+    @Test
+    void readsACborBatch() throws IOException {
+        byte[] cbor = new CBORMapper().writeValueAsBytes(List.of(
+                Map.of("sensor_id", "a", "readings", Map.of("t", 1.0)),
+                Map.of("sensor_id", "b", "readings", Map.of("t", 2.0))));
+
+        Object batch = converter.read(SENSOR_DATA_LIST, null, body(MediaType.APPLICATION_CBOR, cbor));
+
+        assertThat(batch).asList().extracting("sensorId").containsExactly("a", "b");
+    }
+
+    @Test
+    void readsOnlyReadingsInItsMediaTypesAndNeverWrites() {
+        assertThat(converter.canRead(SensorData.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(SensorData.class, SensorDataHttpMessageConverter.APPLICATION_SMILE)).isTrue();
+        assertThat(converter.canRead(SENSOR_DATA_LIST, null, MediaType.APPLICATION_CBOR)).isTrue();
+        assertThat(converter.canRead(SensorData.class, MediaType.APPLICATION_XML)).isFalse();
+        assertThat(converter.canRead(String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(List.class, null, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(SensorData.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(SENSOR_DATA_LIST, null, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedAndNullBodies() {
+        assertThatThrownBy(() -> converter.read(SensorData.class, body(MediaType.APPLICATION_JSON, "{\"sensor_id\":".getBytes())))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+        assertThatThrownBy(() -> converter.read(SensorData.class, body(MediaType.APPLICATION_JSON, "null".getBytes())))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    private static MockHttpInputMessage body(MediaType contentType, byte[] content) {
+        MockHttpInputMessage message = new MockHttpInputMessage(content);
+        message.getHeaders().setContentType(contentType);
+        return message;
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.serializer;
+
+import org.example.model.SensorData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeSeriesChunkEncoderTest {
+
+    @Test
+    void roundTripsEveryDeltaOfDeltaWidth() {
+        // Regular 1s spacing, then jitter hitting the 7-, 9-, 12- and 64-bit delta-of-delta encodings.
+        long[] timestamps = {1_000, 2_000, 3_000, 4_050, 5_300, 7_000, 7_001, 9_000_000_000L, 9_000_000_000L};
+        List<SensorData> readings = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            readings.add(reading(timestamps[i], Map.of("temperature", 20.0 + i)));
+        }
+
+        assertThat(roundTrip(readings)).containsExactlyElementsOf(readings);
+    }
+
+    @Test
+    void roundTripsNaNNullNegativeAndExtremeValuesBitExact() {
+        double[] values = {0.0, -0.0, -1.5, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE,
+                Double.MAX_VALUE, -Double.MAX_VALUE, 1e-300, Double.longBitsToDouble(0x7FF8_0000_0000_0001L)};
+        List<SensorData> readings = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            Map<String, Double> map = new LinkedHashMap<>();
+            map.put("value", values[i]);
+            map.put("gap", i % 2 == 0 ? null : (double) -i);
+            readings.add(reading(1_000L * i, map));
+        }
+
+        List<SensorData> decoded = roundTrip(readings);
+
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.get(i).getReadings().get("value")))
+                    .as("value %d", i)
+                    .isEqualTo(Double.doubleToRawLongBits(values[i]));
+            assertThat(decoded.get(i).getReadings().get("gap")).isEqualTo(i % 2 == 0 ? null : (double) -i);
+        }
+    }
+
+    @Test
+    void roundTripsRandomWalksOverManyColumns() {
+        Random random = new Random(42);
+        List<SensorData> readings = new ArrayList<>();
+        double[] walk = new double[8];
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 1_000; i++) {
+            Map<String, Double> map = new LinkedHashMap<>();
+            for (int c = 0; c < walk.length; c++) {
+                walk[c] += random.nextGaussian() * (c + 1);
+                map.put("c" + c, c == 0 ? Math.round(walk[c]) : walk[c]);
+            }
+            timestamp += 900 + random.nextInt(200);
+            readings.add(reading(timestamp, map));
+        }
+
+        assertThat(roundTrip(readings)).containsExactlyElementsOf(readings);
+    }
+
+    @Test
+    void encodesAnEmptyChunk() {
+        TimeSeriesChunkEncoder encoder = new TimeSeriesChunkEncoder("s", List.of("a"), null);
+
+        TimeSeriesChunkDecoder decoder = new TimeSeriesChunkDecoder(encoder.toByteArray());
+
+        assertThat(decoder.getPointCount()).isZero();
+        assertThat(decoder.hasNext()).isFalse();
+    }
+
+    @Test
+    void keepsMetadataAndMapsNullMetadataValuesToEmptyStrings() {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("location", "hall");
+        metadata.put("note", null);
+        SensorData data = new SensorData("s", Instant.ofEpochMilli(1_000), Map.of("a", 1.0), metadata);
+        TimeSeriesChunkEncoder encoder = TimeSeriesChunkEncoder.forReading(data);
+        encoder.append(data);
+
+        SensorData decoded = new TimeSeriesChunkDecoder(encoder.toByteArray()).next();
+
+        assertThat(decoded.getMetadata()).containsEntry("location", "hall").containsEntry("note", "");
+    }
+
+    @Test
+    void acceptsOnlyInOrderReadingsOfTheSameShape() {
+        SensorData first = reading(2_000, Map.of("a", 1.0, "b", 2.0));
+        TimeSeriesChunkEncoder encoder = TimeSeriesChunkEncoder.forReading(first);
+        encoder.append(first);
+
+        assertThat(encoder.accepts(reading(2_000, Map.of("b", 3.0, "a", 4.0)))).isTrue();
+        assertThat(encoder.accepts(reading(1_999, Map.of("a", 1.0, "b", 2.0)))).isFalse();
+        assertThat(encoder.accepts(reading(3_000, Map.of("a", 1.0)))).isFalse();
+        assertThat(encoder.accepts(reading(3_000, Map.of("a", 1.0, "c", 2.0)))).isFalse();
+        assertThat(encoder.accepts(new SensorData("s", Instant.ofEpochMilli(3_000), Map.of("a", 1.0, "b", 2.0), Map.of("k", "v"))))
+                .isFalse();
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] chunk = new TimeSeriesChunkEncoder("s", List.of("a"), null).toByteArray();
+        chunk[0] = 0x7F;
+
+        assertThatThrownBy(() -> new TimeSeriesChunkDecoder(chunk)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SensorData reading(long timestamp, Map<String, Double> readings) {
+        return new SensorData("sensor-1", Instant.ofEpochMilli(timestamp), new LinkedHashMap<>(readings), null);
+    }
+
+    private static List<SensorData> roundTrip(List<SensorData> readings) {
+        TimeSeriesChunkEncoder encoder = TimeSeriesChunkEncoder.forReading(readings.get(0));
+        for (SensorData data : readings) {
+            assertThat(encoder.accepts(data)).isTrue();
+            encoder.append(data);
+        }
+        TimeSeriesChunkDecoder decoder = new TimeSeriesChunkDecoder(encoder.toByteArray());
+        assertThat(decoder.getPointCount()).isEqualTo(readings.size());
+        assertThat(decoder.getFirstTimestamp()).isEqualTo(readings.get(0).getTimestamp().toEpochMilli());
+        assertThat(decoder.getLastTimestamp()).isEqualTo(readings.get(readings.size() - 1).getTimestamp().toEpochMilli());
+        List<SensorData> decoded = new ArrayList<>();
+        decoder.forEachRemaining(decoded::add);
+        return decoded;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.service;
+
+import org.example.model.AggregationResult;
+import org.example.model.SensorData;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AggregationServiceTest {
+
+    private static RedisTestContext context;
+    private static SensorService sensorService;
+    private static RollupService rollupService;
+    private static AggregationService aggregationService;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("rollup.resolutions", "1m:7d,1h:90d"),
+                SensorDataValidator.class, ThroughputMonitor.class, SensorIndex.class, RollupService.class,
+                LatestReadingCache.class, ChunkedSensorStore.class, SegmentArchive.class, IngestionStreamQueue.class,
+                SensorService.class, AggregationService.class);
+        sensorService = context.bean(SensorService.class);
+        rollupService = context.bean(RollupService.class);
+        aggregationService = context.bean(AggregationService.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        rollupService.flush();
+        context.flushAll();
+    }
+
+    @Test
+    void servesRecentAlignedRangesFromTheCoarsestRetainedRollup() {
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(Duration.ofHours(2));
+        ingest("recent", hour.plusSeconds(30), 1.0);
+        ingest("recent", hour.plusSeconds(90), 3.0);
+        rollupService.flush();
+
+        AggregationResult hourly = aggregate("recent", hour, hour.plus(Duration.ofHours(1)), Duration.ofHours(1), "auto");
+        AggregationResult minutely = aggregate("recent", hour, hour.plus(Duration.ofHours(1)), Duration.ofMinutes(1), "auto");
+
+        assertThat(hourly.getSource()).isEqualTo("rollup:1h");
+        assertThat(hourly.getBuckets()).singleElement()
+                .satisfies(bucket -> assertThat(bucket.getReadings().get("value").get("sum").doubleValue()).isEqualTo(4.0));
+        assertThat(minutely.getSource()).isEqualTo("rollup:1m");
+        assertThat(minutely.getBuckets()).hasSize(2);
+    }
+
+    @Test
+    void fallsBackToRawReadingsOnceTheFinerRollupHasExpired() {
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(Duration.ofDays(10));
+        ingest("old", hour.plusSeconds(30), 1.0);
+        ingest("old", hour.plusSeconds(90), 3.0);
+        rollupService.flush();
+
+        AggregationResult minutely = aggregate("old", hour, hour.plus(Duration.ofHours(1)), Duration.ofMinutes(1), "auto");
+        AggregationResult hourly = aggregate("old", hour, hour.plus(Duration.ofHours(1)), Duration.ofHours(1), "auto");
+
+        assertThat(minutely.getSource()).isEqualTo("raw");
+        assertThat(minutely.getBuckets()).hasSize(2);
+        assertThat(hourly.getSource()).isEqualTo("rollup:1h");
+        assertThatThrownBy(() -> aggregate("old", hour, hour.plus(Duration.ofHours(1)), Duration.ofMinutes(1), "rollup"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void trimsIndexEntriesOfBucketsOlderThanTheirRetention() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+        ingest("trimmed", now.minus(Duration.ofDays(8)), 1.0);
+        rollupService.flush();
+        ingest("trimmed", now, 2.0);
+        rollupService.flush();
+
+        RollupService.Resolution minute = rollupService.getResolutions().get(0);
+        Set<Object> starts = context.template().opsForZSet().range(RollupService.indexKey("trimmed", minute), 0, -1);
+
+        assertThat(starts).hasSize(1);
+    }
+
+    private static void ingest(String sensorId, Instant timestamp, double value) {
+        sensorService.ingestData(new SensorData(sensorId, timestamp, Map.of("value", value), null));
+    }
+
+    private static AggregationResult aggregate(String sensorId, Instant start, Instant end, Duration step, String source) {
+        return aggregationService.aggregate(sensorId, start, end, step, List.of("sum", "count"), Set.of(), source);
+    }
+}
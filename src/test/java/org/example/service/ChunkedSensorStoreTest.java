@@ -0,0 +1,161 @@
+package org.example.service;
+
+import org.example.model.SensorData;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class ChunkedSensorStoreTest {
+
+    private static RedisTestContext context;
+    private static ChunkedSensorStore store;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("storage.chunk.max-points", 4, "storage.chunk.max-span-minutes", 60),
+                ChunkedSensorStore.class);
+        store = context.bean(ChunkedSensorStore.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        store.sealAll();
+        store.sealExpiredHeads();
+        context.flushAll();
+    }
+
+    @Test
+    void buffersLateReadingsWithoutSealingTheHead() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        append("late", base, 0, 10, 20);
+        append("late", base, 5, 15);
+
+        assertThat(chunkCount("late")).isZero();
+        assertThat(timestamps("late", base)).containsExactly(0L, 5L, 10L, 15L, 20L);
+
+        store.sealAll();
+
+        assertThat(chunkCount("late")).isEqualTo(2);
+        assertThat(timestamps("late", base)).containsExactly(0L, 5L, 10L, 15L, 20L);
+        assertThat(store.getLatestReading("late").getTimestamp()).isEqualTo(base.plusMillis(20));
+    }
+
+    @Test
+    void sealsAFullLateBufferIntoOrderedChunks() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        append("burst", base, 100);
+        append("burst", base, 40, 10, 30, 20);
+
+        assertThat(chunkCount("burst")).isEqualTo(1);
+        assertThat(timestamps("burst", base)).containsExactly(10L, 20L, 30L, 40L, 100L);
+    }
+
+    @Test
+    void keepsChunksThatFailedToPersistAndRetriesThem() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        context.stopNode(0);
+        try {
+            append("outage", base, 0, 1, 2, 3);
+            assertThat(store.getUnpersistedChunkCount()).isEqualTo(1);
+            assertThatThrownBy(() -> store.getReadingsInRange("outage", base, base.plusSeconds(1)))
+                    .isInstanceOf(RuntimeException.class);
+        } finally {
+            context.startNode(0);
+        }
+
+        await().atMost(Duration.ofSeconds(30)).pollInterval(Duration.ofMillis(500)).untilAsserted(() -> {
+            store.sealExpiredHeads();
+            assertThat(store.getUnpersistedChunkCount()).isZero();
+        });
+        assertThat(chunkCount("outage")).isEqualTo(1);
+        assertThat(timestamps("outage", base)).containsExactly(0L, 1L, 2L, 3L);
+    }
+
+    @Test
+    void keepsAChunkVisibleWhileItIsBeingWritten() throws IOException {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        append("inflight", base, 0, 1, 2);
+        pauseClients(1_500);
+
+        // The fourth point seals the chunk, whose write waits for the pause to end.
+        CompletableFuture<Void> sealing = CompletableFuture.runAsync(() -> append("inflight", base, 3));
+        await().atMost(Duration.ofSeconds(1)).until(() -> store.getUnpersistedChunkCount() == 1);
+        assertThat(sealing).isNotDone();
+        // Started before the write lands, the read finds the chunk pending and, once written, in Redis too.
+        assertThat(timestamps("inflight", base)).containsExactly(0L, 1L, 2L, 3L);
+
+        sealing.join();
+        assertThat(store.getUnpersistedChunkCount()).isZero();
+        assertThat(chunkCount("inflight")).isEqualTo(1);
+        assertThat(timestamps("inflight", base)).containsExactly(0L, 1L, 2L, 3L);
+    }
+
+    @Test
+    void evictsHeadsOfIdleSensors() {
+        Instant longAgo = Instant.now().minus(Duration.ofHours(3));
+        append("idle", longAgo, 0, 1);
+        append("active", Instant.now(), 0);
+        assertThat(store.getHeadCount()).isEqualTo(2);
+
+        store.sealExpiredHeads();
+
+        assertThat(store.getHeadCount()).isEqualTo(1);
+        assertThat(chunkCount("idle")).isEqualTo(1);
+        append("idle", longAgo, 2);
+        store.sealAll();
+        assertThat(timestamps("idle", longAgo)).containsExactly(0L, 1L, 2L);
+    }
+
+    private static void append(String sensorId, Instant base, long... offsets) {
+        for (long offset : offsets) {
+            store.append(new SensorData(sensorId, base.plusMillis(offset), Map.of("value", (double) offset), null));
+        }
+    }
+
+    private static List<Long> timestamps(String sensorId, Instant base) {
+        return store.getReadingsInRange(sensorId, base.minusSeconds(1), base.plusSeconds(1)).stream()
+                .map(data -> data.getTimestamp().toEpochMilli() - base.toEpochMilli())
+                .toList();
+    }
+
+    /**
+     * Holds every client's commands on the node for {@code millis}, sent over a connection of its own.
+     */
+    private static void pauseClients(long millis) throws IOException {
+        try (Socket socket = new Socket("localhost", context.port(0))) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("CLIENT PAUSE " + millis + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            assertThat((char) in.read()).isEqualTo('+');
+        }
+    }
+
+    private static long chunkCount(String sensorId) {
+        Long count = context.template().opsForZSet().zCard(ChunkedSensorStore.indexKey(sensorId));
+        return count == null ? 0 : count;
+    }
+}
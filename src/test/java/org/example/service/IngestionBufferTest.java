@@ -0,0 +1,68 @@
+package org.example.service;
+
+import org.example.model.SensorData;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class IngestionBufferTest {
+
+    private static RedisTestContext context;
+    private static IngestionBuffer buffer;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("ingest.write-behind.enabled", true, "ingest.write-behind.flush-size", 2,
+                        "ingest.write-behind.flush-interval-ms", 200, "ingest.write-behind.drainers", 2),
+                SensorDataValidator.class, ThroughputMonitor.class, SensorIndex.class, RollupService.class,
+                LatestReadingCache.class, ChunkedSensorStore.class, SegmentArchive.class, IngestionStreamQueue.class,
+                SensorService.class, IngestionBuffer.class);
+        buffer = context.bean(IngestionBuffer.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void parksIdleDrainersUntilReadingsAreEnqueued() {
+        awaitDrainersParked();
+
+        // A full batch is written at once, a partial one when the flush interval has passed since its reading.
+        buffer.enqueueBatch(List.of(reading(1), reading(2)));
+        await().atMost(Duration.ofSeconds(5)).until(() -> flushedReadings() == 2);
+        buffer.enqueue(reading(3));
+        await().atMost(Duration.ofSeconds(5)).until(() -> flushedReadings() == 3);
+
+        awaitDrainersParked();
+        assertThat(context.template().opsForZSet().zCard("sensor:buffered:data")).isEqualTo(3);
+    }
+
+    /**
+     * Idle drainers park without a timeout, instead of waking up every so often to poll the queue.
+     */
+    private static void awaitDrainersParked() {
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(Thread.getAllStackTraces().keySet())
+                .filteredOn(thread -> thread.getName().startsWith("ingest-drainer-"))
+                .hasSize(2)
+                .allSatisfy(thread -> assertThat(thread.getState()).isEqualTo(Thread.State.WAITING)));
+    }
+
+    private static long flushedReadings() {
+        return ((Number) buffer.getStats().get("flushed_readings")).longValue();
+    }
+
+    private static SensorData reading(long offset) {
+        return new SensorData("buffered", Instant.now().plusMillis(offset), Map.of("value", (double) offset), null);
+    }
+}
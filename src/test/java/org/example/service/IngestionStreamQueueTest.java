@@ -0,0 +1,97 @@
+package org.example.service;
+
+import org.example.model.SensorData;
+import org.example.model.WorkBatch;
+import org.example.model.Worker;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class IngestionStreamQueueTest {
+
+    private static RedisTestContext context;
+    private static IngestionStreamQueue streamQueue;
+    private static WorkerService workerService;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("queue.streams.enabled", true, "queue.streams.shards", 1,
+                "queue.streams.claim-idle", "1s"), IngestionStreamQueue.class, WorkerService.class);
+        streamQueue = context.bean(IngestionStreamQueue.class);
+        workerService = context.bean(WorkerService.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        context.flushAll();
+        streamQueue.createGroups();
+    }
+
+    @Test
+    void removesTheConsumersOfGoneWorkersOnceTheirEntriesAreReclaimed() {
+        register("leaving", System.currentTimeMillis());
+        register("crashed", System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        streamQueue.publish(List.of(new SensorData("s", Instant.now(), Map.of("t", 1.0), null)));
+        assertThat(streamQueue.poll("leaving", 10, 0).getItems()).hasSize(1);
+        assertThat(streamQueue.poll("crashed", 10, 0).getItems()).isEmpty();
+
+        workerService.deregisterWorker("leaving");
+        workerService.sweep();
+
+        // The crashed worker held nothing, the leaving one keeps its consumer until its entry is reclaimed.
+        assertThat(consumers()).containsExactly("leaving");
+        WorkBatch reclaimed = await().atMost(Duration.ofSeconds(5))
+                .until(() -> streamQueue.poll("taking-over", 10, 0), batch -> batch.getReclaimed() == 1);
+        streamQueue.removeRetiredConsumers();
+        assertThat(consumers()).containsExactly("taking-over");
+        assertThat(context.template().hasKey("ingest:stream:retired-consumers")).isFalse();
+        assertThat(streamQueue.acknowledge(List.of(reclaimed.getItems().get(0).getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void keepsTheConsumerOfAWorkerThatRegistersAgain() {
+        register("returning", System.currentTimeMillis());
+        streamQueue.publish(List.of(new SensorData("s", Instant.now(), Map.of("t", 1.0), null)));
+        assertThat(streamQueue.poll("returning", 10, 0).getItems()).hasSize(1);
+
+        workerService.deregisterWorker("returning");
+        register("returning", System.currentTimeMillis());
+        streamQueue.removeRetiredConsumers();
+
+        assertThat(consumers()).contains("returning");
+        assertThat(context.template().hasKey("ingest:stream:retired-consumers")).isFalse();
+    }
+
+    private static List<String> consumers() {
+        StreamInfo.XInfoConsumers consumers = context.template().execute((RedisCallback<StreamInfo.XInfoConsumers>) connection ->
+                connection.streamCommands().xInfoConsumers("ingest:stream:0".getBytes(StandardCharsets.UTF_8), "workers"));
+        return consumers.stream().map(StreamInfo.XInfoConsumer::consumerName).toList();
+    }
+
+    private static void register(String workerId, long lastHeartbeat) {
+        Worker worker = new Worker();
+        worker.setWorkerId(workerId);
+        worker.setStatus("active");
+        workerService.registerWorker(worker);
+        context.template().execute((RedisCallback<Boolean>) connection -> connection.zSetCommands()
+                .zAdd("workers:heartbeats".getBytes(StandardCharsets.UTF_8), lastHeartbeat, workerId.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.service;
+
+import org.example.model.ReadingsPage;
+import org.example.model.SensorData;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetentionServiceTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    private static RedisTestContext context;
+    private static SensorService sensorService;
+    private static RetentionService retentionService;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("retention.enabled", true, "retention.hot-window", "1h",
+                "retention.archive-dir", archiveDir.toString()),
+                SensorDataValidator.class, ThroughputMonitor.class, SensorIndex.class, RollupService.class,
+                LatestReadingCache.class, ChunkedSensorStore.class, SegmentArchive.class, IngestionStreamQueue.class,
+                SensorService.class, RetentionService.class);
+        sensorService = context.bean(SensorService.class);
+        retentionService = context.bean(RetentionService.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        context.flushAll();
+    }
+
+    @Test
+    void pagesMergeOverlappingSegmentsAndRedisReadingsInTimestampOrder() {
+        Instant base = Instant.now().minus(Duration.ofHours(3)).truncatedTo(ChronoUnit.MILLIS);
+        long recent = Duration.ofHours(3).toMillis();
+        ingest(base, 0, 0);
+        ingest(base, 10, 1);
+        ingest(base, 20, 2);
+        retentionService.archiveExpired();
+        // Archived by a second run into a segment overlapping the first one.
+        ingest(base, 15, 3);
+        retentionService.archiveExpired();
+        // Late readings below the hot window that are still in Redis, one sharing a timestamp with the archive.
+        ingest(base, 5, 4);
+        ingest(base, 20, 5);
+        ingest(base, recent, 6);
+
+        List<String> expected = List.of("0:0", "5:4", "10:1", "15:3", "20:2", "20:5", recent + ":6");
+        assertThat(walkPages("retained", base, 1)).containsExactlyElementsOf(expected);
+        assertThat(walkPages("retained", base, 2)).containsExactlyElementsOf(expected);
+        assertThat(walkPages("retained", base, 100)).containsExactlyElementsOf(expected);
+        assertThat(context.template().opsForZSet().zCard("sensor:retained:data")).isEqualTo(3);
+    }
+
+    @Test
+    void skipsTheRunWhileAnotherNodeHoldsTheLock() {
+        Instant old = Instant.now().minus(Duration.ofHours(3)).truncatedTo(ChronoUnit.MILLIS);
+        ingest(old, 0, 0);
+        context.template().opsForValue().set("retention:lock", "other-node", Duration.ofMinutes(1));
+
+        retentionService.archiveExpired();
+
+        assertThat(context.template().opsForZSet().zCard("sensor:retained:data")).isEqualTo(1);
+        assertThat(context.template().opsForValue().get("retention:lock")).isEqualTo("other-node");
+    }
+
+    private static void ingest(Instant base, long offset, int seq) {
+        sensorService.ingestData(new SensorData("retained", base.plusMillis(offset), Map.of("seq", (double) seq), null));
+    }
+
+    /**
+     * The readings of the sensor as {@code offset:seq}, fetched page by page.
+     */
+    private static List<String> walkPages(String sensorId, Instant base, int limit) {
+        List<String> readings = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReadingsPage page = sensorService.getReadingsPage(sensorId, base, Instant.now().plusSeconds(60), cursor, limit);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(limit);
+            for (SensorData data : page.getItems()) {
+                readings.add((data.getTimestamp().toEpochMilli() - base.toEpochMilli()) + ":"
+                        + data.getReadings().get("seq").intValue());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return readings;
+    }
+}
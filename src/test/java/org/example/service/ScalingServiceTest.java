@@ -0,0 +1,133 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.ScalingRecommendation;
+import org.example.model.Worker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScalingServiceTest {
+
+    private final WorkerService workerService = mock(WorkerService.class);
+    private final ThroughputMonitor throughputMonitor = mock(ThroughputMonitor.class);
+    private final IngestionStreamQueue queue = mock(IngestionStreamQueue.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AnnotationConfigApplicationContext context;
+    private ScalingService scalingService;
+
+    @BeforeEach
+    void start() throws IOException {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "scaling.cooldown.scale-up", "0s", "scaling.cooldown.scale-down", "0s")));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.registerBean(WorkerService.class, () -> workerService);
+        context.registerBean(ThroughputMonitor.class, () -> throughputMonitor);
+        context.registerBean(IngestionStreamQueue.class, () -> queue);
+        context.registerBean(ObjectMapper.class, () -> objectMapper);
+        context.register(ScalingService.class);
+        context.refresh();
+        scalingService = context.getBean(ScalingService.class);
+    }
+
+    @AfterEach
+    void stop() {
+        context.close();
+    }
+
+    @Test
+    void workersKeepingUpWithInFlightEntriesDoNotFeedBackIntoMoreWorkers() throws IOException {
+        int workers = 2;
+        for (int round = 0; round < 10; round++) {
+            // The workers process everything that arrives and always hold a batch they have not acknowledged yet.
+            observe(3_000, workers, 3_000.0 / workers, 500, 0, 10);
+            ScalingRecommendation recommendation = recommend();
+            assertThat(recommendation.getWorkerCapacity()).isEqualTo(1_500);
+            workers = recommendation.getRecommendedWorkers();
+        }
+
+        // 3000/s at 70% of 1500/s per worker.
+        assertThat(workers).isEqualTo(3);
+    }
+
+    @Test
+    void learnsTheCapacityOnlyFromASustainedGrowingLag() throws IOException {
+        observe(3_000, 3, 800, 0, 1_000, 10);
+        assertThat(recommend().getWorkerCapacity()).isEqualTo(1_500);
+
+        observe(3_000, 3, 800, 0, 1_000, 2);
+        observe(3_000, 3, 800, 0, 2_000, 2);
+        observe(3_000, 3, 800, 0, 3_000, 1);
+        assertThat(recommend().getWorkerCapacity()).isEqualTo(800);
+    }
+
+    @Test
+    void clampsTheLearnedCapacityToAFractionOfTheConfiguredOne() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            observe(3_000, 3, 50, 0, i * 1_000L, 1);
+        }
+
+        assertThat(recommend().getWorkerCapacity()).isEqualTo(375);
+    }
+
+    @Test
+    void keepsTheETagAndSkipsListenersWhileOnlyTheFiguresMove() throws IOException {
+        AtomicInteger notified = new AtomicInteger();
+        scalingService.addListener(snapshot -> notified.incrementAndGet());
+        observe(3_000, 3, 1_000, 0, 0, 10);
+
+        ScalingService.RecommendationSnapshot first = scalingService.refreshRecommendation();
+        when(throughputMonitor.getCurrentThroughput()).thenReturn(3_050L);
+        when(queue.getBacklog()).thenReturn(42L);
+        ScalingService.RecommendationSnapshot second = scalingService.refreshRecommendation();
+
+        assertThat(second.json()).isNotEqualTo(first.json());
+        assertThat(second.etag()).isEqualTo(first.etag()).startsWith("W/\"");
+        assertThat(notified).hasValue(1);
+
+        when(workerService.countActiveWorkers()).thenReturn(4);
+        assertThat(scalingService.refreshRecommendation().etag()).isNotEqualTo(first.etag());
+        assertThat(notified).hasValue(2);
+    }
+
+    private void observe(long throughput, int workerCount, double ratePerWorker, long inFlight, long lag, int samples) {
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker();
+            worker.setWorkerId("worker-" + i);
+            worker.setStatus("active");
+            worker.setProcessingRateEwma(ratePerWorker);
+            worker.setHeartbeatSamples(new ArrayList<>(List.of(new Worker.HeartbeatSample(0, 0),
+                    new Worker.HeartbeatSample(1_000, Math.round(ratePerWorker)))));
+            workers.add(worker);
+        }
+        when(throughputMonitor.getCurrentThroughput()).thenReturn(throughput);
+        when(workerService.getAllWorkers()).thenReturn(workers);
+        when(workerService.countActiveWorkers()).thenReturn(workerCount);
+        when(queue.getBacklog()).thenReturn(inFlight + lag);
+        when(queue.getLag()).thenReturn(lag);
+        for (int i = 0; i < samples; i++) {
+            scalingService.sample();
+        }
+    }
+
+    private ScalingRecommendation recommend() throws IOException {
+        return objectMapper.readValue(scalingService.refreshRecommendation().json(), ScalingRecommendation.class);
+    }
+}
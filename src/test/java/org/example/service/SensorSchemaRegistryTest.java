@@ -0,0 +1,128 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.model.SensorData;
+import org.example.model.SensorSchema;
+import org.example.serializer.SensorDataJsonSerializer;
+import org.example.serializer.SensorDataReader;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorSchemaRegistryTest {
+
+    private static RedisTestContext context;
+    private static SensorSchemaRegistry registry;
+    private static SensorDataValidator validator;
+    private static SensorSchema weather;
+    private static ObjectMapper apiMapper;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of(), SensorDataValidator.class);
+        registry = context.bean(SensorSchemaRegistry.class);
+        validator = context.bean(SensorDataValidator.class);
+        weather = registry.register(new SensorSchema(null, "weather", List.of("temperature", "humidity", "pressure"),
+                Map.of("site", "roof")));
+        apiMapper = new ObjectMapper();
+        apiMapper.registerModule(new JavaTimeModule());
+        apiMapper.registerModule(new SimpleModule().addSerializer(SensorData.class, new SensorDataJsonSerializer(registry)));
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void expandsSchemaReadingsWithTheSchemaNamesAndMetadata() {
+        SensorData expanded = registry.expand(schemaReading(21.5, Double.NaN, 1013.0));
+
+        assertThat(expanded.getSchemaId()).isNull();
+        assertThat(expanded.getValues()).isNull();
+        assertThat(expanded.getReadings()).containsExactly(entry("temperature", 21.5), entry("humidity", null),
+                entry("pressure", 1013.0));
+        assertThat(expanded.getMetadata()).isEqualTo(Map.of("site", "roof"));
+        SensorData mapReading = new SensorData("s", Instant.EPOCH, Map.of("t", 1.0), null);
+        assertThat(registry.expand(mapReading)).isSameAs(mapReading);
+        SensorData unknown = schemaReading(1.0, 2.0, 3.0);
+        unknown.setSchemaId(9_999);
+        assertThatThrownBy(() -> registry.expand(unknown)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void visitsEveryPresentReadingOfBothForms() {
+        Map<String, Double> schemaVisited = new LinkedHashMap<>();
+        registry.forEachReading(schemaReading(21.5, Double.NaN, 1013.0), schemaVisited::put);
+        Map<String, Double> readings = new LinkedHashMap<>();
+        readings.put("t", 1.0);
+        readings.put("missing", null);
+        Map<String, Double> mapVisited = new LinkedHashMap<>();
+        registry.forEachReading(new SensorData("s", Instant.EPOCH, readings, null), mapVisited::put);
+
+        assertThat(schemaVisited).containsExactly(Map.entry("temperature", 21.5), Map.entry("pressure", 1013.0));
+        assertThat(mapVisited).containsExactly(Map.entry("t", 1.0));
+    }
+
+    @Test
+    void acceptsASchemaReadingPostedBackInTheShapeItIsReturned() throws IOException {
+        SensorData stored = schemaReading(21.5, Double.NaN, 1013.0);
+        byte[] returned = apiMapper.writeValueAsBytes(stored);
+
+        SensorData posted = read(returned);
+
+        assertThat(apiMapper.readTree(returned).get("readings").has("humidity")).isTrue();
+        assertThat(validator.violations(posted)).isEmpty();
+        assertThat(posted.getReadings()).isNull();
+        assertThat(posted.getMetadata()).isNull();
+        assertThat(posted.getSchemaId()).isEqualTo(weather.getSchemaId());
+        assertThat(posted.getValues()).containsExactly(21.5, Double.NaN, 1013.0);
+    }
+
+    @Test
+    void rejectsSchemaReadingsWhoseNamesOrMetadataDifferFromTheSchema() throws IOException {
+        int schemaId = weather.getSchemaId();
+        SensorData missingName = read(("{\"sensor_id\":\"s\",\"schema_id\":" + schemaId
+                + ",\"readings\":{\"temperature\":1.0,\"humidity\":2.0}}").getBytes());
+        SensorData otherMetadata = read(("{\"sensor_id\":\"s\",\"schema_id\":" + schemaId
+                + ",\"readings\":{\"temperature\":1.0,\"humidity\":2.0,\"pressure\":3.0},\"metadata\":{\"site\":\"cellar\"}}").getBytes());
+        SensorData both = read(("{\"sensor_id\":\"s\",\"schema_id\":" + schemaId
+                + ",\"readings\":{\"temperature\":1.0,\"humidity\":2.0,\"pressure\":3.0},\"values\":[1,2,3]}").getBytes());
+
+        assertThat(validator.violations(missingName))
+                .containsExactly("readings: Readings of a schema ID must be exactly the schema's reading names, or use values");
+        assertThat(validator.violations(otherMetadata)).contains("metadata: Metadata of schema readings is registered with the schema");
+        assertThat(validator.violations(both)).containsExactly("readings: Readings cannot be combined with values");
+    }
+
+    private static SensorData schemaReading(double... values) {
+        SensorData data = new SensorData("sensor-1", Instant.parse("2024-03-01T12:00:00Z"), null, null);
+        data.setSchemaId(weather.getSchemaId());
+        data.setValues(values);
+        return data;
+    }
+
+    private static SensorData read(byte[] body) throws IOException {
+        try (JsonParser parser = apiMapper.getFactory().createParser(body)) {
+            return new SensorDataReader().read(parser);
+        }
+    }
+
+    private static Map.Entry<String, Double> entry(String key, Double value) {
+        return new AbstractMap.SimpleEntry<>(key, value);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.model.ReadingsPage;
+import org.example.model.SensorData;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorServiceTest {
+
+    private static RedisTestContext context;
+    private static SensorService sensorService;
+    private static ChunkedSensorStore chunkedSensorStore;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("storage.engine", "chunked", "storage.chunk.max-points", 3),
+                SensorDataValidator.class, ThroughputMonitor.class, SensorIndex.class, RollupService.class,
+                LatestReadingCache.class, ChunkedSensorStore.class, SegmentArchive.class, IngestionStreamQueue.class,
+                SensorService.class);
+        sensorService = context.bean(SensorService.class);
+        chunkedSensorStore = context.bean(ChunkedSensorStore.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        chunkedSensorStore.sealAll();
+        chunkedSensorStore.sealExpiredHeads();
+        context.flushAll();
+    }
+
+    @Test
+    void pagesOverlappingChunksInTimestampOrderWithoutGapsOrRepeats() {
+        Instant base = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        // 0-20 seal a full chunk, 30 opens the head, 5 and the two 15s arrive late, 40 extends the head.
+        long[] offsets = {0, 10, 20, 30, 5, 15, 15, 40};
+        for (int i = 0; i < offsets.length; i++) {
+            sensorService.ingestData(new SensorData("paged", base.plusMillis(offsets[i]), Map.of("seq", (double) i), null));
+        }
+
+        List<String> inMemory = walkPages(base, 2);
+        chunkedSensorStore.sealAll();
+        List<String> sealed = walkPages(base, 2);
+
+        List<String> expected = List.of("0:0", "5:4", "10:1", "15:5", "15:6", "20:2", "30:3", "40:7");
+        assertThat(inMemory).containsExactlyElementsOf(expected);
+        assertThat(sealed).containsExactlyElementsOf(expected);
+        assertThat(walkPages(base, 1)).containsExactlyElementsOf(expected);
+        assertThat(walkPages(base, 100)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void timesQueriesThatFail() {
+        Timer pageTimer = context.bean(MeterRegistry.class).get("sensors.query").tag("type", "page").timer();
+        long before = pageTimer.count();
+        context.stopNode(0);
+        try {
+            assertThatThrownBy(() -> sensorService.getReadingsPage("down", Instant.EPOCH, Instant.now(), null, 10))
+                    .isInstanceOf(RuntimeException.class);
+        } finally {
+            context.startNode(0);
+        }
+
+        assertThat(pageTimer.count()).isEqualTo(before + 1);
+    }
+
+    /**
+     * The readings of the sensor as {@code offset:seq}, fetched page by page.
+     */
+    private static List<String> walkPages(Instant base, int limit) {
+        List<String> readings = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReadingsPage page = sensorService.getReadingsPage("paged", base, base.plusSeconds(1), cursor, limit);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(limit);
+            for (SensorData data : page.getItems()) {
+                readings.add((data.getTimestamp().toEpochMilli() - base.toEpochMilli()) + ":"
+                        + data.getReadings().get("seq").intValue());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return readings;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.service;
+
+import org.example.sharding.RedisShards;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThroughputMonitorTest {
+
+    private static RedisTestContext context;
+    private static ThroughputMonitor monitor;
+    private static RedisShards redisShards;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(2, Map.of(), ThroughputMonitor.class);
+        monitor = context.bean(ThroughputMonitor.class);
+        redisShards = context.bean(RedisShards.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void writesEveryDeltaOnceWhenOnlyTheWindowReadFails() {
+        monitor.increment(5);
+        monitor.flush();
+        RedisShards.Shard counterShard = redisShards.getShards().stream()
+                .filter(shard -> counted(shard) > 0)
+                .findFirst()
+                .orElseThrow();
+        int otherNode = 1 - counterShard.index();
+
+        context.stopNode(otherNode);
+        try {
+            // The deltas reach the counter shard, the window read over both shards fails.
+            monitor.increment(7);
+            monitor.flush();
+        } finally {
+            context.startNode(otherNode);
+        }
+        monitor.increment(11);
+        monitor.flush();
+
+        assertThat(counted(counterShard)).isEqualTo(23);
+    }
+
+    private static long counted(RedisShards.Shard shard) {
+        Set<String> keys = shard.template().keys("throughput:*");
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+        List<Object> values = shard.template().opsForValue().multiGet(keys);
+        return values.stream().mapToLong(value -> ((Number) value).longValue()).sum();
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.service;
+
+import org.example.model.Worker;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WorkerServiceTest {
+
+    private static RedisTestContext context;
+    private static WorkerService workerService;
+
+    @BeforeAll
+    static void start() {
+        context = new RedisTestContext(1, Map.of("workers.liveness.sweep-batch-size", 2),
+                IngestionStreamQueue.class, WorkerService.class);
+        workerService = context.bean(WorkerService.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        context.flushAll();
+    }
+
+    @Test
+    void sweepsDeadAndStaleWorkersInBatchesOfPerWorkerScripts() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            register("dead-" + i, now - Duration.ofMinutes(10).toMillis());
+        }
+        for (int i = 0; i < 3; i++) {
+            register("stale-" + i, now - Duration.ofMinutes(1).toMillis());
+        }
+        register("live", now);
+
+        workerService.sweep();
+
+        Map<String, String> statuses = workerService.getAllWorkers().stream()
+                .collect(Collectors.toMap(Worker::getWorkerId, Worker::getStatus));
+        assertThat(statuses).containsOnly(Map.entry("stale-0", "stale"), Map.entry("stale-1", "stale"),
+                Map.entry("stale-2", "stale"), Map.entry("live", "active"));
+        assertThat(context.template().hasKey("worker:dead-0")).isFalse();
+        assertThat(context.template().opsForZSet().zCard("workers:heartbeats")).isEqualTo(4);
+        assertThat(workerService.countActiveWorkers()).isEqualTo(1);
+        assertThat(workerService.recordHeartbeat("dead-4", 1)).isFalse();
+    }
+
+    @Test
+    void computesTheRateAndItsMovingAverageFromTheLastSample() throws IOException {
+        register("rated", 0);
+        long tau = 30_000;
+
+        // A single sample has no rate yet.
+        assertThat(heartbeat("rated", 1_000, 0, 8, tau)).isEqualTo(1);
+        assertThat(rate("rated", "processing_rate")).isZero();
+        heartbeat("rated", 3_000, 100, 8, tau);
+        // The first rate starts the average.
+        assertThat(rate("rated", "processing_rate")).isEqualTo(50.0);
+        assertThat(rate("rated", "processing_rate_ewma")).isEqualTo(50.0);
+        heartbeat("rated", 4_000, 300, 8, tau);
+
+        double alpha = 1 - Math.exp(-1_000.0 / tau);
+        assertThat(rate("rated", "processing_rate")).isEqualTo(200.0);
+        assertThat(rate("rated", "processing_rate_ewma")).isCloseTo(alpha * 200 + (1 - alpha) * 50, within(1e-9));
+        assertThat(hash("rated")).containsEntry("processed_count", "300").containsEntry("last_heartbeat", "4000")
+                .containsEntry("heartbeat_samples", "1000:0,3000:100,4000:300");
+        assertThat(liveness("rated")).isEqualTo(4_000.0);
+    }
+
+    @Test
+    void startsOverWhenTheProcessedCountGoesBack() throws IOException {
+        register("restarted", 0);
+        heartbeat("restarted", 1_000, 500, 8, 30_000);
+        heartbeat("restarted", 2_000, 900, 8, 30_000);
+
+        heartbeat("restarted", 3_000, 20, 8, 30_000);
+
+        assertThat(hash("restarted")).containsEntry("heartbeat_samples", "3000:20").containsEntry("processed_count", "20");
+        assertThat(rate("restarted", "processing_rate")).isZero();
+        assertThat(rate("restarted", "processing_rate_ewma")).isZero();
+        heartbeat("restarted", 4_000, 70, 8, 30_000);
+        assertThat(rate("restarted", "processing_rate")).isEqualTo(50.0);
+        assertThat(rate("restarted", "processing_rate_ewma")).isEqualTo(50.0);
+    }
+
+    @Test
+    void keepsOnlyTheConfiguredNumberOfSamples() throws IOException {
+        register("trimmed", 0);
+        for (int i = 1; i <= 5; i++) {
+            heartbeat("trimmed", i * 1_000L, i * 10L, 3, 30_000);
+        }
+
+        assertThat(hash("trimmed")).containsEntry("heartbeat_samples", "3000:30,4000:40,5000:50");
+    }
+
+    @Test
+    void ignoresHeartbeatsOfUnknownWorkers() throws IOException {
+        assertThat(heartbeat("unknown", 1_000, 1, 8, 30_000)).isZero();
+        assertThat(workerService.updateHealth("unknown", 1)).isNull();
+        assertThat(workerService.recordHeartbeat("unknown", 1)).isFalse();
+        assertThat(context.template().hasKey("worker:unknown")).isFalse();
+        assertThat(liveness("unknown")).isNull();
+    }
+
+    @Test
+    void recordsHeartbeatsThroughTheService() {
+        long before = System.currentTimeMillis();
+        register("reporting", before - Duration.ofMinutes(1).toMillis());
+        context.template().execute((RedisCallback<Boolean>) connection ->
+                connection.hashCommands().hSet(bytes("worker:reporting"), bytes("status"), bytes("stale")));
+
+        assertThat(workerService.recordHeartbeat("reporting", 10)).isTrue();
+        Worker worker = workerService.updateHealth("reporting", 30);
+
+        assertThat(worker.getWorkerId()).isEqualTo("reporting");
+        assertThat(worker.getStatus()).isEqualTo("active");
+        assertThat(worker.getProcessedCount()).isEqualTo(30);
+        assertThat(worker.getHeartbeatSamples()).extracting(Worker.HeartbeatSample::getProcessedCount).containsExactly(10L, 30L);
+        assertThat(worker.getProcessingRate()).isPositive();
+        assertThat(worker.getLastHeartbeat()).isAfterOrEqualTo(Instant.ofEpochMilli(before));
+        assertThat(workerService.countActiveWorkers()).isEqualTo(1);
+    }
+
+    @Test
+    void migratesWorkersStoredAsJsonValuesToHashes() {
+        Worker legacy = new Worker();
+        legacy.setWorkerId("legacy");
+        legacy.setStatus("active");
+        legacy.setRegisteredAt(Instant.ofEpochMilli(1_000));
+        legacy.setLastHeartbeat(Instant.ofEpochMilli(5_000));
+        legacy.setProcessedCount(42);
+        context.template().opsForValue().set("worker:legacy", legacy);
+        context.template().opsForSet().add("workers:index", "legacy");
+        register("untracked", 0);
+        context.template().execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zRem(bytes("workers:heartbeats"), bytes("untracked")));
+
+        workerService.migrateLegacyWorkers();
+
+        assertThat(context.template().type("worker:legacy")).isEqualTo(DataType.HASH);
+        assertThat(hash("legacy")).containsEntry("worker_id", "legacy").containsEntry("status", "active")
+                .containsEntry("registered_at", "1000").containsEntry("last_heartbeat", "5000")
+                .containsEntry("processed_count", "42");
+        assertThat(liveness("legacy")).isEqualTo(5_000.0);
+        assertThat(liveness("untracked")).isNotNull();
+        assertThat(workerService.getAllWorkers()).extracting(Worker::getWorkerId).containsExactlyInAnyOrder("legacy", "untracked");
+    }
+
+    /**
+     * Runs the heartbeat script with a given clock, returning its reply without the worker read back.
+     */
+    private static long heartbeat(String workerId, long now, long processedCount, int samples, long tauMillis) throws IOException {
+        String script = new ClassPathResource("scripts/worker_heartbeat.lua").getContentAsString(StandardCharsets.UTF_8);
+        Long reply = context.template().execute((RedisCallback<Long>) connection -> connection.scriptingCommands().eval(
+                bytes(script), ReturnType.INTEGER, 2, bytes("worker:" + workerId), bytes("workers:heartbeats"),
+                bytes(Long.toString(now)), bytes(Long.toString(processedCount)), bytes(Integer.toString(samples)),
+                bytes(Long.toString(tauMillis)), bytes("0"), bytes(workerId)));
+        return reply;
+    }
+
+    private static Map<String, String> hash(String workerId) {
+        Map<byte[], byte[]> fields = context.template().execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(bytes("worker:" + workerId)));
+        Map<String, String> hash = new LinkedHashMap<>();
+        fields.forEach((field, value) -> hash.put(new String(field, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8)));
+        return hash;
+    }
+
+    private static Double liveness(String workerId) {
+        return context.template().execute((RedisCallback<Double>) connection ->
+                connection.zSetCommands().zScore(bytes("workers:heartbeats"), bytes(workerId)));
+    }
+
+    private static double rate(String workerId, String field) {
+        return Double.parseDouble(hash(workerId).get(field));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void register(String workerId, long lastHeartbeat) {
+        Worker worker = new Worker();
+        worker.setWorkerId(workerId);
+        worker.setStatus("active");
+        workerService.registerWorker(worker);
+        context.template().execute((RedisCallback<Boolean>) connection -> connection.zSetCommands()
+                .zAdd("workers:heartbeats".getBytes(StandardCharsets.UTF_8), lastHeartbeat, workerId.getBytes(StandardCharsets.UTF_8)));
+    }
+}
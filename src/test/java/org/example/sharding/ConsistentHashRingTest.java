@@ -0,0 +1,82 @@
+package org.example.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 60_000;
+    private static final int VIRTUAL_NODES = 160;
+
+    @Test
+    void spreadsKeysEvenlyOverTheNodes() {
+        ConsistentHashRing<String> ring = ring("a:6379", "b:6379", "c:6379");
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("sensor-" + i), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 3 * 85 / 100, KEYS / 3 * 115 / 100));
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        ConsistentHashRing<String> before = ring("a:6379", "b:6379", "c:6379");
+        ConsistentHashRing<String> after = ring("a:6379", "b:6379", "c:6379", "d:6379");
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "sensor-" + i;
+            if (!before.nodeFor(key).equals(after.nodeFor(key))) {
+                assertThat(after.nodeFor(key)).isEqualTo("d:6379");
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(KEYS / 4 * 80 / 100, KEYS / 4 * 120 / 100);
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing<String> before = ring("a:6379", "b:6379", "c:6379", "d:6379");
+        ConsistentHashRing<String> after = ring("a:6379", "c:6379", "d:6379");
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "sensor-" + i;
+            if (!before.nodeFor(key).equals("b:6379")) {
+                assertThat(after.nodeFor(key)).isEqualTo(before.nodeFor(key));
+            }
+        }
+    }
+
+    @Test
+    void placesKeysTheSameRegardlessOfNodeOrder() {
+        ConsistentHashRing<String> ring = ring("a:6379", "b:6379", "c:6379");
+        ConsistentHashRing<String> reordered = ring("c:6379", "a:6379", "b:6379");
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(reordered.nodeFor("sensor-" + i)).isEqualTo(ring.nodeFor("sensor-" + i));
+        }
+    }
+
+    @Test
+    void rejectsAnEmptyRing() {
+        assertThatThrownBy(() -> new ConsistentHashRing<>(Map.of(), VIRTUAL_NODES)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ConsistentHashRing<String> ring(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : List.of(names)) {
+            nodes.put(name, name);
+        }
+        return new ConsistentHashRing<>(nodes, VIRTUAL_NODES);
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.sharding;
+
+import org.example.model.ShardRebalanceReport;
+import org.example.service.SensorIndex;
+import org.example.support.RedisTestContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ShardRebalancerTest {
+
+    private static final int SENSORS = 100;
+    private static final String HOUR = "3600000";
+
+    private static RedisTestContext context;
+    private static RedisShards redisShards;
+    private static ShardRebalancer rebalancer;
+
+    @BeforeAll
+    static void start() {
+        // A small batch so that the SCAN and SSCAN cursors and the moves go over many pages.
+        context = new RedisTestContext(3, Map.of("redis.sharding.rebalance.batch-size", 7), ShardRebalancer.class);
+        redisShards = context.bean(RedisShards.class);
+        rebalancer = context.bean(ShardRebalancer.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        context.flushAll();
+    }
+
+    @Test
+    void movesEveryMisplacedKeyToItsOwnerAfterANodeWasAdded() {
+        // The sensors were written while the ring had the first two nodes only.
+        List<RedisShards.Shard> shards = redisShards.getShards();
+        Map<String, RedisShards.Shard> twoNodes = new LinkedHashMap<>();
+        twoNodes.put(shards.get(0).name(), shards.get(0));
+        twoNodes.put(shards.get(1).name(), shards.get(1));
+        ConsistentHashRing<RedisShards.Shard> oldRing = new ConsistentHashRing<>(twoNodes, 160);
+        long misplaced = 0;
+        String merged = null;
+        for (int i = 0; i < SENSORS; i++) {
+            String sensorId = "sensor-" + i;
+            RedisShards.Shard oldOwner = oldRing.nodeFor(sensorId);
+            write(oldOwner, sensorId, "old", i % 2 == 0 ? HOUR : null, 2);
+            oldOwner.template().opsForSet().add(SensorIndex.ALL_SENSORS_KEY, sensorId);
+            if (oldOwner.index() != redisShards.forSensor(sensorId).index()) {
+                misplaced += 2;
+                if (merged == null && i % 2 == 0) {
+                    merged = sensorId;
+                }
+            }
+        }
+        // Written on the new owner since the ring changed, without an expiry.
+        write(redisShards.forSensor(merged), merged, "new", null, 3);
+
+        ShardRebalanceReport started = rebalancer.start();
+
+        assertThat(started.getState()).isEqualTo(ShardRebalanceReport.RUNNING);
+        ShardRebalanceReport report = awaitFinished();
+        assertThat(report.getState()).isEqualTo(ShardRebalanceReport.COMPLETED);
+        assertThat(report.getShards()).isEqualTo(3);
+        assertThat(report.getKeysMoved()).isEqualTo(misplaced);
+        assertThat(report.getSensorsMoved()).isEqualTo(misplaced / 2);
+        assertThat(report.getKeysMerged()).isEqualTo(2);
+        for (int i = 0; i < SENSORS; i++) {
+            String sensorId = "sensor-" + i;
+            RedisShards.Shard owner = redisShards.forSensor(sensorId);
+            for (RedisShards.Shard shard : shards) {
+                boolean owns = shard.index() == owner.index();
+                assertThat(shard.template().hasKey(dataKey(sensorId))).as("%s on %s", sensorId, shard.name()).isEqualTo(owns);
+                assertThat(shard.template().hasKey(rollupKey(sensorId))).isEqualTo(owns);
+                assertThat(shard.template().opsForSet().isMember(SensorIndex.ALL_SENSORS_KEY, sensorId)).isEqualTo(owns);
+                assertThat(shard.template().hasKey(ShardRebalancer.JOURNAL_KEY)).isFalse();
+            }
+            if (!sensorId.equals(merged)) {
+                assertThat(pTtl(owner, dataKey(sensorId)) > 0).as("expiry of %s", sensorId).isEqualTo(i % 2 == 0);
+            }
+        }
+        RedisShards.Shard owner = redisShards.forSensor(merged);
+        assertThat(owner.template().opsForZSet().size(dataKey(merged))).isEqualTo(4);
+        assertThat(pTtl(owner, dataKey(merged))).isEqualTo(-1);
+        assertThat(pTtl(owner, rollupKey(merged))).isEqualTo(-1);
+        assertThat(hGet(owner, rollupKey(merged), "t|count")).isEqualTo("5");
+        // Once the run thread is done, a second run finds nothing left to move.
+        await().atMost(Duration.ofSeconds(5)).until(rebalancer::start, Objects::nonNull);
+        assertThat(awaitFinished().getKeysMoved()).isZero();
+    }
+
+    @Test
+    void skipsARestoreThatWasAlreadyApplied() throws IOException {
+        RedisShards.Shard source = redisShards.getShards().get(0);
+        RedisShards.Shard owner = redisShards.getShards().get(1);
+        write(source, "retried", "old", HOUR, 2);
+        write(owner, "retried", "new", HOUR, 3);
+        byte[] payload = source.template().execute((RedisCallback<byte[]>) connection ->
+                connection.keyCommands().dump(bytes(rollupKey("retried"))));
+
+        // The first attempt failed before deleting the key on the source, so the next run restores it again.
+        assertThat(restore(owner, rollupKey("retried"), payload, HOUR, source.name())).isEqualTo(2);
+        assertThat(restore(owner, rollupKey("retried"), payload, HOUR, source.name())).isEqualTo(3);
+
+        assertThat(hGet(owner, rollupKey("retried"), "t|count")).isEqualTo("5");
+        assertThat(pTtl(owner, rollupKey("retried"))).isPositive();
+    }
+
+    @Test
+    void refusesToStartWhileAnotherNodeHoldsTheLock() {
+        context.template().opsForValue().set("shards:rebalance:lock", "other-node");
+
+        assertThat(rebalancer.start()).isNull();
+    }
+
+    private static ShardRebalanceReport awaitFinished() {
+        return await().atMost(Duration.ofSeconds(30)).until(rebalancer::getStatus,
+                status -> status != null && !ShardRebalanceReport.RUNNING.equals(status.getState()));
+    }
+
+    /**
+     * A readings ZSET with two members and a rollup hash counting {@code count}, both with the given TTL.
+     */
+    private static void write(RedisShards.Shard shard, String sensorId, String member, String ttl, int count) {
+        shard.template().execute((RedisCallback<Object>) connection -> {
+            connection.zSetCommands().zAdd(bytes(dataKey(sensorId)), 1, bytes(member + "-1"));
+            connection.zSetCommands().zAdd(bytes(dataKey(sensorId)), 2, bytes(member + "-2"));
+            connection.hashCommands().hSet(bytes(rollupKey(sensorId)), bytes("t|count"), bytes(Integer.toString(count)));
+            if (ttl != null) {
+                connection.keyCommands().pExpire(bytes(dataKey(sensorId)), Long.parseLong(ttl));
+                connection.keyCommands().pExpire(bytes(rollupKey(sensorId)), Long.parseLong(ttl));
+            }
+            return null;
+        });
+    }
+
+    private static Long restore(RedisShards.Shard owner, String key, byte[] payload, String ttl, String source) throws IOException {
+        String script = new ClassPathResource("scripts/shard_restore.lua").getContentAsString(StandardCharsets.UTF_8);
+        return owner.template().execute((RedisCallback<Long>) connection -> connection.scriptingCommands().eval(bytes(script),
+                ReturnType.INTEGER, 3, bytes(key), bytes(key + ":rebalance"), bytes(ShardRebalancer.JOURNAL_KEY), payload,
+                bytes(ttl), bytes(source)));
+    }
+
+    private static long pTtl(RedisShards.Shard shard, String key) {
+        return shard.template().execute((RedisCallback<Long>) connection -> connection.keyCommands().pTtl(bytes(key)));
+    }
+
+    private static String hGet(RedisShards.Shard shard, String key, String field) {
+        byte[] value = shard.template().execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(bytes(key), bytes(field)));
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static String dataKey(String sensorId) {
+        return "sensor:" + sensorId + ":data";
+    }
+
+    private static String rollupKey(String sensorId) {
+        return "sensor:" + sensorId + ":rollup:1m:60000";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.ClientOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.RedisConfig;
+import org.example.service.SensorSchemaRegistry;
+import org.example.sharding.RedisShards;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The given components of the application wired against embedded redis-server processes, one per node, with
+ * {@code application.properties} plus the given overrides. {@link RedisConfig}, {@link RedisShards} and
+ * {@link SensorSchemaRegistry} are always present. With several nodes the first one is the primary
+ * {@code spring.data.redis} connection and all of them are listed in {@code redis.sharding.nodes}. Scheduling is
+ * off, so scheduled jobs only run when a test calls them. Commands fail fast while a node is stopped.
+ */
+public final class RedisTestContext implements AutoCloseable {
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(2);
+
+    private final List<Integer> ports = new ArrayList<>();
+    private final List<RedisServer> servers = new ArrayList<>();
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+    public RedisTestContext(int nodes, Map<String, Object> properties, Class<?>... components) {
+        for (int i = 0; i < nodes; i++) {
+            ports.add(freePort());
+            servers.add(null);
+            startNode(i);
+        }
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("spring.data.redis.timeout", COMMAND_TIMEOUT.toMillis() + "ms");
+        if (nodes > 1) {
+            overrides.put("redis.sharding.nodes", ports.stream().map(port -> "127.0.0.1:" + port).collect(Collectors.joining(",")));
+        }
+        overrides.putAll(properties);
+        try {
+            context.getEnvironment().getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", overrides));
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        context.registerBean("redisConnectionFactory", RedisConnectionFactory.class, () -> connect(ports.get(0)));
+        context.registerBean(ObjectMapper.class, () -> objectMapper);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(RedisConfig.class, RedisShards.class, SensorSchemaRegistry.class);
+        context.register(components);
+        context.refresh();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public RedisTemplate<String, Object> template() {
+        return context.getBean("redisTemplate", RedisTemplate.class);
+    }
+
+    public int port(int node) {
+        return ports.get(node);
+    }
+
+    public void stopNode(int node) {
+        try {
+            servers.get(node).stop();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts the node, empty, on its port.
+     */
+    public void startNode(int node) {
+        try {
+            RedisServer server = RedisServer.newRedisServer()
+                    .bind("127.0.0.1")
+                    .port(ports.get(node))
+                    .setting("save \"\"")
+                    .setting("appendonly no")
+                    .build();
+            server.start();
+            servers.set(node, server);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flushAll() {
+        for (int port : ports) {
+            LettuceConnectionFactory factory = connect(port);
+            try {
+                factory.getConnection().serverCommands().flushAll();
+            } finally {
+                factory.destroy();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        for (RedisServer server : servers) {
+            try {
+                server.stop();
+            } catch (IOException | RuntimeException e) {
+                // Already stopped by the test.
+            }
+        }
+    }
+
+    private static LettuceConnectionFactory connect(int port) {
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(COMMAND_TIMEOUT)
+                .clientOptions(ClientOptions.builder().disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS).build())
+                .build();
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port), clientConfiguration);
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}